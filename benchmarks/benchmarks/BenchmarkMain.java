@@ -0,0 +1,62 @@
+package benchmarks;
+
+/**
+ * The entry point of the benchmarks.
+ * <p>
+ * Usage: {@code java benchmarks.BenchmarkMain [options] [regex]}, with the compiled sources, unit tests
+ * and benchmarks on the class path. The regular expression selects the benchmarks by name
+ * (e.g. {@code intersection\.sphere}, {@code geometries\.bvh}, {@code mesh}, {@code traceRay}, {@code renderImage}).
+ * <ul>
+ * <li>{@code -wi N} - the amount of warmup iterations (default 3)</li>
+ * <li>{@code -i N} - the amount of measured iterations (default 5)</li>
+ * <li>{@code -r S} - the duration of an iteration in seconds (default 1)</li>
+ * <li>{@code -t N,M,...} - the amounts of concurrent measuring threads (default 1)</li>
+ * <li>{@code -l} - only list the names of the benchmarks</li>
+ * </ul>
+ * Compare runs with the same options on the same machine - e.g. before and after an optimization.
+ * Run with {@code --add-modules jdk.incubator.vector} to measure the vector intersection kernel too.
+ */
+public final class BenchmarkMain {
+
+    /** Don't let anyone instantiate this class. */
+    private BenchmarkMain() {}
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args The command line options.
+     */
+    public static void main(String[] args) {
+        Harness harness = new Harness();
+        boolean list = false;
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "-wi" -> harness.setWarmupIterations(Integer.parseInt(args[++i]));
+                case "-i" -> harness.setIterations(Integer.parseInt(args[++i]));
+                case "-r" -> harness.setIterationTime(Double.parseDouble(args[++i]));
+                case "-t" -> {
+                    String[] counts = args[++i].split(",");
+                    int[] threads = new int[counts.length];
+                    for (int j = 0; j < counts.length; ++j) {
+                        threads[j] = Integer.parseInt(counts[j].trim());
+                    }
+                    harness.setThreads(threads);
+                }
+                case "-l" -> list = true;
+                default -> harness.setFilter(args[i]);
+            }
+        }
+
+        IntersectionBenchmarks.register(harness);
+        GeometriesBenchmarks.register(harness);
+        MeshBenchmarks.register(harness);
+        ShadingBenchmarks.register(harness);
+        RenderBenchmarks.register(harness);
+
+        if (list) {
+            harness.names().forEach(System.out::println);
+        } else {
+            harness.run(System.out);
+        }
+    }
+}
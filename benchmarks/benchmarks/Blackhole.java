@@ -0,0 +1,56 @@
+package benchmarks;
+
+/**
+ * The Blackhole class consumes the results of benchmarked operations, so that the JIT compiler can't
+ * eliminate the computation of a result that is never used.
+ * Every measuring thread owns its own blackhole, so consuming a result costs a plain field store.
+ */
+public final class Blackhole {
+
+    /** The last consumed object. */
+    private Object object;
+
+    /** The sum of the consumed numbers. */
+    private double sum;
+
+    /** The amount of consumed null results - e.g. rays that miss the geometry. */
+    private long nulls;
+
+    /**
+     * Consumes an object.
+     *
+     * @param object The object to be consumed, may be null.
+     */
+    public void consume(Object object) {
+        if (object == null) {
+            ++this.nulls;
+        } else {
+            this.object = object;
+        }
+    }
+
+    /**
+     * Consumes a number.
+     *
+     * @param value The number to be consumed.
+     */
+    public void consume(double value) {
+        this.sum += value;
+    }
+
+    /**
+     * Consumes a boolean value.
+     *
+     * @param value The value to be consumed.
+     */
+    public void consume(boolean value) {
+        if (value) {
+            this.sum += 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Blackhole[" + this.object + "," + this.sum + "," + this.nulls + "]";
+    }
+}
@@ -0,0 +1,327 @@
+package benchmarks;
+
+import geometries.BvhBuilder;
+import geometries.Geometries;
+import geometries.GridGeometries;
+import geometries.Instance;
+import geometries.IntersectionKernel;
+import geometries.RayPacket;
+import geometries.Sphere;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks of the traversal of a collection of geometries - a cloud of random spheres of 10, 1k and 100k
+ * objects, searched linearly and through a bounding volume hierarchy, and a cloud of 1k spheres in nested
+ * groups culled by their bounding boxes.
+ * The closest-hit query is the one of the primary and secondary rays, the transmittance query the one
+ * of the shadow rays. The coherent primary rays are traced both one by one and in packets.
+ * The intersection kernels are compared over hierarchies of leaves of 8 spheres; the vector kernel is measured
+ * only when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ * The frames of an animated cloud of 100k instances, of which 1% move every frame, are brought up to date by
+ * refitting the hierarchy of the previous frame and by building it again.
+ */
+public final class GeometriesBenchmarks {
+
+    /** The amounts of spheres in the clouds. */
+    private static final int[] SIZES = { 10, 1_000, 100_000 };
+
+    /** The half-size of the cube of the cloud. */
+    private static final double SPREAD = 10;
+
+    /** The amount of the instances of an animated cloud that move every frame. */
+    private static final int MOVED = 1_000;
+
+    /** Don't let anyone instantiate this class. */
+    private GeometriesBenchmarks() {}
+
+    /**
+     * Creates the primary rays of a camera in front of the cloud through a grid of 64x64 pixels that covers it.
+     * The rays are ordered by blocks of 4x4 neighboring pixels, as they are traced in packets.
+     *
+     * @return The rays.
+     */
+    static Ray[] primaryRays() {
+        Point eye = new Point(0, 0, -4 * SPREAD);
+        Ray[] rays = new Ray[64 * 64];
+        int index = 0;
+        for (int blockRow = 0; blockRow < 64; blockRow += 4) {
+            for (int blockCol = 0; blockCol < 64; blockCol += 4) {
+                for (int i = blockRow; i < blockRow + 4; ++i) {
+                    for (int j = blockCol; j < blockCol + 4; ++j) {
+                        double x = (j - 31.5) / 32 * SPREAD, y = (31.5 - i) / 32 * SPREAD;
+                        rays[index++] = new Ray(eye, new Point(x, y, -SPREAD).subtract(eye));
+                    }
+                }
+            }
+        }
+        return rays;
+    }
+
+    /**
+     * Creates a cloud of random spheres, whose radius shrinks with their amount so that the cloud keeps
+     * its density.
+     *
+     * @param count The amount of spheres.
+     * @param hierarchy True to build a bounding volume hierarchy over the spheres.
+     * @return The cloud.
+     */
+    static Geometries cloud(int count, boolean hierarchy) {
+        Geometries geometries = new Geometries(spheres(count));
+        return hierarchy ? geometries.buildBvh() : geometries;
+    }
+
+    /**
+     * Creates the random spheres of a cloud, whose radius shrinks with their amount so that the cloud keeps
+     * its density.
+     *
+     * @param count The amount of spheres.
+     * @return The spheres.
+     */
+    static Sphere[] spheres(int count) {
+        Random random = new Random(count);
+        double radius = SPREAD / Math.cbrt(count) / 2;
+        Sphere[] spheres = new Sphere[count];
+        for (int i = 0; i < count; ++i) {
+            spheres[i] = new Sphere(radius, new Point((random.nextDouble() * 2 - 1) * SPREAD,
+                    (random.nextDouble() * 2 - 1) * SPREAD, (random.nextDouble() * 2 - 1) * SPREAD));
+        }
+        return spheres;
+    }
+
+    /**
+     * Creates the same cloud of random spheres as {@link #cloud(int, boolean)}, indexed by a grid.
+     *
+     * @param count The amount of spheres.
+     * @return The cloud.
+     */
+    static GridGeometries grid(int count) {
+        return new GridGeometries(spheres(count)).build();
+    }
+
+    /**
+     * Creates a cloud of random spheres grouped by hand, with no hierarchy - the spheres of every cell of a grid
+     * of 4x4x4 cells over the cloud in a nested collection, which a ray skips as a whole by its bounding box.
+     *
+     * @param count The amount of spheres.
+     * @return The cloud.
+     */
+    static Geometries grouped(int count) {
+        Random random = new Random(count);
+        double radius = SPREAD / Math.cbrt(count) / 2;
+        Geometries[] cells = new Geometries[64];
+        for (int c = 0; c < cells.length; ++c) {
+            cells[c] = new Geometries();
+        }
+        for (int i = 0; i < count; ++i) {
+            double x = (random.nextDouble() * 2 - 1) * SPREAD, y = (random.nextDouble() * 2 - 1) * SPREAD;
+            double z = (random.nextDouble() * 2 - 1) * SPREAD;
+            int cell = cell(x) * 16 + cell(y) * 4 + cell(z);
+            cells[cell].add(new Sphere(radius, new Point(x, y, z)));
+        }
+        return new Geometries(cells);
+    }
+
+    /**
+     * Finds the cell of a coordinate of the cloud in a grid of 4 cells along an axis.
+     *
+     * @param coordinate The coordinate.
+     * @return The index of the cell.
+     */
+    private static int cell(double coordinate) {
+        return Math.min(3, (int) ((coordinate + SPREAD) / (2 * SPREAD) * 4));
+    }
+
+    /**
+     * Creates a cloud of random spheres with a hierarchy of leaves of 8 spheres, intersected by a kernel.
+     *
+     * @param count The amount of spheres.
+     * @param kernel The intersection kernel, null for intersecting every sphere by itself.
+     * @return The cloud.
+     */
+    static Geometries cloud(int count, IntersectionKernel kernel) {
+        return cloud(count, false).setIntersectionKernel(kernel).buildBvh(new BvhBuilder().setLeafSize(8));
+    }
+
+    /**
+     * Creates the same cloud of random spheres as {@link #cloud(int, boolean)}, of instances of a shared sphere
+     * that can be moved from frame to frame.
+     *
+     * @param count The amount of spheres.
+     * @return The instances.
+     */
+    static Instance[] instances(int count) {
+        Geometries unit = new Geometries(new Sphere(1, Point.ZERO)).buildBvh();
+        Random random = new Random(count);
+        Transform scaling = Transform.scaling(SPREAD / Math.cbrt(count) / 2);
+        Instance[] instances = new Instance[count];
+        for (int i = 0; i < count; ++i) {
+            instances[i] = new Instance(unit, scaling.then(Transform.translation(new Vector(
+                    (random.nextDouble() * 2 - 1) * SPREAD, (random.nextDouble() * 2 - 1) * SPREAD,
+                    (random.nextDouble() * 2 - 1) * SPREAD))));
+        }
+        return instances;
+    }
+
+    /**
+     * Moves the next instances of an animated cloud for a frame - each one a little back and forth, by the
+     * parity of the frame, so that the cloud does not drift from frame to frame.
+     *
+     * @param instances The instances.
+     * @param frame The number of the frame.
+     */
+    static void animate(Instance[] instances, int frame) {
+        Vector step = new Vector(0.05, -0.03, 0.04).scale(frame % 2 == 0 ? SPREAD : -SPREAD);
+        Transform move = Transform.translation(step);
+        int first = (frame / 2 * MOVED) % instances.length;
+        for (int i = first; i < first + MOVED; ++i) {
+            Instance instance = instances[i % instances.length];
+            instance.setTransform(instance.getTransform().then(move));
+        }
+    }
+
+    /**
+     * Registers the benchmarks of the clouds.
+     *
+     * @param harness The harness to register the benchmarks in.
+     */
+    static void register(Harness harness) {
+        Ray[] rays = IntersectionBenchmarks.randomRays(2, IntersectionBenchmarks.RAYS, 4 * SPREAD, SPREAD);
+        for (int size : SIZES) {
+            for (boolean hierarchy : new boolean[] { false, true }) {
+                String name = "geometries." + (hierarchy ? "bvh." : "linear.") + size;
+                harness.add(name + ".closest", () -> cloud(size, hierarchy),
+                        cloud -> new IntersectionBenchmarks.Operation(rays) {
+                            @Override
+                            public void run(Blackhole blackhole) {
+                                blackhole.consume(cloud.findClosestGeoIntersection(nextRay()));
+                            }
+                        });
+                harness.add(name + ".transmittance", () -> cloud(size, hierarchy),
+                        cloud -> new IntersectionBenchmarks.Operation(rays) {
+                            @Override
+                            public void run(Blackhole blackhole) {
+                                blackhole.consume(cloud.transmittance(nextRay(), 8 * SPREAD));
+                            }
+                        });
+            }
+        }
+        // the same clouds indexed by a grid
+        for (int size : SIZES) {
+            String name = "geometries.grid." + size;
+            harness.add(name + ".closest", () -> grid(size),
+                    cloud -> new IntersectionBenchmarks.Operation(rays) {
+                        @Override
+                        public void run(Blackhole blackhole) {
+                            blackhole.consume(cloud.findClosestGeoIntersection(nextRay()));
+                        }
+                    });
+            harness.add(name + ".transmittance", () -> grid(size),
+                    cloud -> new IntersectionBenchmarks.Operation(rays) {
+                        @Override
+                        public void run(Blackhole blackhole) {
+                            blackhole.consume(cloud.transmittance(nextRay(), 8 * SPREAD));
+                        }
+                    });
+        }
+        // the same cloud of 1k spheres in flat nested groups, culled by the boxes of the groups
+        harness.add("geometries.grouped.1000.closest", () -> grouped(1_000),
+                cloud -> new IntersectionBenchmarks.Operation(rays) {
+                    @Override
+                    public void run(Blackhole blackhole) {
+                        blackhole.consume(cloud.findClosestGeoIntersection(nextRay()));
+                    }
+                });
+        // coherent primary rays, 16 per operation - traced one by one and as a packet
+        Ray[] primary = primaryRays();
+        for (int size : new int[] { 1_000, 100_000 }) {
+            String name = "geometries.bvh." + size + ".primary";
+            harness.add(name + ".single16", () -> cloud(size, true),
+                    cloud -> new IntersectionBenchmarks.Operation(primary) {
+                        @Override
+                        public void run(Blackhole blackhole) {
+                            for (int i = 0; i < RayPacket.MAX_SIZE; ++i) {
+                                blackhole.consume(cloud.findClosestGeoIntersection(nextRay()));
+                            }
+                        }
+                    });
+            harness.add(name + ".packet16", () -> cloud(size, true), cloud -> {
+                RayPacket packet = new RayPacket(RayPacket.MAX_SIZE);
+                return new IntersectionBenchmarks.Operation(primary) {
+                    @Override
+                    public void run(Blackhole blackhole) {
+                        packet.clear();
+                        for (int i = 0; i < RayPacket.MAX_SIZE; ++i) {
+                            packet.add(nextRay());
+                        }
+                        cloud.findClosestGeoIntersections(packet);
+                        blackhole.consume(packet.getHit(0));
+                    }
+                };
+            });
+        }
+        // the intersection kernels against the spheres intersected by themselves, on the same hierarchies
+        List<IntersectionKernel> kernels = new ArrayList<>(Arrays.asList(null, IntersectionKernel.scalar()));
+        if (IntersectionKernel.vector() != null) {
+            kernels.add(IntersectionKernel.vector());
+        }
+        for (IntersectionKernel kernel : kernels) {
+            for (int size : new int[] { 1_000, 100_000 }) {
+                String name = "geometries.kernel." + (kernel == null ? "none" : kernel.getName()) + "." + size;
+                harness.add(name + ".closest", () -> cloud(size, kernel),
+                        cloud -> new IntersectionBenchmarks.Operation(rays) {
+                            @Override
+                            public void run(Blackhole blackhole) {
+                                blackhole.consume(cloud.findClosestGeoIntersection(nextRay()));
+                            }
+                        });
+                harness.add(name + ".primary.packet16", () -> cloud(size, kernel), cloud -> {
+                    RayPacket packet = new RayPacket(RayPacket.MAX_SIZE);
+                    return new IntersectionBenchmarks.Operation(primary) {
+                        @Override
+                        public void run(Blackhole blackhole) {
+                            packet.clear();
+                            for (int i = 0; i < RayPacket.MAX_SIZE; ++i) {
+                                packet.add(nextRay());
+                            }
+                            cloud.findClosestGeoIntersections(packet);
+                            blackhole.consume(packet.getHit(0));
+                        }
+                    };
+                });
+            }
+        }
+        // building changes the collection, so every measuring thread builds over its own cloud
+        harness.add("geometries.bvh.build.100000", () -> SIZES[SIZES.length - 1], size -> {
+            Geometries cloud = cloud(size, false);
+            return blackhole -> blackhole.consume(cloud.buildBvh().getBvhStatistics());
+        });
+        harness.add("geometries.grid.build.100000", () -> grid(SIZES[SIZES.length - 1]),
+                grid -> blackhole -> blackhole.consume(grid.build().getResolution()));
+        // a frame of an animation changes the collection, so every measuring thread animates its own cloud
+        harness.add("geometries.animated.100000.refit", () -> SIZES[SIZES.length - 1], size -> {
+            Instance[] instances = instances(size);
+            Geometries cloud = new Geometries(instances).buildBvh();
+            int[] frame = { 0 };
+            return blackhole -> {
+                animate(instances, frame[0]++);
+                blackhole.consume(cloud.refit());
+            };
+        });
+        harness.add("geometries.animated.100000.rebuild", () -> SIZES[SIZES.length - 1], size -> {
+            Instance[] instances = instances(size);
+            Geometries cloud = new Geometries(instances).buildBvh();
+            int[] frame = { 0 };
+            return blackhole -> {
+                animate(instances, frame[0]++);
+                blackhole.consume(cloud.buildBvh().getBvhStatistics());
+            };
+        });
+    }
+}
@@ -0,0 +1,386 @@
+package benchmarks;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * The Harness class runs throughput benchmarks in the manner of JMH: every benchmark is run for some warmup
+ * iterations, whose results are dropped, and then for some measured iterations of a fixed duration,
+ * by each of the requested amounts of concurrent threads.
+ * For each benchmark and amount of threads it reports the throughput (operations per second, with the standard
+ * deviation over the iterations), the heap allocated per operation by the measuring threads and the activity
+ * of the garbage collector - the same figures JMH reports in throughput mode with {@code -prof gc}.
+ */
+public final class Harness {
+
+    /**
+     * A benchmarked operation. Every measuring thread gets its own instance, so an operation may keep
+     * per-thread state (e.g. the index of the next ray) without synchronization.
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @param blackhole The blackhole of the measuring thread, consuming the result of the operation.
+         */
+        void run(Blackhole blackhole);
+    }
+
+    /**
+     * A registered benchmark.
+     *
+     * @param name The name of the benchmark.
+     * @param fixture Creates the operation of a measuring thread, after setting up the shared state once.
+     * @param parallel True if the operation runs its own threads - it is then measured by a single thread only.
+     */
+    private record Benchmark(String name, Supplier<Supplier<Operation>> fixture, boolean parallel) {}
+
+    /**
+     * The result of a benchmark with an amount of threads.
+     *
+     * @param name The name of the benchmark.
+     * @param threads The amount of measuring threads.
+     * @param score The mean throughput, in operations per second.
+     * @param error The standard deviation of the throughput over the iterations.
+     * @param allocation The bytes allocated per operation, NaN if they can't be measured.
+     * @param gcCount The amount of garbage collections during the measured iterations.
+     * @param gcTime The time spent in garbage collections during the measured iterations, in milliseconds.
+     */
+    public record Result(String name, int threads, double score, double error, double allocation,
+                         long gcCount, long gcTime) {}
+
+    /** The format of the lines of the report. */
+    private static final String ROW_FORMAT = "%-40s %7s %16s %16s  %-6s %14s %9s %9s%n";
+
+    /** The allocation counters of the threads. */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** The registered benchmarks, in order of registration. */
+    private final List<Benchmark> benchmarks = new ArrayList<>();
+
+    /** The amount of warmup iterations. */
+    private int warmupIterations = 3;
+
+    /** The amount of measured iterations. */
+    private int iterations = 5;
+
+    /** The duration of an iteration, in seconds. */
+    private double iterationTime = 1;
+
+    /** The amounts of concurrent measuring threads. */
+    private int[] threads = { 1 };
+
+    /** The filter of the names of the benchmarks to be run. */
+    private Pattern filter = Pattern.compile(".*");
+
+    /**
+     * Sets the amount of warmup iterations.
+     *
+     * @param warmupIterations The amount of warmup iterations.
+     * @return This Harness object for method chaining.
+     */
+    public Harness setWarmupIterations(int warmupIterations) {
+        if (warmupIterations < 0) {
+            throw new IllegalArgumentException("Warmup iterations given is Illegal.");
+        }
+        this.warmupIterations = warmupIterations;
+        return this;
+    }
+
+    /**
+     * Sets the amount of measured iterations.
+     *
+     * @param iterations The amount of measured iterations.
+     * @return This Harness object for method chaining.
+     */
+    public Harness setIterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations given is Illegal.");
+        }
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * Sets the duration of an iteration.
+     *
+     * @param iterationTime The duration of an iteration, in seconds.
+     * @return This Harness object for method chaining.
+     */
+    public Harness setIterationTime(double iterationTime) {
+        if (iterationTime <= 0) {
+            throw new IllegalArgumentException("Iteration time given is Illegal.");
+        }
+        this.iterationTime = iterationTime;
+        return this;
+    }
+
+    /**
+     * Sets the amounts of concurrent measuring threads - every benchmark is run with each of them.
+     *
+     * @param threads The amounts of threads.
+     * @return This Harness object for method chaining.
+     */
+    public Harness setThreads(int... threads) {
+        for (int count : threads) {
+            if (count < 1) {
+                throw new IllegalArgumentException("Threads count given is Illegal.");
+            }
+        }
+        if (threads.length == 0) {
+            throw new IllegalArgumentException("Threads counts given is Illegal.");
+        }
+        this.threads = threads.clone();
+        return this;
+    }
+
+    /**
+     * Sets the filter of the benchmarks to be run.
+     *
+     * @param regex A regular expression that is searched for in the names of the benchmarks.
+     * @return This Harness object for method chaining.
+     */
+    public Harness setFilter(String regex) {
+        this.filter = Pattern.compile(regex);
+        return this;
+    }
+
+    /**
+     * Registers a benchmark that is measured with every amount of threads.
+     * The shared state is set up only if the benchmark passes the filter, right before it is run.
+     *
+     * @param name The name of the benchmark.
+     * @param setup Sets up the state shared by the measuring threads.
+     * @param operation Creates the operation of a measuring thread on the shared state.
+     * @param <S> The type of the shared state.
+     * @return This Harness object for method chaining.
+     */
+    public <S> Harness add(String name, Supplier<S> setup, Function<S, Operation> operation) {
+        this.benchmarks.add(new Benchmark(name, fixture(setup, operation), false));
+        return this;
+    }
+
+    /**
+     * Registers a benchmark whose operation runs its own threads (e.g. a multithreaded rendering).
+     * It is measured by a single thread, and the allocations of its own threads can't be measured.
+     *
+     * @param name The name of the benchmark.
+     * @param setup Sets up the state of the benchmark.
+     * @param operation Creates the operation on the state.
+     * @param <S> The type of the state.
+     * @return This Harness object for method chaining.
+     */
+    public <S> Harness addParallel(String name, Supplier<S> setup, Function<S, Operation> operation) {
+        this.benchmarks.add(new Benchmark(name, fixture(setup, operation), true));
+        return this;
+    }
+
+    /**
+     * Combines the setup of a benchmark with the creation of its per-thread operations.
+     *
+     * @param setup Sets up the shared state.
+     * @param operation Creates the operation of a measuring thread on the shared state.
+     * @param <S> The type of the shared state.
+     * @return A supplier that sets up the state and returns the factory of the operations.
+     */
+    private static <S> Supplier<Supplier<Operation>> fixture(Supplier<S> setup,
+                                                                      Function<S, Operation> operation) {
+        return () -> {
+            S state = setup.get();
+            return () -> operation.apply(state);
+        };
+    }
+
+    /**
+     * Lists the names of the registered benchmarks that pass the filter.
+     *
+     * @return The names of the benchmarks.
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (Benchmark benchmark : this.benchmarks) {
+            if (this.filter.matcher(benchmark.name()).find()) {
+                names.add(benchmark.name());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Runs all the registered benchmarks that pass the filter and prints their results.
+     *
+     * @param out The stream to print the report to.
+     * @return The results of the benchmarks.
+     */
+    public List<Result> run(PrintStream out) {
+        List<Result> results = new ArrayList<>();
+        out.printf("# JVM: %s %s, %d processors, max heap %d MB%n", System.getProperty("java.vm.name"),
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() >> 20);
+        out.printf("# Warmup: %d x %.1f s, Measurement: %d x %.1f s%n",
+                this.warmupIterations, this.iterationTime, this.iterations, this.iterationTime);
+        out.printf(ROW_FORMAT, "Benchmark", "Threads", "Score", "Error", "Units", "Alloc", "GC count", "GC ms");
+        for (Benchmark benchmark : this.benchmarks) {
+            if (!this.filter.matcher(benchmark.name()).find()) {
+                continue;
+            }
+            Supplier<Operation> factory = benchmark.fixture().get();
+            for (int count : benchmark.parallel() ? new int[] { 1 } : this.threads) {
+                Result result = measure(benchmark, factory, count);
+                results.add(result);
+                out.printf(ROW_FORMAT, result.name(), result.threads(), String.format("%.3f", result.score()),
+                        String.format("+- %.3f", result.error()), "ops/s",
+                        Double.isNaN(result.allocation()) ? "-" : String.format("%.1f B/op", result.allocation()),
+                        result.gcCount(), result.gcTime());
+                out.flush();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Measures a benchmark with an amount of threads.
+     *
+     * @param benchmark The benchmark.
+     * @param factory The factory of the operations of the measuring threads.
+     * @param count The amount of measuring threads.
+     * @return The result of the measurement.
+     */
+    private Result measure(Benchmark benchmark, Supplier<Operation> factory, int count) {
+        Operation[] operations = new Operation[count];
+        Blackhole[] blackholes = new Blackhole[count];
+        for (int i = 0; i < count; ++i) {
+            operations[i] = factory.get();
+            blackholes[i] = new Blackhole();
+        }
+        for (int i = 0; i < this.warmupIterations; ++i) {
+            iteration(operations, blackholes);
+        }
+        double[] scores = new double[this.iterations];
+        long ops = 0, bytes = 0;
+        long gcCount = -gcCount(), gcTime = -gcTime();
+        for (int i = 0; i < this.iterations; ++i) {
+            long[] sample = iteration(operations, blackholes);
+            scores[i] = sample[0] * 1e9 / sample[1];
+            ops += sample[0];
+            bytes += sample[2];
+        }
+        gcCount += gcCount();
+        gcTime += gcTime();
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+        double allocation = benchmark.parallel() ? Double.NaN : (double) bytes / ops;
+        return new Result(benchmark.name(), count, mean, error, allocation, gcCount, gcTime);
+    }
+
+    /**
+     * Runs a single iteration: all the threads run their operations in a loop until the iteration time passes.
+     * An operation that is already running when the time passes is completed and counted.
+     *
+     * @param operations The operations of the threads.
+     * @param blackholes The blackholes of the threads.
+     * @return The amount of operations, the elapsed time in nanoseconds and the bytes allocated by the threads.
+     */
+    private long[] iteration(Operation[] operations, Blackhole[] blackholes) {
+        int count = operations.length;
+        long[] ops = new long[count];
+        long[] bytes = new long[count];
+        CountDownLatch start = new CountDownLatch(1);
+        Control control = new Control();
+        Thread[] workers = new Thread[count];
+        for (int t = 0; t < count; ++t) {
+            final int index = t;
+            workers[t] = new Thread(() -> {
+                Operation operation = operations[index];
+                Blackhole blackhole = blackholes[index];
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long allocated = THREADS.getCurrentThreadAllocatedBytes();
+                long n = 0;
+                do {
+                    operation.run(blackhole);
+                    ++n;
+                } while (control.running);
+                bytes[index] = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+                ops[index] = n;
+            }, "benchmark-" + t);
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            Thread.sleep((long) (this.iterationTime * 1000));
+            control.running = false;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            control.running = false;
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long totalOps = 0, totalBytes = 0;
+        for (int t = 0; t < count; ++t) {
+            totalOps += ops[t];
+            totalBytes += bytes[t];
+        }
+        return new long[] { totalOps, elapsed, totalBytes };
+    }
+
+    /**
+     * The flag that stops the threads at the end of an iteration.
+     */
+    private static final class Control {
+
+        /** True while the iteration runs. */
+        volatile boolean running = true;
+    }
+
+    /**
+     * Sums the amount of collections of all the garbage collectors.
+     *
+     * @return The amount of garbage collections since the start of the JVM.
+     */
+    private static long gcCount() {
+        long sum = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sum += Math.max(0, gc.getCollectionCount());
+        }
+        return sum;
+    }
+
+    /**
+     * Sums the collection time of all the garbage collectors.
+     *
+     * @return The time spent in garbage collections since the start of the JVM, in milliseconds.
+     */
+    private static long gcTime() {
+        long sum = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sum += Math.max(0, gc.getCollectionTime());
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,147 @@
+package benchmarks;
+
+import geometries.Cylinder;
+import geometries.Geometries;
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Polygon;
+import geometries.Sphere;
+import geometries.Triangle;
+import geometries.Tube;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import java.util.Random;
+
+/**
+ * Benchmarks of the intersection of rays with single primitives - the innermost loop of every rendering.
+ * Every operation intersects the next ray of a fixed set of random rays, about half of which hit the primitive.
+ */
+public final class IntersectionBenchmarks {
+
+    /** The amount of prepared rays (a power of 2, so the index wraps with a mask). */
+    static final int RAYS = 1 << 12;
+
+    /** Don't let anyone instantiate this class. */
+    private IntersectionBenchmarks() {}
+
+    /**
+     * Prepares rays from random points on a sphere around the origin towards random points near the origin.
+     *
+     * @param seed The seed of the random generator, so that every run measures the same rays.
+     * @param count The amount of rays.
+     * @param radius The radius of the sphere of the heads of the rays.
+     * @param spread The half-size of the cube around the origin that the rays aim at.
+     * @return The rays.
+     */
+    static Ray[] randomRays(long seed, int count, double radius, double spread) {
+        Random random = new Random(seed);
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; ++i) {
+            Vector direction;
+            do {
+                direction = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            } while (direction.lengthSquared() < 1e-6);
+            Point head = Point.ZERO.add(direction.normalize().scale(radius));
+            Point target = new Point((random.nextDouble() * 2 - 1) * spread,
+                    (random.nextDouble() * 2 - 1) * spread, (random.nextDouble() * 2 - 1) * spread);
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+        return rays;
+    }
+
+    /**
+     * Registers the benchmarks of the primitives: for each one, the query of all the intersections
+     * and the query of the closest intersection.
+     *
+     * @param harness The harness to register the benchmarks in.
+     */
+    static void register(Harness harness) {
+        Ray[] rays = randomRays(1, RAYS, 10, 1.5);
+        register(harness, "sphere", new Sphere(1, Point.ZERO), rays);
+        register(harness, "plane", new Plane(Point.ZERO, new Vector(1, 2, 3)), rays);
+        register(harness, "triangle",
+                new Triangle(new Point(-1.5, -1, 0), new Point(1.5, -1, 0), new Point(0, 1.5, 0.5)), rays);
+        register(harness, "triangle.watertight",
+                new Triangle(new Point(-1.5, -1, 0), new Point(1.5, -1, 0), new Point(0, 1.5, 0.5))
+                        .setWatertight(true), rays);
+        register(harness, "polygon", new Polygon(new Point(-1, -1, 0), new Point(1, -1, 0),
+                new Point(1, 1, 0), new Point(-1, 1, 0)), rays);
+        register(harness, "tube", new Tube(1, new Ray(new Point(0, 0, -1), new Vector(0, 0, 1))), rays);
+        register(harness, "cylinder", new Cylinder(1, new Ray(new Point(0, 0, -1), new Vector(0, 0, 1)), 2), rays);
+        register(harness, "cylinder.triangles256", tessellatedCylinder(64), rays);
+    }
+
+    /**
+     * Tessellates the benchmarked cylinder into triangles in a hierarchy - the way a scene renders a cylinder
+     * without its analytic intersection.
+     *
+     * @param segments The amount of segments around the axis - every segment has 2 side faces and 2 base faces.
+     * @return The triangles.
+     */
+    static Geometries tessellatedCylinder(int segments) {
+        Geometries geometries = new Geometries();
+        Point bottom = new Point(0, 0, -1), top = new Point(0, 0, 1);
+        for (int k = 0; k < segments; ++k) {
+            double a1 = 2 * Math.PI * k / segments, a2 = 2 * Math.PI * (k + 1) / segments;
+            Point b1 = new Point(Math.cos(a1), Math.sin(a1), -1), b2 = new Point(Math.cos(a2), Math.sin(a2), -1);
+            Point t1 = new Point(Math.cos(a1), Math.sin(a1), 1), t2 = new Point(Math.cos(a2), Math.sin(a2), 1);
+            geometries.add(new Triangle(b1, b2, t2), new Triangle(b1, t2, t1),
+                    new Triangle(bottom, b2, b1), new Triangle(top, t1, t2));
+        }
+        return geometries.buildBvh();
+    }
+
+    /**
+     * Registers the benchmarks of a single primitive.
+     *
+     * @param harness The harness to register the benchmarks in.
+     * @param name The name of the primitive.
+     * @param geometry The primitive.
+     * @param rays The rays.
+     */
+    private static void register(Harness harness, String name, Intersectable geometry, Ray[] rays) {
+        harness.add("intersection." + name + ".all", () -> geometry, g -> new Operation(rays) {
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(g.findGeoIntersections(nextRay()));
+            }
+        });
+        harness.add("intersection." + name + ".closest", () -> geometry, g -> new Operation(rays) {
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(g.findClosestGeoIntersection(nextRay()));
+            }
+        });
+    }
+
+    /**
+     * An operation that walks over the prepared rays - each measuring thread has its own position.
+     */
+    abstract static class Operation implements Harness.Operation {
+
+        /** The rays. */
+        private final Ray[] rays;
+
+        /** The index of the next ray. */
+        private int next = 0;
+
+        /**
+         * Constructs an operation over the rays.
+         *
+         * @param rays The rays, their amount must be a power of 2.
+         */
+        Operation(Ray[] rays) {
+            this.rays = rays;
+        }
+
+        /**
+         * Gets the next ray, wrapping around at the end.
+         *
+         * @return The next ray.
+         */
+        Ray nextRay() {
+            return this.rays[this.next++ & (this.rays.length - 1)];
+        }
+    }
+}
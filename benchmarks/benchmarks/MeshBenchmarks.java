@@ -0,0 +1,380 @@
+package benchmarks;
+
+import geometries.Geometries;
+import geometries.Instance;
+import geometries.Intersectable;
+import geometries.Triangle;
+import geometries.TriangleMesh;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+import scene.MeshLoader;
+import scene.Scene;
+import scene.SceneCache;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks of a mesh of 131k faces over a height field of 257x257 shared vertices, kept both as separate
+ * {@link Triangle} objects in a hierarchy and as a single {@link TriangleMesh}.
+ * The allocation of a build operation is about the memory the mesh holds; the closest-hit query
+ * is the one of the primary rays, and the occlusion query the one of the shadow rays of an opaque scene. The loading of the mesh is measured from a temporary OBJ file (about 5 MB)
+ * and a temporary binary PLY file (about 2.5 MB) - the throughput in MB/s is the score times the size.
+ * Reading a scene of both forms from a {@link SceneCache} is measured against building them.<br/>
+ * A smaller height field of 512 faces placed 500 times is kept both as 500 {@link Instance} objects of one shared
+ * mesh and as 500 meshes of moved vertices - the allocation of a build operation is about the memory each holds.
+ */
+public final class MeshBenchmarks {
+
+    /** The amount of squares along a side of the height field - every square is split into two faces. */
+    private static final int GRID = 256;
+
+    /** The amount of squares along a side of the height field that is placed many times. */
+    private static final int SMALL_GRID = 16;
+
+    /** The amount of placements of the small height field. */
+    private static final int PLACEMENTS = 500;
+
+    /** Don't let anyone instantiate this class. */
+    private MeshBenchmarks() {}
+
+    /**
+     * Creates the positions of the vertices of the height field.
+     *
+     * @param grid The amount of squares along a side of the height field.
+     * @return The positions - 3 numbers per vertex.
+     */
+    static double[] positions(int grid) {
+        double[] positions = new double[3 * (grid + 1) * (grid + 1)];
+        for (int i = 0; i <= grid; ++i) {
+            for (int j = 0; j <= grid; ++j) {
+                int v = 3 * (i * (grid + 1) + j);
+                positions[v] = (j - grid / 2.0) / grid * 20;
+                positions[v + 1] = (i - grid / 2.0) / grid * 20;
+                positions[v + 2] = Math.sin(i * 0.11) * Math.cos(j * 0.07);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Creates the faces of the height field.
+     *
+     * @param grid The amount of squares along a side of the height field.
+     * @return The indices - 3 vertex indices per face.
+     */
+    static int[] indices(int grid) {
+        int[] indices = new int[6 * grid * grid];
+        int k = 0;
+        for (int i = 0; i < grid; ++i) {
+            for (int j = 0; j < grid; ++j) {
+                int a = i * (grid + 1) + j, b = a + 1, c = a + grid + 1, d = c + 1;
+                indices[k++] = a;
+                indices[k++] = b;
+                indices[k++] = d;
+                indices[k++] = a;
+                indices[k++] = d;
+                indices[k++] = c;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Creates the height field as separate triangles in a hierarchy.
+     *
+     * @param positions The positions of the vertices.
+     * @param indices The faces.
+     * @return The triangles.
+     */
+    static Geometries triangles(double[] positions, int[] indices) {
+        Point[] points = new Point[positions.length / 3];
+        for (int v = 0; v < points.length; ++v) {
+            points[v] = new Point(positions[3 * v], positions[3 * v + 1], positions[3 * v + 2]);
+        }
+        Geometries geometries = new Geometries();
+        for (int f = 0; f < indices.length; f += 3) {
+            geometries.add(new Triangle(points[indices[f]], points[indices[f + 1]], points[indices[f + 2]]));
+        }
+        return geometries.buildBvh();
+    }
+
+    /**
+     * Creates the placements of the small height field - a grid of 25x20 places, each turned about the z axis
+     * and scaled at random.
+     *
+     * @return The transformations of the placements.
+     */
+    static Transform[] placements() {
+        Random random = new Random(17);
+        Transform[] placements = new Transform[PLACEMENTS];
+        for (int p = 0; p < PLACEMENTS; ++p) {
+            placements[p] = Transform.scaling(random.nextDouble(0.5, 1))
+                    .then(Transform.rotation(new Vector(0, 0, 1), random.nextDouble(360)))
+                    .then(Transform.translation(new Vector((p % 25 - 12) * 24, (p / 25 - 10) * 24 + 12, 0)));
+        }
+        return placements;
+    }
+
+    /**
+     * Places a shared mesh by instances, indexed by a hierarchy.
+     *
+     * @param mesh The shared mesh.
+     * @param placements The transformations of the placements.
+     * @return The instances.
+     */
+    static Geometries instances(TriangleMesh mesh, Transform[] placements) {
+        Geometries geometries = new Geometries();
+        for (Transform placement : placements) {
+            geometries.add(new Instance(mesh, placement));
+        }
+        return geometries.buildBvh();
+    }
+
+    /**
+     * Places a mesh by copies of its vertices moved to every place, indexed by a hierarchy.
+     *
+     * @param positions The positions of the vertices.
+     * @param indices The faces.
+     * @param placements The transformations of the placements.
+     * @return The copies.
+     */
+    static Geometries copies(double[] positions, int[] indices, Transform[] placements) {
+        Geometries geometries = new Geometries();
+        for (Transform placement : placements) {
+            double[] moved = new double[positions.length];
+            for (int v = 0; v < positions.length; v += 3) {
+                Point point = placement.transformPoint(new Point(positions[v], positions[v + 1], positions[v + 2]));
+                moved[v] = point.getX();
+                moved[v + 1] = point.getY();
+                moved[v + 2] = point.getZ();
+            }
+            geometries.add(new TriangleMesh(moved, indices));
+        }
+        return geometries.buildBvh();
+    }
+
+    /**
+     * Prepares rays from above the placements towards random points on them.
+     *
+     * @return The rays.
+     */
+    static Ray[] placementRays() {
+        Random random = new Random(19);
+        Ray[] rays = new Ray[IntersectionBenchmarks.RAYS];
+        Point eye = new Point(0, -400, 300);
+        for (int i = 0; i < rays.length; ++i) {
+            Point target = new Point(random.nextDouble(-300, 300), random.nextDouble(-240, 240), 0);
+            rays[i] = new Ray(eye, target.subtract(eye));
+        }
+        return rays;
+    }
+
+    /**
+     * Prepares rays from above the height field towards random points on it.
+     *
+     * @return The rays.
+     */
+    static Ray[] rays() {
+        Random random = new Random(13);
+        Ray[] rays = new Ray[IntersectionBenchmarks.RAYS];
+        Point eye = new Point(0, -15, 20);
+        for (int i = 0; i < rays.length; ++i) {
+            Point target = new Point(random.nextDouble(-10, 10), random.nextDouble(-10, 10), 0);
+            rays[i] = new Ray(eye, target.subtract(eye));
+        }
+        return rays;
+    }
+
+    /**
+     * Writes the height field to a temporary Wavefront OBJ file, with 6 decimals per coordinate.
+     *
+     * @param positions The positions of the vertices.
+     * @param indices The faces.
+     * @return The path of the file, which is deleted when the JVM exits.
+     */
+    static Path writeObj(double[] positions, int[] indices) {
+        try {
+            Path path = Files.createTempFile("mesh", ".obj");
+            path.toFile().deleteOnExit();
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+                for (int v = 0; v < positions.length; v += 3) {
+                    writer.write(String.format(Locale.ROOT, "v %.6f %.6f %.6f%n",
+                            positions[v], positions[v + 1], positions[v + 2]));
+                }
+                for (int f = 0; f < indices.length; f += 3) {
+                    writer.write("f " + (indices[f] + 1) + " " + (indices[f + 1] + 1) + " " + (indices[f + 2] + 1)
+                            + "\n");
+                }
+            }
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the height field to a temporary binary little-endian PLY file, with float coordinates.
+     *
+     * @param positions The positions of the vertices.
+     * @param indices The faces.
+     * @return The path of the file, which is deleted when the JVM exits.
+     */
+    static Path writePly(double[] positions, int[] indices) {
+        try {
+            Path path = Files.createTempFile("mesh", ".ply");
+            path.toFile().deleteOnExit();
+            String header = "ply\nformat binary_little_endian 1.0\n"
+                    + "element vertex " + positions.length / 3 + "\n"
+                    + "property float x\nproperty float y\nproperty float z\n"
+                    + "element face " + indices.length / 3 + "\n"
+                    + "property list uchar int vertex_indices\nend_header\n";
+            ByteBuffer body = ByteBuffer.allocate(4 * positions.length + 13 * (indices.length / 3))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (double position : positions) {
+                body.putFloat((float) position);
+            }
+            for (int f = 0; f < indices.length; f += 3) {
+                body.put((byte) 3).putInt(indices[f]).putInt(indices[f + 1]).putInt(indices[f + 2]);
+            }
+            body.flip();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+                channel.write(body);
+            }
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Registers the benchmarks of the mesh.
+     *
+     * @param harness The harness to register the benchmarks in.
+     */
+    static void register(Harness harness) {
+        double[] positions = positions(GRID);
+        int[] indices = indices(GRID);
+        int faces = indices.length / 3;
+        harness.add("mesh.triangles." + faces + ".build", () -> faces,
+                count -> blackhole -> blackhole.consume(triangles(positions, indices)));
+        harness.add("mesh.mesh." + faces + ".build", () -> faces,
+                count -> blackhole -> blackhole.consume(new TriangleMesh(positions, indices)));
+
+        harness.add("mesh.load.obj." + faces, () -> writeObj(positions, indices), path -> {
+            MeshLoader loader = new MeshLoader();
+            return blackhole -> blackhole.consume(load(loader, path));
+        });
+        harness.add("mesh.load.ply." + faces, () -> writePly(positions, indices), path -> {
+            MeshLoader loader = new MeshLoader();
+            return blackhole -> blackhole.consume(load(loader, path));
+        });
+
+        harness.add("mesh.triangles." + faces + ".cache", () -> cache(triangles(positions, indices)),
+                cache -> blackhole -> blackhole.consume(read(cache)));
+        harness.add("mesh.mesh." + faces + ".cache", () -> cache(new Geometries(new TriangleMesh(positions, indices))),
+                cache -> blackhole -> blackhole.consume(read(cache)));
+
+        Ray[] rays = rays();
+        register(harness, "mesh.triangles." + faces, () -> triangles(positions, indices), rays);
+        register(harness, "mesh.mesh." + faces, () -> new TriangleMesh(positions, indices), rays);
+
+        // a small mesh placed many times - shared by instances against copied with moved vertices
+        double[] smallPositions = positions(SMALL_GRID);
+        int[] smallIndices = indices(SMALL_GRID);
+        Transform[] placements = placements();
+        String name = "mesh.placed." + PLACEMENTS;
+        harness.add(name + ".instances.build", () -> new TriangleMesh(smallPositions, smallIndices),
+                mesh -> blackhole -> blackhole.consume(instances(mesh, placements)));
+        harness.add(name + ".copies.build", () -> placements,
+                transforms -> blackhole -> blackhole.consume(copies(smallPositions, smallIndices, transforms)));
+        Ray[] placementRays = placementRays();
+        register(harness, name + ".instances",
+                () -> instances(new TriangleMesh(smallPositions, smallIndices), placements), placementRays);
+        register(harness, name + ".copies", () -> copies(smallPositions, smallIndices, placements), placementRays);
+    }
+
+    /**
+     * Loads a mesh from a file.
+     *
+     * @param loader The loader.
+     * @param path The path of the file.
+     * @return The mesh.
+     */
+    private static TriangleMesh load(MeshLoader loader, Path path) {
+        try {
+            return loader.load(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a scene of geometries to a temporary cache file.
+     *
+     * @param geometries The geometries of the scene.
+     * @return The cache, whose file is deleted when the JVM exits.
+     */
+    private static SceneCache cache(Geometries geometries) {
+        try {
+            Path path = Files.createTempFile("scene", ".cache");
+            path.toFile().deleteOnExit();
+            SceneCache cache = new SceneCache(path, 0);
+            cache.write(new Scene("mesh").setGeometries(geometries.buildBvh()));
+            return cache;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a scene from a cache.
+     *
+     * @param cache The cache.
+     * @return The scene.
+     */
+    private static Scene read(SceneCache cache) {
+        try {
+            return cache.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Registers the closest-hit and the occlusion benchmarks of a form of the mesh.
+     *
+     * @param harness The harness to register the benchmarks in.
+     * @param name The name of the form.
+     * @param setup The construction of the form.
+     * @param rays The rays.
+     */
+    private static void register(Harness harness, String name, Supplier<Intersectable> setup,
+                                 Ray[] rays) {
+        harness.add(name + ".closest", setup, mesh -> new IntersectionBenchmarks.Operation(rays) {
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(mesh.findClosestGeoIntersection(nextRay()));
+            }
+        });
+        harness.add(name + ".occluded", setup, mesh -> new IntersectionBenchmarks.Operation(rays) {
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(mesh.occluded(nextRay(), Double.POSITIVE_INFINITY));
+            }
+        });
+    }
+}
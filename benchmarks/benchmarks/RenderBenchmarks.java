@@ -0,0 +1,105 @@
+package benchmarks;
+
+import geometries.RayPacket;
+import primitives.Point;
+import primitives.Vector;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+import special.TeapotTest;
+
+/**
+ * End-to-end benchmarks - rendering the whole frame of the teapot scene with several amounts of rendering threads.
+ * A rendering runs its own threads, so these benchmarks are measured by a single thread.
+ */
+public final class RenderBenchmarks {
+
+    /** The resolution of the rendered frame in each direction. */
+    private static final int RESOLUTION = 200;
+
+    /** Don't let anyone instantiate this class. */
+    private RenderBenchmarks() {}
+
+    /**
+     * Registers the rendering benchmarks: with no rendering threads (the rendering runs in the measuring thread),
+     * and with 1, 2, 4... rendering threads up to the amount of processors.
+     *
+     * @param harness The harness to register the benchmarks in.
+     */
+    static void register(Harness harness) {
+        // without rendering threads every measuring thread renders its own frames
+        harness.add("renderImage.teapot.threads0", RenderBenchmarks::teapotScene,
+                scene -> blackhole -> blackhole.consume(camera(scene, 0).renderImage()));
+        // the same frame with every primary ray traced alone, for comparison with the ray packets
+        harness.add("renderImage.teapot.threads0.singleRays", RenderBenchmarks::teapotScene,
+                scene -> blackhole -> blackhole.consume(camera(scene, 0, 1).renderImage()));
+        // the same frame with the adaptive Anti-Aliasing of the teapot test
+        harness.add("renderImage.teapot.threads0.adaptive2", RenderBenchmarks::teapotScene,
+                scene -> blackhole -> blackhole.consume(camera(scene, 0, RayPacket.MAX_SIZE, 2).renderImage()));
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            final int count = threads;
+            harness.addParallel("renderImage.teapot.threads" + count, RenderBenchmarks::teapotScene,
+                    scene -> blackhole -> blackhole.consume(camera(scene, count).renderImage()));
+        }
+    }
+
+    /**
+     * Builds the scene of the teapot test, with a bounding volume hierarchy over its triangles.
+     *
+     * @return The scene of the teapot.
+     */
+    private static Scene teapotScene() {
+        Scene scene = TeapotTest.teapotScene();
+        scene.geometries.buildBvh();
+        return scene;
+    }
+
+    /**
+     * Builds the camera of the teapot test. The camera is built for every rendering, so that measuring threads
+     * that render concurrently don't share a camera.
+     *
+     * @param scene The scene of the teapot.
+     * @param threads The amount of rendering threads.
+     * @return The camera.
+     */
+    private static Camera camera(Scene scene, int threads) {
+        return camera(scene, threads, RayPacket.MAX_SIZE);
+    }
+
+    /**
+     * Builds the camera of the teapot test with a given size of the packets of the primary rays.
+     *
+     * @param scene The scene of the teapot.
+     * @param threads The amount of rendering threads.
+     * @param packetSize The amount of primary rays in a packet.
+     * @return The camera.
+     */
+    private static Camera camera(Scene scene, int threads, int packetSize) {
+        return camera(scene, threads, packetSize, 0);
+    }
+
+    /**
+     * Builds the camera of the teapot test with a given size of the packets of the primary rays
+     * and a given depth of adaptive Anti-Aliasing.
+     *
+     * @param scene The scene of the teapot.
+     * @param threads The amount of rendering threads.
+     * @param packetSize The amount of primary rays in a packet.
+     * @param adaptiveDepth The depth of the adaptive Anti-Aliasing, 0 for none.
+     * @return The camera.
+     */
+    private static Camera camera(Scene scene, int threads, int packetSize, int adaptiveDepth) {
+        return Camera.getBuilder()
+                .setLocation(new Point(0, 0, -1000))
+                .setDirection(new Vector(0, 0, 1), new Vector(0, 1, 0))
+                .setVpDistance(1000).setVpSize(200, 200)
+                .setImageWriter(new ImageWriter("teapot", RESOLUTION, RESOLUTION))
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setMultithreading(threads)
+                .setRayPacketSize(packetSize)
+                .setAntiAliasing(adaptiveDepth)
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package benchmarks;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import renderer.Blackboard;
+import renderer.BlackboardTests;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.IterativeRayTracer;
+import renderer.RayTracerBase;
+import renderer.ReflectionRefractionTests;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks of the shading of single rays - tracing the primary rays of the scenes of the rendering tests,
+ * including their reflected, refracted and shadow rays, and the generation of the jittered points of a blackboard -
+ * as a list of points, and as a flat array of coordinates generated anew or picked from precomputed patterns.
+ */
+public final class ShadingBenchmarks {
+
+    /** The amount of pixels in each direction of the grid of the prepared primary rays. */
+    private static final int GRID = 64;
+
+    /** Don't let anyone instantiate this class. */
+    private ShadingBenchmarks() {}
+
+    /**
+     * Prepares the primary rays of a camera through a grid of pixels that covers its whole view plane.
+     *
+     * @param builder The builder of the camera, with its location, direction and view plane.
+     * @param scene The scene of the camera.
+     * @return The primary rays, ordered row by row.
+     */
+    static Ray[] primaryRays(Camera.Builder builder, Scene scene) {
+        Camera camera = builder.setImageWriter(new ImageWriter("benchmark", GRID, GRID))
+                .setRayTracer(new SimpleRayTracer(scene))
+                .build();
+        Ray[] rays = new Ray[GRID * GRID];
+        for (int i = 0; i < GRID; ++i) {
+            for (int j = 0; j < GRID; ++j) {
+                rays[i * GRID + j] = camera.constructRay(GRID, GRID, j, i);
+            }
+        }
+        return rays;
+    }
+
+    /**
+     * Registers the shading benchmarks.
+     *
+     * @param harness The harness to register the benchmarks in.
+     */
+    static void register(Harness harness) {
+        harness.add("traceRay.impressivePicture", ShadingBenchmarks::impressiveScene,
+                scene -> traceRay(scene, new SimpleRayTracer(scene), impressiveCamera()));
+        harness.add("traceRay.impressivePicture.iterative", ShadingBenchmarks::impressiveScene,
+                scene -> traceRay(scene, new IterativeRayTracer(scene), impressiveCamera()));
+
+        for (int n : new int[] { 2, 9 }) {
+            harness.add("traceRay.softShadows" + n + "x" + n, () -> BlackboardTests.softShadowsScene(n),
+                    scene -> traceRay(scene, new SimpleRayTracer(scene), Camera.getBuilder()
+                            .setVpSize(300, 300)
+                            .setLocation(new Point(100, 0, 10))
+                            .setDirection(new Vector(-1, 0, 0), new Vector(0, 0, 1))
+                            .setVpDistance(1000)));
+        }
+        harness.add("traceRay.softShadows9x9.adaptive", () -> BlackboardTests.softShadowsScene(9),
+                scene -> traceRay(scene, new SimpleRayTracer(scene).setAdaptiveShadows(3), Camera.getBuilder()
+                        .setVpSize(300, 300)
+                        .setLocation(new Point(100, 0, 10))
+                        .setDirection(new Vector(-1, 0, 0), new Vector(0, 0, 1))
+                        .setVpDistance(1000)));
+
+        harness.add("blackboard.jittered9x9",
+                () -> new Blackboard(2, 2, 9, 9).setCenterPoint(new Point(15, 0, -10)),
+                blackboard -> blackhole -> blackhole.consume(
+                        blackboard.jittered(new Vector(0, 1, 0), new Vector(1, 0, 1))));
+        harness.add("blackboard.samples9x9", () -> new Blackboard(2, 2, 9, 9), ShadingBenchmarks::samples);
+        harness.add("blackboard.samples9x9.patterns",
+                () -> new Blackboard(2, 2, 9, 9).setPatterns(16), ShadingBenchmarks::samples);
+    }
+
+    /**
+     * Creates the operation of generating the flat points of a blackboard into a reused array.
+     *
+     * @param blackboard The blackboard.
+     * @return The operation.
+     */
+    private static Harness.Operation samples(Blackboard blackboard) {
+        Point center = new Point(15, 0, -10);
+        Vector vectorX = new Vector(0, 1, 0), vectorY = new Vector(1, 0, 1);
+        SplittableRandom random = new SplittableRandom(9);
+        double[] points = new double[3 * 81];
+        return blackhole -> blackhole.consume(blackboard.samples(center, vectorX, vectorY, random, points));
+    }
+
+    /**
+     * Builds the scene of the picture of the reflection and refraction tests.
+     *
+     * @return The scene.
+     */
+    private static Scene impressiveScene() {
+        Scene scene = new Scene("Test scene");
+        ReflectionRefractionTests.buildImpressiveScene(scene);
+        return scene;
+    }
+
+    /**
+     * Creates the builder of the camera of the picture of the reflection and refraction tests.
+     *
+     * @return The builder of the camera.
+     */
+    private static Camera.Builder impressiveCamera() {
+        return Camera.getBuilder()
+                .setLocation(new Point(600, 10, 40)).setVpDistance(1000)
+                .setDirection(new Vector(-1, 0, 0), new Vector(0, 0, 1))
+                .setVpSize(400, 400);
+    }
+
+    /**
+     * Creates an operation that traces the next primary ray of a camera through a scene.
+     *
+     * @param scene The scene.
+     * @param tracer The ray tracer of the scene.
+     * @param builder The builder of the camera.
+     * @return The operation.
+     */
+    private static Harness.Operation traceRay(Scene scene, RayTracerBase tracer, Camera.Builder builder) {
+        return new IntersectionBenchmarks.Operation(primaryRays(builder, scene)) {
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(tracer.traceRay(nextRay()));
+            }
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.GT;
+import static jdk.incubator.vector.VectorOperators.LE;
+import static jdk.incubator.vector.VectorOperators.LT;
+import static jdk.incubator.vector.VectorOperators.MIN;
+
+/**
+ * The vector intersection kernel - tests as many primitives (or rays) at once as fit in the preferred vector
+ * of doubles of the host: 4 with AVX2, 8 with AVX-512.<br/>
+ * The kernel is backed by the incubating Vector API, so it is compiled with
+ * {@code --add-modules jdk.incubator.vector} and loaded by {@link IntersectionKernel} only when the JVM runs
+ * with the same option. Every lane computes exactly the operations of the scalar kernel in the same order,
+ * so both kernels give the same intersections.
+ */
+final class VectorIntersectionKernel extends IntersectionKernel {
+
+    /** The preferred species of vectors of doubles of the host. */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /** The amount of lanes of a vector. */
+    private static final int LANES = SPECIES.length();
+
+    /** The mask of the bits of a packet that fit in a vector. */
+    private static final int LANES_MASK = (1 << LANES) - 1;
+
+    /**
+     * Gets the name of the kernel.
+     *
+     * @return The name of the kernel, with the amount of its lanes.
+     */
+    @Override
+    public String getName() {
+        return "vector" + LANES;
+    }
+
+    /**
+     * Gets the amount of primitives the kernel tests at once.
+     *
+     * @return The amount of lanes of the kernel.
+     */
+    @Override
+    public int getLanes() {
+        return LANES;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the triangles of a range of a batch, a vector of triangles
+     * at a time, by the Möller–Trumbore algorithm.
+     *
+     * @param batch The batch of primitives.
+     * @param first The index of the first primitive of the range.
+     * @param count The amount of primitives in the range.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the intersection in its first cell.
+     * @return The index of the intersected triangle, or -1 if there is no intersection up to the maximum distance.
+     */
+    @Override
+    int closestTriangle(PrimitiveBatch batch, int first, int count, double ox, double oy, double oz,
+                        double dx, double dy, double dz, double maxDistance, double[] distance) {
+        int closest = -1;
+        double best = maxDistance + EPSILON;
+        int end = first + count;
+        for (int i = first; i < end; i += LANES) {
+            DoubleVector e1x = DoubleVector.fromArray(SPECIES, batch.e1x, i);
+            DoubleVector e1y = DoubleVector.fromArray(SPECIES, batch.e1y, i);
+            DoubleVector e1z = DoubleVector.fromArray(SPECIES, batch.e1z, i);
+            DoubleVector e2x = DoubleVector.fromArray(SPECIES, batch.e2x, i);
+            DoubleVector e2y = DoubleVector.fromArray(SPECIES, batch.e2y, i);
+            DoubleVector e2z = DoubleVector.fromArray(SPECIES, batch.e2z, i);
+            DoubleVector px = e2z.mul(dy).sub(e2y.mul(dz));
+            DoubleVector py = e2x.mul(dz).sub(e2z.mul(dx));
+            DoubleVector pz = e2y.mul(dx).sub(e2x.mul(dy));
+            DoubleVector det = e1x.mul(px).add(e1y.mul(py)).add(e1z.mul(pz));
+            VectorMask<Double> hit = SPECIES.indexInRange(i, end).and(det.abs().compare(GE, EPSILON));
+            if (!hit.anyTrue()) {
+                continue;
+            }
+            DoubleVector inv = DoubleVector.broadcast(SPECIES, 1).div(det);
+            DoubleVector tx = DoubleVector.fromArray(SPECIES, batch.v0x, i).neg().add(ox);
+            DoubleVector ty = DoubleVector.fromArray(SPECIES, batch.v0y, i).neg().add(oy);
+            DoubleVector tz = DoubleVector.fromArray(SPECIES, batch.v0z, i).neg().add(oz);
+            DoubleVector u = tx.mul(px).add(ty.mul(py)).add(tz.mul(pz)).mul(inv);
+            hit = hit.and(u.compare(GT, 0)).and(u.compare(LT, 1));
+            if (!hit.anyTrue()) {
+                continue;
+            }
+            DoubleVector qx = ty.mul(e1z).sub(tz.mul(e1y));
+            DoubleVector qy = tz.mul(e1x).sub(tx.mul(e1z));
+            DoubleVector qz = tx.mul(e1y).sub(ty.mul(e1x));
+            DoubleVector v = qx.mul(dx).add(qy.mul(dy)).add(qz.mul(dz)).mul(inv);
+            DoubleVector t = e2x.mul(qx).add(e2y.mul(qy)).add(e2z.mul(qz)).mul(inv);
+            hit = hit.and(v.compare(GT, 0)).and(u.add(v).compare(LT, 1))
+                    .and(t.compare(GT, EPSILON)).and(t.compare(LT, best));
+            if (hit.anyTrue()) {
+                DoubleVector hits = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY).blend(t, hit);
+                best = hits.reduceLanes(MIN);
+                closest = i + hits.compare(EQ, best).firstTrue();
+            }
+        }
+        distance[0] = best;
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the spheres of a range of a batch, a vector of spheres at a time.
+     *
+     * @param batch The batch of primitives.
+     * @param first The index of the first primitive of the range.
+     * @param count The amount of primitives in the range.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the intersection in its first cell.
+     * @return The index of the intersected sphere, or -1 if there is no intersection up to the maximum distance.
+     */
+    @Override
+    int closestSphere(PrimitiveBatch batch, int first, int count, double ox, double oy, double oz,
+                      double dx, double dy, double dz, double maxDistance, double[] distance) {
+        int closest = -1;
+        double best = maxDistance + EPSILON;
+        int end = first + count;
+        for (int i = first; i < end; i += LANES) {
+            DoubleVector ux = DoubleVector.fromArray(SPECIES, batch.cx, i).sub(ox);
+            DoubleVector uy = DoubleVector.fromArray(SPECIES, batch.cy, i).sub(oy);
+            DoubleVector uz = DoubleVector.fromArray(SPECIES, batch.cz, i).sub(oz);
+            DoubleVector tm = ux.mul(dx).add(uy.mul(dy)).add(uz.mul(dz));
+            DoubleVector th2 = DoubleVector.fromArray(SPECIES, batch.r2, i)
+                    .sub(ux.mul(ux).add(uy.mul(uy)).add(uz.mul(uz)).sub(tm.mul(tm)));
+            VectorMask<Double> hit = SPECIES.indexInRange(i, end).and(th2.compare(GT, EPSILON));
+            if (!hit.anyTrue()) {
+                continue;
+            }
+            DoubleVector th = th2.sqrt();
+            DoubleVector near = tm.sub(th);
+            // the nearer root, or the farther one when the ray starts inside the sphere
+            DoubleVector t = tm.add(th).blend(near, near.compare(GT, EPSILON));
+            hit = hit.and(t.compare(GT, EPSILON)).and(t.compare(LT, best));
+            if (hit.anyTrue()) {
+                DoubleVector hits = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY).blend(t, hit);
+                best = hits.reduceLanes(MIN);
+                closest = i + hits.compare(EQ, best).firstTrue();
+            }
+        }
+        distance[0] = best;
+        return closest;
+    }
+
+    /**
+     * Finds the subset of the rays of a subset of a packet that enter a box, a vector of rays at a time.
+     *
+     * @param packet The packet of rays.
+     * @param bounds The bounds of the boxes - 6 numbers (min x,y,z, max x,y,z) per box.
+     * @param b The index of the first number of the box in the bounds.
+     * @param mask The mask of the tested rays.
+     * @return The mask of the rays that enter the box.
+     */
+    @Override
+    int enter(RayPacket packet, double[] bounds, int b, int mask) {
+        double minX = bounds[b], minY = bounds[b + 1], minZ = bounds[b + 2];
+        double maxX = bounds[b + 3], maxY = bounds[b + 4], maxZ = bounds[b + 5];
+        int entered = 0;
+        for (int base = 0; base < packet.size(); base += LANES) {
+            int bits = (mask >>> base) & LANES_MASK;
+            if (bits == 0) {
+                continue;
+            }
+            DoubleVector ox = DoubleVector.fromArray(SPECIES, packet.ox, base);
+            DoubleVector invDx = DoubleVector.fromArray(SPECIES, packet.invDx, base);
+            DoubleVector t1 = ox.neg().add(minX).mul(invDx);
+            DoubleVector t2 = ox.neg().add(maxX).mul(invDx);
+            DoubleVector tNear = t1.min(t2);
+            DoubleVector tFar = t1.max(t2);
+            DoubleVector oy = DoubleVector.fromArray(SPECIES, packet.oy, base);
+            DoubleVector invDy = DoubleVector.fromArray(SPECIES, packet.invDy, base);
+            t1 = oy.neg().add(minY).mul(invDy);
+            t2 = oy.neg().add(maxY).mul(invDy);
+            tNear = tNear.max(t1.min(t2));
+            tFar = tFar.min(t1.max(t2));
+            DoubleVector oz = DoubleVector.fromArray(SPECIES, packet.oz, base);
+            DoubleVector invDz = DoubleVector.fromArray(SPECIES, packet.invDz, base);
+            t1 = oz.neg().add(minZ).mul(invDz);
+            t2 = oz.neg().add(maxZ).mul(invDz);
+            tNear = tNear.max(t1.min(t2));
+            tFar = tFar.min(t1.max(t2)).mul(AABB.ROBUST_EXIT);
+            // NaN appears only for a ray parallel to a slab and lying on its plane - it fails the comparisons
+            VectorMask<Double> in = VectorMask.fromLong(SPECIES, bits)
+                    .and(tNear.compare(LE, tFar))
+                    .and(tFar.compare(GE, 0))
+                    .and(tNear.compare(LE, DoubleVector.fromArray(SPECIES, packet.tMax, base)));
+            entered |= (int) in.toLong() << base;
+        }
+        return entered;
+    }
+}
@@ -0,0 +1,241 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+/**
+ * An axis-aligned bounding box in three-dimensional space, defined by its minimal and maximal corners.
+ * Bounding boxes are used by the acceleration structures to reject whole groups of geometries
+ * that a ray clearly misses.
+ */
+public final class AABB {
+
+    /** A box that contains the whole space - used for infinite geometries (planes, tubes). */
+    public static final AABB UNBOUNDED = new AABB(
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    /** A box that contains nothing - the neutral element of the union operation. */
+    public static final AABB EMPTY = new AABB(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    /** The factor that widens the exit distance of a slab test by the rounding error of its computation
+     * (Ize, "Robust BVH Ray Traversal", 2013), so that a ray through an edge or a corner of a box, where two
+     * boxes or two faces of a closed mesh meet, is never rounded out of both boxes. */
+    static final double ROBUST_EXIT = 1 + 2 * (3 * 0x1p-53 / (1 - 3 * 0x1p-53));
+
+    /** The minimal x-coordinate of the box. */
+    public final double minX;
+
+    /** The minimal y-coordinate of the box. */
+    public final double minY;
+
+    /** The minimal z-coordinate of the box. */
+    public final double minZ;
+
+    /** The maximal x-coordinate of the box. */
+    public final double maxX;
+
+    /** The maximal y-coordinate of the box. */
+    public final double maxY;
+
+    /** The maximal z-coordinate of the box. */
+    public final double maxZ;
+
+    /**
+     * Constructs a bounding box from its minimal and maximal coordinates.
+     *
+     * @param minX The minimal x-coordinate.
+     * @param minY The minimal y-coordinate.
+     * @param minZ The minimal z-coordinate.
+     * @param maxX The maximal x-coordinate.
+     * @param maxY The maximal y-coordinate.
+     * @param maxZ The maximal z-coordinate.
+     */
+    public AABB(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest bounding box that contains all the given points.
+     *
+     * @param points The points to be contained in the box.
+     * @throws IllegalArgumentException if no points are given.
+     */
+    public AABB(Point... points) {
+        if (points.length == 0) {
+            throw new IllegalArgumentException("A bounding box needs at least one point");
+        }
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        this.minX = x0;
+        this.minY = y0;
+        this.minZ = z0;
+        this.maxX = x1;
+        this.maxY = y1;
+        this.maxZ = z1;
+    }
+
+    /**
+     * Checks whether the box has finite size in all the axes.
+     *
+     * @return True if the box is finite, false if it is infinite in some axis.
+     */
+    public boolean isBounded() {
+        return Double.isFinite(minX) && Double.isFinite(minY) && Double.isFinite(minZ)
+                && Double.isFinite(maxX) && Double.isFinite(maxY) && Double.isFinite(maxZ);
+    }
+
+    /**
+     * Checks whether the box contains nothing.
+     *
+     * @return True if the box is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY || minZ > maxZ;
+    }
+
+    /**
+     * Computes the smallest box that contains both this box and another box.
+     *
+     * @param other The other box.
+     * @return The union of the two boxes.
+     */
+    public AABB union(AABB other) {
+        return new AABB(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Retrieves the minimal coordinate of the box on the given axis.
+     *
+     * @param axis The axis index (0 - x, 1 - y, 2 - z).
+     * @return The minimal coordinate on the axis.
+     */
+    public double getMin(int axis) {
+        return axis == 0 ? minX : axis == 1 ? minY : minZ;
+    }
+
+    /**
+     * Retrieves the maximal coordinate of the box on the given axis.
+     *
+     * @param axis The axis index (0 - x, 1 - y, 2 - z).
+     * @return The maximal coordinate on the axis.
+     */
+    public double getMax(int axis) {
+        return axis == 0 ? maxX : axis == 1 ? maxY : maxZ;
+    }
+
+    /**
+     * Computes the center coordinate of the box on the given axis.
+     *
+     * @param axis The axis index (0 - x, 1 - y, 2 - z).
+     * @return The center coordinate on the axis.
+     */
+    public double getCenter(int axis) {
+        return (getMin(axis) + getMax(axis)) / 2;
+    }
+
+    /**
+     * Computes the surface area of the box.
+     *
+     * @return The surface area of the box, 0 for an empty box.
+     */
+    public double surfaceArea() {
+        if (isEmpty()) {
+            return 0;
+        }
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Checks whether a ray enters the box within a maximum distance from its head.
+     *
+     * @param ray The ray to be tested.
+     * @param maxDistance The maximum distance along the ray.
+     * @return True if the ray hits the box before the maximum distance, false otherwise.
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        return slab(minX, minY, minZ, maxX, maxY, maxZ, head.getX(), head.getY(), head.getZ(),
+                ray.getInvDx(), ray.getInvDy(), ray.getInvDz(), maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Slab test of a ray against a box given by its raw coordinates.
+     * The inverse direction is passed precomputed, so that a ray tested against many boxes
+     * pays for the divisions only once.
+     *
+     * @param minX The minimal x-coordinate of the box.
+     * @param minY The minimal y-coordinate of the box.
+     * @param minZ The minimal z-coordinate of the box.
+     * @param maxX The maximal x-coordinate of the box.
+     * @param maxY The maximal y-coordinate of the box.
+     * @param maxZ The maximal z-coordinate of the box.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param invDx The inverse of the x-component of the ray direction.
+     * @param invDy The inverse of the y-component of the ray direction.
+     * @param invDz The inverse of the z-component of the ray direction.
+     * @param maxDistance The maximum distance along the ray.
+     * @return The distance at which the ray enters the box (0 if the head is inside),
+     *         or positive infinity if the box is missed.
+     */
+    static double slab(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                       double ox, double oy, double oz, double invDx, double invDy, double invDz,
+                       double maxDistance) {
+        double t1 = (minX - ox) * invDx;
+        double t2 = (maxX - ox) * invDx;
+        double tNear = Math.min(t1, t2);
+        double tFar = Math.max(t1, t2);
+        t1 = (minY - oy) * invDy;
+        t2 = (maxY - oy) * invDy;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        t1 = (minZ - oz) * invDz;
+        t2 = (maxZ - oz) * invDz;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2)) * ROBUST_EXIT;
+        // NaN appears only for a ray parallel to a slab and lying on its plane - it is treated as a miss
+        if (!(tNear <= tFar) || tFar < 0 || tNear > maxDistance) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(tNear, 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        return (obj instanceof AABB other)
+                && minX == other.minX && minY == other.minY && minZ == other.minZ
+                && maxX == other.maxX && maxY == other.maxY && maxZ == other.maxZ;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) Math.round(minX + minY + minZ + maxX + maxY + maxZ);
+    }
+
+    @Override
+    public String toString() {
+        return "[(" + minX + "," + minY + "," + minZ + "),(" + maxX + "," + maxY + "," + maxZ + ")]";
+    }
+}
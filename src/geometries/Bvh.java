@@ -0,0 +1,967 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import geometries.Intersectable.GeoPoint;
+
+/**
+ * A bounding volume hierarchy over a set of bounded primitives.
+ * The tree is kept flattened in depth-first order inside primitive arrays: the left child of an
+ * inner node immediately follows it, and the node stores the index of its right child.
+ * The primitives themselves are not stored - the hierarchy keeps the permutation in which its owner
+ * must arrange them, so that every leaf refers to a contiguous range.
+ */
+final class Bvh {
+
+    /**
+     * Primitives that are intersected by their index, with no object per primitive - e.g. the faces of a mesh.
+     */
+    interface Primitives {
+
+        /**
+         * Computes the distance along a ray, given by its raw coordinates, to its intersection with a primitive.
+         *
+         * @param i The index of the primitive, in the order of the hierarchy.
+         * @param ox The x-coordinate of the ray head.
+         * @param oy The y-coordinate of the ray head.
+         * @param oz The z-coordinate of the ray head.
+         * @param dx The x-component of the ray direction.
+         * @param dy The y-component of the ray direction.
+         * @param dz The z-component of the ray direction.
+         * @param maxDistance The maximum distance for intersection detection.
+         * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+         */
+        double intersect(int i, double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance);
+    }
+
+    /**
+     * A receiver of the intersections of a ray with primitives given by their index.
+     */
+    interface Hits {
+
+        /**
+         * Receives an intersection.
+         *
+         * @param i The index of the intersected primitive, in the order of the hierarchy.
+         * @param t The distance of the intersection along the ray.
+         */
+        void hit(int i, double t);
+    }
+
+    /** The maximal depth of the hierarchy - it bounds the size of the traversal stack. */
+    static final int MAX_DEPTH = 48;
+
+    /** The size of the traversal stack - enough for a hierarchy of the maximal depth. */
+    static final int STACK_SIZE = 64;
+
+    /** The bounds of the nodes - 6 numbers (min x,y,z, max x,y,z) per node. */
+    final double[] bounds;
+
+    /**
+     * The nodes - 3 numbers per node: the index of the first primitive (leaf) or of the right child (inner node),
+     * the amount of primitives (0 for an inner node) and the split axis of an inner node.
+     */
+    final int[] nodes;
+
+    /** The order in which the owner must arrange its primitives. */
+    final int[] order;
+
+    /** The amount of nodes in the hierarchy. */
+    final int nodeCount;
+
+    /** The statistics of the construction of the hierarchy. */
+    final BvhBuilder.Statistics statistics;
+
+    /** The intersection kernel of the closest-hit queries, null for intersecting every primitive by itself. */
+    private IntersectionKernel kernel = null;
+
+    /** The triangles and the spheres of the primitives, laid out for the intersection kernel. */
+    private PrimitiveBatch batch = null;
+
+    /** The surface areas of the nodes as built, before they were first refit - null until then. */
+    private double[] builtAreas = null;
+
+    /**
+     * The Surface Area Heuristic costs of the subtrees of the nodes as built, before they were first refit -
+     * null until then.
+     */
+    private double[] builtCosts = null;
+
+    /**
+     * A refit of a subtree of the hierarchy as a separate parallel task.
+     */
+    private final class RefitTask extends RecursiveTask<Boolean> {
+        /** The serialization version of the task. */
+        private static final long serialVersionUID = 1L;
+
+        /** The primitives, arranged in the order of the hierarchy. */
+        private final Intersectable[] items;
+        /** The root node of the subtree. */
+        private final int node;
+        /** The end of the nodes of the subtree. */
+        private final int end;
+        /** The minimal amount of nodes in a subtree that is refit as a separate task. */
+        private final int threshold;
+
+        /**
+         * Constructs the refit of a subtree.
+         *
+         * @param items The primitives, arranged in the order of the hierarchy.
+         * @param node The root node of the subtree.
+         * @param end The end of the nodes of the subtree.
+         * @param threshold The minimal amount of nodes in a subtree that is refit as a separate task.
+         */
+        RefitTask(Intersectable[] items, int node, int end, int threshold) {
+            this.items = items;
+            this.node = node;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Boolean compute() {
+            return refit(this.items, this.node, this.end, this.threshold);
+        }
+    }
+
+    /**
+     * Constructs a hierarchy from its flattened arrays.
+     *
+     * @param bounds The bounds of the nodes.
+     * @param nodes The nodes.
+     * @param order The order of the primitives.
+     * @param nodeCount The amount of nodes.
+     * @param statistics The statistics of the construction.
+     */
+    Bvh(double[] bounds, int[] nodes, int[] order, int nodeCount, BvhBuilder.Statistics statistics) {
+        this.bounds = bounds;
+        this.nodes = nodes;
+        this.order = order;
+        this.nodeCount = nodeCount;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Writes the flattened arrays of the hierarchy and the statistics of its construction.
+     *
+     * @param out The encoder to write to.
+     */
+    void encode(GeometryCodec.Encoder out) {
+        out.putInt(this.nodeCount).putDoubles(this.bounds).putInts(this.nodes).putInts(this.order);
+        out.putInt(this.statistics.nodes()).putInt(this.statistics.leaves()).putInt(this.statistics.depth())
+                .putLong(this.statistics.buildTime()).putDouble(this.statistics.expectedCost());
+    }
+
+    /**
+     * Reads a hierarchy written by {@link #encode(GeometryCodec.Encoder)}, with no construction.
+     *
+     * @param in The decoder to read from.
+     * @return The hierarchy.
+     * @throws IllegalArgumentException if the arrays don't make a hierarchy of that amount of nodes.
+     */
+    static Bvh decode(GeometryCodec.Decoder in) {
+        int nodeCount = in.getInt();
+        double[] bounds = in.getDoubles();
+        int[] nodes = in.getInts();
+        int[] order = in.getInts();
+        if (nodeCount < 1 || bounds.length < 6 * nodeCount || nodes.length < 3 * nodeCount) {
+            throw new IllegalArgumentException("Cache data given is Illegal.");
+        }
+        BvhBuilder.Statistics statistics = new BvhBuilder.Statistics(in.getInt(), in.getInt(), in.getInt(),
+                in.getLong(), in.getDouble());
+        return new Bvh(bounds, nodes, order, nodeCount, statistics);
+    }
+
+    /**
+     * Refits the bounds of the nodes to the current bounds of the primitives, after primitives moved - the leaves
+     * bottom-up, in linear time, and big subtrees in parallel. The structure of the tree is kept, so its quality
+     * degrades as the primitives move away from their neighbors; {@link #findDegraded(double, double)} tells when.
+     * The hierarchy must not be traversed during the refit.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param builder The settings of the construction, whose pool and threshold are used for the parallel refit.
+     * @return False if a primitive can't be bounded anymore, and the hierarchy must be built again.
+     */
+    boolean refit(Intersectable[] items, BvhBuilder builder) {
+        if (this.builtAreas == null) {
+            this.builtAreas = areas();
+            this.builtCosts = costs(this.builtAreas, builder.getTraversalCost());
+        }
+        ForkJoinPool pool = builder.getPool();
+        int threshold = builder.getParallelThreshold();
+        return pool == null || this.nodeCount < threshold ? refit(items, 0, this.nodeCount, Integer.MAX_VALUE)
+                : pool.invoke(new RefitTask(items, 0, this.nodeCount, threshold));
+    }
+
+    /**
+     * Refits the bounds of the nodes of a subtree.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param node The root node of the subtree.
+     * @param end The end of the nodes of the subtree - the nodes of a subtree are contiguous in depth-first order.
+     * @param threshold The minimal amount of nodes in a subtree that is refit as a separate task.
+     * @return False if a primitive can't be bounded anymore.
+     */
+    private boolean refit(Intersectable[] items, int node, int end, int threshold) {
+        int first = nodes[3 * node];
+        int count = nodes[3 * node + 1];
+        int b = 6 * node;
+        if (count > 0) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            for (int i = first; i < first + count; ++i) {
+                AABB box = items[i].getBounds();
+                if (box.isEmpty() || !box.isBounded()) {
+                    return false;
+                }
+                minX = Math.min(minX, box.minX);
+                minY = Math.min(minY, box.minY);
+                minZ = Math.min(minZ, box.minZ);
+                maxX = Math.max(maxX, box.maxX);
+                maxY = Math.max(maxY, box.maxY);
+                maxZ = Math.max(maxZ, box.maxZ);
+            }
+            bounds[b] = minX;
+            bounds[b + 1] = minY;
+            bounds[b + 2] = minZ;
+            bounds[b + 3] = maxX;
+            bounds[b + 4] = maxY;
+            bounds[b + 5] = maxZ;
+            return true;
+        }
+        int left = node + 1, right = first;
+        boolean fits;
+        if (end - node >= threshold) {
+            RefitTask task = new RefitTask(items, right, end, threshold);
+            task.fork();
+            fits = refit(items, left, right, threshold);
+            fits &= task.join();
+        } else {
+            fits = refit(items, left, right, threshold) & refit(items, right, end, threshold);
+        }
+        int l = 6 * left, r = 6 * right;
+        for (int axis = 0; axis < 3; ++axis) {
+            bounds[b + axis] = Math.min(bounds[l + axis], bounds[r + axis]);
+            bounds[b + 3 + axis] = Math.max(bounds[l + 3 + axis], bounds[r + 3 + axis]);
+        }
+        return fits;
+    }
+
+    /**
+     * Finds where the refit hierarchy has degraded too much. The hierarchy is degraded when its Surface Area
+     * Heuristic cost has grown by more than a ratio since it was built. The walk goes down from the root along
+     * the child whose cost has grown the most, and stops at the first node whose child's box has grown by more
+     * than the ratio. That node is the lowest one whose box still holds the primitives that moved, so its
+     * subtree is the one to build again.
+     *
+     * @param threshold The ratio of growth that is tolerated.
+     * @param traversalCost The cost of traversing a node relatively to the cost of intersecting a primitive.
+     * @return The root of the subtree to build again - 0 for the whole hierarchy - or -1 if it's good enough.
+     */
+    int findDegraded(double threshold, double traversalCost) {
+        if (this.builtAreas == null) {
+            return -1;
+        }
+        double[] areas = areas();
+        double[] costs = costs(areas, traversalCost);
+        if (costs[0] <= threshold * this.builtCosts[0]) {
+            return -1;
+        }
+        if (areas[0] > threshold * this.builtAreas[0]) {
+            return 0;
+        }
+        int node = 0;
+        while (nodes[3 * node + 1] == 0) {
+            int left = node + 1, right = nodes[3 * node];
+            int child = costs[left] - this.builtCosts[left] >= costs[right] - this.builtCosts[right] ? left : right;
+            if (areas[child] > threshold * this.builtAreas[child]) {
+                return node;
+            }
+            node = child;
+        }
+        // the cost grew with no box that grew much - the whole tree has drifted
+        return 0;
+    }
+
+    /**
+     * Builds a subtree of the hierarchy again, over the current bounds of its primitives, into a new hierarchy
+     * that shares nothing with this one. The primitives of the subtree are arranged again in the given array.
+     *
+     * @param root The root node of the subtree, not the root of the hierarchy.
+     * @param items The primitives, arranged in the order of the hierarchy - rearranged in the order of the new one.
+     * @param builder The settings of the construction.
+     * @return The new hierarchy.
+     */
+    Bvh rebuild(int root, Intersectable[] items, BvhBuilder builder) {
+        long start = System.nanoTime();
+        int end = root;
+        while (nodes[3 * end + 1] == 0) {
+            end = nodes[3 * end];
+        }
+        ++end;
+        int leftmost = root;
+        while (nodes[3 * leftmost + 1] == 0) {
+            ++leftmost;
+        }
+        int lo = nodes[3 * leftmost], hi = nodes[3 * (end - 1)] + nodes[3 * (end - 1) + 1];
+
+        AABB[] boxes = new AABB[hi - lo];
+        for (int i = lo; i < hi; ++i) {
+            boxes[i - lo] = items[i].getBounds();
+        }
+        Bvh sub = builder.build(boxes);
+        int count = this.nodeCount - (end - root) + sub.nodeCount;
+        int delta = sub.nodeCount - (end - root);
+
+        double[] newBounds = new double[6 * count];
+        System.arraycopy(this.bounds, 0, newBounds, 0, 6 * root);
+        System.arraycopy(sub.bounds, 0, newBounds, 6 * root, 6 * sub.nodeCount);
+        System.arraycopy(this.bounds, 6 * end, newBounds, 6 * (root + sub.nodeCount), 6 * (this.nodeCount - end));
+        int[] newNodes = new int[3 * count];
+        System.arraycopy(this.nodes, 0, newNodes, 0, 3 * root);
+        System.arraycopy(sub.nodes, 0, newNodes, 3 * root, 3 * sub.nodeCount);
+        System.arraycopy(this.nodes, 3 * end, newNodes, 3 * (root + sub.nodeCount), 3 * (this.nodeCount - end));
+        for (int node = 0; node < count; ++node) {
+            boolean leaf = newNodes[3 * node + 1] > 0;
+            if (node >= root && node < root + sub.nodeCount) {
+                // the nodes of the subtree refer to its own nodes and primitives from 0
+                newNodes[3 * node] += leaf ? lo : root;
+            } else if (!leaf && newNodes[3 * node] >= end) {
+                newNodes[3 * node] += delta;
+            }
+        }
+
+        int[] newOrder = this.order.clone();
+        Intersectable[] moved = new Intersectable[hi - lo];
+        System.arraycopy(items, lo, moved, 0, hi - lo);
+        for (int i = 0; i < hi - lo; ++i) {
+            newOrder[lo + i] = this.order[lo + sub.order[i]];
+            items[lo + i] = moved[sub.order[i]];
+        }
+
+        Bvh bvh = new Bvh(newBounds, newNodes, newOrder, count,
+                statistics(newBounds, newNodes, count, builder.getTraversalCost(), System.nanoTime() - start));
+        if (this.builtAreas != null) {
+            // the rest of the hierarchy keeps the quality it was built with, the new subtree starts afresh
+            double[] areas = new double[count];
+            System.arraycopy(this.builtAreas, 0, areas, 0, root);
+            System.arraycopy(sub.areas(), 0, areas, root, sub.nodeCount);
+            System.arraycopy(this.builtAreas, end, areas, root + sub.nodeCount, this.nodeCount - end);
+            bvh.builtAreas = areas;
+            bvh.builtCosts = bvh.costs(areas, builder.getTraversalCost());
+        }
+        return bvh;
+    }
+
+    /**
+     * Computes the surface areas of the nodes.
+     *
+     * @return The surface area of every node.
+     */
+    private double[] areas() {
+        return areas(this.bounds, this.nodeCount);
+    }
+
+    /**
+     * Computes the Surface Area Heuristic costs of the subtrees of the nodes.
+     *
+     * @param areas The surface areas of the nodes.
+     * @param traversalCost The cost of traversing a node relatively to the cost of intersecting a primitive.
+     * @return The cost of the subtree of every node.
+     */
+    private double[] costs(double[] areas, double traversalCost) {
+        return costs(this.nodes, areas, this.nodeCount, traversalCost);
+    }
+
+    /**
+     * Computes the surface areas of the nodes of a hierarchy given by its flattened arrays.
+     *
+     * @param bounds The bounds of the nodes.
+     * @param count The amount of nodes.
+     * @return The surface area of every node.
+     */
+    private static double[] areas(double[] bounds, int count) {
+        double[] areas = new double[count];
+        for (int node = 0; node < count; ++node) {
+            int b = 6 * node;
+            double dx = bounds[b + 3] - bounds[b], dy = bounds[b + 4] - bounds[b + 1], dz = bounds[b + 5] - bounds[b + 2];
+            areas[node] = 2 * (dx * dy + dy * dz + dz * dx);
+        }
+        return areas;
+    }
+
+    /**
+     * Computes the Surface Area Heuristic costs of the subtrees of the nodes of a hierarchy given by its flattened
+     * arrays, not divided by the area of the root - the children of a node follow it in depth-first order,
+     * so the nodes are summed from the last one.
+     *
+     * @param nodes The nodes.
+     * @param areas The surface areas of the nodes.
+     * @param count The amount of nodes.
+     * @param traversalCost The cost of traversing a node relatively to the cost of intersecting a primitive.
+     * @return The cost of the subtree of every node.
+     */
+    private static double[] costs(int[] nodes, double[] areas, int count, double traversalCost) {
+        double[] costs = new double[count];
+        for (int node = count - 1; node >= 0; --node) {
+            int primitives = nodes[3 * node + 1];
+            costs[node] = primitives > 0 ? areas[node] * primitives
+                    : areas[node] * traversalCost + costs[node + 1] + costs[nodes[3 * node]];
+        }
+        return costs;
+    }
+
+    /**
+     * Collects the statistics of a hierarchy given by its flattened arrays.
+     *
+     * @param bounds The bounds of the nodes.
+     * @param nodes The nodes.
+     * @param count The amount of nodes.
+     * @param traversalCost The cost of traversing a node relatively to the cost of intersecting a primitive.
+     * @param buildTime The build time in nanoseconds.
+     * @return The statistics.
+     */
+    private static BvhBuilder.Statistics statistics(double[] bounds, int[] nodes, int count, double traversalCost,
+                                                    long buildTime) {
+        double[] areas = areas(bounds, count);
+        double cost = costs(nodes, areas, count, traversalCost)[0];
+        int[] levels = new int[count];
+        int leaves = 0, depth = 0;
+        for (int node = 0; node < count; ++node) {
+            if (nodes[3 * node + 1] > 0) {
+                ++leaves;
+                depth = Math.max(depth, levels[node]);
+            } else {
+                levels[node + 1] = levels[node] + 1;
+                levels[nodes[3 * node]] = levels[node] + 1;
+            }
+        }
+        return new BvhBuilder.Statistics(count, leaves, depth, buildTime, areas[0] > 0 ? cost / areas[0] : cost);
+    }
+
+    /**
+     * Sets the intersection kernel of the closest-hit queries, which tests the triangles and the spheres of a leaf
+     * at once and the rays of a packet against a node at once.
+     *
+     * @param kernel The intersection kernel, null for intersecting every primitive by itself.
+     * @param items The primitives, arranged in the order of the hierarchy.
+     */
+    void setKernel(IntersectionKernel kernel, Intersectable[] items) {
+        this.kernel = kernel;
+        this.batch = kernel == null ? null : new PrimitiveBatch(items);
+    }
+
+    /**
+     * Computes the distance at which a ray enters a node.
+     *
+     * @param node The index of the node.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param invDx The inverse of the x-component of the ray direction.
+     * @param invDy The inverse of the y-component of the ray direction.
+     * @param invDz The inverse of the z-component of the ray direction.
+     * @param maxDistance The maximum distance along the ray.
+     * @return The entry distance, or positive infinity if the node is missed.
+     */
+    double entry(int node, double ox, double oy, double oz,
+                 double invDx, double invDy, double invDz, double maxDistance) {
+        int b = 6 * node;
+        return AABB.slab(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5],
+                ox, oy, oz, invDx, invDy, invDz, maxDistance);
+    }
+
+    /**
+     * Finds all the intersections of a ray with the primitives of the hierarchy.
+     * The nodes are visited front-to-back and every node that the ray enters beyond the maximum
+     * distance is skipped together with its whole subtree.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return A list of the intersections, or null if there are none.
+     */
+    List<GeoPoint> findGeoIntersections(Intersectable[] items, Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+
+        List<GeoPoint> intersections = null;
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0) {
+                for (int i = first; i < first + count; ++i) {
+                    List<GeoPoint> points = items[i].findGeoIntersections(ray, maxDistance);
+                    if (points != null) {
+                        if (intersections == null) {
+                            intersections = new LinkedList<>();
+                        }
+                        intersections.addAll(points);
+                    }
+                }
+            } else {
+                int axis = nodes[3 * node + 2];
+                double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+                // push the far child first, so that the near child is visited first
+                if (d < 0) {
+                    stack[top++] = node + 1;
+                    stack[top++] = first;
+                } else {
+                    stack[top++] = first;
+                    stack[top++] = node + 1;
+                }
+            }
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the primitives of the hierarchy.
+     * The nodes are visited front-to-back and the maximum distance shrinks to the closest intersection found
+     * so far, so the traversal ends as soon as no remaining node can hold a closer one.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest intersection, or null if there are none closer than the maximum distance.
+     */
+    GeoPoint findClosestGeoIntersection(Intersectable[] items, Ray ray, double maxDistance) {
+        return findClosestGeoIntersection(items, ray, maxDistance, 0);
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the primitives of a subtree of the hierarchy.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param root The index of the root node of the subtree.
+     * @return The closest intersection, or null if there are none closer than the maximum distance.
+     */
+    private GeoPoint findClosestGeoIntersection(Intersectable[] items, Ray ray, double maxDistance, int root) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+
+        GeoPoint closest = null;
+        double[] leafDistance = this.kernel == null ? null : new double[1];
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0 && this.kernel != null) {
+                GeoPoint geoPoint = closestInLeaf(items, first, count, ray, maxDistance, leafDistance);
+                if (geoPoint != null) {
+                    closest = geoPoint;
+                    maxDistance = leafDistance[0];
+                }
+            } else if (count > 0) {
+                for (int i = first; i < first + count; ++i) {
+                    GeoPoint geoPoint = items[i].findClosestGeoIntersection(ray, maxDistance);
+                    if (geoPoint != null) {
+                        double distance = geoPoint.point.distance(head);
+                        if (closest == null || distance < maxDistance) {
+                            closest = geoPoint;
+                            maxDistance = distance;
+                        }
+                    }
+                }
+            } else {
+                int axis = nodes[3 * node + 2];
+                double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+                if (d < 0) {
+                    stack[top++] = node + 1;
+                    stack[top++] = first;
+                } else {
+                    stack[top++] = first;
+                    stack[top++] = node + 1;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersections of a subset of the rays of a packet with the primitives of the hierarchy.
+     * The packet is traversed together: a node is fetched once and tested against all the rays that entered its
+     * parent, and it is visited if any of them enters it before its closest intersection so far.
+     * The packet falls back to single rays when it diverges - from the start if its rays don't visit the children
+     * of the nodes in the same order, and in a subtree that only one of its rays enters.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param packet The packet of rays.
+     * @param mask The mask of the rays to be traced.
+     */
+    void findClosestGeoIntersections(Intersectable[] items, RayPacket packet, int mask) {
+        if (!packet.coherent(mask)) {
+            for (int m = mask; m != 0; m &= m - 1) {
+                traceSingle(items, packet, Integer.numberOfTrailingZeros(m), 0);
+            }
+            return;
+        }
+        int first = Integer.numberOfTrailingZeros(mask);
+        double dx = packet.dx[first], dy = packet.dy[first], dz = packet.dz[first];
+
+        double[] leafDistance = this.kernel == null ? null : new double[1];
+        int[] stack = new int[STACK_SIZE];
+        int[] masks = new int[STACK_SIZE];
+        int top = 0;
+        stack[top] = 0;
+        masks[top++] = mask;
+        while (top > 0) {
+            int node = stack[--top];
+            int active = this.kernel == null ? packet.enter(bounds, 6 * node, masks[top])
+                    : this.kernel.enter(packet, bounds, 6 * node, masks[top]);
+            if (active == 0) {
+                continue;
+            }
+            if ((active & (active - 1)) == 0) {
+                traceSingle(items, packet, Integer.numberOfTrailingZeros(active), node);
+                continue;
+            }
+            int firstChild = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0 && this.kernel != null) {
+                for (int m = active; m != 0; m &= m - 1) {
+                    int i = Integer.numberOfTrailingZeros(m);
+                    packet.offer(i, closestInLeaf(items, firstChild, count, packet.rays[i], packet.tMax[i],
+                            leafDistance));
+                }
+            } else if (count > 0) {
+                for (int i = firstChild; i < firstChild + count; ++i) {
+                    items[i].findClosestGeoIntersectionsHelper(packet, active);
+                }
+            } else {
+                int axis = nodes[3 * node + 2];
+                double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+                // all the rays of a coherent packet have the same near child
+                if (d < 0) {
+                    stack[top] = node + 1;
+                    masks[top++] = active;
+                    stack[top] = firstChild;
+                } else {
+                    stack[top] = firstChild;
+                    masks[top++] = active;
+                    stack[top] = node + 1;
+                }
+                masks[top++] = active;
+            }
+        }
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the primitives of a leaf by the intersection kernel -
+     * the triangles of the leaf at once, then its spheres at once, and then every other primitive by itself.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param first The index of the first primitive of the leaf.
+     * @param count The amount of primitives of the leaf.
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the closest intersection in its first cell.
+     * @return The closest intersection, or null if there are none closer than the maximum distance.
+     */
+    private GeoPoint closestInLeaf(Intersectable[] items, int first, int count, Ray ray, double maxDistance,
+                                   double[] distance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        GeoPoint closest = null;
+        if (this.batch.hasTriangles()) {
+            int i = this.kernel.closestTriangle(this.batch, first, count, ox, oy, oz, dx, dy, dz, maxDistance, distance);
+            if (i >= 0) {
+                maxDistance = distance[0];
+                closest = new GeoPoint((Geometry) items[i], ray.getPoint(maxDistance));
+            }
+        }
+        if (this.batch.hasSpheres()) {
+            int i = this.kernel.closestSphere(this.batch, first, count, ox, oy, oz, dx, dy, dz, maxDistance, distance);
+            if (i >= 0) {
+                maxDistance = distance[0];
+                closest = new GeoPoint((Geometry) items[i], ray.getPoint(maxDistance));
+            }
+        }
+        if (this.batch.hasOthers()) {
+            for (int i = first; i < first + count; ++i) {
+                if (this.batch.kinds[i] == PrimitiveBatch.OTHER) {
+                    GeoPoint geoPoint = items[i].findClosestGeoIntersection(ray, maxDistance);
+                    if (geoPoint != null) {
+                        double d = geoPoint.point.distance(head);
+                        if (closest == null || d < maxDistance) {
+                            closest = geoPoint;
+                            maxDistance = d;
+                        }
+                    }
+                }
+            }
+        }
+        distance[0] = maxDistance;
+        return closest;
+    }
+
+    /**
+     * Traces a single ray of a packet through a subtree of the hierarchy, and records its closest intersection
+     * in the packet.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param packet The packet of rays.
+     * @param i The index of the ray in the packet.
+     * @param root The index of the root node of the subtree.
+     */
+    private void traceSingle(Intersectable[] items, RayPacket packet, int i, int root) {
+        packet.offer(i, findClosestGeoIntersection(items, packet.rays[i], packet.tMax[i], root));
+    }
+
+    /**
+     * Computes the fraction of light that passes along a ray through the primitives of the hierarchy.
+     * The nodes are visited front-to-back, so that an opaque primitive near the head of the ray is found early,
+     * and the traversal ends as soon as the light is fully blocked.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param ktr The transmission factor accumulated before the hierarchy.
+     * @return The accumulated transmission factor, {@link Double3#ZERO} if the light is blocked.
+     */
+    Double3 transmittance(Intersectable[] items, Ray ray, double maxDistance, Double3 ktr) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0) {
+                for (int i = first; i < first + count; ++i) {
+                    Double3 kt = items[i].transmittance(ray, maxDistance);
+                    if (kt != Double3.ONE) {
+                        ktr = ktr.product(kt);
+                        if (ktr.equals(Double3.ZERO)) {
+                            return Double3.ZERO;
+                        }
+                    }
+                }
+            } else {
+                int axis = nodes[3 * node + 2];
+                double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+                if (d < 0) {
+                    stack[top++] = node + 1;
+                    stack[top++] = first;
+                } else {
+                    stack[top++] = first;
+                    stack[top++] = node + 1;
+                }
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Checks whether an opaque primitive of the hierarchy blocks the light along a ray - an any-hit traversal,
+     * which ends at the first primitive that occludes the ray.
+     *
+     * @param items The primitives, arranged in the order of the hierarchy.
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return True if an opaque primitive is in the way, false otherwise.
+     */
+    boolean occluded(Intersectable[] items, Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0) {
+                for (int i = first; i < first + count; ++i) {
+                    if (items[i].occluded(ray, maxDistance)) {
+                        return true;
+                    }
+                }
+            } else {
+                stack[top++] = first;
+                stack[top++] = node + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds any intersection of a ray, given by its raw coordinates, with primitives that are intersected by their
+     * index - an any-hit traversal, which ends at the first intersection it finds.
+     *
+     * @param primitives The primitives.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The index of an intersected primitive, or -1 if there is no intersection up to the maximum distance.
+     */
+    int findAny(Primitives primitives, double ox, double oy, double oz, double dx, double dy, double dz,
+                double maxDistance) {
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0) {
+                for (int i = first; i < first + count; ++i) {
+                    if (primitives.intersect(i, ox, oy, oz, dx, dy, dz, maxDistance) > 0) {
+                        return i;
+                    }
+                }
+            } else {
+                stack[top++] = first;
+                stack[top++] = node + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the closest intersection of a ray, given by its raw coordinates, with primitives that are intersected
+     * by their index.
+     *
+     * @param primitives The primitives.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the intersection in its first cell.
+     * @return The index of the intersected primitive, or -1 if there is no intersection up to the maximum distance.
+     */
+    int findClosest(Primitives primitives, double ox, double oy, double oz, double dx, double dy, double dz,
+                    double maxDistance, double[] distance) {
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        int closest = -1;
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0) {
+                for (int i = first; i < first + count; ++i) {
+                    double t = primitives.intersect(i, ox, oy, oz, dx, dy, dz, maxDistance);
+                    if (t > 0 && (closest < 0 || t < maxDistance)) {
+                        closest = i;
+                        maxDistance = t;
+                    }
+                }
+            } else {
+                int axis = nodes[3 * node + 2];
+                double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+                if (d < 0) {
+                    stack[top++] = node + 1;
+                    stack[top++] = first;
+                } else {
+                    stack[top++] = first;
+                    stack[top++] = node + 1;
+                }
+            }
+        }
+        distance[0] = maxDistance;
+        return closest;
+    }
+
+    /**
+     * Finds all the intersections of a ray, given by its raw coordinates, with primitives that are intersected
+     * by their index.
+     *
+     * @param primitives The primitives.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param hits The receiver of the intersections.
+     */
+    void findAll(Primitives primitives, double ox, double oy, double oz, double dx, double dy, double dz,
+                 double maxDistance, Hits hits) {
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[3 * node];
+            int count = nodes[3 * node + 1];
+            if (count > 0) {
+                for (int i = first; i < first + count; ++i) {
+                    double t = primitives.intersect(i, ox, oy, oz, dx, dy, dz, maxDistance);
+                    if (t > 0) {
+                        hits.hit(i, t);
+                    }
+                }
+            } else {
+                stack[top++] = first;
+                stack[top++] = node + 1;
+            }
+        }
+    }
+}
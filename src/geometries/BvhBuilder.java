@@ -0,0 +1,574 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The BvhBuilder class holds the settings of the construction of a bounding volume hierarchy and builds it.
+ * By default, the primitives are split by the Surface Area Heuristic (SAH) evaluated over binned centers,
+ * and big subtrees are built in parallel on a fork-join pool.
+ */
+public class BvhBuilder {
+
+    /** The methods for choosing the split of the primitives of a node. */
+    public enum SplitMethod {
+        /** Split at the median of the centers along the longest axis. */
+        MEDIAN,
+        /** Split at the plane of the lowest Surface Area Heuristic cost among binned candidates. */
+        SAH
+    }
+
+    /**
+     * Statistics of a built hierarchy, for tuning the settings of the builder.
+     *
+     * @param nodes The amount of nodes.
+     * @param leaves The amount of leaves.
+     * @param depth The depth of the deepest leaf.
+     * @param buildTime The build time in nanoseconds.
+     * @param expectedCost The expected cost of a ray passing through the root, in units of primitive
+     *                     intersection tests (the Surface Area Heuristic cost of the tree).
+     */
+    public record Statistics(int nodes, int leaves, int depth, long buildTime, double expectedCost) {
+        @Override
+        public String toString() {
+            return String.format("BVH: %d nodes, %d leaves, depth %d, built in %.3f ms, expected cost %.3f",
+                    nodes, leaves, depth, buildTime / 1e6, expectedCost);
+        }
+    }
+
+    /** The method for choosing the splits. */
+    private SplitMethod splitMethod = SplitMethod.SAH;
+
+    /** The maximal amount of primitives in a leaf. */
+    private int leafSize = 4;
+
+    /** The cost of traversing a node relatively to the cost of intersecting a primitive. */
+    private double traversalCost = 1;
+
+    /** The amount of bins per axis for the Surface Area Heuristic. */
+    private int bins = 16;
+
+    /** The minimal amount of primitives in a subtree that is built as a separate parallel task. */
+    private int parallelThreshold = 4096;
+
+    /** The pool for the parallel construction, null for building in the calling thread. */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Sets the method for choosing the splits.
+     *
+     * @param splitMethod The split method.
+     * @return This BvhBuilder object for method chaining.
+     */
+    public BvhBuilder setSplitMethod(SplitMethod splitMethod) {
+        this.splitMethod = splitMethod;
+        return this;
+    }
+
+    /**
+     * Sets the maximal amount of primitives in a leaf.
+     *
+     * @param leafSize The maximal amount of primitives in a leaf.
+     * @return This BvhBuilder object for method chaining.
+     * @throws IllegalArgumentException if the leaf size is less than 1.
+     */
+    public BvhBuilder setLeafSize(int leafSize) {
+        if (leafSize < 1) {
+            throw new IllegalArgumentException("Leaf size given is Illegal.");
+        }
+        this.leafSize = leafSize;
+        return this;
+    }
+
+    /**
+     * Sets the cost of traversing a node relatively to the cost of intersecting a primitive.
+     * Higher values produce shallower trees with bigger leaves.
+     *
+     * @param traversalCost The traversal to intersection cost ratio.
+     * @return This BvhBuilder object for method chaining.
+     * @throws IllegalArgumentException if the ratio is negative.
+     */
+    public BvhBuilder setTraversalCost(double traversalCost) {
+        if (traversalCost < 0) {
+            throw new IllegalArgumentException("Traversal cost given is Illegal.");
+        }
+        this.traversalCost = traversalCost;
+        return this;
+    }
+
+    /**
+     * Sets the amount of bins per axis for the Surface Area Heuristic.
+     *
+     * @param bins The amount of bins.
+     * @return This BvhBuilder object for method chaining.
+     * @throws IllegalArgumentException if there are less than 2 bins.
+     */
+    public BvhBuilder setBins(int bins) {
+        if (bins < 2) {
+            throw new IllegalArgumentException("Bins count given is Illegal.");
+        }
+        this.bins = bins;
+        return this;
+    }
+
+    /**
+     * Sets the pool for the parallel construction and the minimal size of a subtree that is built as a separate task.
+     *
+     * @param pool The pool, or null for building in the calling thread.
+     * @param parallelThreshold The minimal amount of primitives in a parallel subtree.
+     * @return This BvhBuilder object for method chaining.
+     * @throws IllegalArgumentException if the threshold is less than 2.
+     */
+    public BvhBuilder setParallelism(ForkJoinPool pool, int parallelThreshold) {
+        if (parallelThreshold < 2) {
+            throw new IllegalArgumentException("Parallel threshold given is Illegal.");
+        }
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * Gets the cost of traversing a node relatively to the cost of intersecting a primitive.
+     *
+     * @return The traversal to intersection cost ratio.
+     */
+    double getTraversalCost() {
+        return this.traversalCost;
+    }
+
+    /**
+     * Gets the pool for the parallel construction.
+     *
+     * @return The pool, or null for building in the calling thread.
+     */
+    ForkJoinPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Gets the minimal size of a subtree that is built as a separate task.
+     *
+     * @return The minimal amount of primitives in a parallel subtree.
+     */
+    int getParallelThreshold() {
+        return this.parallelThreshold;
+    }
+
+    /**
+     * Builds a hierarchy over the given boxes.
+     *
+     * @param boxes The bounding boxes of the primitives (all of them must be bounded and not empty).
+     * @return The hierarchy.
+     */
+    Bvh build(AABB[] boxes) {
+        double[] primitives = new double[6 * boxes.length];
+        for (int i = 0; i < boxes.length; ++i) {
+            AABB box = boxes[i];
+            int b = 6 * i;
+            primitives[b] = box.minX;
+            primitives[b + 1] = box.minY;
+            primitives[b + 2] = box.minZ;
+            primitives[b + 3] = box.maxX;
+            primitives[b + 4] = box.maxY;
+            primitives[b + 5] = box.maxZ;
+        }
+        return build(primitives, boxes.length);
+    }
+
+    /**
+     * Builds a hierarchy over boxes given by their raw coordinates.
+     *
+     * @param primitives The boxes of the primitives - 6 numbers (min x,y,z, max x,y,z) per primitive.
+     * @param count The amount of primitives (at least one).
+     * @return The hierarchy.
+     */
+    Bvh build(double[] primitives, int count) {
+        long start = System.nanoTime();
+        int[] order = new int[count];
+        double[] centers = new double[3 * count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; ++axis) {
+                centers[3 * i + axis] = (primitives[6 * i + axis] + primitives[6 * i + 3 + axis]) / 2;
+            }
+        }
+
+        BuildTask root = new BuildTask(primitives, centers, order, 0, count, 0);
+        Node tree = pool == null || count < parallelThreshold ? root.compute() : pool.invoke(root);
+
+        Flattener flattener = new Flattener(tree.nodes);
+        flattener.flatten(tree, 0, area(tree.box));
+        Statistics statistics = new Statistics(tree.nodes, flattener.leaves, flattener.depth,
+                System.nanoTime() - start, flattener.cost);
+        return new Bvh(flattener.bounds, flattener.nodes, order, tree.nodes, statistics);
+    }
+
+    /**
+     * Computes the surface area of a box given by its raw coordinates.
+     *
+     * @param box The box - 6 numbers (min x,y,z, max x,y,z).
+     * @return The surface area of the box.
+     */
+    private static double area(double[] box) {
+        double dx = box[3] - box[0];
+        double dy = box[4] - box[1];
+        double dz = box[5] - box[2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * A node of the hierarchy while it is built, before it is flattened.
+     */
+    private static final class Node {
+        /** The bounds of the node. */
+        final double[] box;
+        /** The children of an inner node, null for a leaf. */
+        Node left, right;
+        /** The range of the primitives of a leaf in the order. */
+        int first, count;
+        /** The split axis of an inner node. */
+        int axis;
+        /** The amount of nodes in the subtree of the node. */
+        int nodes = 1;
+
+        /**
+         * Constructs a node with the given bounds.
+         *
+         * @param box The bounds of the node.
+         */
+        Node(double[] box) {
+            this.box = box;
+        }
+    }
+
+    /**
+     * A task that builds the subtree of the primitives in a range of the order.
+     * Every task rearranges only its own range, so tasks of disjoint subtrees run in parallel safely.
+     */
+    private final class BuildTask extends RecursiveTask<Node> {
+        /** The serialization version of the task. */
+        private static final long serialVersionUID = 1L;
+        /** The boxes of the primitives. */
+        private final double[] primitives;
+        /** The centers of the primitives - 3 numbers per primitive. */
+        private final double[] centers;
+        /** The order of the primitives. */
+        private final int[] order;
+        /** The range of the primitives of the subtree. */
+        private final int from, to;
+        /** The depth of the subtree root. */
+        private final int depth;
+        /** The primitive counts of the bins, reused by all the nodes the task builds. */
+        private final int[] binCounts = new int[bins];
+        /** The bounds of the bins, reused by all the nodes the task builds. */
+        private final double[] binBoxes = new double[6 * bins];
+        /** The areas right of every bin, reused by all the nodes the task builds. */
+        private final double[] rightAreas = new double[bins];
+
+        /**
+         * Constructs a task.
+         *
+         * @param primitives The boxes of the primitives.
+         * @param centers The centers of the primitives.
+         * @param order The order of the primitives.
+         * @param from The first index of the range (included).
+         * @param to The last index of the range (excluded).
+         * @param depth The depth of the subtree root.
+         */
+        BuildTask(double[] primitives, double[] centers, int[] order, int from, int to, int depth) {
+            this.primitives = primitives;
+            this.centers = centers;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Node compute() {
+            return build(from, to, depth);
+        }
+
+        /**
+         * Builds the subtree of the primitives in the given range of the order.
+         *
+         * @param from The first index of the range (included).
+         * @param to The last index of the range (excluded).
+         * @param depth The depth of the subtree root.
+         * @return The root of the subtree.
+         */
+        private Node build(int from, int to, int depth) {
+            double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            double[] centerBox = box.clone();
+            for (int i = from; i < to; ++i) {
+                int p = order[i];
+                for (int axis = 0; axis < 3; ++axis) {
+                    double low = primitives[6 * p + axis], high = primitives[6 * p + axis + 3];
+                    double c = centers[3 * p + axis];
+                    if (low < box[axis]) box[axis] = low;
+                    if (high > box[axis + 3]) box[axis + 3] = high;
+                    if (c < centerBox[axis]) centerBox[axis] = c;
+                    if (c > centerBox[axis + 3]) centerBox[axis + 3] = c;
+                }
+            }
+
+            Node node = new Node(box);
+            int count = to - from;
+            if (count == 1 || depth >= Bvh.MAX_DEPTH) {
+                return leaf(node, from, to);
+            }
+
+            int longest = 0;
+            for (int axis = 1; axis < 3; ++axis) {
+                if (centerBox[axis + 3] - centerBox[axis] > centerBox[longest + 3] - centerBox[longest]) {
+                    longest = axis;
+                }
+            }
+            int mid;
+            node.axis = longest;
+            if (centerBox[longest + 3] == centerBox[longest]) {
+                // all the centers coincide - no plane separates them
+                if (count <= leafSize) {
+                    return leaf(node, from, to);
+                }
+                mid = (from + to) >>> 1;
+            } else if (splitMethod == SplitMethod.MEDIAN) {
+                if (count <= leafSize) {
+                    return leaf(node, from, to);
+                }
+                mid = (from + to) >>> 1;
+                select(from, to - 1, mid, longest);
+            } else {
+                mid = sahSplit(node, from, to, centerBox);
+                if (mid < 0) {
+                    return leaf(node, from, to);
+                }
+            }
+
+            if (pool != null && Math.min(mid - from, to - mid) >= parallelThreshold) {
+                BuildTask leftTask = new BuildTask(primitives, centers, order, from, mid, depth + 1);
+                leftTask.fork();
+                node.right = build(mid, to, depth + 1);
+                node.left = leftTask.join();
+            } else {
+                node.left = build(from, mid, depth + 1);
+                node.right = build(mid, to, depth + 1);
+            }
+            node.nodes = 1 + node.left.nodes + node.right.nodes;
+            return node;
+        }
+
+        /**
+         * Turns a node into a leaf of the primitives in the given range.
+         *
+         * @param node The node.
+         * @param from The first index of the range (included).
+         * @param to The last index of the range (excluded).
+         * @return The node.
+         */
+        private Node leaf(Node node, int from, int to) {
+            node.first = from;
+            node.count = to - from;
+            return node;
+        }
+
+        /**
+         * Chooses the split of the primitives of a node by the Surface Area Heuristic over binned centers,
+         * and rearranges the range of the order accordingly.
+         *
+         * @param node The node (its split axis is replaced by the chosen one).
+         * @param from The first index of the range (included).
+         * @param to The last index of the range (excluded).
+         * @param centerBox The bounds of the centers of the primitives.
+         * @return The index that splits the range, or -1 if the node should be a leaf.
+         */
+        private int sahSplit(Node node, int from, int to, double[] centerBox) {
+            int count = to - from;
+            double nodeArea = area(node.box);
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestAxis = -1, bestBin = -1;
+
+            for (int axis = 0; axis < 3; ++axis) {
+                double min = centerBox[axis];
+                double extent = centerBox[axis + 3] - min;
+                if (extent <= 0) {
+                    continue;
+                }
+                double scale = bins / extent;
+                Arrays.fill(binCounts, 0);
+                for (int b = 0; b < bins; ++b) {
+                    for (int k = 0; k < 3; ++k) {
+                        binBoxes[6 * b + k] = Double.POSITIVE_INFINITY;
+                        binBoxes[6 * b + k + 3] = Double.NEGATIVE_INFINITY;
+                    }
+                }
+                for (int i = from; i < to; ++i) {
+                    int p = order[i];
+                    int b = Math.min(bins - 1, (int) ((centers[3 * p + axis] - min) * scale));
+                    ++binCounts[b];
+                    // plain comparisons instead of Math.min/max - the coordinates are never NaN
+                    for (int k = 0; k < 3; ++k) {
+                        double low = primitives[6 * p + k], high = primitives[6 * p + k + 3];
+                        if (low < binBoxes[6 * b + k]) binBoxes[6 * b + k] = low;
+                        if (high > binBoxes[6 * b + k + 3]) binBoxes[6 * b + k + 3] = high;
+                    }
+                }
+
+                // sweep from the right, keeping the area of the boxes right of every candidate plane
+                double[] sweep = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                        Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+                for (int b = bins - 1; b > 0; --b) {
+                    grow(sweep, binBoxes, b, binCounts[b]);
+                    rightAreas[b] = area(sweep);
+                }
+                // sweep from the left, evaluating the cost of the split after every bin
+                Arrays.fill(sweep, 0, 3, Double.POSITIVE_INFINITY);
+                Arrays.fill(sweep, 3, 6, Double.NEGATIVE_INFINITY);
+                int leftCount = 0;
+                for (int b = 0; b < bins - 1; ++b) {
+                    grow(sweep, binBoxes, b, binCounts[b]);
+                    leftCount += binCounts[b];
+                    int rightCount = count - leftCount;
+                    if (leftCount == 0 || rightCount == 0) {
+                        continue;
+                    }
+                    double cost = leftCount * area(sweep) + rightCount * rightAreas[b + 1];
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = b;
+                    }
+                }
+            }
+            if (bestAxis < 0) {
+                // every candidate plane leaves one side empty - split the range in the middle
+                return count <= leafSize ? -1 : (from + to) >>> 1;
+            }
+
+            bestCost = nodeArea > 0 ? traversalCost + bestCost / nodeArea : traversalCost;
+            if (count <= leafSize && bestCost >= count) {
+                return -1;
+            }
+
+            // partition the range by the chosen plane
+            double min = centerBox[bestAxis];
+            double scale = bins / (centerBox[bestAxis + 3] - min);
+            int i = from, j = to - 1;
+            while (i <= j) {
+                int p = order[i];
+                if (Math.min(bins - 1, (int) ((centers[3 * p + bestAxis] - min) * scale)) <= bestBin) {
+                    ++i;
+                } else {
+                    order[i] = order[j];
+                    order[j--] = p;
+                }
+            }
+            node.axis = bestAxis;
+            return i;
+        }
+
+        /**
+         * Grows a box to contain the box of a bin.
+         *
+         * @param box The box to be grown.
+         * @param binBoxes The boxes of the bins.
+         * @param bin The index of the bin.
+         * @param binCount The amount of primitives in the bin.
+         */
+        private void grow(double[] box, double[] binBoxes, int bin, int binCount) {
+            if (binCount == 0) {
+                return;
+            }
+            for (int k = 0; k < 3; ++k) {
+                box[k] = Math.min(box[k], binBoxes[6 * bin + k]);
+                box[k + 3] = Math.max(box[k + 3], binBoxes[6 * bin + k + 3]);
+            }
+        }
+
+        /**
+         * Rearranges the range of the order so that the primitive at index k is the one that would be there
+         * if the range were sorted by the centers along the axis, with smaller ones before it and bigger after it.
+         *
+         * @param left The first index of the range (included).
+         * @param right The last index of the range (included).
+         * @param k The index to be placed.
+         * @param axis The axis of the centers.
+         */
+        private void select(int left, int right, int k, int axis) {
+            while (right > left) {
+                double pivot = centers[3 * order[(left + right) >>> 1] + axis];
+                int i = left, j = right;
+                while (i <= j) {
+                    while (centers[3 * order[i] + axis] < pivot) ++i;
+                    while (centers[3 * order[j] + axis] > pivot) --j;
+                    if (i <= j) {
+                        int tmp = order[i];
+                        order[i++] = order[j];
+                        order[j--] = tmp;
+                    }
+                }
+                if (k <= j) right = j;
+                else if (k >= i) left = i;
+                else return;
+            }
+        }
+    }
+
+    /**
+     * Writes a built tree into the flattened arrays of the hierarchy in depth-first order,
+     * and collects its statistics on the way.
+     */
+    private final class Flattener {
+        /** The bounds of the nodes. */
+        final double[] bounds;
+        /** The nodes. */
+        final int[] nodes;
+        /** The amount of nodes written so far. */
+        int nodeCount = 0;
+        /** The amount of leaves. */
+        int leaves = 0;
+        /** The depth of the deepest leaf. */
+        int depth = 0;
+        /** The expected cost of the tree. */
+        double cost = 0;
+
+        /**
+         * Constructs a flattener.
+         *
+         * @param size The amount of nodes of the tree.
+         */
+        Flattener(int size) {
+            this.bounds = new double[6 * size];
+            this.nodes = new int[3 * size];
+        }
+
+        /**
+         * Writes the subtree of a node.
+         *
+         * @param node The node.
+         * @param level The depth of the node.
+         * @param rootArea The surface area of the root, for the expected cost.
+         */
+        void flatten(Node node, int level, double rootArea) {
+            int index = nodeCount++;
+            System.arraycopy(node.box, 0, bounds, 6 * index, 6);
+            double probability = rootArea > 0 ? area(node.box) / rootArea : 1;
+            if (node.left == null) {
+                nodes[3 * index] = node.first;
+                nodes[3 * index + 1] = node.count;
+                ++leaves;
+                depth = Math.max(depth, level);
+                cost += probability * node.count;
+                return;
+            }
+            nodes[3 * index + 2] = node.axis;
+            cost += probability * traversalCost;
+            flatten(node.left, level + 1, rootArea);
+            nodes[3 * index] = nodeCount;
+            flatten(node.right, level + 1, rootArea);
+        }
+    }
+}
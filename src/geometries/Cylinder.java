@@ -4,6 +4,9 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
 /**
  * A class that represents a cylinder in three-dimensional space, defined by a radius, an axis (Ray), and a height.
  * The class inherits from the Tube class.
@@ -27,14 +30,74 @@ public class Cylinder extends Tube{
         height = _height;
     }
 
+    /**
+     * Gets the height of the cylinder.
+     *
+     * @return The height of the cylinder.
+     */
+    double getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Computes the bounding box of the cylinder - the box of the discs of its bases. A disc of radius r around
+     * an axis v reaches r*sqrt(1-v_i²) from its center along the axis i.
+     *
+     * @return The bounding box of the cylinder.
+     */
+    @Override
+    public AABB getBounds() {
+        Vector v = this.axis.getDirection();
+        Point bottom = this.axis.getHead(), top = this.axis.getPoint(this.height);
+        double ex = this.radius * Math.sqrt(Math.max(0, 1 - v.getX() * v.getX()));
+        double ey = this.radius * Math.sqrt(Math.max(0, 1 - v.getY() * v.getY()));
+        double ez = this.radius * Math.sqrt(Math.max(0, 1 - v.getZ() * v.getZ()));
+        return new AABB(Math.min(bottom.getX(), top.getX()) - ex, Math.min(bottom.getY(), top.getY()) - ey,
+                Math.min(bottom.getZ(), top.getZ()) - ez, Math.max(bottom.getX(), top.getX()) + ex,
+                Math.max(bottom.getY(), top.getY()) + ey, Math.max(bottom.getZ(), top.getZ()) + ez);
+    }
+
     /**
      * Retrieves the normal vector to the geometry at the specified point.
+     * A point on a base gets the normal of the base, and a point on the side gets the normal of the tube.
      *
      * @param point The point at which the normal vector is being queried.
      * @return The normal vector to the geometry at the specified point.
      */
     @Override
     public Vector getNormal(Point point) {
+        Vector v = this.axis.getDirection();
+        Point head = this.axis.getHead();
+        if (point.equals(head)) {
+            return v.scale(-1);
+        }
+        double t = alignZero(v.dotProduct(point.subtract(head)));
+        if (t == 0) {
+            return v.scale(-1);
+        }
+        if (isZero(t - this.height)) {
+            return v;
+        }
         return super.getNormal(point);
     }
-}
\ No newline at end of file
+
+    /**
+     * Computes the distance along a ray, given by its raw coordinates, to its first intersection with the cylinder
+     * beyond a given distance - the tube clipped by the planes of its bases.
+     *
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param minDistance The distance that the intersection must be beyond - 0 for the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    @Override
+    double intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+                     double minDistance, double maxDistance) {
+        return intersect(ox, oy, oz, dx, dy, dz, minDistance, maxDistance, 0, this.height);
+    }
+}
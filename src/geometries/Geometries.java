@@ -1,8 +1,15 @@
 package geometries;
 
+import primitives.Double3;
+import primitives.Point;
 import primitives.Ray;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The Geometries class represents a collection of geometric objects that implement the Intersectable interface.
@@ -13,6 +20,54 @@ public class Geometries extends Intersectable {
     /** The list of geometric objects in this collection. */
     private List<Intersectable> geometries = new LinkedList<>();
 
+    /** The bounded geometries arranged in the order of the hierarchy, null while no hierarchy is built. */
+    private Intersectable[] bounded = null;
+
+    /** The geometries that can't be bounded (e.g. planes), tested by every ray when the hierarchy is built. */
+    private List<Intersectable> unbounded = null;
+
+    /** The bounding volume hierarchy over the bounded geometries, null if there are none. */
+    private Bvh bvh = null;
+
+    /**
+     * The bounding box of the collection - the union of the boxes of its geometries, computed when first needed
+     * and dropped when geometries are added to the collection or to a collection nested in it, or when it is
+     * refit. Null while it is not computed.
+     */
+    private volatile AABB bounds = null;
+
+    /** The collections that hold this one - grids included - whose bounding boxes are unions with its box. */
+    private final List<Intersectable> holders = new ArrayList<>();
+
+    /**
+     * Whether all the geometries of the collection are opaque, taken when the hierarchy is built or refit.
+     */
+    private boolean opaque = true;
+
+    /**
+     * The intersection kernel of the closest-hit queries through the hierarchy,
+     * null for intersecting every geometry by itself.
+     */
+    private IntersectionKernel kernel = null;
+
+    /** The settings of the construction of the hierarchy, kept for building it again after a refit. */
+    private BvhBuilder builder = null;
+
+    /** The ratio by which the cost of a refit hierarchy may grow before it is built again. */
+    private double rebuildThreshold = 1.5;
+
+    /**
+     * The ways a hierarchy is brought up to date with geometries that moved.
+     */
+    public enum Update {
+        /** The bounds of the nodes were refit, and the structure of the hierarchy was kept. */
+        REFIT,
+        /** The bounds were refit, and the subtree where the moved geometries degraded it was built again. */
+        PARTIAL_REBUILD,
+        /** The whole hierarchy was built again. */
+        FULL_REBUILD
+    }
+
     /**
      * Default constructor for Geometries.
      * Initializes an empty list of geometries.
@@ -30,13 +85,377 @@ public class Geometries extends Intersectable {
 
     /**
      * Adds one or more geometric objects to the collection.
+     * Adding geometries drops the bounding volume hierarchy, if it was built, and the bounding boxes of this
+     * collection and of the collections that hold it.
      *
      * @param geometries The array of geometric objects to be added to the collection.
      */
     public void add(Intersectable... geometries) {
         for (Intersectable item : geometries) {
             this.geometries.add(item);
+            link(this, item);
+        }
+        this.bounded = null;
+        this.unbounded = null;
+        this.bvh = null;
+        expireBounds();
+    }
+
+    /**
+     * Records that a collection holds a geometry, so that when the geometry is a collection - or a grid - the box
+     * of the holder expires together with its box.
+     *
+     * @param holder The collection that holds the geometry.
+     * @param geometry The geometry.
+     */
+    static void link(Intersectable holder, Intersectable geometry) {
+        if (geometry instanceof Geometries nested) {
+            nested.holders.add(holder);
+        } else if (geometry instanceof GridGeometries grid) {
+            grid.link(holder);
+        }
+    }
+
+    /**
+     * Drops the bounding boxes of collections - and of the collections that hold them, up to the outermost ones.
+     *
+     * @param holders The collections, grids included.
+     */
+    static void expireBounds(List<Intersectable> holders) {
+        for (Intersectable holder : holders) {
+            if (holder instanceof Geometries geometries) {
+                geometries.expireBounds();
+            } else if (holder instanceof GridGeometries grid) {
+                grid.expireBounds();
+            }
+        }
+    }
+
+    /**
+     * Drops the bounding box of the collection and of the collections that hold it. A holder computes its box
+     * from the box of this collection, so while this box is not computed, neither are theirs.
+     */
+    private void expireBounds() {
+        if (this.bounds != null) {
+            this.bounds = null;
+            expireBounds(this.holders);
+        }
+    }
+
+    /**
+     * Builds a bounding volume hierarchy with the default settings of {@link BvhBuilder}.
+     *
+     * @return This Geometries object for method chaining.
+     */
+    public Geometries buildBvh() {
+        return buildBvh(new BvhBuilder());
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the geometries of the collection (and of any nested collection),
+     * so that a ray is tested only against the geometries whose bounding boxes it passes through.
+     * Geometries without bounds (e.g. planes) are kept aside and tested by every ray.
+     *
+     * @param builder The settings of the construction of the hierarchy.
+     * @return This Geometries object for method chaining.
+     */
+    public Geometries buildBvh(BvhBuilder builder) {
+        for (Intersectable geometry : this.geometries) {
+            if (geometry instanceof Geometries nested) {
+                nested.buildBvh(builder);
+            }
+        }
+        build(builder);
+        return this;
+    }
+
+    /**
+     * Builds the bounding volume hierarchy over the geometries of the collection, with no construction of the
+     * hierarchies of the nested collections.
+     *
+     * @param builder The settings of the construction of the hierarchy.
+     */
+    private void build(BvhBuilder builder) {
+        List<Intersectable> boundedList = new ArrayList<>();
+        List<Intersectable> unboundedList = new ArrayList<>();
+        List<AABB> boxes = new ArrayList<>();
+        for (Intersectable geometry : this.geometries) {
+            AABB box = geometry.getBounds();
+            if (box.isEmpty()) {
+                continue;
+            }
+            if (box.isBounded()) {
+                boundedList.add(geometry);
+                boxes.add(box);
+            } else {
+                unboundedList.add(geometry);
+            }
+        }
+        this.builder = builder;
+        this.opaque = allOpaque(this.geometries);
+        this.unbounded = unboundedList;
+        this.bounded = new Intersectable[boundedList.size()];
+        this.bvh = boundedList.isEmpty() ? null : builder.build(boxes.toArray(new AABB[0]));
+        for (int i = 0; i < this.bounded.length; ++i) {
+            this.bounded[i] = boundedList.get(this.bvh.order[i]);
+        }
+        if (this.bvh != null) {
+            this.bvh.setKernel(this.kernel, this.bounded);
+        }
+    }
+
+    /**
+     * Sets the ratio by which the Surface Area Heuristic cost of a refit hierarchy may grow before
+     * {@link #refit()} builds it again, fully or partially.
+     *
+     * @param threshold The ratio - 1 builds the hierarchy again as soon as it degrades at all.
+     * @return This Geometries object for method chaining.
+     * @throws IllegalArgumentException if the ratio is less than 1.
+     */
+    public Geometries setRebuildThreshold(double threshold) {
+        if (!(threshold >= 1)) {
+            throw new IllegalArgumentException("Rebuild threshold given is Illegal.");
+        }
+        this.rebuildThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Brings the collection up to date after its geometries moved - e.g. for the next frame of an animation in
+     * which instances were moved - reusing the hierarchy built for the previous frame. The nested collections and
+     * grids are brought up to date first, and then the bounds of the nodes of the hierarchy are refit bottom-up,
+     * in linear time and in parallel. Once the moves degrade the hierarchy by more than the rebuild threshold, the subtree
+     * that holds the moved geometries is built again, or the whole hierarchy if that subtree is the root.
+     * A collection with no hierarchy only drops its bounding box. The geometries must not be traced meanwhile.
+     *
+     * @return How the hierarchy was brought up to date.
+     */
+    public Update refit() {
+        for (Intersectable geometry : this.geometries) {
+            if (geometry instanceof Geometries nested) {
+                nested.refit();
+            } else if (geometry instanceof GridGeometries grid) {
+                grid.refit();
+            }
+        }
+        expireBounds();
+        if (this.bounded == null) {
+            return Update.REFIT;
+        }
+        this.opaque = allOpaque(this.geometries);
+        BvhBuilder settings = this.builder == null ? new BvhBuilder() : this.builder;
+        if (!keepsBounds() || (this.bvh != null && !this.bvh.refit(this.bounded, settings))) {
+            build(settings);
+            return Update.FULL_REBUILD;
+        }
+        int degraded = this.bvh == null ? -1 : this.bvh.findDegraded(this.rebuildThreshold,
+                settings.getTraversalCost());
+        if (degraded < 0) {
+            return Update.REFIT;
+        }
+        Bvh rebuilt = degraded == 0 ? null : this.bvh.rebuild(degraded, this.bounded, settings);
+        if (rebuilt == null || rebuilt.statistics.depth() > Bvh.MAX_DEPTH) {
+            build(settings);
+            return Update.FULL_REBUILD;
+        }
+        this.bvh = rebuilt;
+        this.bvh.setKernel(this.kernel, this.bounded);
+        return Update.PARTIAL_REBUILD;
+    }
+
+    /**
+     * Checks that the geometries kept aside from the hierarchy are still to be kept aside - those without bounds
+     * are still unbounded, and those left out because they were empty are still empty.
+     *
+     * @return True if the arrangement of the geometries still holds.
+     */
+    private boolean keepsBounds() {
+        for (Intersectable geometry : this.unbounded) {
+            if (geometry.getBounds().isBounded()) {
+                return false;
+            }
+        }
+        if (this.geometries.size() == this.bounded.length + this.unbounded.size()) {
+            return true;
+        }
+        Set<Intersectable> arranged = Collections.newSetFromMap(new IdentityHashMap<>());
+        arranged.addAll(Arrays.asList(this.bounded));
+        arranged.addAll(this.unbounded);
+        for (Intersectable geometry : this.geometries) {
+            if (!arranged.contains(geometry) && !geometry.getBounds().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the intersection kernel of the closest-hit queries through the bounding volume hierarchy - of this
+     * collection and of the collections nested in it. The kernel tests the triangles and the spheres of a leaf
+     * at once, and a packet of rays against a node at once; a leaf size of at least the amount of lanes of the
+     * kernel lets it fill its vectors.
+     *
+     * @param kernel The intersection kernel (e.g. {@link IntersectionKernel#best()}),
+     *               null for intersecting every geometry by itself.
+     * @return The geometries themselves.
+     */
+    public Geometries setIntersectionKernel(IntersectionKernel kernel) {
+        this.kernel = kernel;
+        for (Intersectable geometry : this.geometries) {
+            if (geometry instanceof Geometries nested) {
+                nested.setIntersectionKernel(kernel);
+            }
+        }
+        if (this.bvh != null) {
+            this.bvh.setKernel(kernel, this.bounded);
+        }
+        return this;
+    }
+
+    /**
+     * Gets the statistics of the construction of the bounding volume hierarchy of the collection.
+     *
+     * @return The statistics, or null if no hierarchy is built.
+     */
+    public BvhBuilder.Statistics getBvhStatistics() {
+        return this.bvh == null ? null : this.bvh.statistics;
+    }
+
+    /**
+     * Writes the geometries of the collection and the hierarchy built over them, if it is built.
+     * The arrangement of the hierarchy is written as indices into the collection.
+     *
+     * @param out The encoder to write to.
+     */
+    void encode(GeometryCodec.Encoder out) {
+        IdentityHashMap<Intersectable, Integer> indices = new IdentityHashMap<>();
+        out.putInt(this.geometries.size());
+        for (Intersectable geometry : this.geometries) {
+            indices.putIfAbsent(geometry, indices.size());
+            out.putGeometry(geometry);
+        }
+        if (this.bounded == null) {
+            out.putInt(-1);
+            return;
+        }
+        out.putInt(this.bounded.length);
+        for (Intersectable geometry : this.bounded) {
+            out.putInt(indices.get(geometry));
         }
+        out.putInt(this.unbounded.size());
+        for (Intersectable geometry : this.unbounded) {
+            out.putInt(indices.get(geometry));
+        }
+        if (this.bvh != null) {
+            this.bvh.encode(out);
+        }
+    }
+
+    /**
+     * Reads a collection written by {@link #encode(GeometryCodec.Encoder)}, with no construction of its hierarchy.
+     *
+     * @param in The decoder to read from.
+     * @return The collection.
+     * @throws IllegalArgumentException if the arrangement of the hierarchy doesn't refer to the geometries.
+     */
+    static Geometries decode(GeometryCodec.Decoder in) {
+        int size = in.getInt();
+        if (size < 0 || size > in.remaining()) {
+            throw new IllegalArgumentException("Cache data given is Illegal.");
+        }
+        Intersectable[] items = new Intersectable[size];
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < size; ++i) {
+            items[i] = in.getGeometry();
+            geometries.geometries.add(items[i]);
+            link(geometries, items[i]);
+        }
+        int boundedCount = in.getInt();
+        if (boundedCount < 0) {
+            return geometries;
+        }
+        Intersectable[] bounded = new Intersectable[Math.min(boundedCount, size)];
+        for (int i = 0; i < bounded.length; ++i) {
+            bounded[i] = items[in.getInt()];
+        }
+        int unboundedCount = in.getInt();
+        List<Intersectable> unbounded = new ArrayList<>();
+        for (int i = 0; i < unboundedCount && i < size; ++i) {
+            unbounded.add(items[in.getInt()]);
+        }
+        Bvh bvh = bounded.length == 0 ? null : Bvh.decode(in);
+        if (bounded.length != boundedCount || unbounded.size() != unboundedCount
+                || (bvh != null && bvh.order.length != bounded.length)) {
+            throw new IllegalArgumentException("Cache data given is Illegal.");
+        }
+        geometries.bounded = bounded;
+        geometries.unbounded = unbounded;
+        geometries.bvh = bvh;
+        geometries.opaque = allOpaque(geometries.geometries);
+        return geometries;
+    }
+
+    /**
+     * Gets the bounding box of the collection - the union of the boxes of its geometries.
+     * The union is computed once and kept until geometries are added to this collection or to a collection
+     * nested in it, or until it is refit. A collection reached through an {@link Instance} is not followed, so
+     * like a change of the transform of the instance, a change of it takes effect on the next {@link #refit()}.
+     *
+     * @return The bounding box of the collection.
+     */
+    @Override
+    public AABB getBounds() {
+        AABB box = this.bounds;
+        if (box == null) {
+            box = AABB.EMPTY;
+            for (Intersectable geometry : this.geometries) {
+                box = box.union(geometry.getBounds());
+            }
+            this.bounds = box;
+        }
+        return box;
+    }
+
+    /**
+     * Checks whether all the geometries of the collection are opaque. A collection with a hierarchy answers by
+     * the materials its geometries had when the hierarchy was built or last refit, so a material that is changed
+     * or replaced afterwards takes effect on the next {@link #refit()}; a collection with no hierarchy checks its
+     * geometries every time.
+     *
+     * @return True if all the geometries are opaque, false otherwise.
+     */
+    @Override
+    public boolean isOpaque() {
+        return this.bounded != null ? this.opaque : allOpaque(this.geometries);
+    }
+
+    /**
+     * Checks whether all the geometries of a list are opaque.
+     *
+     * @param geometries The geometries.
+     * @return True if all the geometries are opaque, false otherwise.
+     */
+    static boolean allOpaque(List<Intersectable> geometries) {
+        for (Intersectable geometry : geometries) {
+            if (!geometry.isOpaque()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a ray may hit a geometry of the collection when it is intersected with every geometry by
+     * itself - a ray that misses the box of the collection skips all of its geometries, and the geometries
+     * nested in them. A collection with a hierarchy is culled by the hierarchy itself.
+     *
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return False if the ray surely misses the geometries of the collection.
+     */
+    private boolean mayHit(Ray ray, double maxDistance) {
+        AABB box = getBounds();
+        return !box.isBounded() ? !box.isEmpty() : box.intersects(ray, maxDistance);
     }
 
     /**
@@ -52,6 +471,12 @@ public class Geometries extends Intersectable {
         if (this.geometries == null){
             return null;
         }
+        if (this.bounded != null) {
+            return findBvhIntersections(ray, maxDistance);
+        }
+        if (!mayHit(ray, maxDistance)) {
+            return null;
+        }
         List<GeoPoint> intersectables = null;
         for (Intersectable geometry : this.geometries){
             List<GeoPoint> points = geometry.findGeoIntersections(ray, maxDistance);
@@ -64,4 +489,149 @@ public class Geometries extends Intersectable {
         }
         return intersectables;
     }
-}
\ No newline at end of file
+
+    /**
+     * Helper method to find the closest intersection between the ray and the geometries within this group.
+     * The maximum distance shrinks to the distance of the closest intersection found so far, so that every
+     * geometry rejects the intersections that are farther than it.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if no intersections are found.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        if (this.geometries == null || (this.bounded == null && !mayHit(ray, maxDistance))) {
+            return null;
+        }
+        Point head = ray.getHead();
+        GeoPoint closest = null;
+        for (Intersectable geometry : this.bounded != null ? this.unbounded : this.geometries) {
+            GeoPoint geoPoint = geometry.findClosestGeoIntersection(ray, maxDistance);
+            if (geoPoint != null) {
+                double distance = geoPoint.point.distance(head);
+                if (closest == null || distance < maxDistance) {
+                    closest = geoPoint;
+                    maxDistance = distance;
+                }
+            }
+        }
+        if (this.bvh != null) {
+            GeoPoint geoPoint = this.bvh.findClosestGeoIntersection(this.bounded, ray, maxDistance);
+            if (geoPoint != null) {
+                closest = geoPoint;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Helper method to find the closest intersections of a subset of the rays of a packet with the geometries.
+     * The unbounded geometries are tested against the packet one by one, and the bounded ones through the
+     * bounding volume hierarchy, if it has been built.
+     *
+     * @param packet The packet of rays.
+     * @param mask The mask of the rays to be traced.
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, int mask) {
+        if (this.geometries == null) {
+            return;
+        }
+        if (this.bounded == null) {
+            AABB box = getBounds();
+            if (box.isEmpty()) {
+                return;
+            }
+            if (box.isBounded()) {
+                for (int m = mask; m != 0; m &= m - 1) {
+                    int i = Integer.numberOfTrailingZeros(m);
+                    if (AABB.slab(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ,
+                            packet.ox[i], packet.oy[i], packet.oz[i], packet.invDx[i], packet.invDy[i],
+                            packet.invDz[i], packet.tMax[i]) == Double.POSITIVE_INFINITY) {
+                        mask &= ~(1 << i);
+                    }
+                }
+                if (mask == 0) {
+                    return;
+                }
+            }
+        }
+        for (Intersectable geometry : this.bounded != null ? this.unbounded : this.geometries) {
+            geometry.findClosestGeoIntersectionsHelper(packet, mask);
+        }
+        if (this.bvh != null) {
+            this.bvh.findClosestGeoIntersections(this.bounded, packet, mask);
+        }
+    }
+
+    /**
+     * Helper method to compute the fraction of light that passes along a ray through the geometries of this group.
+     * The transmission factors of the geometries are multiplied without building any list of intersections,
+     * and the computation stops at the first geometry that blocks the light.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The transmission factor.
+     */
+    @Override
+    protected Double3 transmittanceHelper(Ray ray, double maxDistance) {
+        Double3 ktr = Double3.ONE;
+        if (this.geometries == null || (this.bounded == null && !mayHit(ray, maxDistance))) {
+            return ktr;
+        }
+        for (Intersectable geometry : this.bounded != null ? this.unbounded : this.geometries) {
+            Double3 kt = geometry.transmittance(ray, maxDistance);
+            if (kt != Double3.ONE) {
+                ktr = ktr.product(kt);
+                if (ktr.equals(Double3.ZERO)) {
+                    return Double3.ZERO;
+                }
+            }
+        }
+        return this.bvh == null ? ktr : this.bvh.transmittance(this.bounded, ray, maxDistance, ktr);
+    }
+
+    /**
+     * Helper method to check whether an opaque geometry of this group blocks the light along a ray.
+     * The search stops at the first opaque geometry in the way, through the hierarchy if it is built.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return True if an opaque geometry is in the way, false otherwise.
+     */
+    @Override
+    protected boolean occludedHelper(Ray ray, double maxDistance) {
+        if (this.geometries == null || (this.bounded == null && !mayHit(ray, maxDistance))) {
+            return false;
+        }
+        for (Intersectable geometry : this.bounded != null ? this.unbounded : this.geometries) {
+            if (geometry.occluded(ray, maxDistance)) {
+                return true;
+            }
+        }
+        return this.bvh != null && this.bvh.occluded(this.bounded, ray, maxDistance);
+    }
+
+    /**
+     * Finds the intersections using the bounding volume hierarchy.
+     *
+     * @param ray The ray for which to find intersections.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return A list of GeoPoints representing the intersections, or null if no intersections are found.
+     */
+    private List<GeoPoint> findBvhIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> intersectables = this.bvh == null ? null
+                : this.bvh.findGeoIntersections(this.bounded, ray, maxDistance);
+        for (Intersectable geometry : this.unbounded) {
+            List<GeoPoint> points = geometry.findGeoIntersections(ray, maxDistance);
+            if (points != null) {
+                if (intersectables == null) {
+                    intersectables = new LinkedList<>();
+                }
+                intersectables.addAll(points);
+            }
+        }
+        return intersectables;
+    }
+}
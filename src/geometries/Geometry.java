@@ -1,8 +1,10 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
 /**
@@ -57,6 +59,46 @@ abstract public class Geometry extends Intersectable {
         return this;
     }
 
+    /**
+     * Checks whether the geometry lets no light pass through it.
+     *
+     * @return True if the transmission coefficient of the material is zero, false otherwise.
+     */
+    @Override
+    public boolean isOpaque() {
+        return this.material.kT.equals(Double3.ZERO);
+    }
+
+    /**
+     * Helper method to compute the fraction of light that passes along a ray through the geometry.
+     * An opaque geometry blocks the light at its first intersection, so only whether it occludes the ray is
+     * looked for.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The transmission factor.
+     */
+    @Override
+    protected Double3 transmittanceHelper(Ray ray, double maxDistance) {
+        if (isOpaque()) {
+            return occludedHelper(ray, maxDistance) ? Double3.ZERO : Double3.ONE;
+        }
+        return super.transmittanceHelper(ray, maxDistance);
+    }
+
+    /**
+     * Helper method to check whether the geometry blocks the light along a ray - a transparent geometry is
+     * skipped, and an opaque one blocks the light if the ray intersects it at all.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return True if the geometry is opaque and in the way, false otherwise.
+     */
+    @Override
+    protected boolean occludedHelper(Ray ray, double maxDistance) {
+        return isOpaque() && findClosestGeoIntersectionHelper(ray, maxDistance) != null;
+    }
+
     /**
      * Abstract method to retrieve the normal vector to the geometry at a specified point on its surface.
      *
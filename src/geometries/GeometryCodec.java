@@ -0,0 +1,552 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary form of geometries, for caching a prepared scene between runs.
+ * The numbers are kept little-endian, and the large arrays - the buffers of a mesh and the flattened arrays of a
+ * bounding volume hierarchy - are kept as they are in memory, so that decoding them is a bulk copy and no
+ * hierarchy is built again. The cells of a grid are not kept - a grid is built again in linear time when decoded.
+ * A material shared by several geometries is kept once and is shared again when decoded, and so is the geometry
+ * shared by several instances.
+ */
+public final class GeometryCodec {
+
+    /** The tag of a sphere. */
+    static final int SPHERE = 1;
+
+    /** The tag of a plane. */
+    static final int PLANE = 2;
+
+    /** The tag of a triangle. */
+    static final int TRIANGLE = 3;
+
+    /** The tag of a polygon. */
+    static final int POLYGON = 4;
+
+    /** The tag of a tube. */
+    static final int TUBE = 5;
+
+    /** The tag of a cylinder. */
+    static final int CYLINDER = 6;
+
+    /** The tag of a triangle mesh. */
+    static final int MESH = 7;
+
+    /** The tag of a collection of geometries. */
+    static final int GEOMETRIES = 8;
+
+    /** The tag of a collection of geometries indexed by a grid. */
+    static final int GRID = 9;
+
+    /** The tag of an instance of a shared geometry. */
+    static final int INSTANCE = 10;
+
+    /** Don't let anyone instantiate this class. */
+    private GeometryCodec() {}
+
+    /**
+     * Writes geometries and the values they are made of into a growing buffer.
+     */
+    public static final class Encoder {
+
+        /** The buffer of the written bytes. */
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        /** The index of every material written so far. */
+        private final Map<Material, Integer> materials = new IdentityHashMap<>();
+
+        /** The index of every geometry of an instance written so far. */
+        private final Map<Intersectable, Integer> instanced = new IdentityHashMap<>();
+
+        /**
+         * Makes room in the buffer.
+         *
+         * @param bytes The amount of bytes to be written.
+         */
+        private void ensure(long bytes) {
+            if (this.buffer.remaining() >= bytes) {
+                return;
+            }
+            long needed = this.buffer.position() + bytes;
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Geometry given is Illegal.");
+            }
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, 2L * this.buffer.capacity()));
+            ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            this.buffer.flip();
+            grown.put(this.buffer);
+            this.buffer = grown;
+        }
+
+        /**
+         * Writes a number.
+         *
+         * @param value The number.
+         * @return The encoder itself.
+         */
+        public Encoder putInt(int value) {
+            ensure(Integer.BYTES);
+            this.buffer.putInt(value);
+            return this;
+        }
+
+        /**
+         * Writes a number.
+         *
+         * @param value The number.
+         * @return The encoder itself.
+         */
+        public Encoder putLong(long value) {
+            ensure(Long.BYTES);
+            this.buffer.putLong(value);
+            return this;
+        }
+
+        /**
+         * Writes a number.
+         *
+         * @param value The number.
+         * @return The encoder itself.
+         */
+        public Encoder putDouble(double value) {
+            ensure(Double.BYTES);
+            this.buffer.putDouble(value);
+            return this;
+        }
+
+        /**
+         * Writes an array of numbers, preceded by its length.
+         *
+         * @param values The numbers.
+         * @return The encoder itself.
+         */
+        public Encoder putInts(int[] values) {
+            putInt(values.length);
+            ensure((long) Integer.BYTES * values.length);
+            this.buffer.asIntBuffer().put(values);
+            this.buffer.position(this.buffer.position() + Integer.BYTES * values.length);
+            return this;
+        }
+
+        /**
+         * Writes an array of numbers, preceded by its length.
+         *
+         * @param values The numbers.
+         * @return The encoder itself.
+         */
+        public Encoder putDoubles(double[] values) {
+            putInt(values.length);
+            ensure((long) Double.BYTES * values.length);
+            this.buffer.asDoubleBuffer().put(values);
+            this.buffer.position(this.buffer.position() + Double.BYTES * values.length);
+            return this;
+        }
+
+        /**
+         * Writes a text, as UTF-8 preceded by its length in bytes, or a negative length for null.
+         *
+         * @param value The text, may be null.
+         * @return The encoder itself.
+         */
+        public Encoder putString(String value) {
+            if (value == null) {
+                return putInt(-1);
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            this.buffer.put(bytes);
+            return this;
+        }
+
+        /**
+         * Writes a triad of numbers.
+         *
+         * @param value The triad.
+         * @return The encoder itself.
+         */
+        public Encoder putDouble3(Double3 value) {
+            return putDouble(value.getD1()).putDouble(value.getD2()).putDouble(value.getD3());
+        }
+
+        /**
+         * Writes a color.
+         *
+         * @param color The color.
+         * @return The encoder itself.
+         */
+        public Encoder putColor(Color color) {
+            return putDouble3(color.getRgb());
+        }
+
+        /**
+         * Writes a point, or the components of a vector.
+         *
+         * @param point The point.
+         * @return The encoder itself.
+         */
+        public Encoder putPoint(Point point) {
+            return putDouble(point.getX()).putDouble(point.getY()).putDouble(point.getZ());
+        }
+
+        /**
+         * Writes a material - all of its coefficients the first time, and only its index afterwards.
+         *
+         * @param material The material, may be null.
+         * @return The encoder itself.
+         */
+        public Encoder putMaterial(Material material) {
+            if (material == null) {
+                return putInt(-1);
+            }
+            Integer index = this.materials.get(material);
+            if (index != null) {
+                return putInt(index);
+            }
+            putInt(this.materials.size());
+            this.materials.put(material, this.materials.size());
+            return putDouble3(material.kD).putDouble3(material.kS).putInt(material.nShininess)
+                    .putDouble3(material.kT).putDouble3(material.kR);
+        }
+
+        /**
+         * Writes a geometry, with the geometries nested in it and with the hierarchies built over them.
+         * The intersection kernel of a collection is a setting of the running machine, and it is not written.
+         *
+         * @param geometry The geometry.
+         * @return The encoder itself.
+         * @throws IllegalArgumentException if the geometry is of a kind that can't be written.
+         */
+        public Encoder putGeometry(Intersectable geometry) {
+            if (geometry instanceof Geometries geometries) {
+                putInt(GEOMETRIES);
+                geometries.encode(this);
+                return this;
+            }
+            if (geometry instanceof GridGeometries grid) {
+                putInt(GRID);
+                grid.encode(this);
+                return this;
+            }
+            if (geometry instanceof Instance instance) {
+                putInt(INSTANCE);
+                for (double value : instance.getTransform().getMatrix()) {
+                    putDouble(value);
+                }
+                Integer index = this.instanced.get(instance.getGeometry());
+                if (index != null) {
+                    return putInt(index);
+                }
+                putInt(this.instanced.size());
+                this.instanced.put(instance.getGeometry(), this.instanced.size());
+                return putGeometry(instance.getGeometry());
+            }
+            if (!(geometry instanceof Geometry shape)) {
+                throw new IllegalArgumentException("Geometry given is Illegal.");
+            }
+            if (shape instanceof Sphere sphere) {
+                putInt(SPHERE).putDouble(sphere.radius).putPoint(sphere.getCenter());
+            } else if (shape instanceof Plane plane) {
+                putInt(PLANE).putPoint(plane.getq()).putPoint(plane.getNormal());
+            } else if (shape instanceof Triangle triangle) {
+                putInt(TRIANGLE);
+                for (Point vertex : triangle.vertices) {
+                    putPoint(vertex);
+                }
+                putInt(triangle.isWatertight() ? 1 : 0);
+            } else if (shape instanceof Polygon polygon) {
+                putInt(POLYGON).putInt(polygon.vertices.size());
+                for (Point vertex : polygon.vertices) {
+                    putPoint(vertex);
+                }
+            } else if (shape instanceof Cylinder cylinder) {
+                putInt(CYLINDER).putDouble(cylinder.radius).putPoint(cylinder.axis.getHead())
+                        .putPoint(cylinder.axis.getDirection()).putDouble(cylinder.getHeight());
+            } else if (shape instanceof Tube tube) {
+                putInt(TUBE).putDouble(tube.radius).putPoint(tube.axis.getHead()).putPoint(tube.axis.getDirection());
+            } else if (shape instanceof TriangleMesh mesh) {
+                putInt(MESH);
+                mesh.encode(this);
+            } else {
+                throw new IllegalArgumentException("Geometry given is Illegal.");
+            }
+            return putColor(shape.getEmission()).putMaterial(shape.getMaterial());
+        }
+
+        /**
+         * Gets the bytes written so far.
+         *
+         * @return A buffer of the written bytes, from its start to its limit.
+         */
+        public ByteBuffer toBuffer() {
+            return this.buffer.duplicate().flip().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Reads geometries and the values they are made of from a buffer written by an {@link Encoder},
+     * e.g. a file mapped into memory.
+     */
+    public static final class Decoder {
+
+        /** The buffer of the bytes to be read. */
+        private final ByteBuffer buffer;
+
+        /** The materials read so far, by their index. */
+        private final List<Material> materials = new ArrayList<>();
+
+        /** The geometries of the instances read so far, by their index. */
+        private final List<Intersectable> instanced = new ArrayList<>();
+
+        /**
+         * Constructs a decoder of the bytes of a buffer, from its position to its limit.
+         *
+         * @param buffer The buffer.
+         */
+        public Decoder(ByteBuffer buffer) {
+            this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Gets the amount of bytes that are left to be read.
+         *
+         * @return The amount of bytes.
+         */
+        public int remaining() {
+            return this.buffer.remaining();
+        }
+
+        /**
+         * Reads the length of an array and checks that the buffer holds it.
+         *
+         * @param bytes The size of an element of the array in bytes.
+         * @return The length of the array.
+         * @throws IllegalArgumentException if the buffer doesn't hold an array of that length.
+         */
+        private int getLength(int bytes) {
+            int length = getInt();
+            if (length < 0 || (long) length * bytes > this.buffer.remaining()) {
+                throw new IllegalArgumentException("Cache data given is Illegal.");
+            }
+            return length;
+        }
+
+        /**
+         * Reads a number.
+         *
+         * @return The number.
+         */
+        public int getInt() {
+            return this.buffer.getInt();
+        }
+
+        /**
+         * Reads a number.
+         *
+         * @return The number.
+         */
+        public long getLong() {
+            return this.buffer.getLong();
+        }
+
+        /**
+         * Reads a number.
+         *
+         * @return The number.
+         */
+        public double getDouble() {
+            return this.buffer.getDouble();
+        }
+
+        /**
+         * Reads an array of numbers.
+         *
+         * @return The numbers.
+         */
+        public int[] getInts() {
+            int[] values = new int[getLength(Integer.BYTES)];
+            this.buffer.asIntBuffer().get(values);
+            this.buffer.position(this.buffer.position() + Integer.BYTES * values.length);
+            return values;
+        }
+
+        /**
+         * Reads an array of numbers.
+         *
+         * @return The numbers.
+         */
+        public double[] getDoubles() {
+            double[] values = new double[getLength(Double.BYTES)];
+            this.buffer.asDoubleBuffer().get(values);
+            this.buffer.position(this.buffer.position() + Double.BYTES * values.length);
+            return values;
+        }
+
+        /**
+         * Reads a text.
+         *
+         * @return The text, may be null.
+         */
+        public String getString() {
+            if (this.buffer.getInt(this.buffer.position()) < 0) {
+                getInt();
+                return null;
+            }
+            byte[] bytes = new byte[getLength(1)];
+            this.buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Reads a triad of numbers.
+         *
+         * @return The triad.
+         */
+        public Double3 getDouble3() {
+            return new Double3(getDouble(), getDouble(), getDouble());
+        }
+
+        /**
+         * Reads a color.
+         *
+         * @return The color.
+         */
+        public Color getColor() {
+            return new Color(getDouble(), getDouble(), getDouble());
+        }
+
+        /**
+         * Reads a point.
+         *
+         * @return The point.
+         */
+        public Point getPoint() {
+            return new Point(getDouble(), getDouble(), getDouble());
+        }
+
+        /**
+         * Reads a vector.
+         *
+         * @return The vector.
+         */
+        public Vector getVector() {
+            return new Vector(getDouble(), getDouble(), getDouble());
+        }
+
+        /**
+         * Reads a material, the same object for every reference to a material that was shared when written.
+         *
+         * @return The material, may be null.
+         * @throws IllegalArgumentException if the reference is not of a material read so far.
+         */
+        public Material getMaterial() {
+            int index = getInt();
+            if (index < 0) {
+                return null;
+            }
+            if (index < this.materials.size()) {
+                return this.materials.get(index);
+            }
+            if (index != this.materials.size()) {
+                throw new IllegalArgumentException("Cache data given is Illegal.");
+            }
+            Material material = new Material().setKd(getDouble3()).setKs(getDouble3()).setShininess(getInt())
+                    .setKt(getDouble3()).setKr(getDouble3());
+            this.materials.add(material);
+            return material;
+        }
+
+        /**
+         * Reads an instance, whose geometry is the same object for every instance that shared it when written.
+         *
+         * @return The instance.
+         * @throws IllegalArgumentException if the data is not of an instance.
+         */
+        private Instance getInstance() {
+            double[] matrix = new double[12];
+            for (int i = 0; i < matrix.length; ++i) {
+                matrix[i] = getDouble();
+            }
+            Transform transform = new Transform(matrix);
+            int index = getInt();
+            if (index >= 0 && index < this.instanced.size() && this.instanced.get(index) != null) {
+                return new Instance(this.instanced.get(index), transform);
+            }
+            if (index != this.instanced.size()) {
+                throw new IllegalArgumentException("Cache data given is Illegal.");
+            }
+            // the index is taken before the geometry is read, as it is when written
+            this.instanced.add(null);
+            Intersectable geometry = getGeometry();
+            this.instanced.set(index, geometry);
+            return new Instance(geometry, transform);
+        }
+
+        /**
+         * Reads a geometry, with the geometries nested in it and with the hierarchies built over them.
+         *
+         * @return The geometry.
+         * @throws IllegalArgumentException if the data is not of a geometry.
+         */
+        public Intersectable getGeometry() {
+            int tag = getInt();
+            if (tag == INSTANCE) {
+                return getInstance();
+            }
+            Geometry shape = switch (tag) {
+                case GEOMETRIES -> null;
+                case GRID -> null;
+                case SPHERE -> {
+                    double radius = getDouble();
+                    yield new Sphere(radius, getPoint());
+                }
+                case PLANE -> new Plane(getPoint(), getVector());
+                case TRIANGLE -> {
+                    Triangle triangle = new Triangle(getPoint(), getPoint(), getPoint());
+                    int watertight = getInt();
+                    if (watertight >>> 1 != 0) {
+                        throw new IllegalArgumentException("Cache data given is Illegal.");
+                    }
+                    yield triangle.setWatertight(watertight == 1);
+                }
+                case POLYGON -> {
+                    Point[] vertices = new Point[getLength(3 * Double.BYTES)];
+                    for (int i = 0; i < vertices.length; ++i) {
+                        vertices[i] = getPoint();
+                    }
+                    yield new Polygon(vertices);
+                }
+                case TUBE -> {
+                    double radius = getDouble();
+                    yield new Tube(radius, new Ray(getPoint(), getVector()));
+                }
+                case CYLINDER -> {
+                    double radius = getDouble();
+                    Ray axis = new Ray(getPoint(), getVector());
+                    yield new Cylinder(radius, axis, getDouble());
+                }
+                case MESH -> TriangleMesh.decode(this);
+                default -> throw new IllegalArgumentException("Cache data given is Illegal.");
+            };
+            if (shape == null) {
+                return tag == GRID ? GridGeometries.decode(this) : Geometries.decode(this);
+            }
+            shape.setEmission(getColor());
+            return shape.setMaterial(getMaterial());
+        }
+    }
+}
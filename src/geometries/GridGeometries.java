@@ -0,0 +1,858 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A collection of geometries indexed by a uniform grid - an alternative to the bounding volume hierarchy of
+ * {@link Geometries} for scenes of many similar small objects spread evenly, e.g. particles.
+ * The resolution of the grid is chosen from the amount of objects and the bounds of the scene, so that every
+ * cell holds about the same amount of objects, and a ray walks the cells along its path by 3D-DDA
+ * (Amanatides and Woo, 1987), stopping at the first cell that confirms the closest hit.<br/>
+ * The cells keep the indices of their objects in compact {@code int[]} arrays. A cell that holds too many
+ * objects for an even grid - a dense cluster in a sparse scene - gets a grid of its own (a two-level grid).
+ * Building takes linear time in the amount of objects and their cell references, so the grid may be rebuilt
+ * for every frame of an animation. Geometries without bounds (e.g. planes) are kept aside and tested by every ray.
+ */
+public class GridGeometries extends Intersectable {
+
+    /** The maximal amount of cells along an axis of a grid. */
+    static final int MAX_RESOLUTION = 256;
+
+    /** The maximal amount of cells in a grid. */
+    static final int MAX_CELLS = 1 << 22;
+
+    /** The list of geometric objects in this collection. */
+    private final List<Intersectable> geometries = new ArrayList<>();
+
+    /** The amount of cells per object of the grid. */
+    private double density = 2;
+
+    /** The amount of objects in a cell that gets a grid of its own - 0 for a single-level grid. */
+    private int subdivisionThreshold = 32;
+
+    /** The bounded geometries by their indices in the cells, null while no grid is built. */
+    private Intersectable[] items = null;
+
+    /** The geometries that can't be bounded, tested by every ray when the grid is built. */
+    private List<Intersectable> unbounded = null;
+
+    /** The top level of the grid, null if there are no bounded geometries. */
+    private Level root = null;
+
+    /** The bounding box of the collection, null while it is not computed. */
+    private volatile AABB bounds = null;
+
+    /** The collections that hold this one - grids included - whose bounding boxes are unions with its box. */
+    private final List<Intersectable> holders = new ArrayList<>();
+
+    /** Whether all the geometries of the collection are opaque, taken when the grid is built. */
+    private boolean opaque = true;
+
+    /** The mailboxes of the threads that trace rays through the grid. */
+    private final ThreadLocal<Mailbox> mailboxes = ThreadLocal.withInitial(Mailbox::new);
+
+    /**
+     * A level of the grid - a uniform grid over a box, with the indices of the objects of every cell.
+     */
+    private static final class Level {
+
+        /** The minimal x-coordinate of the box of the grid. */
+        final double minX;
+        /** The minimal y-coordinate of the box of the grid. */
+        final double minY;
+        /** The minimal z-coordinate of the box of the grid. */
+        final double minZ;
+        /** The maximal x-coordinate of the box of the grid. */
+        final double maxX;
+        /** The maximal y-coordinate of the box of the grid. */
+        final double maxY;
+        /** The maximal z-coordinate of the box of the grid. */
+        final double maxZ;
+        /** The amount of cells along the x axis. */
+        final int nx;
+        /** The amount of cells along the y axis. */
+        final int ny;
+        /** The amount of cells along the z axis. */
+        final int nz;
+        /** The size of a cell along the x axis. */
+        final double sizeX;
+        /** The size of a cell along the y axis. */
+        final double sizeY;
+        /** The size of a cell along the z axis. */
+        final double sizeZ;
+        /** The start of the objects of every cell in the object indices, and their end after the last cell. */
+        final int[] starts;
+        /** The indices of the objects of the cells, cell after cell. */
+        final int[] objects;
+        /** The grids of the cells that have grids of their own, null if there are none. */
+        final Level[] children;
+
+        /**
+         * Builds a level of the grid over a box, in linear time: the objects are counted per cell, the counts
+         * become the starts of the cells, and the objects are placed at the starts.
+         *
+         * @param boxes The bounding boxes of all the objects - 6 numbers (min x,y,z, max x,y,z) per object.
+         * @param ids The indices of the objects of the level.
+         * @param count The amount of objects of the level.
+         * @param box The box of the level - min x,y,z and max x,y,z.
+         * @param density The amount of cells per object.
+         * @param threshold The amount of objects in a cell that gets a grid of its own - 0 for none.
+         */
+        Level(double[] boxes, int[] ids, int count, double[] box, double density, int threshold) {
+            minX = box[0];
+            minY = box[1];
+            minZ = box[2];
+            maxX = box[3];
+            maxY = box[4];
+            maxZ = box[5];
+            double ex = maxX - minX, ey = maxY - minY, ez = maxZ - minZ;
+            double extent = Math.max(ex, Math.max(ey, ez));
+            int rx = 1, ry = 1, rz = 1;
+            if (extent > 0) {
+                // the cells are spread over the axes along which the box is not flat
+                int axes = 0;
+                double volume = 1;
+                for (double e : new double[] { ex, ey, ez }) {
+                    if (e > 0) {
+                        ++axes;
+                        volume *= e;
+                    }
+                }
+                double k = Math.pow(density * count / volume, 1.0 / axes);
+                rx = resolution(ex * k);
+                ry = resolution(ey * k);
+                rz = resolution(ez * k);
+                if ((long) rx * ry * rz > MAX_CELLS) {
+                    double shrink = Math.cbrt((double) MAX_CELLS / ((long) rx * ry * rz));
+                    rx = resolution(rx * shrink);
+                    ry = resolution(ry * shrink);
+                    rz = resolution(rz * shrink);
+                }
+            }
+            nx = rx;
+            ny = ry;
+            nz = rz;
+            sizeX = ex > 0 ? ex / nx : 1;
+            sizeY = ey > 0 ? ey / ny : 1;
+            sizeZ = ez > 0 ? ez / nz : 1;
+
+            int cells = nx * ny * nz;
+            starts = new int[cells + 1];
+            for (int i = 0; i < count; ++i) {
+                int b = 6 * ids[i];
+                int x0 = cellX(boxes[b]), x1 = cellX(boxes[b + 3]);
+                int y0 = cellY(boxes[b + 1]), y1 = cellY(boxes[b + 4]);
+                int z0 = cellZ(boxes[b + 2]), z1 = cellZ(boxes[b + 5]);
+                for (int z = z0; z <= z1; ++z) {
+                    for (int y = y0; y <= y1; ++y) {
+                        for (int x = x0; x <= x1; ++x) {
+                            ++starts[x + nx * (y + ny * z) + 1];
+                        }
+                    }
+                }
+            }
+            for (int c = 0; c < cells; ++c) {
+                starts[c + 1] += starts[c];
+            }
+            objects = new int[starts[cells]];
+            int[] next = new int[cells];
+            System.arraycopy(starts, 0, next, 0, cells);
+            for (int i = 0; i < count; ++i) {
+                int b = 6 * ids[i];
+                int x0 = cellX(boxes[b]), x1 = cellX(boxes[b + 3]);
+                int y0 = cellY(boxes[b + 1]), y1 = cellY(boxes[b + 4]);
+                int z0 = cellZ(boxes[b + 2]), z1 = cellZ(boxes[b + 5]);
+                for (int z = z0; z <= z1; ++z) {
+                    for (int y = y0; y <= y1; ++y) {
+                        for (int x = x0; x <= x1; ++x) {
+                            objects[next[x + nx * (y + ny * z)]++] = ids[i];
+                        }
+                    }
+                }
+            }
+
+            Level[] subgrids = null;
+            for (int c = 0; threshold > 0 && c < cells; ++c) {
+                int size = starts[c + 1] - starts[c];
+                if (size > threshold && size < count) {
+                    if (subgrids == null) {
+                        subgrids = new Level[cells];
+                    }
+                    int x = c % nx, y = c / nx % ny, z = c / (nx * ny);
+                    double[] cell = { minX + x * sizeX, minY + y * sizeY, minZ + z * sizeZ,
+                            x == nx - 1 ? maxX : minX + (x + 1) * sizeX, y == ny - 1 ? maxY : minY + (y + 1) * sizeY,
+                            z == nz - 1 ? maxZ : minZ + (z + 1) * sizeZ };
+                    int[] cellIds = new int[size];
+                    System.arraycopy(objects, starts[c], cellIds, 0, size);
+                    subgrids[c] = new Level(boxes, cellIds, size, cell, density, 0);
+                }
+            }
+            children = subgrids;
+        }
+
+        /**
+         * Rounds an amount of cells along an axis into the allowed range.
+         *
+         * @param cells The amount of cells.
+         * @return The amount of cells, between 1 and the maximal resolution.
+         */
+        private static int resolution(double cells) {
+            return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(cells)));
+        }
+
+        /**
+         * Finds the cell of an x-coordinate, clamped into the grid.
+         *
+         * @param x The coordinate.
+         * @return The index of the cell along the x axis.
+         */
+        int cellX(double x) {
+            return (int) Math.max(0, Math.min(nx - 1, Math.floor((x - minX) / sizeX)));
+        }
+
+        /**
+         * Finds the cell of a y-coordinate, clamped into the grid.
+         *
+         * @param y The coordinate.
+         * @return The index of the cell along the y axis.
+         */
+        int cellY(double y) {
+            return (int) Math.max(0, Math.min(ny - 1, Math.floor((y - minY) / sizeY)));
+        }
+
+        /**
+         * Finds the cell of a z-coordinate, clamped into the grid.
+         *
+         * @param z The coordinate.
+         * @return The index of the cell along the z axis.
+         */
+        int cellZ(double z) {
+            return (int) Math.max(0, Math.min(nz - 1, Math.floor((z - minZ) / sizeZ)));
+        }
+    }
+
+    /**
+     * The mailbox of a thread - the stamp of the last ray that tested every object, so that an object that
+     * spans several cells is tested once per ray.
+     */
+    private static final class Mailbox {
+
+        /** The stamp of the last ray that tested every object. */
+        int[] stamps = new int[0];
+
+        /** The stamp of the last ray. */
+        int stamp = 0;
+
+        /**
+         * Starts a new ray.
+         *
+         * @param objects The amount of objects of the grid.
+         * @return The stamp of the new ray.
+         */
+        int next(int objects) {
+            if (this.stamps.length < objects) {
+                this.stamps = new int[objects];
+                this.stamp = 0;
+            }
+            if (++this.stamp == 0) {
+                java.util.Arrays.fill(this.stamps, 0);
+                this.stamp = 1;
+            }
+            return this.stamp;
+        }
+    }
+
+    /**
+     * A walk of a ray through the cells of the grid, which tests the objects of every cell on its way.
+     */
+    private abstract class Walk {
+
+        /** The ray. */
+        final Ray ray;
+        /** The x-coordinate of the ray head. */
+        final double ox;
+        /** The y-coordinate of the ray head. */
+        final double oy;
+        /** The z-coordinate of the ray head. */
+        final double oz;
+        /** The x-component of the ray direction. */
+        final double dx;
+        /** The y-component of the ray direction. */
+        final double dy;
+        /** The z-component of the ray direction. */
+        final double dz;
+        /** The inverse of the x-component of the ray direction. */
+        final double invDx;
+        /** The inverse of the y-component of the ray direction. */
+        final double invDy;
+        /** The inverse of the z-component of the ray direction. */
+        final double invDz;
+        /** The stamps of the objects tested by the rays of the thread. */
+        final int[] stamps;
+        /** The stamp of the ray. */
+        final int stamp;
+        /** The maximum distance for intersection detection - a walk may shrink it as it finds hits. */
+        double maxDistance;
+
+        /**
+         * Starts a walk of a ray.
+         *
+         * @param ray The ray.
+         * @param maxDistance The maximum distance for intersection detection.
+         */
+        Walk(Ray ray, double maxDistance) {
+            this.ray = ray;
+            Point head = ray.getHead();
+            Vector direction = ray.getDirection();
+            ox = head.getX();
+            oy = head.getY();
+            oz = head.getZ();
+            dx = direction.getX();
+            dy = direction.getY();
+            dz = direction.getZ();
+            invDx = ray.getInvDx();
+            invDy = ray.getInvDy();
+            invDz = ray.getInvDz();
+            Mailbox mailbox = mailboxes.get();
+            stamp = mailbox.next(items.length);
+            stamps = mailbox.stamps;
+            this.maxDistance = maxDistance;
+        }
+
+        /**
+         * Tests an object.
+         *
+         * @param geometry The object.
+         * @return True to stop the walk.
+         */
+        abstract boolean test(Intersectable geometry);
+
+        /**
+         * Walks the cells of a level of the grid along the ray by 3D-DDA, between two distances along the ray.
+         * The walk stops at the first cell beyond the maximum distance, which shrinks to the closest hit so far -
+         * a hit before the exit of a cell is closer than anything in the cells after it.
+         *
+         * @param level The level.
+         * @param t0 The distance to start at.
+         * @param t1 The distance to end at.
+         * @return True if the walk is done, false if it goes on in the parent level.
+         */
+        boolean walk(Level level, double t0, double t1) {
+            double tx0 = (level.minX - ox) * invDx, tx1 = (level.maxX - ox) * invDx;
+            double ty0 = (level.minY - oy) * invDy, ty1 = (level.maxY - oy) * invDy;
+            double tz0 = (level.minZ - oz) * invDz, tz1 = (level.maxZ - oz) * invDz;
+            double tEnter = Math.max(t0, Math.max(Math.min(tx0, tx1), Math.max(Math.min(ty0, ty1), Math.min(tz0, tz1))));
+            double tExit = Math.min(Math.min(t1, Math.max(tx0, tx1)), Math.min(Math.max(ty0, ty1), Math.max(tz0, tz1)))
+                    * AABB.ROBUST_EXIT;
+            // NaN appears only for a ray parallel to a slab and lying on its plane - it is treated as a miss
+            if (!(tEnter <= tExit) || tEnter > this.maxDistance) {
+                return tEnter > this.maxDistance;
+            }
+            int ix = level.cellX(ox + dx * tEnter), iy = level.cellY(oy + dy * tEnter);
+            int iz = level.cellZ(oz + dz * tEnter);
+            int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+            double nextX = dx == 0 ? Double.POSITIVE_INFINITY
+                    : (level.minX + (ix + (dx > 0 ? 1 : 0)) * level.sizeX - ox) * invDx;
+            double nextY = dy == 0 ? Double.POSITIVE_INFINITY
+                    : (level.minY + (iy + (dy > 0 ? 1 : 0)) * level.sizeY - oy) * invDy;
+            double nextZ = dz == 0 ? Double.POSITIVE_INFINITY
+                    : (level.minZ + (iz + (dz > 0 ? 1 : 0)) * level.sizeZ - oz) * invDz;
+            double deltaX = level.sizeX * Math.abs(invDx), deltaY = level.sizeY * Math.abs(invDy);
+            double deltaZ = level.sizeZ * Math.abs(invDz);
+            double entry = tEnter;
+            while (true) {
+                int cell = ix + level.nx * (iy + level.ny * iz);
+                double exit = Math.min(Math.min(nextX, nextY), Math.min(nextZ, tExit));
+                Level child = level.children == null ? null : level.children[cell];
+                if (child != null) {
+                    if (walk(child, entry, exit)) {
+                        return true;
+                    }
+                } else {
+                    for (int k = level.starts[cell]; k < level.starts[cell + 1]; ++k) {
+                        int id = level.objects[k];
+                        if (this.stamps[id] != this.stamp) {
+                            this.stamps[id] = this.stamp;
+                            if (test(items[id])) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                if (exit >= tExit) {
+                    return false;
+                }
+                if (exit > this.maxDistance) {
+                    return true;
+                }
+                entry = exit;
+                if (nextX <= nextY && nextX <= nextZ) {
+                    ix += stepX;
+                    if (ix < 0 || ix >= level.nx) {
+                        return false;
+                    }
+                    nextX += deltaX;
+                } else if (nextY <= nextZ) {
+                    iy += stepY;
+                    if (iy < 0 || iy >= level.ny) {
+                        return false;
+                    }
+                    nextY += deltaY;
+                } else {
+                    iz += stepZ;
+                    if (iz < 0 || iz >= level.nz) {
+                        return false;
+                    }
+                    nextZ += deltaZ;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs a collection of geometries, with no grid built.
+     *
+     * @param geometries The geometric objects of the collection.
+     */
+    public GridGeometries(Intersectable... geometries) {
+        this.add(geometries);
+    }
+
+    /**
+     * Adds one or more geometric objects to the collection.
+     * Adding geometries drops the grid, if it was built - adding all of them at once and building the grid
+     * again takes linear time - and the bounding boxes of this collection and of the collections that hold it.
+     *
+     * @param geometries The geometric objects to be added to the collection.
+     */
+    public void add(Intersectable... geometries) {
+        for (Intersectable geometry : geometries) {
+            this.geometries.add(geometry);
+            Geometries.link(this, geometry);
+        }
+        this.items = null;
+        this.unbounded = null;
+        this.root = null;
+        expireBounds();
+    }
+
+    /**
+     * Records that a collection holds this grid, so that the box of the collection expires together with its box.
+     *
+     * @param holder The collection that holds the grid.
+     */
+    void link(Intersectable holder) {
+        this.holders.add(holder);
+    }
+
+    /**
+     * Drops the bounding box of the grid and of the collections that hold it. A holder computes its box from the
+     * box of this grid, so while this box is not computed, neither are theirs.
+     */
+    void expireBounds() {
+        if (this.bounds != null) {
+            this.bounds = null;
+            Geometries.expireBounds(this.holders);
+        }
+    }
+
+    /**
+     * Sets the amount of cells per object of the grid - more cells hold fewer objects each, and a ray walks
+     * through more of them. The setting takes effect on the next build.
+     *
+     * @param density The amount of cells per object.
+     * @return This GridGeometries object for method chaining.
+     * @throws IllegalArgumentException if the density is not positive.
+     */
+    public GridGeometries setDensity(double density) {
+        if (!(density > 0)) {
+            throw new IllegalArgumentException("Density given is Illegal.");
+        }
+        this.density = density;
+        return this;
+    }
+
+    /**
+     * Sets the amount of objects in a cell of the grid that gets a grid of its own, for scenes of uneven density.
+     * The setting takes effect on the next build.
+     *
+     * @param threshold The amount of objects - 0 for a single-level grid.
+     * @return This GridGeometries object for method chaining.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public GridGeometries setSubdivisionThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Subdivision threshold given is Illegal.");
+        }
+        this.subdivisionThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Builds the grid over the geometries of the collection, or builds it again - in linear time, so that a grid
+     * over geometries that move is simply built again for every frame.
+     *
+     * @return This GridGeometries object for method chaining.
+     */
+    public GridGeometries build() {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> unboundedList = new ArrayList<>();
+        List<AABB> boxList = new ArrayList<>();
+        for (Intersectable geometry : this.geometries) {
+            AABB box = geometry.getBounds();
+            if (box.isEmpty()) {
+                continue;
+            }
+            if (box.isBounded()) {
+                bounded.add(geometry);
+                boxList.add(box);
+            } else {
+                unboundedList.add(geometry);
+            }
+        }
+        int count = bounded.size();
+        double[] boxes = new double[6 * count];
+        double[] box = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        int[] ids = new int[count];
+        for (int i = 0; i < count; ++i) {
+            AABB b = boxList.get(i);
+            boxes[6 * i] = b.minX;
+            boxes[6 * i + 1] = b.minY;
+            boxes[6 * i + 2] = b.minZ;
+            boxes[6 * i + 3] = b.maxX;
+            boxes[6 * i + 4] = b.maxY;
+            boxes[6 * i + 5] = b.maxZ;
+            for (int axis = 0; axis < 3; ++axis) {
+                box[axis] = Math.min(box[axis], boxes[6 * i + axis]);
+                box[axis + 3] = Math.max(box[axis + 3], boxes[6 * i + 3 + axis]);
+            }
+            ids[i] = i;
+        }
+        this.root = count == 0 ? null
+                : new Level(boxes, ids, count, box, this.density, this.subdivisionThreshold);
+        this.unbounded = unboundedList;
+        this.items = bounded.toArray(new Intersectable[0]);
+        this.opaque = Geometries.allOpaque(this.geometries);
+        return this;
+    }
+
+    /**
+     * Brings the collection up to date after its geometries moved - the collections nested in it are brought up
+     * to date first, the bounding box is dropped, and the grid is built again if it was built.
+     */
+    void refit() {
+        for (Intersectable geometry : this.geometries) {
+            if (geometry instanceof Geometries nested) {
+                nested.refit();
+            } else if (geometry instanceof GridGeometries grid) {
+                grid.refit();
+            }
+        }
+        expireBounds();
+        if (this.items != null) {
+            build();
+        }
+    }
+
+    /**
+     * Gets the resolution of the top level of the grid.
+     *
+     * @return The amounts of cells along the x, y and z axes, or null if there is no grid.
+     */
+    public int[] getResolution() {
+        Level level = this.root;
+        return level == null ? null : new int[] { level.nx, level.ny, level.nz };
+    }
+
+    /**
+     * Gets the amount of cells of the top level of the grid that have grids of their own.
+     *
+     * @return The amount of the grids of the second level.
+     */
+    public int getSubgridCount() {
+        Level level = this.root;
+        int count = 0;
+        if (level != null && level.children != null) {
+            for (Level child : level.children) {
+                if (child != null) {
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the geometries of the collection.
+     *
+     * @return The geometries, in the order they were added.
+     */
+    List<Intersectable> getGeometries() {
+        return this.geometries;
+    }
+
+    /**
+     * Gets the amount of cells per object of the grid.
+     *
+     * @return The density.
+     */
+    double getDensity() {
+        return this.density;
+    }
+
+    /**
+     * Gets the amount of objects in a cell of the grid that gets a grid of its own.
+     *
+     * @return The threshold - 0 for a single-level grid.
+     */
+    int getSubdivisionThreshold() {
+        return this.subdivisionThreshold;
+    }
+
+    /**
+     * Checks whether the grid is built.
+     *
+     * @return True if the grid is built.
+     */
+    boolean isBuilt() {
+        return this.items != null;
+    }
+
+    /**
+     * Writes the collection - its geometries and the settings of its grid. The cells are not written: building
+     * them again takes linear time, about as long as reading them would.
+     *
+     * @param out The encoder to write to.
+     */
+    void encode(GeometryCodec.Encoder out) {
+        out.putInt(this.geometries.size());
+        for (Intersectable geometry : this.geometries) {
+            out.putGeometry(geometry);
+        }
+        out.putDouble(this.density).putInt(this.subdivisionThreshold).putInt(this.items == null ? 0 : 1);
+    }
+
+    /**
+     * Reads a collection written by {@link #encode(GeometryCodec.Encoder)}, and builds its grid if it was built.
+     *
+     * @param in The decoder to read from.
+     * @return The collection.
+     * @throws IllegalArgumentException if the data is not of a collection.
+     */
+    static GridGeometries decode(GeometryCodec.Decoder in) {
+        int size = in.getInt();
+        if (size < 0 || size > in.remaining()) {
+            throw new IllegalArgumentException("Cache data given is Illegal.");
+        }
+        GridGeometries grid = new GridGeometries();
+        for (int i = 0; i < size; ++i) {
+            Intersectable geometry = in.getGeometry();
+            grid.geometries.add(geometry);
+            Geometries.link(grid, geometry);
+        }
+        double density = in.getDouble();
+        int threshold = in.getInt();
+        int built = in.getInt();
+        if (built >>> 1 != 0) {
+            throw new IllegalArgumentException("Cache data given is Illegal.");
+        }
+        grid.setDensity(density).setSubdivisionThreshold(threshold);
+        return built == 1 ? grid.build() : grid;
+    }
+
+    /**
+     * Gets the bounding box of the collection - the union of the boxes of its geometries.
+     *
+     * @return The bounding box of the collection.
+     */
+    @Override
+    public AABB getBounds() {
+        AABB box = this.bounds;
+        if (box == null) {
+            box = AABB.EMPTY;
+            for (Intersectable geometry : this.geometries) {
+                box = box.union(geometry.getBounds());
+            }
+            this.bounds = box;
+        }
+        return box;
+    }
+
+    /**
+     * Checks whether all the geometries of the collection are opaque. A built grid answers by the materials its
+     * geometries had when it was built, so a material that is changed or replaced afterwards takes effect on the
+     * next build; a grid that is not built checks its geometries every time.
+     *
+     * @return True if all the geometries are opaque, false otherwise.
+     */
+    @Override
+    public boolean isOpaque() {
+        return this.items != null ? this.opaque : Geometries.allOpaque(this.geometries);
+    }
+
+    /**
+     * Helper method to find intersections between the ray and the geometries of the collection, considering
+     * a specified maximum distance. Every geometry is tested once, however many cells it spans.
+     *
+     * @param ray The ray for which to find intersections.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return A list of GeoPoints representing the intersections, or null if no intersections are found.
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = new LinkedList<>();
+        if (this.items == null) {
+            for (Intersectable geometry : this.geometries) {
+                addAll(intersections, geometry.findGeoIntersections(ray, maxDistance));
+            }
+            return intersections.isEmpty() ? null : intersections;
+        }
+        for (Intersectable geometry : this.unbounded) {
+            addAll(intersections, geometry.findGeoIntersections(ray, maxDistance));
+        }
+        if (this.root != null) {
+            new Walk(ray, maxDistance) {
+                @Override
+                boolean test(Intersectable geometry) {
+                    addAll(intersections, geometry.findGeoIntersections(ray, maxDistance));
+                    return false;
+                }
+            }.walk(this.root, 0, maxDistance);
+        }
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * Adds intersections to a list.
+     *
+     * @param intersections The list.
+     * @param points The intersections, or null if there are none.
+     */
+    private static void addAll(List<GeoPoint> intersections, List<GeoPoint> points) {
+        if (points != null) {
+            intersections.addAll(points);
+        }
+    }
+
+    /**
+     * Helper method to find the closest intersection between the ray and the geometries of the collection.
+     * The unbounded geometries are tested first, and the walk through the grid stops at the first cell that is
+     * farther than the closest intersection so far.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if no intersections are found.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        GeoPoint[] closest = { null };
+        double distance = maxDistance;
+        for (Intersectable geometry : this.items == null ? this.geometries : this.unbounded) {
+            GeoPoint geoPoint = geometry.findClosestGeoIntersection(ray, distance);
+            if (geoPoint != null) {
+                double d = geoPoint.point.distance(head);
+                if (closest[0] == null || d < distance) {
+                    closest[0] = geoPoint;
+                    distance = d;
+                }
+            }
+        }
+        if (this.items != null && this.root != null) {
+            new Walk(ray, distance) {
+                @Override
+                boolean test(Intersectable geometry) {
+                    GeoPoint geoPoint = geometry.findClosestGeoIntersection(ray, this.maxDistance);
+                    if (geoPoint != null) {
+                        double d = geoPoint.point.distance(head);
+                        if (closest[0] == null || d < this.maxDistance) {
+                            closest[0] = geoPoint;
+                            this.maxDistance = d;
+                        }
+                    }
+                    return false;
+                }
+            }.walk(this.root, 0, distance);
+        }
+        return closest[0];
+    }
+
+    /**
+     * Helper method to compute the fraction of light that passes along a ray through the geometries of the
+     * collection. The walk stops at the first geometry that blocks the light.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The transmission factor.
+     */
+    @Override
+    protected Double3 transmittanceHelper(Ray ray, double maxDistance) {
+        Double3[] ktr = { Double3.ONE };
+        for (Intersectable geometry : this.items == null ? this.geometries : this.unbounded) {
+            if (multiply(ktr, geometry.transmittance(ray, maxDistance))) {
+                return Double3.ZERO;
+            }
+        }
+        if (this.items != null && this.root != null) {
+            new Walk(ray, maxDistance) {
+                @Override
+                boolean test(Intersectable geometry) {
+                    return multiply(ktr, geometry.transmittance(ray, maxDistance));
+                }
+            }.walk(this.root, 0, maxDistance);
+        }
+        return ktr[0];
+    }
+
+    /**
+     * Helper method to check whether an opaque geometry of the collection blocks the light along a ray.
+     * The walk stops at the first opaque geometry in the way.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return True if an opaque geometry is in the way, false otherwise.
+     */
+    @Override
+    protected boolean occludedHelper(Ray ray, double maxDistance) {
+        for (Intersectable geometry : this.items == null ? this.geometries : this.unbounded) {
+            if (geometry.occluded(ray, maxDistance)) {
+                return true;
+            }
+        }
+        boolean[] occluded = { false };
+        if (this.items != null && this.root != null) {
+            new Walk(ray, maxDistance) {
+                @Override
+                boolean test(Intersectable geometry) {
+                    return occluded[0] = geometry.occluded(ray, maxDistance);
+                }
+            }.walk(this.root, 0, maxDistance);
+        }
+        return occluded[0];
+    }
+
+    /**
+     * Multiplies a transmission factor by the transmission factor of a geometry.
+     *
+     * @param ktr The transmission factor, in the first cell of an array.
+     * @param kt The transmission factor of the geometry.
+     * @return True if the light is blocked.
+     */
+    private static boolean multiply(Double3[] ktr, Double3 kt) {
+        if (kt != Double3.ONE) {
+            ktr[0] = ktr[0].product(kt);
+            if (ktr[0].equals(Double3.ZERO)) {
+                ktr[0] = Double3.ZERO;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,222 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A placement of a shared geometry in the scene by an affine transformation - e.g. one of 500 copies of a mesh.
+ * The geometry, with the acceleration structure built over it, is kept once and referenced by all its instances,
+ * so the memory of a scene grows with its distinct geometries and not with their placements.<br/>
+ * A ray is mapped into the space of the geometry for intersection, and the intersections are mapped back -
+ * the points by the transformation and the normals by its inverse transpose. The distances along the ray
+ * are scaled by the length of the mapped direction, so that a scaling transformation keeps the maximum
+ * distance of the ray. The instances of a scene are indexed by a collection, like any other geometry.
+ */
+public class Instance extends Intersectable {
+
+    /** The shared geometry, in its own space. */
+    private final Intersectable geometry;
+
+    /** The transformation from the space of the geometry into the scene. */
+    private Transform transform;
+
+    /**
+     * An intersection with the geometry of an instance, mapped into the scene.
+     */
+    private static final class InstancePoint extends GeoPoint {
+
+        /** The intersection in the space of the geometry. */
+        private final GeoPoint local;
+
+        /** The transformation of the instance when it was intersected. */
+        private final Transform transform;
+
+        /**
+         * Constructs an intersection mapped into the scene.
+         *
+         * @param local The intersection in the space of the geometry.
+         * @param transform The transformation of the instance.
+         */
+        InstancePoint(GeoPoint local, Transform transform) {
+            super(local.geometry, transform.transformPoint(local.point));
+            this.local = local;
+            this.transform = transform;
+        }
+
+        /**
+         * Gets the normal vector of the geometry at the point, mapped into the scene.
+         *
+         * @return The normal vector.
+         */
+        @Override
+        public Vector getNormal() {
+            return this.transform.transformNormal(this.local.getNormal());
+        }
+
+        /**
+         * Gets the material of the geometry at the point.
+         *
+         * @return The material.
+         */
+        @Override
+        public Material getMaterial() {
+            return this.local.getMaterial();
+        }
+    }
+
+    /**
+     * Constructs an instance of a geometry.
+     *
+     * @param geometry The shared geometry, in its own space.
+     * @param transform The transformation from the space of the geometry into the scene.
+     */
+    public Instance(Intersectable geometry, Transform transform) {
+        this.geometry = geometry;
+        this.transform = transform;
+    }
+
+    /**
+     * Gets the shared geometry of the instance.
+     *
+     * @return The geometry, in its own space.
+     */
+    public Intersectable getGeometry() {
+        return this.geometry;
+    }
+
+    /**
+     * Gets the transformation of the instance.
+     *
+     * @return The transformation from the space of the geometry into the scene.
+     */
+    public Transform getTransform() {
+        return this.transform;
+    }
+
+    /**
+     * Moves the instance by a new transformation - e.g. for the next frame of an animation. The collections that
+     * hold the instance must be brought up to date by {@link Geometries#refit()} before rays are traced again.
+     *
+     * @param transform The transformation from the space of the geometry into the scene.
+     * @return This Instance object for method chaining.
+     */
+    public Instance setTransform(Transform transform) {
+        this.transform = transform;
+        return this;
+    }
+
+    /**
+     * Computes the bounding box of the instance - the box around the mapped corners of the box of the geometry.
+     *
+     * @return The bounding box of the instance.
+     */
+    @Override
+    public AABB getBounds() {
+        AABB box = this.geometry.getBounds();
+        if (box.isEmpty() || !box.isBounded()) {
+            return box;
+        }
+        Transform transform = this.transform;
+        Point[] corners = new Point[8];
+        for (int c = 0; c < 8; ++c) {
+            corners[c] = transform.transformPoint(new Point((c & 1) == 0 ? box.minX : box.maxX,
+                    (c & 2) == 0 ? box.minY : box.maxY, (c & 4) == 0 ? box.minZ : box.maxZ));
+        }
+        return new AABB(corners);
+    }
+
+    /**
+     * Maps a ray into the space of the geometry.
+     *
+     * @param ray The ray in the scene.
+     * @param transform The transformation of the instance.
+     * @param direction The direction of the ray mapped into the space of the geometry, not normalized.
+     * @return The ray in the space of the geometry.
+     */
+    private static Ray toLocal(Ray ray, Transform transform, Vector direction) {
+        return new Ray(transform.inverseTransformPoint(ray.getHead()), direction);
+    }
+
+    /**
+     * Helper method to find the intersections of the ray with the geometry, mapped into the scene.
+     *
+     * @param ray The ray for which to find intersections.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return A list of GeoPoints representing the intersections, or null if no intersections are found.
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Transform transform = this.transform;
+        Vector direction = transform.inverseTransformVector(ray.getDirection());
+        List<GeoPoint> local = this.geometry.findGeoIntersections(toLocal(ray, transform, direction),
+                maxDistance * direction.length());
+        if (local == null) {
+            return null;
+        }
+        List<GeoPoint> intersections = new LinkedList<>();
+        for (GeoPoint geoPoint : local) {
+            intersections.add(new InstancePoint(geoPoint, transform));
+        }
+        return intersections;
+    }
+
+    /**
+     * Helper method to find the closest intersection of the ray with the geometry, mapped into the scene.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if no intersections are found.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Transform transform = this.transform;
+        Vector direction = transform.inverseTransformVector(ray.getDirection());
+        GeoPoint local = this.geometry.findClosestGeoIntersection(toLocal(ray, transform, direction),
+                maxDistance * direction.length());
+        return local == null ? null : new InstancePoint(local, transform);
+    }
+
+    /**
+     * Helper method to compute the fraction of light that passes along a ray through the geometry.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The transmission factor.
+     */
+    @Override
+    protected Double3 transmittanceHelper(Ray ray, double maxDistance) {
+        Transform transform = this.transform;
+        Vector direction = transform.inverseTransformVector(ray.getDirection());
+        return this.geometry.transmittance(toLocal(ray, transform, direction), maxDistance * direction.length());
+    }
+
+    /**
+     * Helper method to check whether an opaque surface of the geometry blocks the light along a ray.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return True if an opaque surface is in the way, false otherwise.
+     */
+    @Override
+    protected boolean occludedHelper(Ray ray, double maxDistance) {
+        Transform transform = this.transform;
+        Vector direction = transform.inverseTransformVector(ray.getDirection());
+        return this.geometry.occluded(toLocal(ray, transform, direction), maxDistance * direction.length());
+    }
+
+    /**
+     * Checks whether the shared geometry is opaque.
+     *
+     * @return True if all the surfaces of the geometry are opaque, false otherwise.
+     */
+    @Override
+    public boolean isOpaque() {
+        return this.geometry.isOpaque();
+    }
+}
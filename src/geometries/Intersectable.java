@@ -1,7 +1,10 @@
 package geometries;
 
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 import java.util.List;
 import static java.lang.Float.POSITIVE_INFINITY;
 
@@ -33,6 +36,25 @@ abstract public class Intersectable {
             this.point = point;
         }
 
+        /**
+         * Gets the normal vector to the geometry at the point.
+         * A geometry made of several faces returns a subclass that knows the intersected face.
+         *
+         * @return The normal vector.
+         */
+        public Vector getNormal() {
+            return this.geometry.getNormal(this.point);
+        }
+
+        /**
+         * Gets the material of the geometry at the point.
+         *
+         * @return The material.
+         */
+        public Material getMaterial() {
+            return this.geometry.getMaterial();
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (this == obj) return true;
@@ -93,6 +115,155 @@ abstract public class Intersectable {
         return findGeoIntersectionsHelper(ray, maxDistance);
     }
 
+    /**
+     * Finds the closest geometric intersection between the current object and a given ray.
+     *
+     * @param ray The ray for which the closest intersection needs to be found.
+     * @return The closest GeoPoint to the head of the ray, or null if there are no intersections.
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersectionHelper(ray, POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest geometric intersection between the current object and a given ray,
+     * up to a specified maximum distance.
+     *
+     * @param ray The ray for which the closest intersection needs to be found.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if there are no intersections.
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        return findClosestGeoIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * Finds the closest intersections of all the rays of a packet with the object.
+     * The intersection of every ray is recorded in the packet if it is closer than the intersection
+     * the ray already holds, so a packet can be traced through several objects one after the other.
+     *
+     * @param packet The packet of rays.
+     */
+    public final void findClosestGeoIntersections(RayPacket packet) {
+        if (packet.size() > 0) {
+            findClosestGeoIntersectionsHelper(packet, packet.mask());
+        }
+    }
+
+    /**
+     * Helper method to find the closest geometric intersection between the ray and the object,
+     * considering a specified maximum distance.
+     * The default implementation picks the closest of all the intersections; objects override it
+     * to compute the closest one directly, without building a list.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if there are no intersections.
+     */
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        return ray.findClosestGeoPoint(findGeoIntersectionsHelper(ray, maxDistance));
+    }
+
+    /**
+     * Helper method to find the closest intersections of a subset of the rays of a packet with the object,
+     * bounded by the intersections the rays already hold.
+     * The default implementation traces the rays one by one; objects override it to test the whole packet at once.
+     *
+     * @param packet The packet of rays.
+     * @param mask The mask of the rays to be traced.
+     */
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, int mask) {
+        for (int m = mask; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            packet.offer(i, findClosestGeoIntersectionHelper(packet.rays[i], packet.tMax[i]));
+        }
+    }
+
+    /**
+     * Computes the fraction of light that passes along a ray through the object, up to a specified
+     * maximum distance - the product of the transmission coefficients (kT) of all the intersections.
+     * The computation stops as soon as the light is fully blocked.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection (the distance to the light source).
+     * @return The transmission factor, {@link Double3#ONE} if nothing is in the way
+     *         and {@link Double3#ZERO} if the light is blocked.
+     */
+    public final Double3 transmittance(Ray ray, double maxDistance) {
+        return transmittanceHelper(ray, maxDistance);
+    }
+
+    /**
+     * Checks whether an opaque surface of the object blocks the light along a ray, up to a specified maximum
+     * distance - an any-hit query, which stops at the first opaque surface it finds and skips the transparent
+     * ones. For an opaque object it tells whether the transmittance is zero, at a lower cost.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection (the distance to the light source).
+     * @return True if an opaque surface is in the way, false otherwise.
+     */
+    public final boolean occluded(Ray ray, double maxDistance) {
+        return occludedHelper(ray, maxDistance);
+    }
+
+    /**
+     * Checks whether the object lets no light pass through any of its surfaces, so that a shadow ray needs only
+     * {@link #occluded(Ray, double)} and not {@link #transmittance(Ray, double)}.
+     * The default is false, which is always correct.
+     *
+     * @return True if all the surfaces of the object are opaque, false if some of them may be transparent.
+     */
+    public boolean isOpaque() {
+        return false;
+    }
+
+    /**
+     * Helper method to compute the fraction of light that passes along a ray through the object.
+     * The default implementation multiplies the transmission coefficients of all the intersections;
+     * objects override it to avoid building the list of intersections.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The transmission factor.
+     */
+    protected Double3 transmittanceHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        Double3 ktr = Double3.ONE;
+        if (intersections != null) {
+            for (GeoPoint intersection : intersections) {
+                ktr = ktr.product(intersection.getMaterial().kT);
+                if (ktr.equals(Double3.ZERO)) {
+                    return Double3.ZERO;
+                }
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Helper method to check whether an opaque surface of the object blocks the light along a ray.
+     * The default implementation checks whether the transmission factor is zero; objects override it
+     * to stop at the first opaque surface.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return True if an opaque surface is in the way, false otherwise.
+     */
+    protected boolean occludedHelper(Ray ray, double maxDistance) {
+        return transmittanceHelper(ray, maxDistance).equals(Double3.ZERO);
+    }
+
+    /**
+     * Computes an axis-aligned box that bounds the object.
+     * The default is the unbounded box, which is always correct but never lets an acceleration structure
+     * reject the object.
+     *
+     * @return The bounding box of the object.
+     */
+    public AABB getBounds() {
+        return AABB.UNBOUNDED;
+    }
+
     /**
      * Helper method to find geometric intersections between the ray and the object, considering a specified maximum distance.
      *
@@ -0,0 +1,144 @@
+package geometries;
+
+/**
+ * A kernel of intersection tests over structure-of-arrays data: one ray against the triangles or the spheres
+ * of a leaf of a bounding volume hierarchy at once, and a packet of rays against the box of a node at once.<br/>
+ * Two implementations exist - a scalar one, and one backed by the incubating Vector API
+ * ({@code jdk.incubator.vector}) that tests 4 or 8 primitives per instruction on AVX2 or AVX-512 hosts.
+ * The vector kernel is compiled from its own source folder and loaded at runtime only if the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}; otherwise {@link #best()} falls back to the scalar kernel.<br/>
+ * Triangles are tested by the Möller–Trumbore algorithm, so a kernel may differ from
+ * {@link Triangle#findClosestGeoIntersection} by the rounding of rays that pass exactly through an edge.
+ */
+public abstract class IntersectionKernel {
+
+    /** The absolute value below which a number is treated as zero, as in {@link primitives.Util#isZero}. */
+    static final double EPSILON = 0x1p-40;
+
+    /** The name of the class of the vector kernel. */
+    private static final String VECTOR_KERNEL = "geometries.VectorIntersectionKernel";
+
+    /** The scalar kernel. */
+    private static final IntersectionKernel SCALAR = new ScalarIntersectionKernel();
+
+    /** The vector kernel, null if the Vector API is not available. */
+    private static final IntersectionKernel VECTOR = loadVectorKernel();
+
+    /**
+     * Loads the vector kernel, if the Vector API module is enabled in the JVM.
+     * The class is loaded by name, so that the scalar code never links against the incubating module.
+     *
+     * @return The vector kernel, or null if it is not available.
+     */
+    private static IntersectionKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (IntersectionKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the scalar kernel.
+     *
+     * @return The scalar kernel.
+     */
+    public static IntersectionKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Gets the vector kernel.
+     *
+     * @return The vector kernel, or null if the Vector API is not available in the JVM.
+     */
+    public static IntersectionKernel vector() {
+        return VECTOR;
+    }
+
+    /**
+     * Gets the fastest available kernel - the vector kernel if the Vector API is available, the scalar kernel
+     * otherwise.
+     *
+     * @return The kernel.
+     */
+    public static IntersectionKernel best() {
+        return VECTOR != null ? VECTOR : SCALAR;
+    }
+
+    /**
+     * Gets the name of the kernel.
+     *
+     * @return The name of the kernel.
+     */
+    public abstract String getName();
+
+    /**
+     * Gets the amount of primitives (or rays) the kernel tests at once.
+     *
+     * @return The amount of lanes of the kernel.
+     */
+    public abstract int getLanes();
+
+    /**
+     * Finds the closest intersection of a ray with the triangles of a range of a batch.
+     *
+     * @param batch The batch of primitives.
+     * @param first The index of the first primitive of the range.
+     * @param count The amount of primitives in the range.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the intersection in its first cell.
+     * @return The index of the intersected triangle, or -1 if there is no intersection up to the maximum distance.
+     */
+    abstract int closestTriangle(PrimitiveBatch batch, int first, int count, double ox, double oy, double oz,
+                                 double dx, double dy, double dz, double maxDistance, double[] distance);
+
+    /**
+     * Finds the closest intersection of a ray with the spheres of a range of a batch.
+     *
+     * @param batch The batch of primitives.
+     * @param first The index of the first primitive of the range.
+     * @param count The amount of primitives in the range.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the intersection in its first cell.
+     * @return The index of the intersected sphere, or -1 if there is no intersection up to the maximum distance.
+     */
+    abstract int closestSphere(PrimitiveBatch batch, int first, int count, double ox, double oy, double oz,
+                               double dx, double dy, double dz, double maxDistance, double[] distance);
+
+    /**
+     * Finds the subset of the rays of a subset of a packet that enter a box before their closest intersections.
+     *
+     * @param packet The packet of rays.
+     * @param bounds The bounds of the boxes - 6 numbers (min x,y,z, max x,y,z) per box.
+     * @param b The index of the first number of the box in the bounds.
+     * @param mask The mask of the tested rays.
+     * @return The mask of the rays that enter the box.
+     */
+    abstract int enter(RayPacket packet, double[] bounds, int b, int mask);
+
+    /**
+     * Gets the name of the kernel.
+     *
+     * @return The name of the kernel.
+     */
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -6,6 +6,7 @@ import primitives.Vector;
 import java.util.List;
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
+import static primitives.Vec3Math.dot;
 
 /**
  * A class that represents a plane in three-dimensional space defined by a point on the plane (q) and a normal vector.
@@ -73,6 +74,16 @@ public class Plane extends Geometry {
         return this.normal;
     }
 
+    /**
+     * Computes the bounding box of the plane - the plane is infinite, so its box is unbounded.
+     *
+     * @return The unbounded box.
+     */
+    @Override
+    public AABB getBounds() {
+        return AABB.UNBOUNDED;
+    }
+
     /**
      * Finds the intersection points between the plane and a given ray.
      *
@@ -102,14 +113,58 @@ public class Plane extends Geometry {
      */
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        double nv = alignZero(this.normal.dotProduct(ray.getDirection()));
-        if (isZero(nv) || this.q.equals(ray.getHead())) {
-            return null;
-        }
-        double t = alignZero(this.normal.dotProduct(q.subtract(ray.getHead()))) / nv;
-        if (t > 0 && alignZero(t - maxDistance) <= 0) {
-            return List.of(new GeoPoint(this, ray.getPoint(t)));
+        GeoPoint geoPoint = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return geoPoint == null ? null : List.of(geoPoint);
+    }
+
+    /**
+     * Helper method to find the closest geometric intersection between the ray and the plane,
+     * considering a specified maximum distance - the plane has one intersection at most.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The intersection GeoPoint, or null if there is no intersection.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double t = intersect(ray, maxDistance);
+        return t > 0 ? new GeoPoint(this, ray.getPoint(t)) : null;
+    }
+
+    /**
+     * Computes the distance along the ray to its intersection with the plane.
+     *
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    double intersect(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        return intersect(head.getX(), head.getY(), head.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), maxDistance);
+    }
+
+    /**
+     * Computes the distance along a ray, given by its raw coordinates, to its intersection with the plane.
+     *
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    double intersect(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+        double nx = this.normal.getX(), ny = this.normal.getY(), nz = this.normal.getZ();
+        double nv = alignZero(dot(nx, ny, nz, dx, dy, dz));
+        double qx = q.getX() - ox, qy = q.getY() - oy, qz = q.getZ() - oz;
+        if (isZero(nv) || (isZero(qx) && isZero(qy) && isZero(qz))) {
+            return 0;
         }
-        return null;
+        double t = alignZero(dot(nx, ny, nz, qx, qy, qz)) / nv;
+        return t > 0 && alignZero(t - maxDistance) <= 0 ? t : 0;
     }
-}
\ No newline at end of file
+}
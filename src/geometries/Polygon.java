@@ -2,6 +2,7 @@ package geometries;
 
 import java.util.List;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 import primitives.Point;
@@ -20,6 +21,14 @@ public class Polygon extends Geometry {
    protected final Plane       plane;
    /** The size of the polygon - the amount of the vertices in the polygon */
    private final int           size;
+   /** The axis (0 - x, 1 - y, 2 - z) that the vertices are projected along for the point-in-polygon test - the
+    * axis of the largest component of the normal, so the projection on the plane of the other two is the least
+    * distorted */
+   private final int           axis;
+   /** The projected vertices - the two remaining coordinates of every vertex, in cyclic order of the axes */
+   private final double[]      projected;
+   /** The projected edges - the differences of the projections of every vertex and the one before it */
+   private final double[]      edges;
 
    /**
     * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -52,9 +61,27 @@ public class Polygon extends Geometry {
       // polygon with this plane.
       // The plane holds the invariant normal (orthogonal unit) vector to the polygon
       plane         = new Plane(vertices[0], vertices[1], vertices[2]);
+      Vector  n        = plane.getNormal();
+
+      // Project the vertices for the point-in-polygon test. The cyclic order of the remaining axes keeps the
+      // orientation of the polygon, so its edges turn by the sign of the dropped component of the normal.
+      double nx = Math.abs(n.getX()), ny = Math.abs(n.getY()), nz = Math.abs(n.getZ());
+      axis          = nx >= ny && nx >= nz ? 0 : ny >= nz ? 1 : 2;
+      projected     = new double[2 * size];
+      edges         = new double[2 * size];
+      for (var i = 0; i < size; ++i) {
+         projected[2 * i]     = u(vertices[i].getX(), vertices[i].getY(), vertices[i].getZ());
+         projected[2 * i + 1] = v(vertices[i].getX(), vertices[i].getY(), vertices[i].getZ());
+      }
+      double sign = (axis == 0 ? n.getX() : axis == 1 ? n.getY() : n.getZ()) > 0 ? 1 : -1;
+      for (var i = 0; i < size; ++i) {
+         int previous = i == 0 ? size - 1 : i - 1;
+         // the edges are scaled by the orientation, so a point inside is on the positive side of all of them
+         edges[2 * i]     = sign * (projected[2 * i] - projected[2 * previous]);
+         edges[2 * i + 1] = sign * (projected[2 * i + 1] - projected[2 * previous + 1]);
+      }
       if (size == 3) return; // no need for more tests for a Triangle
 
-      Vector  n        = plane.getNormal();
       // Subtracting any subsequent points will throw an IllegalArgumentException
       // because of Zero Vector if they are in the same point
       Vector  edge1    = vertices[vertices.length - 1].subtract(vertices[vertices.length - 2]);
@@ -89,6 +116,14 @@ public class Polygon extends Geometry {
    @Override
    public Vector getNormal(Point point) { return plane.getNormal(); }
 
+   /**
+    * Computes the bounding box of the polygon - the box of its vertices.
+    *
+    * @return The bounding box of the polygon.
+    */
+   @Override
+   public AABB getBounds() { return new AABB(vertices.toArray(new Point[size])); }
+
    /**
     * Helper method to find geometric intersections between the ray and the geometry, considering a specified maximum distance.
     *
@@ -99,6 +134,91 @@ public class Polygon extends Geometry {
     */
    @Override
    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-      return null;
+      GeoPoint geoPoint = findClosestGeoIntersectionHelper(ray, maxDistance);
+      return geoPoint == null ? null : List.of(geoPoint);
+   }
+
+   /**
+    * Helper method to find the closest geometric intersection between the ray and the polygon,
+    * considering a specified maximum distance - the polygon has one intersection at most.
+    *
+    * @param ray The ray for which to find the closest intersection.
+    * @param maxDistance The maximum distance for intersection detection.
+    * @return The intersection GeoPoint, or null if there is no intersection.
+    */
+   @Override
+   protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+      Point head = ray.getHead();
+      Vector direction = ray.getDirection();
+      double t = intersect(head.getX(), head.getY(), head.getZ(),
+              direction.getX(), direction.getY(), direction.getZ(), maxDistance);
+      return t > 0 ? new GeoPoint(this, ray.getPoint(t)) : null;
+   }
+
+   /**
+    * Helper method to find the closest intersections of a subset of the rays of a packet with the polygon.
+    *
+    * @param packet The packet of rays.
+    * @param mask The mask of the rays to be traced.
+    */
+   @Override
+   protected void findClosestGeoIntersectionsHelper(RayPacket packet, int mask) {
+      for (int m = mask; m != 0; m &= m - 1) {
+         int i = Integer.numberOfTrailingZeros(m);
+         packet.offer(i, this, intersect(packet.ox[i], packet.oy[i], packet.oz[i],
+                 packet.dx[i], packet.dy[i], packet.dz[i], packet.tMax[i]));
+      }
+   }
+
+   /**
+    * Computes the distance along a ray, given by its raw coordinates, to its intersection with the polygon.
+    * The ray hits the plane first, and the hit point is then projected the way the vertices were and tested
+    * against the projected edges - a point inside a convex polygon is on the inner side of all its edges.
+    * A point on an edge or a vertex is not an intersection.
+    *
+    * @param ox The x-coordinate of the ray head.
+    * @param oy The y-coordinate of the ray head.
+    * @param oz The z-coordinate of the ray head.
+    * @param dx The x-component of the ray direction.
+    * @param dy The y-component of the ray direction.
+    * @param dz The z-component of the ray direction.
+    * @param maxDistance The maximum distance for intersection detection.
+    * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+    */
+   private double intersect(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+      double t = plane.intersect(ox, oy, oz, dx, dy, dz, maxDistance);
+      if (t <= 0)
+         return 0;
+      double x = ox + t * dx, y = oy + t * dy, z = oz + t * dz;
+      double pu = u(x, y, z), pv = v(x, y, z);
+      for (var i = 0; i < size; ++i) {
+         if (alignZero(edges[2 * i] * (pv - projected[2 * i + 1]) - edges[2 * i + 1] * (pu - projected[2 * i])) <= 0)
+            return 0;
+      }
+      return t;
+   }
+
+   /**
+    * Gets the first coordinate of a point projected along the axis of the projection.
+    *
+    * @param x The x-coordinate of the point.
+    * @param y The y-coordinate of the point.
+    * @param z The z-coordinate of the point.
+    * @return The first remaining coordinate.
+    */
+   private double u(double x, double y, double z) {
+      return axis == 0 ? y : axis == 1 ? z : x;
+   }
+
+   /**
+    * Gets the second coordinate of a point projected along the axis of the projection.
+    *
+    * @param x The x-coordinate of the point.
+    * @param y The y-coordinate of the point.
+    * @param z The z-coordinate of the point.
+    * @return The second remaining coordinate.
+    */
+   private double v(double x, double y, double z) {
+      return axis == 0 ? z : axis == 1 ? x : y;
    }
-}
\ No newline at end of file
+}
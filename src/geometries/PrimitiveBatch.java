@@ -0,0 +1,158 @@
+package geometries;
+
+import primitives.Point;
+import java.util.Arrays;
+
+/**
+ * The triangles and the spheres of an array of primitives, laid out as a structure of arrays for the
+ * intersection kernels. The primitives keep their indices; a primitive that is not a triangle gets a degenerate
+ * triangle and one that is not a sphere gets a sphere of a negative squared radius, so that the kernels miss them
+ * without branches. The arrays are padded, so that a kernel may load a full vector beyond the last primitive.
+ */
+final class PrimitiveBatch {
+
+    /** The padding of the arrays - enough for the widest vector of doubles. */
+    static final int PADDING = 16;
+
+    /** The kind of a triangle. */
+    static final byte TRIANGLE = 1;
+
+    /** The kind of a sphere. */
+    static final byte SPHERE = 2;
+
+    /** The kind of any other primitive, which is intersected by itself. */
+    static final byte OTHER = 0;
+
+    /** The kinds of the primitives. */
+    final byte[] kinds;
+
+    /** The x-coordinates of the first vertices of the triangles. */
+    final double[] v0x;
+
+    /** The y-coordinates of the first vertices of the triangles. */
+    final double[] v0y;
+
+    /** The z-coordinates of the first vertices of the triangles. */
+    final double[] v0z;
+
+    /** The x-components of the first edges of the triangles. */
+    final double[] e1x;
+
+    /** The y-components of the first edges of the triangles. */
+    final double[] e1y;
+
+    /** The z-components of the first edges of the triangles. */
+    final double[] e1z;
+
+    /** The x-components of the second edges of the triangles. */
+    final double[] e2x;
+
+    /** The y-components of the second edges of the triangles. */
+    final double[] e2y;
+
+    /** The z-components of the second edges of the triangles. */
+    final double[] e2z;
+
+    /** The x-coordinates of the centers of the spheres. */
+    final double[] cx;
+
+    /** The y-coordinates of the centers of the spheres. */
+    final double[] cy;
+
+    /** The z-coordinates of the centers of the spheres. */
+    final double[] cz;
+
+    /** The squared radii of the spheres, -1 for the primitives that are not spheres. */
+    final double[] r2;
+
+    /** The amount of triangles in the batch. */
+    private final int triangles;
+
+    /** The amount of spheres in the batch. */
+    private final int spheres;
+
+    /** The amount of the other primitives in the batch. */
+    private final int others;
+
+    /**
+     * Lays out the triangles and the spheres of an array of primitives.
+     * Only the exact classes {@link Triangle} and {@link Sphere} are laid out - their subclasses may intersect
+     * differently, so they are intersected by themselves, and so are the watertight triangles.
+     *
+     * @param items The primitives.
+     */
+    PrimitiveBatch(Intersectable[] items) {
+        int length = items.length + PADDING;
+        kinds = new byte[items.length];
+        v0x = new double[length];
+        v0y = new double[length];
+        v0z = new double[length];
+        e1x = new double[length];
+        e1y = new double[length];
+        e1z = new double[length];
+        e2x = new double[length];
+        e2y = new double[length];
+        e2z = new double[length];
+        cx = new double[length];
+        cy = new double[length];
+        cz = new double[length];
+        r2 = new double[length];
+        Arrays.fill(r2, -1);
+        int triangleCount = 0, sphereCount = 0;
+        for (int i = 0; i < items.length; ++i) {
+            if (items[i].getClass() == Triangle.class && !((Triangle) items[i]).isWatertight()) {
+                Triangle triangle = (Triangle) items[i];
+                v0x[i] = triangle.x0;
+                v0y[i] = triangle.y0;
+                v0z[i] = triangle.z0;
+                e1x[i] = triangle.e1x;
+                e1y[i] = triangle.e1y;
+                e1z[i] = triangle.e1z;
+                e2x[i] = triangle.e2x;
+                e2y[i] = triangle.e2y;
+                e2z[i] = triangle.e2z;
+                kinds[i] = TRIANGLE;
+                ++triangleCount;
+            } else if (items[i].getClass() == Sphere.class) {
+                Sphere sphere = (Sphere) items[i];
+                Point center = sphere.getCenter();
+                cx[i] = center.getX();
+                cy[i] = center.getY();
+                cz[i] = center.getZ();
+                r2[i] = sphere.radius * sphere.radius;
+                kinds[i] = SPHERE;
+                ++sphereCount;
+            }
+        }
+        this.triangles = triangleCount;
+        this.spheres = sphereCount;
+        this.others = items.length - triangleCount - sphereCount;
+    }
+
+    /**
+     * Checks whether the batch holds any triangle.
+     *
+     * @return True if there are triangles.
+     */
+    boolean hasTriangles() {
+        return this.triangles > 0;
+    }
+
+    /**
+     * Checks whether the batch holds any sphere.
+     *
+     * @return True if there are spheres.
+     */
+    boolean hasSpheres() {
+        return this.spheres > 0;
+    }
+
+    /**
+     * Checks whether the batch holds any primitive that is neither a triangle nor a sphere.
+     *
+     * @return True if there are other primitives.
+     */
+    boolean hasOthers() {
+        return this.others > 0;
+    }
+}
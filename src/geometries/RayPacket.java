@@ -0,0 +1,238 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import geometries.Intersectable.GeoPoint;
+
+/**
+ * A packet of rays that are traced together - typically the coherent primary rays of neighboring pixels.
+ * The heads and directions of the rays are kept as a structure of arrays of raw numbers, so that a test of the
+ * whole packet against a box or a primitive runs over contiguous arrays, and a node of a hierarchy is fetched
+ * once for all the rays of the packet.<br/>
+ * Every ray of the packet keeps its closest intersection found so far and its distance, which bounds the
+ * search of the ray. A subset of the rays is given by a bit mask of their indices.<br/>
+ * A packet is not thread-safe - every thread fills and traces its own packets.
+ */
+public final class RayPacket {
+
+    /** The maximal amount of rays in a packet - the bits of an int mask. */
+    public static final int MAX_SIZE = 16;
+
+    /** The rays of the packet. */
+    final Ray[] rays;
+
+    /** The x-coordinates of the heads of the rays. */
+    final double[] ox;
+
+    /** The y-coordinates of the heads of the rays. */
+    final double[] oy;
+
+    /** The z-coordinates of the heads of the rays. */
+    final double[] oz;
+
+    /** The x-components of the directions of the rays. */
+    final double[] dx;
+
+    /** The y-components of the directions of the rays. */
+    final double[] dy;
+
+    /** The z-components of the directions of the rays. */
+    final double[] dz;
+
+    /** The inverses of the x-components of the directions of the rays. */
+    final double[] invDx;
+
+    /** The inverses of the y-components of the directions of the rays. */
+    final double[] invDy;
+
+    /** The inverses of the z-components of the directions of the rays. */
+    final double[] invDz;
+
+    /** The distances of the closest intersections found so far - the maximum distances of the rays. */
+    final double[] tMax;
+
+    /** The closest intersections found so far. */
+    final GeoPoint[] hits;
+
+    /** The maximal amount of rays in the packet. */
+    private final int capacity;
+
+    /** The amount of rays in the packet. */
+    private int size = 0;
+
+    /**
+     * Constructs an empty packet.
+     *
+     * @param capacity The maximal amount of rays in the packet, up to {@link #MAX_SIZE}.
+     * @throws IllegalArgumentException if the capacity is not positive or larger than {@link #MAX_SIZE}.
+     */
+    public RayPacket(int capacity) {
+        if (capacity < 1 || capacity > MAX_SIZE) {
+            throw new IllegalArgumentException("Packet capacity given is Illegal.");
+        }
+        this.capacity = capacity;
+        // the arrays always hold a full packet, so that a vector kernel may load whole vectors of them
+        this.rays = new Ray[MAX_SIZE];
+        this.ox = new double[MAX_SIZE];
+        this.oy = new double[MAX_SIZE];
+        this.oz = new double[MAX_SIZE];
+        this.dx = new double[MAX_SIZE];
+        this.dy = new double[MAX_SIZE];
+        this.dz = new double[MAX_SIZE];
+        this.invDx = new double[MAX_SIZE];
+        this.invDy = new double[MAX_SIZE];
+        this.invDz = new double[MAX_SIZE];
+        this.tMax = new double[MAX_SIZE];
+        this.hits = new GeoPoint[MAX_SIZE];
+    }
+
+    /**
+     * Removes all the rays from the packet, so that it can be filled again.
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; ++i) {
+            this.rays[i] = null;
+            this.hits[i] = null;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Adds a ray to the packet, with no intersection found yet.
+     *
+     * @param ray The ray.
+     * @return The index of the ray in the packet.
+     * @throws IllegalStateException if the packet is full.
+     */
+    public int add(Ray ray) {
+        if (this.size == this.capacity) {
+            throw new IllegalStateException("The packet is full.");
+        }
+        int i = this.size++;
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        this.rays[i] = ray;
+        this.ox[i] = head.getX();
+        this.oy[i] = head.getY();
+        this.oz[i] = head.getZ();
+        this.dx[i] = direction.getX();
+        this.dy[i] = direction.getY();
+        this.dz[i] = direction.getZ();
+        this.invDx[i] = 1 / this.dx[i];
+        this.invDy[i] = 1 / this.dy[i];
+        this.invDz[i] = 1 / this.dz[i];
+        this.tMax[i] = Double.POSITIVE_INFINITY;
+        return i;
+    }
+
+    /**
+     * Gets the amount of rays in the packet.
+     *
+     * @return The amount of rays.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets a ray of the packet.
+     *
+     * @param i The index of the ray.
+     * @return The ray.
+     */
+    public Ray getRay(int i) {
+        return this.rays[i];
+    }
+
+    /**
+     * Gets the closest intersection of a ray of the packet found so far.
+     *
+     * @param i The index of the ray.
+     * @return The closest intersection, or null if none has been found.
+     */
+    public GeoPoint getHit(int i) {
+        return this.hits[i];
+    }
+
+    /**
+     * Gets the mask of all the rays of the packet.
+     *
+     * @return The mask.
+     */
+    int mask() {
+        return (1 << this.size) - 1;
+    }
+
+    /**
+     * Checks whether the directions of the rays of a subset of the packet have the same signs on every axis,
+     * so that all the rays visit the children of every node of a hierarchy in the same order.
+     *
+     * @param mask The mask of the rays.
+     * @return True if the rays are coherent, false if the packet diverges.
+     */
+    boolean coherent(int mask) {
+        int first = Integer.numberOfTrailingZeros(mask);
+        boolean x = this.dx[first] < 0, y = this.dy[first] < 0, z = this.dz[first] < 0;
+        for (int m = mask & (mask - 1); m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            if ((this.dx[i] < 0) != x || (this.dy[i] < 0) != y || (this.dz[i] < 0) != z) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the subset of the rays of a subset of the packet that enter a box before their closest intersections.
+     *
+     * @param bounds The bounds of the boxes - 6 numbers (min x,y,z, max x,y,z) per box.
+     * @param b The index of the first number of the box in the bounds.
+     * @param mask The mask of the tested rays.
+     * @return The mask of the rays that enter the box.
+     */
+    int enter(double[] bounds, int b, int mask) {
+        double minX = bounds[b], minY = bounds[b + 1], minZ = bounds[b + 2];
+        double maxX = bounds[b + 3], maxY = bounds[b + 4], maxZ = bounds[b + 5];
+        int entered = 0;
+        for (int m = mask; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            if (AABB.slab(minX, minY, minZ, maxX, maxY, maxZ, this.ox[i], this.oy[i], this.oz[i],
+                    this.invDx[i], this.invDy[i], this.invDz[i], this.tMax[i]) != Double.POSITIVE_INFINITY) {
+                entered |= 1 << i;
+            }
+        }
+        return entered;
+    }
+
+    /**
+     * Records an intersection of a ray, if it is closer than the closest intersection found so far.
+     *
+     * @param i The index of the ray.
+     * @param geoPoint The intersection, or null if there is none.
+     */
+    void offer(int i, GeoPoint geoPoint) {
+        if (geoPoint != null) {
+            double distance = geoPoint.point.distance(this.rays[i].getHead());
+            if (this.hits[i] == null || distance < this.tMax[i]) {
+                this.hits[i] = geoPoint;
+                this.tMax[i] = distance;
+            }
+        }
+    }
+
+    /**
+     * Records an intersection of a ray with a geometry at a given distance, if it is closer than the closest
+     * intersection found so far. The intersection point is constructed only if it is recorded.
+     *
+     * @param i The index of the ray.
+     * @param geometry The intersected geometry.
+     * @param t The distance of the intersection along the ray, 0 if there is no intersection.
+     */
+    void offer(int i, Geometry geometry, double t) {
+        if (t > 0 && (this.hits[i] == null || t < this.tMax[i])) {
+            this.hits[i] = new GeoPoint(geometry, this.rays[i].getPoint(t));
+            this.tMax[i] = t;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package geometries;
+
+/**
+ * The scalar intersection kernel - tests the primitives and the rays one at a time.
+ * It is the fallback of the vector kernel, and gives the same intersections.
+ */
+final class ScalarIntersectionKernel extends IntersectionKernel {
+
+    /**
+     * Gets the name of the kernel.
+     *
+     * @return The name of the kernel.
+     */
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    /**
+     * Gets the amount of primitives the kernel tests at once - one.
+     *
+     * @return The amount of lanes of the kernel.
+     */
+    @Override
+    public int getLanes() {
+        return 1;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the triangles of a range of a batch, one triangle at a time,
+     * by the Möller–Trumbore algorithm.
+     *
+     * @param batch The batch of primitives.
+     * @param first The index of the first primitive of the range.
+     * @param count The amount of primitives in the range.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the intersection in its first cell.
+     * @return The index of the intersected triangle, or -1 if there is no intersection up to the maximum distance.
+     */
+    @Override
+    int closestTriangle(PrimitiveBatch batch, int first, int count, double ox, double oy, double oz,
+                        double dx, double dy, double dz, double maxDistance, double[] distance) {
+        int closest = -1;
+        double best = maxDistance + EPSILON;
+        for (int i = first; i < first + count; ++i) {
+            double e1x = batch.e1x[i], e1y = batch.e1y[i], e1z = batch.e1z[i];
+            double e2x = batch.e2x[i], e2y = batch.e2y[i], e2z = batch.e2z[i];
+            double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+            double det = e1x * px + e1y * py + e1z * pz;
+            if (Math.abs(det) < EPSILON) {
+                continue;
+            }
+            double inv = 1 / det;
+            double tx = ox - batch.v0x[i], ty = oy - batch.v0y[i], tz = oz - batch.v0z[i];
+            double u = (tx * px + ty * py + tz * pz) * inv;
+            if (u <= 0 || u >= 1) {
+                continue;
+            }
+            double qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+            double v = (dx * qx + dy * qy + dz * qz) * inv;
+            if (v <= 0 || u + v >= 1) {
+                continue;
+            }
+            double t = (e2x * qx + e2y * qy + e2z * qz) * inv;
+            if (t > EPSILON && t < best) {
+                best = t;
+                closest = i;
+            }
+        }
+        distance[0] = best;
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the spheres of a range of a batch, one sphere at a time.
+     *
+     * @param batch The batch of primitives.
+     * @param first The index of the first primitive of the range.
+     * @param count The amount of primitives in the range.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param distance An array that receives the distance of the intersection in its first cell.
+     * @return The index of the intersected sphere, or -1 if there is no intersection up to the maximum distance.
+     */
+    @Override
+    int closestSphere(PrimitiveBatch batch, int first, int count, double ox, double oy, double oz,
+                      double dx, double dy, double dz, double maxDistance, double[] distance) {
+        int closest = -1;
+        double best = maxDistance + EPSILON;
+        for (int i = first; i < first + count; ++i) {
+            double ux = batch.cx[i] - ox, uy = batch.cy[i] - oy, uz = batch.cz[i] - oz;
+            double tm = dx * ux + dy * uy + dz * uz;
+            double th2 = batch.r2[i] - (ux * ux + uy * uy + uz * uz - tm * tm);
+            if (th2 <= EPSILON) {
+                continue;
+            }
+            double th = Math.sqrt(th2);
+            // the nearer root, or the farther one when the ray starts inside the sphere
+            double t = tm - th > EPSILON ? tm - th : tm + th;
+            if (t > EPSILON && t < best) {
+                best = t;
+                closest = i;
+            }
+        }
+        distance[0] = best;
+        return closest;
+    }
+
+    /**
+     * Finds the subset of the rays of a subset of a packet that enter a box, one ray at a time.
+     *
+     * @param packet The packet of rays.
+     * @param bounds The bounds of the boxes - 6 numbers (min x,y,z, max x,y,z) per box.
+     * @param b The index of the first number of the box in the bounds.
+     * @param mask The mask of the tested rays.
+     * @return The mask of the rays that enter the box.
+     */
+    @Override
+    int enter(RayPacket packet, double[] bounds, int b, int mask) {
+        return packet.enter(bounds, b, mask);
+    }
+}
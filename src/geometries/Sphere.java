@@ -5,6 +5,9 @@ import primitives.Ray;
 import primitives.Vector;
 import java.util.List;
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+import static primitives.Vec3Math.dot;
+import static primitives.Vec3Math.lengthSquared;
 
 /**
  * A class that represents a sphere in three-dimensional space, defined by a radius and a center point.
@@ -26,6 +29,15 @@ public class Sphere extends RadialGeometry{
         this.center = _point;
     }
 
+    /**
+     * Gets the center point of the sphere.
+     *
+     * @return The center point of the sphere.
+     */
+    Point getCenter() {
+        return this.center;
+    }
+
     /**
      * Computes the normal vector to the sphere at the specified point.
      *
@@ -37,6 +49,17 @@ public class Sphere extends RadialGeometry{
         return point_on_body.subtract(center).normalize();
     }
 
+    /**
+     * Computes the bounding box of the sphere - the cube around its center.
+     *
+     * @return The bounding box of the sphere.
+     */
+    @Override
+    public AABB getBounds() {
+        return new AABB(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
     /**
      * Helper method to find geometric intersections between the ray and the sphere, considering a specified maximum distance.
      *
@@ -48,11 +71,15 @@ public class Sphere extends RadialGeometry{
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         if (this.center.equals(ray.getHead())) {
-            return List.of(new GeoPoint(this, ray.getPoint(radius)));
+            return alignZero(radius - maxDistance) <= 0 ? List.of(new GeoPoint(this, ray.getPoint(radius))) : null;
         }
-        Vector u = this.center.subtract(ray.getHead());
-        double Tm = alignZero(ray.getDirection().dotProduct(u));
-        double d = alignZero(Math.sqrt(u.lengthSquared() - (Tm * Tm)));
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ux = this.center.getX() - head.getX();
+        double uy = this.center.getY() - head.getY();
+        double uz = this.center.getZ() - head.getZ();
+        double Tm = alignZero(dot(direction.getX(), direction.getY(), direction.getZ(), ux, uy, uz));
+        double d = alignZero(Math.sqrt(lengthSquared(ux, uy, uz) - (Tm * Tm)));
         if (d >= this.radius) {
             return null;
         }
@@ -62,16 +89,87 @@ public class Sphere extends RadialGeometry{
         }
         double t1 = alignZero(Tm + Th);
         double t2 = alignZero(Tm - Th);
-        boolean dT1 = alignZero(t1 - maxDistance) <= 0;
-        boolean dT2 = alignZero(t2 - maxDistance) <= 0;
-        if (t1 > 0 && t2 > 0 && dT1 && dT2) {
+        boolean dT1 = t1 > 0 && alignZero(t1 - maxDistance) <= 0;
+        boolean dT2 = t2 > 0 && alignZero(t2 - maxDistance) <= 0;
+        if (dT1 && dT2) {
             return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
-        } else if (t1 > 0 && t2 <= 0 && dT1) {
+        } else if (dT1) {
             return List.of(new GeoPoint(this, ray.getPoint(t1)));
-        } else if (t1 <= 0 && t2 > 0 && dT2) {
+        } else if (dT2) {
             return List.of(new GeoPoint(this, ray.getPoint(t2)));
         } else {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Helper method to find the closest geometric intersection between the ray and the sphere,
+     * considering a specified maximum distance.
+     * The nearer root is tried first, so the farther one is computed only when the ray starts inside the sphere.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if there are no intersections.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double t = intersect(head.getX(), head.getY(), head.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), maxDistance);
+        return t > 0 ? new GeoPoint(this, ray.getPoint(t)) : null;
+    }
+
+    /**
+     * Helper method to find the closest intersections of a subset of the rays of a packet with the sphere.
+     * The center and the radius are fetched once for the whole packet.
+     *
+     * @param packet The packet of rays.
+     * @param mask The mask of the rays to be traced.
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, int mask) {
+        for (int m = mask; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            packet.offer(i, this, intersect(packet.ox[i], packet.oy[i], packet.oz[i],
+                    packet.dx[i], packet.dy[i], packet.dz[i], packet.tMax[i]));
+        }
+    }
+
+    /**
+     * Computes the distance along a ray, given by its raw coordinates, to its closest intersection with the sphere.
+     * The nearer root is tried first, so the farther one is computed only when the ray starts inside the sphere.
+     *
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The distance to the closest intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    private double intersect(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+        double ux = this.center.getX() - ox;
+        double uy = this.center.getY() - oy;
+        double uz = this.center.getZ() - oz;
+        if (isZero(ux) && isZero(uy) && isZero(uz)) {
+            return alignZero(radius - maxDistance) <= 0 ? radius : 0;
+        }
+        double Tm = alignZero(dot(dx, dy, dz, ux, uy, uz));
+        double d2 = lengthSquared(ux, uy, uz) - (Tm * Tm);
+        double Th2 = (this.radius * this.radius) - d2;
+        if (alignZero(Th2) <= 0) {
+            return 0;
+        }
+        double Th = Math.sqrt(Th2);
+        double t = alignZero(Tm - Th);
+        if (t <= 0) {
+            t = alignZero(Tm + Th);
+            if (t <= 0) {
+                return 0;
+            }
+        }
+        return alignZero(t - maxDistance) <= 0 ? t : 0;
+    }
+}
@@ -11,10 +11,47 @@ import static primitives.Util.isZero;
 
 /**
  * A class that represents a triangle in three-dimensional space defined by three vertices.
- * The class inherits from the Polygon class.
+ * The class inherits from the Polygon class.<br/>
+ * The vertices and the edges from the first vertex are kept as raw numbers, so a ray is intersected with the
+ * triangle in a single pass with no allocation - by the Möller–Trumbore algorithm, or by the watertight
+ * algorithm of Woop, Benthin and Wald, which never lets a ray slip between triangles that share an edge.
  */
 public class Triangle extends Polygon{
 
+    /** The x-coordinate of the first vertex. */
+    final double x0;
+    /** The y-coordinate of the first vertex. */
+    final double y0;
+    /** The z-coordinate of the first vertex. */
+    final double z0;
+    /** The x-coordinate of the second vertex. */
+    final double x1;
+    /** The y-coordinate of the second vertex. */
+    final double y1;
+    /** The z-coordinate of the second vertex. */
+    final double z1;
+    /** The x-coordinate of the third vertex. */
+    final double x2;
+    /** The y-coordinate of the third vertex. */
+    final double y2;
+    /** The z-coordinate of the third vertex. */
+    final double z2;
+    /** The x-component of the edge from the first vertex to the second one. */
+    final double e1x;
+    /** The y-component of the edge from the first vertex to the second one. */
+    final double e1y;
+    /** The z-component of the edge from the first vertex to the second one. */
+    final double e1z;
+    /** The x-component of the edge from the first vertex to the third one. */
+    final double e2x;
+    /** The y-component of the edge from the first vertex to the third one. */
+    final double e2y;
+    /** The z-component of the edge from the first vertex to the third one. */
+    final double e2z;
+
+    /** Whether the triangle is intersected by the watertight algorithm - its edges and vertices are hits. */
+    private boolean watertight = false;
+
     /**
      * Constructs a new Triangle with three specified vertices.
      *
@@ -24,6 +61,46 @@ public class Triangle extends Polygon{
      */
     public Triangle(Point point1, Point point2, Point point3){
         super(point1, point2, point3);
+        x0 = point1.getX();
+        y0 = point1.getY();
+        z0 = point1.getZ();
+        x1 = point2.getX();
+        y1 = point2.getY();
+        z1 = point2.getZ();
+        x2 = point3.getX();
+        y2 = point3.getY();
+        z2 = point3.getZ();
+        e1x = x1 - x0;
+        e1y = y1 - y0;
+        e1z = z1 - z0;
+        e2x = x2 - x0;
+        e2y = y2 - y0;
+        e2z = z2 - z0;
+    }
+
+    /**
+     * Checks whether the triangle is intersected by the watertight algorithm.
+     *
+     * @return True if the edges and the vertices of the triangle are hits.
+     */
+    public boolean isWatertight() {
+        return watertight;
+    }
+
+    /**
+     * Sets whether the triangle is intersected by the watertight algorithm. A watertight triangle counts a hit on
+     * its edges and vertices, and decides it exactly the way every other triangle of the same vertices does,
+     * so a ray through an edge shared by two triangles hits one of them - no ray leaks through the cracks of
+     * a closed surface. Watertight triangles are intersected by themselves and not by the batches of the
+     * intersection kernels, so the flag must be set before the triangle is put in a hierarchy.
+     *
+     * @param watertight True for the watertight algorithm, false for the Möller–Trumbore algorithm,
+     *                   which misses a ray through an edge.
+     * @return The triangle itself.
+     */
+    public Triangle setWatertight(boolean watertight) {
+        this.watertight = watertight;
+        return this;
     }
 
     /**
@@ -33,34 +110,215 @@ public class Triangle extends Polygon{
      * @param maxDistance The maximum distance for intersection detection.
      * @return A list of GeoPoint objects representing the geometric intersections between the ray and the triangle,
      *         or null if no intersections are found.
-     * @throws IllegalArgumentException if the denominator in the intersection calculation is zero.
      */
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        if (plane.findGeoIntersections(ray, maxDistance) == null)
-            return null;
-        Vector v1 = this.vertices.get(0).subtract(ray.getHead());
-        Vector v2 = this.vertices.get(1).subtract(ray.getHead());
-        Vector v3 = this.vertices.get(2).subtract(ray.getHead());
-        Vector n1 = v1.crossProduct(v2).normalize();
-        Vector n2 = v2.crossProduct(v3).normalize();
-        Vector n3 = v3.crossProduct(v1).normalize();
-
-        if ((ray.getDirection().dotProduct(n1) > 0 && ray.getDirection().dotProduct(n2) > 0 && ray.getDirection().dotProduct(n3) > 0)
-                || (ray.getDirection().dotProduct(n1) < 0 && ray.getDirection().dotProduct(n2) < 0 && ray.getDirection().dotProduct(n3) < 0)) {
-            double numerator = this.plane.getNormal().dotProduct(this.plane.getq().subtract(ray.getHead()));
-            double denominator = this.plane.getNormal().dotProduct(ray.getDirection());
-            if (isZero(denominator)) {
-                throw new IllegalArgumentException("denominator cannot be zero");
-            }
-            double t = alignZero(numerator / denominator);
-            if (t == 0) {
-                return null;
-            }
-            if (t > 0) {
-                return List.of(new GeoPoint(this, ray.getPoint(t)));
-            }
+        GeoPoint geoPoint = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return geoPoint == null ? null : List.of(geoPoint);
+    }
+
+    /**
+     * Helper method to find the closest geometric intersection between the ray and the triangle,
+     * considering a specified maximum distance - the triangle has one intersection at most.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The intersection GeoPoint, or null if there is no intersection.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double t = intersect(ray, maxDistance, null);
+        return t > 0 ? new GeoPoint(this, ray.getPoint(t)) : null;
+    }
+
+    /**
+     * Helper method to find the closest intersections of a subset of the rays of a packet with the triangle.
+     *
+     * @param packet The packet of rays.
+     * @param mask The mask of the rays to be traced.
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, int mask) {
+        for (int m = mask; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            packet.offer(i, this, intersect(packet.ox[i], packet.oy[i], packet.oz[i],
+                    packet.dx[i], packet.dy[i], packet.dz[i], packet.tMax[i], null));
+        }
+    }
+
+    /**
+     * Computes the distance along a ray to its intersection with the triangle, and the barycentric coordinates
+     * of the intersection.
+     *
+     * @param ray The ray.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param barycentric An array that receives the barycentric coordinates (u,v) of an intersection - the weights
+     *                    of the second and the third vertex - in its first two cells, or null if they are not needed.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    double intersect(Ray ray, double maxDistance, double[] barycentric) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        return intersect(head.getX(), head.getY(), head.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), maxDistance, barycentric);
+    }
+
+    /**
+     * Computes the distance along a ray, given by its raw coordinates, to its intersection with the triangle,
+     * by the algorithm of the triangle.
+     *
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param barycentric An array that receives the barycentric coordinates of an intersection, or null.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    private double intersect(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance,
+                             double[] barycentric) {
+        return watertight
+                ? intersectWatertight(x0, y0, z0, x1, y1, z1, x2, y2, z2, ox, oy, oz, dx, dy, dz, maxDistance,
+                        barycentric)
+                : intersectMollerTrumbore(x0, y0, z0, e1x, e1y, e1z, e2x, e2y, e2z, ox, oy, oz, dx, dy, dz,
+                        maxDistance, barycentric);
+    }
+
+    /**
+     * Computes the distance along a ray to its intersection with a triangle by the Möller–Trumbore algorithm,
+     * which solves for the distance and the barycentric coordinates at once from the edges of the triangle.
+     * A ray that passes exactly through an edge or a vertex misses the triangle.
+     *
+     * @param x0 The x-coordinate of the first vertex.
+     * @param y0 The y-coordinate of the first vertex.
+     * @param z0 The z-coordinate of the first vertex.
+     * @param e1x The x-component of the edge from the first vertex to the second one.
+     * @param e1y The y-component of the edge from the first vertex to the second one.
+     * @param e1z The z-component of the edge from the first vertex to the second one.
+     * @param e2x The x-component of the edge from the first vertex to the third one.
+     * @param e2y The y-component of the edge from the first vertex to the third one.
+     * @param e2z The z-component of the edge from the first vertex to the third one.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param barycentric An array that receives the barycentric coordinates of an intersection, or null.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    static double intersectMollerTrumbore(double x0, double y0, double z0, double e1x, double e1y, double e1z,
+                                          double e2x, double e2y, double e2z, double ox, double oy, double oz,
+                                          double dx, double dy, double dz, double maxDistance,
+                                          double[] barycentric) {
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det)) {
+            return 0;
+        }
+        double inv = 1 / det;
+        double tx = ox - x0, ty = oy - y0, tz = oz - z0;
+        double u = (tx * px + ty * py + tz * pz) * inv;
+        if (u <= 0 || u >= 1) {
+            return 0;
+        }
+        double qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inv;
+        if (v <= 0 || u + v >= 1) {
+            return 0;
+        }
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        if (t <= 0 || alignZero(t - maxDistance) > 0) {
+            return 0;
+        }
+        if (barycentric != null) {
+            barycentric[0] = u;
+            barycentric[1] = v;
+        }
+        return t;
+    }
+
+    /**
+     * Computes the distance along a ray to its intersection with a triangle by the watertight algorithm
+     * (Woop, Benthin and Wald, "Watertight Ray/Triangle Intersection", 2013). The vertices are moved to the ray
+     * head and sheared so that the ray runs along the z axis, and the hit is decided by the signs of the
+     * 2D edge functions of the sheared vertices. An edge function depends only on the two vertices of its edge
+     * and on the ray, so the triangles on both sides of a shared edge see the same value with opposite
+     * orientations, and a ray through the edge hits at least one of them. A ray through an edge or a vertex
+     * is a hit.
+     *
+     * @param x0 The x-coordinate of the first vertex.
+     * @param y0 The y-coordinate of the first vertex.
+     * @param z0 The z-coordinate of the first vertex.
+     * @param x1 The x-coordinate of the second vertex.
+     * @param y1 The y-coordinate of the second vertex.
+     * @param z1 The z-coordinate of the second vertex.
+     * @param x2 The x-coordinate of the third vertex.
+     * @param y2 The y-coordinate of the third vertex.
+     * @param z2 The z-coordinate of the third vertex.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param barycentric An array that receives the barycentric coordinates of an intersection, or null.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    static double intersectWatertight(double x0, double y0, double z0, double x1, double y1, double z1,
+                                      double x2, double y2, double z2, double ox, double oy, double oz,
+                                      double dx, double dy, double dz, double maxDistance, double[] barycentric) {
+        // the axis of the largest component of the direction becomes z, and the other two keep the handedness
+        double ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+        int kz = ax >= ay && ax >= az ? 0 : ay >= az ? 1 : 2;
+        double ex0 = x0 - ox, ey0 = y0 - oy, ez0 = z0 - oz;
+        double ex1 = x1 - ox, ey1 = y1 - oy, ez1 = z1 - oz;
+        double ex2 = x2 - ox, ey2 = y2 - oy, ez2 = z2 - oz;
+        double rx, ry, rz, ax0, ay0, az0, ax1, ay1, az1, ax2, ay2, az2;
+        if (kz == 0) {
+            rx = dy; ry = dz; rz = dx;
+            ax0 = ey0; ay0 = ez0; az0 = ex0;
+            ax1 = ey1; ay1 = ez1; az1 = ex1;
+            ax2 = ey2; ay2 = ez2; az2 = ex2;
+        } else if (kz == 1) {
+            rx = dz; ry = dx; rz = dy;
+            ax0 = ez0; ay0 = ex0; az0 = ey0;
+            ax1 = ez1; ay1 = ex1; az1 = ey1;
+            ax2 = ez2; ay2 = ex2; az2 = ey2;
+        } else {
+            rx = dx; ry = dy; rz = dz;
+            ax0 = ex0; ay0 = ey0; az0 = ez0;
+            ax1 = ex1; ay1 = ey1; az1 = ez1;
+            ax2 = ex2; ay2 = ey2; az2 = ez2;
+        }
+        double sx = rx / rz, sy = ry / rz, sz = 1 / rz;
+        double bx0 = ax0 - sx * az0, by0 = ay0 - sy * az0;
+        double bx1 = ax1 - sx * az1, by1 = ay1 - sy * az1;
+        double bx2 = ax2 - sx * az2, by2 = ay2 - sy * az2;
+
+        // the edge functions - the weights of the vertices opposite to the edges, scaled by the determinant
+        double w0 = bx2 * by1 - by2 * bx1;
+        double w1 = bx0 * by2 - by0 * bx2;
+        double w2 = bx1 * by0 - by1 * bx0;
+        if ((w0 < 0 || w1 < 0 || w2 < 0) && (w0 > 0 || w1 > 0 || w2 > 0)) {
+            return 0;
+        }
+        double det = w0 + w1 + w2;
+        if (det == 0) {
+            return 0;
+        }
+        double t = alignZero((w0 * az0 + w1 * az1 + w2 * az2) * sz / det);
+        if (t <= 0 || alignZero(t - maxDistance) > 0) {
+            return 0;
+        }
+        if (barycentric != null) {
+            barycentric[0] = w1 / det;
+            barycentric[1] = w2 / det;
         }
-        return null;
+        return t;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,523 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.isZero;
+
+/**
+ * A mesh of triangles that share their vertices - the usual form of scanned and modeled assets.
+ * The positions of the vertices are kept in a single array (3 numbers per vertex) and the faces in an index
+ * array (3 vertex indices per face), so a face costs 12 bytes plus its share of the vertices, instead of the
+ * several objects of a {@link Triangle}. The mesh holds its own bounding volume hierarchy over its faces, and
+ * a ray is intersected with the faces straight from the arrays, with no object per face; an object is created
+ * only for the intersection that is returned.<br/>
+ * The material is either the material of the whole mesh or a material per face, chosen from a palette.
+ * The emission is the emission of the whole mesh.
+ */
+public class TriangleMesh extends Geometry {
+
+    /** The tolerance of the search for the face that holds a point - of its distance and its barycentric coordinates. */
+    private static final double TOLERANCE = 1e-6;
+
+    /** The positions of the vertices - 3 numbers (x,y,z) per vertex. */
+    private final double[] positions;
+
+    /** The faces - 3 vertex indices per face, in the order of the hierarchy. */
+    private final int[] faces;
+
+    /** The palette of the materials of the faces, null if the mesh has a single material. */
+    private final Material[] materials;
+
+    /** The indices of the materials of the faces in the palette, in the order of the hierarchy. */
+    private final int[] faceMaterials;
+
+    /** The bounding volume hierarchy over the faces. */
+    private final Bvh bvh;
+
+    /** The box that bounds the mesh. */
+    private final AABB bounds;
+
+    /** Whether the faces are intersected by the watertight algorithm - their edges and vertices are hits. */
+    private boolean watertight = false;
+
+    /** The faces seen as primitives of the hierarchy. */
+    private final Bvh.Primitives primitives = this::intersect;
+
+    /** The opaque faces seen as primitives of the hierarchy - the transparent faces are never intersected. */
+    private final Bvh.Primitives opaqueFaces = (f, ox, oy, oz, dx, dy, dz, maxDistance) ->
+            faceMaterial(f).kT.equals(Double3.ZERO) ? intersect(f, ox, oy, oz, dx, dy, dz, maxDistance) : 0;
+
+    /**
+     * Constructs a mesh with a single material.
+     *
+     * @param positions The positions of the vertices - 3 numbers (x,y,z) per vertex. The mesh keeps the array,
+     *                  so it must not be changed afterwards.
+     * @param indices The faces - 3 vertex indices per face. The array is copied.
+     * @throws IllegalArgumentException if there are no faces, or an array is not made of triples,
+     *                                  or an index is not the index of a vertex.
+     */
+    public TriangleMesh(double[] positions, int[] indices) {
+        this(positions, indices, null, null);
+    }
+
+    /**
+     * Constructs a mesh with a material per face.
+     *
+     * @param positions The positions of the vertices - 3 numbers (x,y,z) per vertex. The mesh keeps the array,
+     *                  so it must not be changed afterwards.
+     * @param indices The faces - 3 vertex indices per face. The array is copied.
+     * @param materials The palette of the materials of the faces, null for a single material.
+     * @param faceMaterials The index of the material of every face in the palette, null for a single material.
+     * @throws IllegalArgumentException if there are no faces, or an array is not made of triples,
+     *                                  or an index is not the index of a vertex or of a material.
+     */
+    public TriangleMesh(double[] positions, int[] indices, Material[] materials, int[] faceMaterials) {
+        if (positions.length == 0 || positions.length % 3 != 0) {
+            throw new IllegalArgumentException("Vertex positions given is Illegal.");
+        }
+        if (indices.length == 0 || indices.length % 3 != 0) {
+            throw new IllegalArgumentException("Face indices given is Illegal.");
+        }
+        int vertexCount = positions.length / 3;
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IllegalArgumentException("Face indices given is Illegal.");
+            }
+        }
+        int faceCount = indices.length / 3;
+        if ((materials == null) != (faceMaterials == null)
+                || (faceMaterials != null && faceMaterials.length != faceCount)) {
+            throw new IllegalArgumentException("Face materials given is Illegal.");
+        }
+        if (faceMaterials != null) {
+            for (int material : faceMaterials) {
+                if (material < 0 || material >= materials.length) {
+                    throw new IllegalArgumentException("Face materials given is Illegal.");
+                }
+            }
+        }
+        this.positions = positions;
+
+        double[] boxes = new double[6 * faceCount];
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int f = 0; f < faceCount; ++f) {
+            int b = 6 * f;
+            boxes[b] = boxes[b + 1] = boxes[b + 2] = Double.POSITIVE_INFINITY;
+            boxes[b + 3] = boxes[b + 4] = boxes[b + 5] = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < 3; ++k) {
+                int v = 3 * indices[3 * f + k];
+                for (int axis = 0; axis < 3; ++axis) {
+                    boxes[b + axis] = Math.min(boxes[b + axis], positions[v + axis]);
+                    boxes[b + 3 + axis] = Math.max(boxes[b + 3 + axis], positions[v + axis]);
+                }
+            }
+            minX = Math.min(minX, boxes[b]);
+            minY = Math.min(minY, boxes[b + 1]);
+            minZ = Math.min(minZ, boxes[b + 2]);
+            maxX = Math.max(maxX, boxes[b + 3]);
+            maxY = Math.max(maxY, boxes[b + 4]);
+            maxZ = Math.max(maxZ, boxes[b + 5]);
+        }
+        this.bounds = new AABB(minX, minY, minZ, maxX, maxY, maxZ);
+        this.bvh = new BvhBuilder().build(boxes, faceCount);
+
+        // arrange the faces in the order of the hierarchy, so that every leaf is a contiguous range
+        this.faces = new int[indices.length];
+        this.materials = materials;
+        this.faceMaterials = faceMaterials == null ? null : new int[faceCount];
+        for (int f = 0; f < faceCount; ++f) {
+            int source = this.bvh.order[f];
+            System.arraycopy(indices, 3 * source, this.faces, 3 * f, 3);
+            if (faceMaterials != null) {
+                this.faceMaterials[f] = faceMaterials[source];
+            }
+        }
+    }
+
+    /**
+     * Constructs a mesh from buffers that are already arranged in the order of its hierarchy.
+     *
+     * @param positions The positions of the vertices.
+     * @param faces The faces, in the order of the hierarchy.
+     * @param materials The palette of the materials of the faces, null for a single material.
+     * @param faceMaterials The index of the material of every face in the palette, null for a single material.
+     * @param bvh The hierarchy over the faces.
+     * @param bounds The box that bounds the mesh.
+     */
+    private TriangleMesh(double[] positions, int[] faces, Material[] materials, int[] faceMaterials, Bvh bvh,
+                         AABB bounds) {
+        this.positions = positions;
+        this.faces = faces;
+        this.materials = materials;
+        this.faceMaterials = faceMaterials;
+        this.bvh = bvh;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Checks whether the faces of the mesh are intersected by the watertight algorithm.
+     *
+     * @return True if the edges and the vertices of the faces are hits.
+     */
+    public boolean isWatertight() {
+        return this.watertight;
+    }
+
+    /**
+     * Sets whether the faces of the mesh are intersected by the watertight algorithm of
+     * {@link Triangle#setWatertight(boolean)}, so that no ray leaks through an edge shared by two faces.
+     *
+     * @param watertight True for the watertight algorithm, false for the Möller–Trumbore algorithm,
+     *                   which misses a ray through an edge.
+     * @return The mesh itself.
+     */
+    public TriangleMesh setWatertight(boolean watertight) {
+        this.watertight = watertight;
+        return this;
+    }
+
+    /**
+     * Writes the buffers and the hierarchy of the mesh - not its emission and its material,
+     * which every geometry writes.
+     *
+     * @param out The encoder to write to.
+     */
+    void encode(GeometryCodec.Encoder out) {
+        out.putDoubles(this.positions).putInts(this.faces);
+        out.putInt(this.materials == null ? -1 : this.materials.length);
+        if (this.materials != null) {
+            for (Material material : this.materials) {
+                out.putMaterial(material);
+            }
+            out.putInts(this.faceMaterials);
+        }
+        out.putDouble(this.bounds.minX).putDouble(this.bounds.minY).putDouble(this.bounds.minZ)
+                .putDouble(this.bounds.maxX).putDouble(this.bounds.maxY).putDouble(this.bounds.maxZ);
+        this.bvh.encode(out);
+        out.putInt(this.watertight ? 1 : 0);
+    }
+
+    /**
+     * Reads a mesh written by {@link #encode(GeometryCodec.Encoder)}, with no construction of its hierarchy.
+     *
+     * @param in The decoder to read from.
+     * @return The mesh.
+     * @throws IllegalArgumentException if the buffers don't make a mesh.
+     */
+    static TriangleMesh decode(GeometryCodec.Decoder in) {
+        double[] positions = in.getDoubles();
+        int[] faces = in.getInts();
+        int paletteSize = in.getInt();
+        Material[] materials = null;
+        int[] faceMaterials = null;
+        if (paletteSize >= 0) {
+            materials = new Material[Math.min(paletteSize, in.remaining())];
+            for (int i = 0; i < materials.length; ++i) {
+                materials[i] = in.getMaterial();
+            }
+            faceMaterials = in.getInts();
+        }
+        AABB bounds = new AABB(in.getDouble(), in.getDouble(), in.getDouble(),
+                in.getDouble(), in.getDouble(), in.getDouble());
+        Bvh bvh = Bvh.decode(in);
+        int watertight = in.getInt();
+        if (watertight >>> 1 != 0 || positions.length % 3 != 0 || faces.length == 0 || faces.length % 3 != 0
+                || bvh.order.length != faces.length / 3 || paletteSize > (materials == null ? -1 : materials.length)
+                || (faceMaterials != null && faceMaterials.length != faces.length / 3)) {
+            throw new IllegalArgumentException("Cache data given is Illegal.");
+        }
+        return new TriangleMesh(positions, faces, materials, faceMaterials, bvh, bounds).setWatertight(watertight == 1);
+    }
+
+    /**
+     * Gets the amount of vertices of the mesh.
+     *
+     * @return The amount of vertices.
+     */
+    public int getVertexCount() {
+        return this.positions.length / 3;
+    }
+
+    /**
+     * Gets the amount of faces of the mesh.
+     *
+     * @return The amount of faces.
+     */
+    public int getFaceCount() {
+        return this.faces.length / 3;
+    }
+
+    /**
+     * Computes an axis-aligned box that bounds the mesh.
+     *
+     * @return The bounding box of the mesh.
+     */
+    @Override
+    public AABB getBounds() {
+        return this.bounds;
+    }
+
+    /**
+     * Checks whether the mesh lets no light pass through it - whether all of its materials are opaque.
+     *
+     * @return True if the transmission coefficients of all the materials are zero, false otherwise.
+     */
+    @Override
+    public boolean isOpaque() {
+        if (this.materials == null) {
+            return super.isOpaque();
+        }
+        for (Material material : this.materials) {
+            if (!material.kT.equals(Double3.ZERO)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the normal vector to the mesh at a point on its surface.
+     * The faces are searched for the one that holds the point, so the normal of an intersection is better taken
+     * from {@link GeoPoint#getNormal()}, which knows the intersected face.
+     *
+     * @param point The point on the surface of the mesh.
+     * @return The normal vector of the face that holds the point.
+     * @throws IllegalArgumentException if the point is not on the mesh.
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int closest = -1;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (int f = 0; f < getFaceCount(); ++f) {
+            int v0 = 3 * this.faces[3 * f], v1 = 3 * this.faces[3 * f + 1], v2 = 3 * this.faces[3 * f + 2];
+            double e1x = positions[v1] - positions[v0], e1y = positions[v1 + 1] - positions[v0 + 1],
+                    e1z = positions[v1 + 2] - positions[v0 + 2];
+            double e2x = positions[v2] - positions[v0], e2y = positions[v2 + 1] - positions[v0 + 1],
+                    e2z = positions[v2 + 2] - positions[v0 + 2];
+            double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (isZero(length)) {
+                continue;
+            }
+            double wx = px - positions[v0], wy = py - positions[v0 + 1], wz = pz - positions[v0 + 2];
+            double distance = Math.abs(nx * wx + ny * wy + nz * wz) / length;
+            if (distance < closestDistance && inside(e1x, e1y, e1z, e2x, e2y, e2z, nx, ny, nz, wx, wy, wz)) {
+                closest = f;
+                closestDistance = distance;
+            }
+        }
+        if (closest < 0 || closestDistance > TOLERANCE) {
+            throw new IllegalArgumentException("Point given is Illegal.");
+        }
+        return faceNormal(closest);
+    }
+
+    /**
+     * Checks whether the projection of a point on the plane of a face lies inside the face, up to rounding.
+     *
+     * @param e1x The x-component of the first edge of the face.
+     * @param e1y The y-component of the first edge of the face.
+     * @param e1z The z-component of the first edge of the face.
+     * @param e2x The x-component of the second edge of the face.
+     * @param e2y The y-component of the second edge of the face.
+     * @param e2z The z-component of the second edge of the face.
+     * @param nx The x-component of the (unnormalized) normal of the face.
+     * @param ny The y-component of the (unnormalized) normal of the face.
+     * @param nz The z-component of the (unnormalized) normal of the face.
+     * @param wx The x-component of the vector from the first vertex to the point.
+     * @param wy The y-component of the vector from the first vertex to the point.
+     * @param wz The z-component of the vector from the first vertex to the point.
+     * @return True if the point is inside the face.
+     */
+    private static boolean inside(double e1x, double e1y, double e1z, double e2x, double e2y, double e2z,
+                                  double nx, double ny, double nz, double wx, double wy, double wz) {
+        double n2 = nx * nx + ny * ny + nz * nz;
+        // the barycentric coordinates of the point: u = ((w×e2)·n)/|n|², v = ((e1×w)·n)/|n|²
+        double u = ((wy * e2z - wz * e2y) * nx + (wz * e2x - wx * e2z) * ny + (wx * e2y - wy * e2x) * nz) / n2;
+        double v = ((e1y * wz - e1z * wy) * nx + (e1z * wx - e1x * wz) * ny + (e1x * wy - e1y * wx) * nz) / n2;
+        return u >= -TOLERANCE && v >= -TOLERANCE && u + v <= 1 + TOLERANCE;
+    }
+
+    /**
+     * Computes the normal vector of a face, oriented as the normal of a {@link Triangle} of its vertices.
+     *
+     * @param f The index of the face, in the order of the hierarchy.
+     * @return The normal vector.
+     */
+    private Vector faceNormal(int f) {
+        int v0 = 3 * this.faces[3 * f], v1 = 3 * this.faces[3 * f + 1], v2 = 3 * this.faces[3 * f + 2];
+        Vector e1 = new Vector(positions[v1] - positions[v0], positions[v1 + 1] - positions[v0 + 1],
+                positions[v1 + 2] - positions[v0 + 2]);
+        Vector e2 = new Vector(positions[v2] - positions[v0], positions[v2 + 1] - positions[v0 + 1],
+                positions[v2 + 2] - positions[v0 + 2]);
+        return e1.crossProduct(e2).normalize();
+    }
+
+    /**
+     * Gets the material of a face.
+     *
+     * @param f The index of the face, in the order of the hierarchy.
+     * @return The material of the face.
+     */
+    private Material faceMaterial(int f) {
+        return this.materials == null ? getMaterial() : this.materials[this.faceMaterials[f]];
+    }
+
+    /**
+     * Computes the distance along a ray, given by its raw coordinates, to its intersection with a face,
+     * by the Möller–Trumbore algorithm - a ray that passes exactly through an edge misses the face, as it misses
+     * a {@link Triangle} - or by the watertight algorithm if the mesh is watertight.
+     *
+     * @param f The index of the face, in the order of the hierarchy.
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    private double intersect(int f, double ox, double oy, double oz, double dx, double dy, double dz,
+                             double maxDistance) {
+        int v0 = 3 * this.faces[3 * f], v1 = 3 * this.faces[3 * f + 1], v2 = 3 * this.faces[3 * f + 2];
+        double x0 = positions[v0], y0 = positions[v0 + 1], z0 = positions[v0 + 2];
+        if (this.watertight) {
+            return Triangle.intersectWatertight(x0, y0, z0, positions[v1], positions[v1 + 1], positions[v1 + 2],
+                    positions[v2], positions[v2 + 1], positions[v2 + 2], ox, oy, oz, dx, dy, dz, maxDistance, null);
+        }
+        return Triangle.intersectMollerTrumbore(x0, y0, z0,
+                positions[v1] - x0, positions[v1 + 1] - y0, positions[v1 + 2] - z0,
+                positions[v2] - x0, positions[v2 + 1] - y0, positions[v2 + 2] - z0,
+                ox, oy, oz, dx, dy, dz, maxDistance, null);
+    }
+
+    /**
+     * Helper method to find geometric intersections between the ray and the mesh, considering a specified
+     * maximum distance.
+     *
+     * @param ray The ray for which to find geometric intersections.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return A list of GeoPoint objects representing the geometric intersections between the ray and the mesh,
+     *         or null if no intersections are found.
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        List<GeoPoint> intersections = new LinkedList<>();
+        this.bvh.findAll(this.primitives, head.getX(), head.getY(), head.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), maxDistance,
+                (f, t) -> intersections.add(new FacePoint(f, ray.getPoint(t))));
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * Helper method to find the closest geometric intersection between the ray and the mesh,
+     * considering a specified maximum distance.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if there are no intersections.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double[] distance = new double[1];
+        int f = this.bvh.findClosest(this.primitives, head.getX(), head.getY(), head.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), maxDistance, distance);
+        return f < 0 ? null : new FacePoint(f, ray.getPoint(distance[0]));
+    }
+
+    /**
+     * Helper method to check whether an opaque face of the mesh blocks the light along a ray - the traversal of
+     * the hierarchy ends at the first opaque face in the way, and the transparent faces are skipped.
+     *
+     * @param ray The ray along which the light passes.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return True if an opaque face is in the way, false otherwise.
+     */
+    @Override
+    protected boolean occludedHelper(Ray ray, double maxDistance) {
+        Bvh.Primitives faces = isOpaque() ? this.primitives : this.materials == null ? null : this.opaqueFaces;
+        if (faces == null) {
+            return false;
+        }
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        return this.bvh.findAny(faces, head.getX(), head.getY(), head.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), maxDistance) >= 0;
+    }
+
+    /**
+     * Helper method to find the closest intersections of a subset of the rays of a packet with the mesh.
+     * The rays are traced through the hierarchy of the mesh one by one, straight from the arrays of the packet.
+     *
+     * @param packet The packet of rays.
+     * @param mask The mask of the rays to be traced.
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, int mask) {
+        double[] distance = new double[1];
+        for (int m = mask; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            int f = this.bvh.findClosest(this.primitives, packet.ox[i], packet.oy[i], packet.oz[i],
+                    packet.dx[i], packet.dy[i], packet.dz[i], packet.tMax[i], distance);
+            if (f >= 0 && (packet.hits[i] == null || distance[0] < packet.tMax[i])) {
+                packet.hits[i] = new FacePoint(f, packet.rays[i].getPoint(distance[0]));
+                packet.tMax[i] = distance[0];
+            }
+        }
+    }
+
+    /**
+     * An intersection with a face of the mesh - it knows its face, so that its normal and material
+     * are found directly.
+     */
+    private final class FacePoint extends GeoPoint {
+
+        /** The index of the intersected face, in the order of the hierarchy. */
+        private final int face;
+
+        /**
+         * Constructs an intersection with a face of the mesh.
+         *
+         * @param face The index of the face.
+         * @param point The intersection point.
+         */
+        FacePoint(int face, Point point) {
+            super(TriangleMesh.this, point);
+            this.face = face;
+        }
+
+        /**
+         * Gets the normal vector of the intersected face.
+         *
+         * @return The normal vector.
+         */
+        @Override
+        public Vector getNormal() {
+            return faceNormal(this.face);
+        }
+
+        /**
+         * Gets the material of the intersected face.
+         *
+         * @return The material.
+         */
+        @Override
+        public Material getMaterial() {
+            return faceMaterial(this.face);
+        }
+    }
+}
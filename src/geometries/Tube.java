@@ -6,7 +6,10 @@ import primitives.Vector;
 
 import java.util.List;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
+import static primitives.Vec3Math.dot;
+import static primitives.Vec3Math.lengthSquared;
 
 /**
  * A class that represents a tube in three-dimensional space, defined by a radius and an axis (Ray).
@@ -51,15 +54,159 @@ public class Tube extends RadialGeometry{
         return point_on_body.subtract(O).normalize();
     }
 
+    /**
+     * Computes the bounding box of the tube - the tube is infinite, so its box is unbounded.
+     *
+     * @return The unbounded box.
+     */
+    @Override
+    public AABB getBounds() {
+        return AABB.UNBOUNDED;
+    }
+
     /**
      * Finds the geometric intersections between the tube and a given ray.
      *
      * @param ray The ray for which geometric intersections need to be found.
+     * @param maxDistance The maximum distance for intersection detection.
      * @return A list of GeoPoint objects representing the geometric intersections between the ray and the tube,
      *         or null if there are no intersections.
      */
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        return null;
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double t1 = intersect(ox, oy, oz, dx, dy, dz, 0, maxDistance);
+        if (t1 <= 0) {
+            return null;
+        }
+        double t2 = intersect(ox, oy, oz, dx, dy, dz, t1, maxDistance);
+        return t2 <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t1)))
+                : List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+    }
+
+    /**
+     * Helper method to find the closest geometric intersection between the ray and the tube,
+     * considering a specified maximum distance.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The closest GeoPoint to the head of the ray, or null if there are no intersections.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double t = intersect(head.getX(), head.getY(), head.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), 0, maxDistance);
+        return t > 0 ? new GeoPoint(this, ray.getPoint(t)) : null;
+    }
+
+    /**
+     * Helper method to find the closest intersections of a subset of the rays of a packet with the tube.
+     * The axis and the radius are fetched once for the whole packet.
+     *
+     * @param packet The packet of rays.
+     * @param mask The mask of the rays to be traced.
+     */
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, int mask) {
+        for (int m = mask; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            packet.offer(i, this, intersect(packet.ox[i], packet.oy[i], packet.oz[i],
+                    packet.dx[i], packet.dy[i], packet.dz[i], 0, packet.tMax[i]));
+        }
+    }
+
+    /**
+     * Computes the distance along a ray, given by its raw coordinates, to its first intersection with the tube
+     * beyond a given distance.
+     *
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param minDistance The distance that the intersection must be beyond - 0 for the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    double intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+                     double minDistance, double maxDistance) {
+        return intersect(ox, oy, oz, dx, dy, dz, minDistance, maxDistance,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Computes the distance along a ray, given by its raw coordinates, to its first intersection beyond a given
+     * distance with the part of the tube between two planes orthogonal to its axis, closed by the planes.
+     * The span of the ray inside the infinite tube is the span between the roots of a quadratic in the
+     * components of the ray and of its head orthogonal to the axis. It is clipped by the span of the ray
+     * between the planes (a slab), and the ends of the clipped span are the intersections.
+     *
+     * @param ox The x-coordinate of the ray head.
+     * @param oy The y-coordinate of the ray head.
+     * @param oz The z-coordinate of the ray head.
+     * @param dx The x-component of the ray direction.
+     * @param dy The y-component of the ray direction.
+     * @param dz The z-component of the ray direction.
+     * @param minDistance The distance that the intersection must be beyond - 0 for the closest intersection.
+     * @param maxDistance The maximum distance for intersection detection.
+     * @param bottom The position of the lower plane along the axis from its head - infinite for none.
+     * @param top The position of the upper plane along the axis from its head - infinite for none.
+     * @return The distance to the intersection, or 0 if there is no intersection up to the maximum distance.
+     */
+    final double intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+                           double minDistance, double maxDistance, double bottom, double top) {
+        Point head = this.axis.getHead();
+        Vector v = this.axis.getDirection();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+        double px = ox - head.getX(), py = oy - head.getY(), pz = oz - head.getZ();
+        double dv = dot(dx, dy, dz, vx, vy, vz);
+        double pv = dot(px, py, pz, vx, vy, vz);
+
+        // the span inside the infinite tube: |p⊥ + t·d⊥|² = r², with a = |d⊥|², b = d⊥·p⊥, c = |p⊥|² - r²
+        double a = alignZero(lengthSquared(dx, dy, dz) - dv * dv);
+        double b = dot(dx, dy, dz, px, py, pz) - dv * pv;
+        double c = lengthSquared(px, py, pz) - pv * pv - this.radius * this.radius;
+        double near, far;
+        if (a == 0) {
+            // parallel to the axis - inside the tube everywhere or nowhere
+            if (alignZero(c) >= 0) {
+                return 0;
+            }
+            near = Double.NEGATIVE_INFINITY;
+            far = Double.POSITIVE_INFINITY;
+        }
+        else {
+            double discriminant = b * b - a * c;
+            if (alignZero(discriminant) <= 0) {
+                return 0;
+            }
+            double root = Math.sqrt(discriminant);
+            near = (-b - root) / a;
+            far = (-b + root) / a;
+        }
+
+        // the span between the planes
+        if (isZero(dv)) {
+            if (alignZero(pv - bottom) <= 0 || alignZero(top - pv) <= 0) {
+                return 0;
+            }
+        }
+        else {
+            double t1 = (bottom - pv) / dv, t2 = (top - pv) / dv;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+            if (alignZero(far - near) <= 0) {
+                return 0;
+            }
+        }
+
+        double t = alignZero(near - minDistance) > 0 ? near : far;
+        return alignZero(t - minDistance) > 0 && alignZero(t - maxDistance) <= 0 ? t : 0;
     }
-}
\ No newline at end of file
+}
@@ -59,6 +59,33 @@ public class PointLight extends Light implements LightSource {
         return this;
     }
 
+    /**
+     * Gets the constant attenuation factor of the point light.
+     *
+     * @return The constant attenuation factor.
+     */
+    public double getKc() {
+        return this.kC;
+    }
+
+    /**
+     * Gets the linear attenuation factor of the point light.
+     *
+     * @return The linear attenuation factor.
+     */
+    public double getKl() {
+        return this.kL;
+    }
+
+    /**
+     * Gets the quadratic attenuation factor of the point light.
+     *
+     * @return The quadratic attenuation factor.
+     */
+    public double getKq() {
+        return this.kQ;
+    }
+
     /**
      * Constructs a PointLight with the specified intensity and position.
      * He sets the Blackboard's default (without soft shadow).
@@ -101,6 +101,15 @@ public class SpotLight extends PointLight {
         return this.narrowBeam;
     }
 
+    /**
+     * Gets the direction in which the light is emitted.
+     *
+     * @return The direction of the light beam.
+     */
+    public Vector getDirection() {
+        return this.direction;
+    }
+
     /**
      * Retrieves the intensity of the light at the specified point, taking the spotlight effect into account.
      *
@@ -43,6 +43,24 @@ public class Double3 {
       this.d3 = value;
    }
 
+   /**
+    * First number getter
+    * @return first number value
+    */
+   public double getD1() { return d1; }
+
+   /**
+    * Second number getter
+    * @return second number value
+    */
+   public double getD2() { return d2; }
+
+   /**
+    * Third number getter
+    * @return third number value
+    */
+   public double getD3() { return d3; }
+
    @Override
    public boolean equals(Object obj) {
       if (this == obj) return true;
@@ -115,4 +133,10 @@ public class Double3 {
     *               triad, false otherwise
     */
    public boolean lowerThan(Double3 other) { return d1 < other.d1 && d2 < other.d2 && d3 < other.d3; }
-}
\ No newline at end of file
+
+   /**
+    * Finds the largest of the numbers
+    * @return the largest number of the triad
+    */
+   public double max() { return Math.max(d1, Math.max(d2, d3)); }
+}
@@ -32,6 +32,33 @@ public class Point {
         this.xyz = new Double3(_new_obj.d1, _new_obj.d2, _new_obj.d3);
     }
 
+    /**
+     * Retrieves the x-coordinate of the point.
+     *
+     * @return The x-coordinate of the point.
+     */
+    public double getX() {
+        return this.xyz.d1;
+    }
+
+    /**
+     * Retrieves the y-coordinate of the point.
+     *
+     * @return The y-coordinate of the point.
+     */
+    public double getY() {
+        return this.xyz.d2;
+    }
+
+    /**
+     * Retrieves the z-coordinate of the point.
+     *
+     * @return The z-coordinate of the point.
+     */
+    public double getZ() {
+        return this.xyz.d3;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -51,7 +78,7 @@ public class Point {
      * @return The vector representing the subtraction of points.
      */
     public Vector subtract(Point other){
-        return new Vector(this.xyz.subtract(other.xyz));
+        return new Vector(this.xyz.d1 - other.xyz.d1, this.xyz.d2 - other.xyz.d2, this.xyz.d3 - other.xyz.d3);
     }
 
     /**
@@ -61,7 +88,7 @@ public class Point {
      * @return A new Point resulting from the addition of the vector.
      */
     public Point add(Vector vector){
-        return new Point(this.xyz.add(vector.xyz));
+        return new Point(this.xyz.d1 + vector.xyz.d1, this.xyz.d2 + vector.xyz.d2, this.xyz.d3 + vector.xyz.d3);
     }
 
     /**
@@ -20,6 +20,15 @@ public class Ray {
     /** The direction vector of the ray, normalized to have unit length. */
     private final Vector direction;
 
+    /** The inverse of the x-component of the direction - infinite for a direction with no x-component. */
+    private final double invDx;
+
+    /** The inverse of the y-component of the direction - infinite for a direction with no y-component. */
+    private final double invDy;
+
+    /** The inverse of the z-component of the direction - infinite for a direction with no z-component. */
+    private final double invDz;
+
     /**
      * A constant value to prevent self-intersections with a ray. */
     private static final double DELTA = 0.1;
@@ -32,8 +41,12 @@ public class Ray {
      * @param direction The direction vector of the ray.
      */
     public Ray(Point head, Vector direction){
-        this.head = new Point(head.xyz);
-        this.direction = new Vector(direction.normalize().xyz);
+        // points are immutable, so the head is shared unless it is a vector posing as a point
+        this.head = head.getClass() == Point.class ? head : new Point(head.xyz);
+        this.direction = direction.normalize();
+        this.invDx = 1 / this.direction.xyz.d1;
+        this.invDy = 1 / this.direction.xyz.d2;
+        this.invDz = 1 / this.direction.xyz.d3;
     }
 
     /**
@@ -47,15 +60,20 @@ public class Ray {
     public Ray(Point head, Vector direction, Vector normal){
         double nv = alignZero(direction.dotProduct(normal));
         if (nv > 0) {
-            this.head = head.add(normal.scale(DELTA));
+            this.head = new Point(head.xyz.d1 + normal.xyz.d1 * DELTA, head.xyz.d2 + normal.xyz.d2 * DELTA,
+                    head.xyz.d3 + normal.xyz.d3 * DELTA);
         }
         else if (nv < 0) {
-            this.head = head.add((normal.scale(-DELTA)));
+            this.head = new Point(head.xyz.d1 + normal.xyz.d1 * -DELTA, head.xyz.d2 + normal.xyz.d2 * -DELTA,
+                    head.xyz.d3 + normal.xyz.d3 * -DELTA);
         }
         else{
             this.head = head;
         }
         this.direction = direction.normalize();
+        this.invDx = 1 / this.direction.xyz.d1;
+        this.invDy = 1 / this.direction.xyz.d2;
+        this.invDz = 1 / this.direction.xyz.d3;
     }
 
     @Override
@@ -89,6 +107,34 @@ public class Ray {
         return head;
     }
 
+    /**
+     * Gets the inverse of the x-component of the direction, computed once for the slab tests of the ray
+     * against many bounding boxes.
+     *
+     * @return The inverse of the x-component of the direction.
+     */
+    public double getInvDx() {
+        return invDx;
+    }
+
+    /**
+     * Gets the inverse of the y-component of the direction.
+     *
+     * @return The inverse of the y-component of the direction.
+     */
+    public double getInvDy() {
+        return invDy;
+    }
+
+    /**
+     * Gets the inverse of the z-component of the direction.
+     *
+     * @return The inverse of the z-component of the direction.
+     */
+    public double getInvDz() {
+        return invDz;
+    }
+
     /**
      * Calculates a point along the line defined by this vector with respect to the parameter t.
      * If t is zero, the method returns the starting point of the line.
@@ -101,7 +147,8 @@ public class Ray {
         if(isZero(t)){
             return head;
         }
-        return this.getHead().add(this.getDirection().scale(t));
+        return new Point(head.xyz.d1 + direction.xyz.d1 * t, head.xyz.d2 + direction.xyz.d2 * t,
+                head.xyz.d3 + direction.xyz.d3 * t);
     }
 
     /**
@@ -122,15 +169,18 @@ public class Ray {
      * @return The closest GeoPoint to the specified point, or null if the list is empty.
      */
     public GeoPoint findClosestGeoPoint(List<GeoPoint> ls) {
-        if (ls != null) {
-            GeoPoint result = ls.get(0);
-            for (GeoPoint point : ls) {
-                if (point.point.distance(this.head) < result.point.distance(this.head)) {
-                    result = point;
-                }
+        if (ls == null || ls.isEmpty()) {
+            return null;
+        }
+        GeoPoint result = null;
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (GeoPoint point : ls) {
+            double distance = point.point.distanceSquared(this.head);
+            if (distance < minDistance) {
+                minDistance = distance;
+                result = point;
             }
-            return result;
         }
-        return null;
+        return result;
     }
 }
\ No newline at end of file
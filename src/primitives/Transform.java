@@ -0,0 +1,245 @@
+package primitives;
+
+import java.util.Arrays;
+
+import static primitives.Util.isZero;
+
+/**
+ * An affine transformation of space - a linear map followed by a translation, kept as a 3x4 matrix
+ * together with its inverse. A point p is mapped to M p + t, a vector to M v, and a normal to the
+ * inverse transpose of M times it, so that it stays perpendicular to the mapped surface.
+ * Transformations are immutable, and are composed by {@link #then(Transform)}.
+ */
+public final class Transform {
+
+    /** The transformation that maps every point to itself. */
+    public static final Transform IDENTITY = new Transform(new double[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0 });
+
+    /** The matrix of the transformation, row after row - the linear map in columns 0-2 and the translation in 3. */
+    private final double[] matrix;
+
+    /** The matrix of the inverse transformation, in the same layout. */
+    private final double[] inverse;
+
+    /**
+     * Constructs a transformation of a matrix.
+     *
+     * @param matrix The 12 numbers of the 3x4 matrix, row after row - the linear map in the first three columns
+     *               and the translation in the last one.
+     * @throws IllegalArgumentException if the matrix is not of 12 finite numbers, or the linear map is singular.
+     */
+    public Transform(double[] matrix) {
+        if (matrix.length != 12 || !Arrays.stream(matrix).allMatch(Double::isFinite)) {
+            throw new IllegalArgumentException("Transform given is Illegal.");
+        }
+        this.matrix = matrix.clone();
+        double[] m = this.matrix;
+        // the inverse of the linear map is its adjugate over its determinant
+        double c00 = m[5] * m[10] - m[6] * m[9], c01 = m[2] * m[9] - m[1] * m[10], c02 = m[1] * m[6] - m[2] * m[5];
+        double c10 = m[6] * m[8] - m[4] * m[10], c11 = m[0] * m[10] - m[2] * m[8], c12 = m[2] * m[4] - m[0] * m[6];
+        double c20 = m[4] * m[9] - m[5] * m[8], c21 = m[1] * m[8] - m[0] * m[9], c22 = m[0] * m[5] - m[1] * m[4];
+        double det = m[0] * c00 + m[1] * c10 + m[2] * c20;
+        if (isZero(det) || !Double.isFinite(1 / det)) {
+            throw new IllegalArgumentException("Transform given is Illegal.");
+        }
+        double f = 1 / det;
+        double[] inv = { c00 * f, c01 * f, c02 * f, 0, c10 * f, c11 * f, c12 * f, 0, c20 * f, c21 * f, c22 * f, 0 };
+        // the inverse translation undoes the translation, mapped by the inverse linear map
+        for (int row = 0; row < 3; ++row) {
+            inv[4 * row + 3] = -(inv[4 * row] * m[3] + inv[4 * row + 1] * m[7] + inv[4 * row + 2] * m[11]);
+        }
+        this.inverse = inv;
+    }
+
+    /**
+     * Constructs a transformation of a matrix and its known inverse.
+     *
+     * @param matrix The matrix.
+     * @param inverse The matrix of the inverse transformation.
+     */
+    private Transform(double[] matrix, double[] inverse) {
+        this.matrix = matrix;
+        this.inverse = inverse;
+    }
+
+    /**
+     * Creates a translation.
+     *
+     * @param offset The offset of every point.
+     * @return The translation.
+     */
+    public static Transform translation(Vector offset) {
+        return new Transform(new double[] { 1, 0, 0, offset.getX(), 0, 1, 0, offset.getY(), 0, 0, 1, offset.getZ() });
+    }
+
+    /**
+     * Creates a scaling about the origin, along the axes.
+     *
+     * @param sx The scale along the x axis.
+     * @param sy The scale along the y axis.
+     * @param sz The scale along the z axis.
+     * @return The scaling.
+     * @throws IllegalArgumentException if a scale is zero.
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        return new Transform(new double[] { sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0 });
+    }
+
+    /**
+     * Creates a uniform scaling about the origin.
+     *
+     * @param scale The scale.
+     * @return The scaling.
+     * @throws IllegalArgumentException if the scale is zero.
+     */
+    public static Transform scaling(double scale) {
+        return scaling(scale, scale, scale);
+    }
+
+    /**
+     * Creates a rotation about an axis through the origin, counterclockwise when the axis points at the viewer.
+     *
+     * @param axis The direction of the axis.
+     * @param degrees The angle of the rotation, in degrees.
+     * @return The rotation.
+     */
+    public static Transform rotation(Vector axis, double degrees) {
+        Vector u = axis.normalize();
+        double x = u.getX(), y = u.getY(), z = u.getZ();
+        double angle = Math.toRadians(degrees);
+        double c = Math.cos(angle), s = Math.sin(angle), t = 1 - c;
+        return new Transform(new double[] {
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y, 0,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x, 0,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c, 0 });
+    }
+
+    /**
+     * Composes this transformation with another one that is applied after it.
+     *
+     * @param next The transformation applied after this one.
+     * @return The composed transformation.
+     */
+    public Transform then(Transform next) {
+        return new Transform(multiply(next.matrix, this.matrix), multiply(this.inverse, next.inverse));
+    }
+
+    /**
+     * Gets the inverse transformation.
+     *
+     * @return The transformation that maps every mapped point back.
+     */
+    public Transform inverse() {
+        return new Transform(this.inverse, this.matrix);
+    }
+
+    /**
+     * Maps a point.
+     *
+     * @param point The point.
+     * @return The mapped point.
+     */
+    public Point transformPoint(Point point) {
+        return map(this.matrix, point, 1);
+    }
+
+    /**
+     * Maps a point by the inverse transformation.
+     *
+     * @param point The point.
+     * @return The point that this transformation maps to the given one.
+     */
+    public Point inverseTransformPoint(Point point) {
+        return map(this.inverse, point, 1);
+    }
+
+    /**
+     * Maps a vector - by the linear map only, with no translation.
+     *
+     * @param vector The vector.
+     * @return The mapped vector, not normalized.
+     */
+    public Vector transformVector(Vector vector) {
+        return new Vector(map(this.matrix, vector, 0).xyz);
+    }
+
+    /**
+     * Maps a vector by the inverse transformation.
+     *
+     * @param vector The vector.
+     * @return The vector that this transformation maps to the given one, not normalized.
+     */
+    public Vector inverseTransformVector(Vector vector) {
+        return new Vector(map(this.inverse, vector, 0).xyz);
+    }
+
+    /**
+     * Maps a normal of a surface to the normal of the mapped surface - by the inverse transpose of the linear map.
+     *
+     * @param normal The normal.
+     * @return The normal of the mapped surface, normalized.
+     */
+    public Vector transformNormal(Vector normal) {
+        double[] m = this.inverse;
+        double x = normal.getX(), y = normal.getY(), z = normal.getZ();
+        return new Vector(m[0] * x + m[4] * y + m[8] * z, m[1] * x + m[5] * y + m[9] * z,
+                m[2] * x + m[6] * y + m[10] * z).normalize();
+    }
+
+    /**
+     * Gets the matrix of the transformation.
+     *
+     * @return A copy of the 12 numbers of the 3x4 matrix, row after row.
+     */
+    public double[] getMatrix() {
+        return this.matrix.clone();
+    }
+
+    /**
+     * Maps a point or a vector by a matrix.
+     *
+     * @param m The matrix.
+     * @param point The point or the vector.
+     * @param w 1 to map a point, 0 to map a vector.
+     * @return The mapped point.
+     */
+    private static Point map(double[] m, Point point, double w) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        return new Point(m[0] * x + m[1] * y + m[2] * z + m[3] * w, m[4] * x + m[5] * y + m[6] * z + m[7] * w,
+                m[8] * x + m[9] * y + m[10] * z + m[11] * w);
+    }
+
+    /**
+     * Multiplies two affine matrices.
+     *
+     * @param a The matrix applied second.
+     * @param b The matrix applied first.
+     * @return The matrix of applying b and then a.
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] product = new double[12];
+        for (int row = 0; row < 3; ++row) {
+            for (int col = 0; col < 4; ++col) {
+                product[4 * row + col] = a[4 * row] * b[col] + a[4 * row + 1] * b[4 + col]
+                        + a[4 * row + 2] * b[8 + col] + (col == 3 ? a[4 * row + 3] : 0);
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        return (obj instanceof Transform other) && Arrays.equals(this.matrix, other.matrix);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.matrix);
+    }
+
+    @Override
+    public String toString() {
+        return "Transform" + Arrays.toString(this.matrix);
+    }
+}
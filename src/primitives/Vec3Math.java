@@ -0,0 +1,39 @@
+package primitives;
+
+/**
+ * Vec3Math class provides the vector operations on raw coordinates.
+ * The hot paths of the intersection and shading calculations use it on the components of points and vectors,
+ * so that the intermediate results are kept in local variables instead of allocating new objects.
+ */
+public final class Vec3Math {
+
+    /** Don't let anyone instantiate this class. */
+    private Vec3Math() {}
+
+    /**
+     * Computes the dot product of two vectors given by their components.
+     *
+     * @param ax The x-component of the first vector.
+     * @param ay The y-component of the first vector.
+     * @param az The z-component of the first vector.
+     * @param bx The x-component of the second vector.
+     * @param by The y-component of the second vector.
+     * @param bz The z-component of the second vector.
+     * @return The dot product of the vectors.
+     */
+    public static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    /**
+     * Computes the squared length of a vector given by its components.
+     *
+     * @param x The x-component of the vector.
+     * @param y The y-component of the vector.
+     * @param z The z-component of the vector.
+     * @return The squared length of the vector.
+     */
+    public static double lengthSquared(double x, double y, double z) {
+        return x * x + y * y + z * z;
+    }
+}
@@ -1,5 +1,7 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * A class that represents a three-dimensional vector with x, y, and z components.
  * The class inherits from the Point class.
@@ -16,7 +18,7 @@ public class Vector extends Point {
      */
     public Vector(double x, double y, double z){
         super(x, y, z);
-        if(this.xyz.equals(Double3.ZERO)) {
+        if(isZero(x) && isZero(y) && isZero(z)) {
             throw new IllegalArgumentException("the zero vector not ok");
         }
     }
@@ -29,7 +31,7 @@ public class Vector extends Point {
      */
     public Vector(Double3 new_xyz){
         super(new_xyz.d1, new_xyz.d2, new_xyz.d3);
-        if(new_xyz.equals(Double3.ZERO)){
+        if(isZero(new_xyz.d1) && isZero(new_xyz.d2) && isZero(new_xyz.d3)){
             throw new IllegalArgumentException("The zero vector is Illegal");
         }
     }
@@ -71,7 +73,7 @@ public class Vector extends Point {
      * @return A new vector representing the sum of this vector and the given vector.
      */
     public Vector add(Vector other) {
-        return new Vector(this.xyz.add(other.xyz));
+        return new Vector(this.xyz.d1 + other.xyz.d1, this.xyz.d2 + other.xyz.d2, this.xyz.d3 + other.xyz.d3);
     }
 
     /**
@@ -81,7 +83,7 @@ public class Vector extends Point {
      * @return A new vector representing the scaled vector.
      */
     public Vector scale(double num){
-        return new Vector(this.xyz.scale(num));
+        return new Vector(this.xyz.d1 * num, this.xyz.d2 * num, this.xyz.d3 * num);
     }
 
     /**
@@ -112,10 +114,15 @@ public class Vector extends Point {
 
     /**
      * Normalizes this vector to have unit length.
+     * A vector that already has unit length is returned as is, since vectors are immutable.
      *
-     * @return A new vector representing the normalized vector.
+     * @return A vector representing the normalized vector.
      */
     public Vector normalize(){
-        return new Vector(this.xyz.reduce(this.length()));
+        double length = this.length();
+        if (length == 1) {
+            return this;
+        }
+        return new Vector(this.xyz.d1 / length, this.xyz.d2 / length, this.xyz.d3 / length);
     }
 }
\ No newline at end of file
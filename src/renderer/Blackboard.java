@@ -3,16 +3,34 @@ package renderer;
 import primitives.Point;
 import primitives.Vector;
 import static primitives.Util.isZero;
-import static primitives.Util.random;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * The `Blackboard` class represents a virtual blackboard used for rendering optimization.
  * It provides methods for generating jittered rays to improve Anti-Aliasing and Soft-Shadows effects.
+ * The points are spread over the board by its {@link Sampling} method - a jittered grid by default,
+ * or a randomized low-discrepancy set of Nx*Ny points - and may be precomputed once as a pool of patterns.
  */
 public class Blackboard {
 
+    /**
+     * The methods of spreading the sample points over the blackboard.
+     */
+    public enum Sampling {
+        /** A point at a random position inside every cell of an Nx*Ny grid. */
+        JITTERED,
+        /** The Halton sequence (bases 2 and 3), randomly shifted over the board. */
+        HALTON,
+        /** The Sobol sequence with Owen scrambling - the best spread for 2^m points. */
+        SOBOL,
+        /** A precomputed blue-noise tile, randomly shifted over the board. */
+        BLUE_NOISE
+    }
+
     /** The width of the blackboard. */
     private double width = 0;
 
@@ -28,6 +46,19 @@ public class Blackboard {
     /** The center point of the blackboard. */
     private Point centerBoard;
 
+    /** The method of spreading the sample points over the blackboard. */
+    private Sampling sampling = Sampling.JITTERED;
+
+    /** The seed of the construction of the sample patterns, so that every run uses the same patterns. */
+    private static final long PATTERN_SEED = 0x5eedab1eL;
+
+    /** The amount of precomputed sample patterns - 0 if the points are generated anew for every call. */
+    private int patternCount = 0;
+
+    /** The precomputed sample patterns, pattern after pattern - the offsets of the Nx*Ny points of a pattern
+     * from the center of the board along its X and Y axes, 2 numbers per point. Null if there are none. */
+    private double[] patterns = null;
+
     /**
      * Gets the width of the blackboard.
      *
@@ -46,6 +77,76 @@ public class Blackboard {
         return height;
     }
 
+    /**
+     * Gets the number of divisions in the horizontal direction.
+     *
+     * @return The number of divisions in the horizontal direction.
+     */
+    public int getNx() {
+        return Nx;
+    }
+
+    /**
+     * Gets the number of divisions in the vertical direction.
+     *
+     * @return The number of divisions in the vertical direction.
+     */
+    public int getNy() {
+        return Ny;
+    }
+
+    /**
+     * Gets the method of spreading the sample points over the blackboard.
+     *
+     * @return The sampling method.
+     */
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    /**
+     * Sets the method of spreading the sample points over the blackboard. A low-discrepancy method spreads
+     * the Nx*Ny points more evenly than a jittered grid, and the count needn't be a square - e.g. 4x8 points.
+     *
+     * @param sampling The sampling method.
+     * @return This Blackboard instance for method chaining.
+     */
+    public Blackboard setSampling(Sampling sampling) {
+        if (sampling == null) {
+            throw new IllegalArgumentException("Sampling given is Illegal.");
+        }
+        this.sampling = sampling;
+        buildPatterns();
+        return this;
+    }
+
+    /**
+     * Gets the amount of precomputed sample patterns.
+     *
+     * @return The amount of patterns - 0 if the points are generated anew for every call.
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Sets the amount of sample patterns that are precomputed once for the board by its sampling method.
+     * Every call of the sampling then picks one of the patterns instead of generating the points -
+     * a pool of several patterns keeps neighboring pixels or shading points from repeating
+     * the same structured error.
+     *
+     * @param count The amount of patterns - 0 to generate the points anew for every call.
+     * @return This Blackboard instance for method chaining.
+     */
+    public Blackboard setPatterns(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Pattern count given is Illegal.");
+        }
+        this.patternCount = count;
+        buildPatterns();
+        return this;
+    }
+
     /**
      * Sets the center point of the blackboard.
      *
@@ -84,29 +185,134 @@ public class Blackboard {
     }
 
     /**
-     * Generates jittered points on the blackboard.
+     * Generates the sample points of the blackboard by its sampling method.
+     * The random numbers are drawn from the generator of the calling thread, so that concurrent threads
+     * don't contend on a shared generator.
      *
      * @param vectorX The X direction vector.
      * @param vectorY The Y direction vector.
      * @return A list of jittered points.
      */
     public List<Point> jittered(Vector vectorX, Vector vectorY){
-        List<Point> points = new ArrayList<>();
-        for (int i = 0; i < this.Ny; i++){
-            for (int j = 0; j < this.Nx; j++){
-                Point centerArea = findCenter(vectorX, vectorY, j, i);
-                double randomX = random(-((this.width - 1) / this.Nx) / 2, ((this.width - 1) / this.Nx) / 2);
-                double randomY = random(-((this.height - 1) / this.Ny) / 2, ((this.height - 1) / this.Ny) / 2);
-                if (!isZero(randomX)){
-                    centerArea = centerArea.add(vectorX.scale(randomX));
-                }
-                if (!isZero(randomY)){
-                    centerArea = centerArea.add(vectorY.scale(randomY));
+        return jittered(this.centerBoard, vectorX, vectorY, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates the sample points of the blackboard placed around a given center point, by its sampling method.
+     * The blackboard itself is not changed, so several threads may sample it at the same time,
+     * each one with its own center and random generator.
+     *
+     * @param centerBoard The center point of the blackboard.
+     * @param vectorX The X direction vector.
+     * @param vectorY The Y direction vector.
+     * @param random The random generator of the jittering or of the scrambling of a low-discrepancy set -
+     *               a seeded generator gives repeatable points.
+     * @return A list of Nx*Ny points.
+     */
+    public List<Point> jittered(Point centerBoard, Vector vectorX, Vector vectorY, RandomGenerator random){
+        double[] samples = samples(centerBoard, vectorX, vectorY, random, null);
+        List<Point> points = new ArrayList<>(this.Nx * this.Ny);
+        for (int k = 0; k < samples.length; k += 3) {
+            points.add(new Point(samples[k], samples[k + 1], samples[k + 2]));
+        }
+        return points;
+    }
+
+    /**
+     * Generates the sample points of the blackboard placed around a given center point into a flat array
+     * of coordinates - the same points as {@link #jittered(Point, Vector, Vector, RandomGenerator)}
+     * with no object per point. With precomputed patterns the points are one of the patterns picked by the
+     * generator, and otherwise they are generated anew into the array itself, so nothing is allocated
+     * when the array is large enough.
+     *
+     * @param centerBoard The center point of the blackboard.
+     * @param vectorX The X direction vector.
+     * @param vectorY The Y direction vector.
+     * @param random The random generator of the points, or of the pick of a pattern.
+     * @param points The array that receives the points - a new array is allocated if it is null or shorter
+     *               than 3*Nx*Ny.
+     * @return The array of the points - 3 coordinates (x,y,z) per point, row by row from the top left cell.
+     */
+    public double[] samples(Point centerBoard, Vector vectorX, Vector vectorY, RandomGenerator random,
+                            double[] points) {
+        int count = this.Nx * this.Ny;
+        if (points == null || points.length < 3 * count) {
+            points = new double[3 * count];
+        }
+        double[] offsets = this.patterns;
+        int base;
+        double x0 = 0, y0 = 0, scaleX = 1, scaleY = 1;
+        if (offsets != null) {
+            base = 2 * count * random.nextInt(this.patternCount);
+        }
+        else {
+            // the unit samples take the tail of the array - the point k is written below the sample k+1
+            offsets = points;
+            base = count;
+            unitSamples(points, base, random);
+            x0 = -this.width / 2;
+            y0 = this.height / 2;
+            scaleX = this.width;
+            scaleY = -this.height;
+        }
+        double cx = centerBoard.getX(), cy = centerBoard.getY(), cz = centerBoard.getZ();
+        double xx = vectorX.getX(), xy = vectorX.getY(), xz = vectorX.getZ();
+        double yx = vectorY.getX(), yy = vectorY.getY(), yz = vectorY.getZ();
+        for (int k = 0; k < count; k++) {
+            double x = x0 + scaleX * offsets[base + 2 * k];
+            double y = y0 + scaleY * offsets[base + 2 * k + 1];
+            points[3 * k] = cx + x * xx + y * yx;
+            points[3 * k + 1] = cy + x * xy + y * yy;
+            points[3 * k + 2] = cz + x * xz + y * yz;
+        }
+        return points;
+    }
+
+    /**
+     * Generates the Nx*Ny sample points of the blackboard by its sampling method, as fractions of the sides of
+     * the board - x from the left side and y from the top side.
+     *
+     * @param samples The array that receives the points - 2 numbers (x,y) in [0,1) per point.
+     * @param offset The index of the first number of the points in the array.
+     * @param random The random generator of the jittering or of the scrambling.
+     */
+    private void unitSamples(double[] samples, int offset, RandomGenerator random) {
+        int count = this.Nx * this.Ny;
+        switch (this.sampling) {
+            case HALTON -> SampleSequences.halton(samples, offset, count, random);
+            case SOBOL -> SampleSequences.sobol(samples, offset, count, random);
+            case BLUE_NOISE -> SampleSequences.blueNoise(samples, offset, count, random);
+            default -> {
+                for (int i = 0, k = offset; i < this.Ny; i++) {
+                    for (int j = 0; j < this.Nx; j++, k += 2) {
+                        samples[k] = (j + random.nextDouble()) / this.Nx;
+                        samples[k + 1] = (i + 1 - random.nextDouble()) / this.Ny;
+                    }
                 }
-                points.add(centerArea);
             }
         }
-        return points;
+    }
+
+    /**
+     * Precomputes the sample patterns of the board by its current sampling method and sizes, as offsets from
+     * its center along its axes, or drops them if there are none to compute.
+     */
+    private void buildPatterns() {
+        if (this.patternCount == 0) {
+            this.patterns = null;
+            return;
+        }
+        int size = 2 * this.Nx * this.Ny;
+        double[] table = new double[size * this.patternCount];
+        RandomGenerator random = new SplittableRandom(PATTERN_SEED);
+        for (int p = 0; p < this.patternCount; p++) {
+            unitSamples(table, p * size, random);
+        }
+        for (int k = 0; k < table.length; k += 2) {
+            table[k] = (table[k] - 0.5) * this.width;
+            table[k + 1] = (0.5 - table[k + 1]) * this.height;
+        }
+        this.patterns = table;
     }
 
     /**
@@ -120,7 +326,7 @@ public class Blackboard {
         List<Point> points = new ArrayList<>();
         for (int i = 0; i < this.Ny; i++){
             for (int j = 0; j < this.Nx; j++){
-                Point centerArea = findCenter(vectorX, vectorY, j, i);
+                Point centerArea = findCenter(this.centerBoard, vectorX, vectorY, j, i);
                 points.add(centerArea);
             }
         }
@@ -130,22 +336,23 @@ public class Blackboard {
     /**
      * Calculates the center point of a given division.
      *
+     * @param centerBoard The center point of the blackboard.
      * @param vectorX The X direction vector.
      * @param vectorY The Y direction vector.
      * @param j The horizontal division index.
      * @param i The vertical division index.
      * @return The center point of the specified division.
      */
-    private Point findCenter(Vector vectorX, Vector vectorY, int j, int i){
+    private Point findCenter(Point centerBoard, Vector vectorX, Vector vectorY, int j, int i){
         double Rx = (this.width) / this.Nx;
         double Ry = (this.height) / this.Ny;
-        double Xj = ((j * Rx) - ((this.width - 1) / 2)) + (Rx / 2);
-        double Yi = ((-i * Ry) + ((this.height - 1) / 2d)) - (Ry / 2);
-        Point Pij = this.centerBoard;
-        if (Xj != 0){
+        double Xj = ((j * Rx) - (this.width / 2)) + (Rx / 2);
+        double Yi = ((-i * Ry) + (this.height / 2)) - (Ry / 2);
+        Point Pij = centerBoard;
+        if (!isZero(Xj)){
             Pij = Pij.add(vectorX.scale(Xj));
         }
-        if (Yi != 0){
+        if (!isZero(Yi)){
             Pij = Pij.add(vectorY.scale(Yi));
         }
         return Pij;
@@ -1,13 +1,21 @@
 package renderer;
 
+import geometries.RayPacket;
 import primitives.Color;
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.MissingResourceException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import static primitives.Util.isZero;
 
 /**
@@ -49,8 +57,8 @@ public class Camera implements Cloneable {
     /** The Blackboard used for rendering a pixel with a beam of rays. */
     private Blackboard blackboard;
 
-    /** The center of the Pixel used for helping rendering the current pixel with a beam of rays. */
-    private Point centerPixel;
+    /** The seed of the jittering of the beams of rays - the rendering is repeatable for a given seed. */
+    private long seed = 0;
 
     /**The division of the pixel on the X axis*/
     private int nXpixel = 1;
@@ -58,23 +66,39 @@ public class Camera implements Cloneable {
     /**The division of the pixel on the Y axis*/
     private int nYpixel = 1;
 
-    /** Pixel manager for supporting:
-     * <ul>
-     * <li>multi-threading</li>
-     * <li>debug print of progress percentage in Console window/tab</li>
-     * <ul>
-     */
-    private PixelManager pixelManager;
+    /** The method of spreading the rays of the beam of a pixel over the pixel. */
+    private Blackboard.Sampling sampling = Blackboard.Sampling.JITTERED;
+
+    /** The amount of sample patterns precomputed for the beams of rays - 0 if every pixel samples anew. */
+    private int samplePatterns = 0;
+
+    /** The shared pool of the rendering threads of the cameras that are not given an executor.
+     * It creates its daemon threads on demand and reuses the idle ones, so any number of renderings
+     * may run at once and the pool never keeps the JVM alive. */
+    private static final ExecutorService RENDER_POOL = Executors.newCachedThreadPool(new RenderThreadFactory());
 
     /** Represents the count of threads in the program. */
     private int threadsCount = 0;
 
+    /** The size of the side of the square tiles of pixels that the threads take, in pixels. */
+    private int tileSize = PixelManager.DEFAULT_TILE_SIZE;
+
+    /** The amount of primary rays that are traced together in a packet, 1 for tracing every ray alone. */
+    private int packetSize = RayPacket.MAX_SIZE;
+
     /** The interval for debug print of progress percentage in Console window/tab. */
     private double printInterval = 0;
 
     /** The depth of the recursion of the recursive function for adaptive Anti-Aliasing. */
     private int AdaptiveDepth = 0;
 
+    /** The maximum depth of the adaptive Anti-Aliasing - the lattice of a tile grows fourfold per level. */
+    private static final int MAX_ADAPTIVE_DEPTH = 4;
+
+    /** The largest difference of a color component between samples of the same color in the adaptive
+     * Anti-Aliasing - less than a level of the written image. */
+    private static final double ADAPTIVE_THRESHOLD = 1;
+
     /**
      * Constructs a new Camera instance.
      */
@@ -231,14 +255,52 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets the method of spreading the rays of the beam of a pixel over the pixel - a low-discrepancy method
+         * reaches the quality of a jittered grid with fewer rays.
+         *
+         * @param sampling The sampling method of the beams of rays.
+         * @return This `Builder` instance for method chaining.
+         * @throws IllegalArgumentException if the sampling method is null.
+         */
+        public Builder setSampling(Blackboard.Sampling sampling) {
+            if (sampling == null) {
+                throw new IllegalArgumentException("Sampling given is Illegal.");
+            }
+            this.camera.sampling = sampling;
+            return this;
+        }
+
+        /**
+         * Sets the amount of sample patterns that are precomputed once for the beams of rays, instead of
+         * spreading the rays of every pixel anew - every pixel picks one of the patterns.
+         *
+         * @param count The amount of patterns - 0 to spread the rays of every pixel anew.
+         * @return This `Builder` instance for method chaining.
+         * @throws IllegalArgumentException if the amount is negative.
+         */
+        public Builder setSamplePatterns(int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Pattern count given is Illegal.");
+            }
+            this.camera.samplePatterns = count;
+            return this;
+        }
+
         /**
          * Sets the depth of the adaptive Anti-Aliasing for the recursive function.
+         * The corners and the center of a pixel are traced first - if their colors agree, they color the pixel.
+         * Otherwise the pixel is split into 4 cells, and only the cells whose corners and center disagree are
+         * split again, down to cells of 1/2^depth of the pixel. Every cell adds the mean of its samples weighted
+         * by its area. The samples are kept in a lattice of the tile, so a sample shared by cells or by
+         * neighboring pixels is traced once.
          *
-         * @param AdaptiveDepth The depth of the adaptive Anti-Aliasing to be set for the recursive function.
+         * @param AdaptiveDepth The depth of the adaptive Anti-Aliasing to be set for the recursive function -
+         *                      0 for no adaptive Anti-Aliasing, at most 4.
          * @return This Builder object for method chaining.
          */
         public Builder setAntiAliasing(int AdaptiveDepth) {
-            if (AdaptiveDepth < 0){
+            if (AdaptiveDepth < 0 || AdaptiveDepth > MAX_ADAPTIVE_DEPTH){
                 throw new IllegalArgumentException("Adaptive depth given is Illegal.");
             }
             this.camera.AdaptiveDepth = AdaptiveDepth;
@@ -259,6 +321,51 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets the size of the tiles of pixels that the rendering threads take one at a time.
+         * Larger tiles keep the coherent primary rays of a thread together, smaller tiles balance
+         * the load between the threads better at the end of the rendering.
+         *
+         * @param tileSize The size of the side of a square tile, in pixels.
+         * @return The updated Builder instance.
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize < 1){
+                throw new IllegalArgumentException("Tile size given is Illegal.");
+            }
+            this.camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Sets the amount of primary rays that are traced together in a packet - the rays of a block of
+         * neighboring pixels (2x2, 4x2 or 4x4 pixels) share the traversal of the scene.
+         * Packets are traced only when every pixel is traced by a single ray, without Anti-Aliasing.
+         *
+         * @param packetSize The amount of rays in a packet: 4, 8 or 16, or 1 for tracing every ray alone.
+         * @return The updated Builder instance.
+         */
+        public Builder setRayPacketSize(int packetSize) {
+            if (packetSize != 1 && packetSize != 4 && packetSize != 8 && packetSize != 16){
+                throw new IllegalArgumentException("Ray packet size given is Illegal.");
+            }
+            this.camera.packetSize = packetSize;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the jittering of the beams of rays.
+         * Every pixel draws its random numbers from a generator seeded by this seed and by the pixel,
+         * so a rendering gives the same image for the same seed with any number of threads.
+         *
+         * @param seed The seed of the jittering.
+         * @return The updated Builder instance.
+         */
+        public Builder setSeed(long seed) {
+            this.camera.seed = seed;
+            return this;
+        }
+
         /**
          * Sets the print interval for debug information in the camera.
          *
@@ -318,7 +425,8 @@ public class Camera implements Cloneable {
                         this.camera.getWidth() / this.camera.getImageWriter().getNx(),
                         this.camera.getHeight() / this.camera.getImageWriter().getNy(),
                         this.camera.nXpixel,
-                        this.camera.nYpixel);
+                        this.camera.nYpixel).setSampling(this.camera.sampling)
+                        .setPatterns(this.camera.samplePatterns);
             }
             else {
                 this.camera.blackboard = new Blackboard();
@@ -334,38 +442,129 @@ public class Camera implements Cloneable {
 
     /**
      * This function renders image's pixel color map from the scene
-     * included in the ray tracer object
+     * included in the ray tracer object.<br/>
+     * Without multithreading the image is rendered by the calling thread,
+     * otherwise by the shared pool of rendering threads, and the calling thread waits for the rendering.
      *
      * @return the camera object itself
      */
     public Camera renderImage(){
+        if (this.threadsCount == 0) {
+            final int nX = imageWriter.getNx();
+            final int nY = imageWriter.getNy();
+            this.renderTiles(new PixelManager(nY, nX, this.tileSize, this.printInterval), nX, nY);
+            return this;
+        }
+        try {
+            return this.renderImage(RENDER_POOL).join();
+        } catch (CompletionException e) {
+            // rethrow the failure of the rendering thread as if it happened in the calling thread
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * This function renders image's pixel color map from the scene included in the ray tracer object
+     * by the threads of the given executor, without waiting for the rendering.<br/>
+     * The camera submits one task per rendering thread (one per available processor if the camera has
+     * no multithreading), and the tasks take the tiles of the image until there are no more tiles.
+     * Every rendering has its own state, so a camera may render any number of times, even concurrently.<br/>
+     * If a task fails or the returned future is cancelled, the remaining tasks stop after their current tiles.
+     *
+     * @param executor The executor that runs the rendering tasks - e.g. a thread pool,
+     *                 a {@link java.util.concurrent.ForkJoinPool} or a virtual thread per task executor.
+     * @return A future of the camera object itself, completed when the whole image has been rendered.
+     */
+    public CompletableFuture<Camera> renderImage(Executor executor){
         final int nX = imageWriter.getNx();
         final int nY = imageWriter.getNy();
-        pixelManager = new PixelManager(nY, nX, this.printInterval);
-        if (this.threadsCount == 0) {
-            for (int i = 0; i < this.imageWriter.getNy(); i++) {
-                for (int j = 0; j < this.imageWriter.getNx(); j++) {
-                    this.castRay(this.imageWriter.getNx(), this.imageWriter.getNy(), j, i);
+        final PixelManager pixelManager = new PixelManager(nY, nX, this.tileSize, this.printInterval);
+        int count = this.threadsCount > 0 ? this.threadsCount : Runtime.getRuntime().availableProcessors();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[count];
+        for (int t = 0; t < count; t++) {
+            tasks[t] = CompletableFuture.runAsync(() -> this.renderTiles(pixelManager, nX, nY), executor);
+            tasks[t].whenComplete((ignore, e) -> { if (e != null) pixelManager.cancel(); });
+        }
+        CompletableFuture<Camera> rendering = CompletableFuture.allOf(tasks).thenApply(ignore -> this);
+        rendering.whenComplete((ignore, e) -> { if (e != null) pixelManager.cancel(); });
+        return rendering;
+    }
+
+    /**
+     * Renders tiles of pixels until there are no more tiles - the code of every rendering thread.
+     * The state of the sampling of a pixel belongs to the thread, so the threads share nothing but
+     * the immutable camera settings, the scene and the pixel manager of the rendering.
+     *
+     * @param pixelManager The pixel manager of the rendering.
+     * @param nX The number of pixels in the horizontal direction.
+     * @param nY The number of pixels in the vertical direction.
+     */
+    private void renderTiles(PixelManager pixelManager, int nX, int nY) {
+        Random random = new Random(); // the random generator of the thread, reseeded for every pixel
+        boolean sampling = this.AdaptiveDepth > 0 || (this.nXpixel > 1 && this.nYpixel > 1);
+        RayPacket packet = sampling || this.packetSize == 1 ? null : new RayPacket(this.packetSize);
+        Color[] colors = packet == null ? null : new Color[this.packetSize];
+        double[] samples = sampling ? new double[3 * this.nXpixel * this.nYpixel] : null;
+        SampleLattice lattice = this.AdaptiveDepth > 0 ? new SampleLattice(1 << (this.AdaptiveDepth + 1)) : null;
+        PixelManager.Tile tile; // current tile
+        // allocate a tile in loop until there are no more tiles
+        while ((tile = pixelManager.nextTile()) != null) {
+            if (packet != null) {
+                this.castPackets(tile, nX, nY, packet, colors);
+                pixelManager.tileDone(tile);
+                continue;
+            }
+            if (lattice != null) {
+                lattice.begin(tile);
+            }
+            for (int i = tile.row(); i < tile.row() + tile.height(); i++) {
+                for (int j = tile.col(); j < tile.col() + tile.width(); j++) {
+                    // cast ray through pixel (and color it – inside castRay)
+                    if (lattice != null) {
+                        this.castAdaptive(nX, nY, j, i, lattice);
+                    }
+                    else {
+                        this.castRay(nX, nY, j, i, random, samples);
+                    }
                 }
             }
+            pixelManager.tileDone(tile);
         }
-        else { // see further... option 2
-            var threads = new LinkedList<Thread>(); // list of threads
-            while (this.threadsCount-- > 0) // add appropriate number of threads
-                threads.add(new Thread(() -> { // add a thread with its code
-                    PixelManager.Pixel pixel; // current pixel(row,col)
-                    // allocate pixel(row,col) in loop until there are no more pixels
-                    while ((pixel = pixelManager.nextPixel()) != null)
-                        // cast ray through pixel (and color it – inside castRay)
-                        castRay(nX, nY, pixel.col(), pixel.row());
-                }));
-            // start all the threads
-            for (var thread : threads) thread.start();
-            // wait until all the threads have finished
-            try { for (var thread : threads) thread.join(); }
-            catch (InterruptedException ignore) {}
+    }
+
+    /**
+     * Casts the primary rays of a tile in packets of blocks of neighboring pixels, and colors the pixels.
+     * The blocks at the edges of the tile are clipped, so their packets are partial.
+     *
+     * @param tile The tile of pixels.
+     * @param nX The number of pixels in the horizontal direction.
+     * @param nY The number of pixels in the vertical direction.
+     * @param packet The packet of the rendering thread.
+     * @param colors The array of the colors of the packet of the rendering thread.
+     */
+    private void castPackets(PixelManager.Tile tile, int nX, int nY, RayPacket packet, Color[] colors) {
+        int blockWidth = this.packetSize == 4 ? 2 : 4;
+        int blockHeight = this.packetSize / blockWidth;
+        int endRow = tile.row() + tile.height(), endCol = tile.col() + tile.width();
+        for (int row = tile.row(); row < endRow; row += blockHeight) {
+            for (int col = tile.col(); col < endCol; col += blockWidth) {
+                packet.clear();
+                for (int i = row; i < Math.min(row + blockHeight, endRow); i++) {
+                    for (int j = col; j < Math.min(col + blockWidth, endCol); j++) {
+                        packet.add(this.constructRay(nX, nY, j, i));
+                    }
+                }
+                this.rayTracer.traceRays(packet, colors);
+                int index = 0;
+                for (int i = row; i < Math.min(row + blockHeight, endRow); i++) {
+                    for (int j = col; j < Math.min(col + blockWidth, endCol); j++) {
+                        this.imageWriter.writePixel(j, i, colors[index++]);
+                    }
+                }
+            }
         }
-        return this;
     }
 
     /**
@@ -375,58 +574,112 @@ public class Camera implements Cloneable {
      * @param nY The number of pixels in the vertical direction.
      * @param j The horizontal pixel index.
      * @param i The vertical pixel index.
+     * @param random The random generator of the rendering thread.
+     * @param samples The array of the sample points of the beam of a pixel of the rendering thread.
      */
-    private void castRay(int nX, int nY, int j, int i) {
+    private void castRay(int nX, int nY, int j, int i, Random random, double[] samples) {
         Color color = Color.BLACK;
-        Ray ray = this.constructRay(nX, nY, j, i);
-        this.blackboard.setCenterPoint(this.centerPixel);
-        List<Point> points = new ArrayList<>();
-        if (this.AdaptiveDepth > 0 || (this.nXpixel > 1 && this.nYpixel > 1)){
-            if (this.AdaptiveDepth > 0){
-                points = this.AdaptiveAntiAliasing(this.centerPixel, this.width / this.getImageWriter().getNx(),
-                        this.height / this.getImageWriter().getNy(),
-                        points, this.AdaptiveDepth);
-            }
-            else {
-                points = this.blackboard.jittered(this.vRight, this.vUp);
-            }
-            for (Point point : points){
-                color = color.add(this.rayTracer.traceRay(new Ray(this.p0, point.subtract(this.p0))));
+        Point centerPixel = this.pixelCenter(nX, nY, j, i);
+        if (this.nXpixel > 1 && this.nYpixel > 1){
+            random.setSeed(pixelSeed(this.seed, (long) i * nX + j));
+            this.blackboard.samples(centerPixel, this.vRight, this.vUp, random, samples);
+            int count = this.nXpixel * this.nYpixel;
+            double x = this.p0.getX(), y = this.p0.getY(), z = this.p0.getZ();
+            for (int k = 0; k < 3 * count; k += 3){
+                color = color.add(this.rayTracer.traceRay(new Ray(this.p0,
+                        new Vector(samples[k] - x, samples[k + 1] - y, samples[k + 2] - z))));
             }
-            color = color.reduce(points.size());
+            color = color.reduce(count);
         }
         else {
-            color = this.rayTracer.traceRay(ray);
+            color = this.rayTracer.traceRay(new Ray(this.p0, centerPixel.subtract(this.p0)));
         }
         this.imageWriter.writePixel(j, i, color);
-        pixelManager.pixelDone();
     }
 
     /**
-     * Performs adaptive Anti-Aliasing for the camera.
+     * Colors a pixel by the adaptive Anti-Aliasing.
      *
-     * @param centerBoard   The center point for the anti-aliasing grid.
-     * @param w             The width of the anti-aliasing grid.
-     * @param h             The height of the anti-aliasing grid.
-     * @param points        The list of points to perform anti-aliasing on.
-     * @param AdaptiveDepth The depth of adaptive anti-aliasing.
-     * @return The list of points after performing adaptive anti-aliasing.
+     * @param nX The number of pixels in the horizontal direction.
+     * @param nY The number of pixels in the vertical direction.
+     * @param j The horizontal pixel index.
+     * @param i The vertical pixel index.
+     * @param lattice The lattice of the samples of the current tile of the rendering thread.
      */
-    private List<Point> AdaptiveAntiAliasing(Point centerBoard, double w, double h, List<Point> points, int AdaptiveDepth) {
-        List<Point> tempPoints = new ArrayList<>();
-        Blackboard tempBoard = new Blackboard(w, h, 2, 2);
-        tempBoard.setCenterPoint(centerBoard);
-        tempPoints = tempBoard.grid(this.vRight, this.vUp);
-        if (AdaptiveDepth == 0) {
-            return tempPoints;
-        }
-        Color midColor = this.rayTracer.traceRay(new Ray(this.p0, centerBoard.subtract(this.p0)));
-        for (int i = 0; i < 4; i++) {
-            if (!this.rayTracer.traceRay(new Ray(this.p0, tempPoints.get(i).subtract(this.p0))).equals(midColor)) {
-                points.addAll(this.AdaptiveAntiAliasing(tempPoints.get(i), w / 2, h / 2, points, AdaptiveDepth - 1));
-            }
+    private void castAdaptive(int nX, int nY, int j, int i, SampleLattice lattice) {
+        int step = lattice.step;
+        this.imageWriter.writePixel(j, i, this.AdaptiveAntiAliasing(nX, nY, lattice, j * step, i * step, step, 1));
+    }
+
+    /**
+     * Performs adaptive Anti-Aliasing of a cell of a pixel - samples its corners and its center,
+     * and splits it into 4 cells if their colors disagree and it is larger than the finest cells.
+     *
+     * @param nX The number of pixels in the horizontal direction.
+     * @param nY The number of pixels in the vertical direction.
+     * @param lattice The lattice of the samples of the current tile.
+     * @param a The column of the top left corner of the cell in the lattice of the image.
+     * @param b The row of the top left corner of the cell in the lattice of the image.
+     * @param size The side of the cell in lattice steps - at least 2.
+     * @param area The fraction of the pixel that the cell covers.
+     * @return The color of the cell, weighted by its area.
+     */
+    private Color AdaptiveAntiAliasing(int nX, int nY, SampleLattice lattice, int a, int b, int size, double area) {
+        int half = size / 2;
+        Color center = this.sample(nX, nY, lattice, a + half, b + half);
+        Color topLeft = this.sample(nX, nY, lattice, a, b);
+        Color topRight = this.sample(nX, nY, lattice, a + size, b);
+        Color bottomLeft = this.sample(nX, nY, lattice, a, b + size);
+        Color bottomRight = this.sample(nX, nY, lattice, a + size, b + size);
+        if (size == 2 || (sameColor(center, topLeft) && sameColor(center, topRight)
+                && sameColor(center, bottomLeft) && sameColor(center, bottomRight))) {
+            return center.add(topLeft, topRight, bottomLeft, bottomRight).scale(area / 5);
+        }
+        return this.AdaptiveAntiAliasing(nX, nY, lattice, a, b, half, area / 4)
+                .add(this.AdaptiveAntiAliasing(nX, nY, lattice, a + half, b, half, area / 4),
+                        this.AdaptiveAntiAliasing(nX, nY, lattice, a, b + half, half, area / 4),
+                        this.AdaptiveAntiAliasing(nX, nY, lattice, a + half, b + half, half, area / 4));
+    }
+
+    /**
+     * Gets the color of a point of the lattice of the image, tracing its ray only the first time in the tile.
+     *
+     * @param nX The number of pixels in the horizontal direction.
+     * @param nY The number of pixels in the vertical direction.
+     * @param lattice The lattice of the samples of the current tile.
+     * @param a The column of the point in the lattice of the image.
+     * @param b The row of the point in the lattice of the image.
+     * @return The color of the point.
+     */
+    private Color sample(int nX, int nY, SampleLattice lattice, int a, int b) {
+        int index = lattice.index(a, b);
+        if (lattice.stamps[index] == lattice.stamp) {
+            return lattice.colors[index];
         }
-        return tempPoints;
+        double x = ((double) a / lattice.step - nX / 2d) * (this.width / nX);
+        double y = (nY / 2d - (double) b / lattice.step) * (this.height / nY);
+        Vector direction = new Vector(
+                this.vTo.getX() * this.distance + x * this.vRight.getX() + y * this.vUp.getX(),
+                this.vTo.getY() * this.distance + x * this.vRight.getY() + y * this.vUp.getY(),
+                this.vTo.getZ() * this.distance + x * this.vRight.getZ() + y * this.vUp.getZ());
+        Color color = this.rayTracer.traceRay(new Ray(this.p0, direction));
+        lattice.colors[index] = color;
+        lattice.stamps[index] = lattice.stamp;
+        return color;
+    }
+
+    /**
+     * Checks whether two samples of the adaptive Anti-Aliasing have the same color.
+     *
+     * @param first The first color.
+     * @param second The second color.
+     * @return True if no component of the colors differs by the threshold or more.
+     */
+    private static boolean sameColor(Color first, Color second) {
+        Double3 c1 = first.getRgb(), c2 = second.getRgb();
+        return Math.abs(c1.getD1() - c2.getD1()) < ADAPTIVE_THRESHOLD
+                && Math.abs(c1.getD2() - c2.getD2()) < ADAPTIVE_THRESHOLD
+                && Math.abs(c1.getD3() - c2.getD3()) < ADAPTIVE_THRESHOLD;
     }
 
     /**
@@ -439,6 +692,20 @@ public class Camera implements Cloneable {
      * @return A ray corresponding to the specified pixel coordinates.
      */
     public Ray constructRay(int nX, int nY, int j, int i){
+        return new Ray(p0, this.pixelCenter(nX, nY, j, i).subtract(p0));
+    }
+
+    /**
+     * Computes the center point of the specified pixel on the virtual screen.
+     * The method has no side effects, so that any number of threads may call it concurrently.
+     *
+     * @param nX The number of pixels in the horizontal direction.
+     * @param nY The number of pixels in the vertical direction.
+     * @param j The horizontal pixel index.
+     * @param i The vertical pixel index.
+     * @return The center point of the pixel.
+     */
+    private Point pixelCenter(int nX, int nY, int j, int i){
         Point PC = p0.add(vTo.scale(distance));
 
         double Rx = width/nX;
@@ -454,8 +721,23 @@ public class Camera implements Cloneable {
         if (!isZero(Yi)){
             Pij = Pij.add(vUp.scale(Yi));
         }
-        this.centerPixel = Pij;
-        return new Ray(p0, Pij.subtract(p0));
+        return Pij;
+    }
+
+    /**
+     * Derives the seed of the random generator of a pixel from the seed of the rendering.
+     * The bits of the pixel index are mixed (by the finalizer of SplitMix64), so that neighboring pixels
+     * get uncorrelated random sequences.
+     *
+     * @param seed The seed of the rendering.
+     * @param pixel The index of the pixel in the image.
+     * @return The seed of the pixel.
+     */
+    private static long pixelSeed(long seed, long pixel) {
+        long z = seed + pixel * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -481,4 +763,108 @@ public class Camera implements Cloneable {
     public void writeToImage(){
         this.imageWriter.writeToImage();
     }
-}
\ No newline at end of file
+
+    /**
+     * The factory of the threads of the shared rendering pool - named daemon threads.
+     */
+    private static class RenderThreadFactory implements ThreadFactory {
+
+        /** The number of the next thread. */
+        private final AtomicInteger number = new AtomicInteger();
+
+        /**
+         * Creates a daemon rendering thread.
+         *
+         * @param task The task of the thread.
+         * @return The thread.
+         */
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "camera-render-" + this.number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * The lattice of the samples of the adaptive Anti-Aliasing of a tile, kept by a rendering thread for all
+     * its tiles. The lattice has a fixed amount of steps per pixel, and a sample belongs to the current tile if
+     * its stamp is the current one, so the lattice is never cleared. The pixels of a tile are sampled row by row
+     * and share samples only with their neighbors, so the lattice keeps only the lattice rows of a row of pixels,
+     * in a ring - its size grows with the width of the tiles and not with their area.
+     */
+    private static class SampleLattice {
+
+        /** The amount of lattice steps along a side of a pixel. */
+        private final int step;
+
+        /** The amount of lattice rows in the ring - the rows of a row of pixels, both of its edges included. */
+        private final int rows;
+
+        /** The row of the lattice of the image that every row of the ring holds, -1 for none. */
+        private final int[] rowTags;
+
+        /** The amount of lattice points along a row of the lattice. */
+        private int columns = 0;
+
+        /** The colors of the samples, row by row. */
+        private Color[] colors = new Color[0];
+
+        /** The stamps of the samples - the stamp of the tile that traced them. */
+        private int[] stamps = new int[0];
+
+        /** The stamp of the current tile. */
+        private int stamp = 0;
+
+        /** The column of the first lattice point of the current tile in the lattice of the image. */
+        private int firstColumn;
+
+        /**
+         * Constructs the lattice of a rendering thread.
+         *
+         * @param step The amount of lattice steps along a side of a pixel.
+         */
+        SampleLattice(int step) {
+            this.step = step;
+            this.rows = step + 1;
+            this.rowTags = new int[this.rows];
+            Arrays.fill(this.rowTags, -1);
+        }
+
+        /**
+         * Starts the sampling of a tile, and grows the lattice if the tile is wider than the former ones.
+         *
+         * @param tile The tile.
+         */
+        void begin(PixelManager.Tile tile) {
+            int columns = tile.width() * this.step + 1;
+            if (columns > this.columns) {
+                this.columns = columns;
+                this.colors = new Color[this.rows * columns];
+                this.stamps = new int[this.rows * columns];
+            }
+            if (++this.stamp == 0) {
+                Arrays.fill(this.stamps, 0);
+                this.stamp = 1;
+            }
+            this.firstColumn = tile.col() * this.step;
+        }
+
+        /**
+         * Gets the index of a point of the lattice of the image in the lattice of the tile. A lattice row that
+         * takes the place of another one in the ring drops the samples of the former row.
+         *
+         * @param a The column of the point in the lattice of the image.
+         * @param b The row of the point in the lattice of the image.
+         * @return The index of the point.
+         */
+        int index(int a, int b) {
+            int slot = b % this.rows;
+            if (this.rowTags[slot] != b) {
+                this.rowTags[slot] = b;
+                Arrays.fill(this.stamps, slot * this.columns, (slot + 1) * this.columns, 0);
+            }
+            return slot * this.columns + (a - this.firstColumn);
+        }
+    }
+}
@@ -75,4 +75,13 @@ public class ImageWriter {
    public void writePixel(int xIndex, int yIndex, Color color) {
       image.setRGB(xIndex, yIndex, color.getColor().getRGB());
    }
+
+   /** The function readPixel reads the color of a specific pixel from pixel color
+    * matrix
+    * @param  xIndex X axis index of the pixel
+    * @param  yIndex Y axis index of the pixel
+    * @return        the RGB value of the pixel */
+   int readPixel(int xIndex, int yIndex) {
+      return image.getRGB(xIndex, yIndex);
+   }
 }
\ No newline at end of file
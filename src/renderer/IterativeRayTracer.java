@@ -0,0 +1,211 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+import scene.Scene;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The IterativeRayTracer class computes the same colors as the SimpleRayTracer without recursion.
+ * The pending reflected and refracted rays are kept in an explicit work stack together with their accumulated
+ * attenuation coefficient 'k', and the color of every intersection point is added to the color of the pixel
+ * weighted by its 'k'.<br/>
+ * The tree of the secondary rays is cut by the maximum level and by the minimum 'k' of a ray. Optionally,
+ * a ray whose 'k' is below the Russian roulette threshold survives with a probability proportional to its 'k',
+ * and its 'k' is divided by that probability, so deep specular scenes cost predictably without a biased color.<br/>
+ * The work stack of a thread is reused by all its rays, so the tracer may be shared by the rendering threads.
+ */
+public class IterativeRayTracer extends SimpleRayTracer {
+
+    /** The maximum level of the tree of the secondary rays - the primary ray is at the first level. */
+    private int maxLevel = MAX_CALC_COLOR_LEVEL;
+
+    /** The minimum coefficient 'k' of a secondary ray - rays of lower 'k' are not traced. */
+    private double minK = MIN_CALC_COLOR_K;
+
+    /** The coefficient 'k' below which a secondary ray plays the Russian roulette, 0 for no Russian roulette. */
+    private double rouletteK = 0;
+
+    /** The work stacks of the threads that trace rays. */
+    private final ThreadLocal<WorkStack> stacks = ThreadLocal.withInitial(() -> new WorkStack(this.maxLevel + 1));
+
+    /**
+     * Constructs an IterativeRayTracer object with the specified scene.
+     *
+     * @param scene The Scene object representing the 3D scene to be rendered.
+     */
+    public IterativeRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    /**
+     * Sets the maximum level of the tree of the secondary rays.
+     *
+     * @param maxLevel The maximum level - 1 traces the primary rays only.
+     * @return This IterativeRayTracer object for method chaining.
+     */
+    public IterativeRayTracer setMaxLevel(int maxLevel) {
+        if (maxLevel < 1) {
+            throw new IllegalArgumentException("Maximum level given is Illegal.");
+        }
+        this.maxLevel = maxLevel;
+        return this;
+    }
+
+    /**
+     * Sets the minimum coefficient 'k' of a traced secondary ray.
+     *
+     * @param minK The minimum coefficient 'k'.
+     * @return This IterativeRayTracer object for method chaining.
+     */
+    public IterativeRayTracer setMinK(double minK) {
+        if (minK < 0 || minK >= 1) {
+            throw new IllegalArgumentException("Minimum k given is Illegal.");
+        }
+        this.minK = minK;
+        return this;
+    }
+
+    /**
+     * Sets the threshold of the Russian roulette of the secondary rays.
+     *
+     * @param rouletteK The coefficient 'k' below which a secondary ray plays the Russian roulette,
+     *                  0 for no Russian roulette.
+     * @return This IterativeRayTracer object for method chaining.
+     */
+    public IterativeRayTracer setRussianRoulette(double rouletteK) {
+        if (rouletteK < 0 || rouletteK > 1) {
+            throw new IllegalArgumentException("Russian roulette threshold given is Illegal.");
+        }
+        this.rouletteK = rouletteK;
+        return this;
+    }
+
+    /**
+     * Calculates the final color at a given intersection point, including the colors seen by all its
+     * secondary rays, and the ambient light contribution.
+     *
+     * @param closestPoint The GeoPoint representing the closest intersection point.
+     * @param ray The incident ray.
+     * @return The final color at the intersection point.
+     */
+    @Override
+    protected Color calcColor(GeoPoint closestPoint, Ray ray) {
+        WorkStack stack = this.stacks.get();
+        Color color = scene.ambientLight.getIntensity()
+                .add(this.calcColor(closestPoint, ray, this.maxLevel, INITIAL_K, stack));
+        while (stack.size > 0) {
+            int level = stack.levels[--stack.size];
+            Double3 k = stack.ks[stack.size];
+            Ray secondary = stack.rays[stack.size];
+            stack.rays[stack.size] = null;
+            GeoPoint geoPoint = findClosestIntersection(secondary);
+            color = color.add(geoPoint == null ? scene.background.scale(k)
+                    : this.calcColor(geoPoint, secondary, level, k, stack));
+        }
+        return color;
+    }
+
+    /**
+     * Calculates the local effects at an intersection point, weighted by the coefficient 'k' of the ray,
+     * and pushes the secondary rays of the point onto the work stack.
+     *
+     * @param geoPoint The GeoPoint representing the intersection point.
+     * @param ray The incident ray.
+     * @param level The level of the ray in the tree of the secondary rays.
+     * @param k The coefficient 'k' of the ray.
+     * @param stack The work stack of the thread.
+     * @return The weighted color of the local effects at the intersection point.
+     */
+    private Color calcColor(GeoPoint geoPoint, Ray ray, int level, Double3 k, WorkStack stack) {
+        Vector n = geoPoint.getNormal();
+        if (level > 1) {
+            Material material = geoPoint.getMaterial();
+            this.pushSecondary(geoPoint, ray, n, false, material.kT, level, k, stack);
+            this.pushSecondary(geoPoint, ray, n, true, material.kR, level, k, stack);
+        }
+        Color color = calcLocalEffects(geoPoint, ray, n, k);
+        return k == INITIAL_K ? color : color.scale(k);
+    }
+
+    /**
+     * Pushes the reflected or the refracted ray of an intersection point onto the work stack,
+     * unless its contribution is negligible or it loses the Russian roulette.
+     * The secondary ray is constructed only if it is pushed.
+     *
+     * @param gp The GeoPoint representing the intersection point.
+     * @param ray The incident ray.
+     * @param n The surface normal vector at the intersection point.
+     * @param reflected True for the reflected ray, false for the refracted ray.
+     * @param kx The coefficient vector associated with the reflection (kR) or refraction (kT).
+     * @param level The level of the incident ray in the tree of the secondary rays.
+     * @param k The coefficient 'k' of the incident ray.
+     * @param stack The work stack of the thread.
+     */
+    private void pushSecondary(GeoPoint gp, Ray ray, Vector n, boolean reflected, Double3 kx, int level, Double3 k,
+                               WorkStack stack) {
+        Double3 kkx = kx.product(k);
+        if (kkx.lowerThan(this.minK)) {
+            return;
+        }
+        if (kkx.lowerThan(this.rouletteK)) {
+            double survival = kkx.max() / this.rouletteK;
+            if (ThreadLocalRandom.current().nextDouble() >= survival) {
+                return;
+            }
+            kkx = kkx.reduce(survival);
+        }
+        stack.push(reflected ? constructReflectedRay(gp, ray, n) : constructRefractedRay(gp, ray, n), kkx, level - 1);
+    }
+
+    /**
+     * The work stack of the pending secondary rays of a thread.
+     * The stack is depth first, so it holds at most one pending ray per level besides the rays of the last
+     * intersection point, and it grows only if the maximum level grows after its creation.
+     */
+    private static class WorkStack {
+
+        /** The pending rays. */
+        private Ray[] rays;
+
+        /** The coefficients 'k' of the pending rays. */
+        private Double3[] ks;
+
+        /** The levels of the pending rays. */
+        private int[] levels;
+
+        /** The amount of the pending rays. */
+        private int size = 0;
+
+        /**
+         * Constructs an empty work stack.
+         *
+         * @param capacity The initial capacity of the stack.
+         */
+        WorkStack(int capacity) {
+            this.rays = new Ray[capacity];
+            this.ks = new Double3[capacity];
+            this.levels = new int[capacity];
+        }
+
+        /**
+         * Pushes a ray onto the stack.
+         *
+         * @param ray The ray.
+         * @param k The coefficient 'k' of the ray.
+         * @param level The level of the ray.
+         */
+        void push(Ray ray, Double3 k, int level) {
+            if (this.size == this.rays.length) {
+                int capacity = 2 * this.size;
+                this.rays = Arrays.copyOf(this.rays, capacity);
+                this.ks = Arrays.copyOf(this.ks, capacity);
+                this.levels = Arrays.copyOf(this.levels, capacity);
+            }
+            this.rays[this.size] = ray;
+            this.ks[this.size] = k;
+            this.levels[this.size++] = level;
+        }
+    }
+}
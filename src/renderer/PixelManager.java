@@ -1,97 +1,111 @@
 package renderer;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
 /** PixelManager is a helper class. It is used for multi-threading in the renderer and
  * for follow up its progress.<br/>
- * A Camera uses one pixel manager object and several Pixel objects - one in each thread.
+ * The image is divided into rectangular tiles of pixels, which the threads take one at a time -
+ * neighboring pixels are rendered by the same thread, which keeps its geometry data hot in the cache,
+ * and a thread that finishes its tile early just takes the next one.<br/>
+ * Every rendering of a Camera uses its own pixel manager object, shared by all its threads without any lock.
  * @author Dan Zilberstein
  */
 class PixelManager {
-    /** Immutable class for object containing allocated pixel (with its row and column numbers) */
-    record Pixel(int col, int row) {}
+    /** Immutable class for object containing allocated tile of pixels
+     * @param col    the column of the first pixel of the tile
+     * @param row    the row of the first pixel of the tile
+     * @param width  the amount of columns of the tile
+     * @param height the amount of rows of the tile
+     */
+    record Tile(int col, int row, int width, int height) {}
+
+    /** Default size of the side of a tile, in pixels */
+    static final int DEFAULT_TILE_SIZE = 16;
 
     /** Maximum rows of pixels */
-    private int maxRows = 0;
+    private final int maxRows;
 
     /** Maximum columns of pixels */
-    private int maxCols = 0;
+    private final int maxCols;
 
-    /** Total amount of pixels in the generated image */
-    private long totalPixels = 0l;
+    /** Size of the side of a tile, in pixels */
+    private final int tileSize;
 
-    /** Currently processed row of pixels */
-    private volatile int cRow = 0;
+    /** Amount of tiles in a row of tiles */
+    private final int tilesInRow;
 
-    /** Currently processed column of pixels */
-    private volatile int cCol = -1;
+    /** Total amount of tiles in the generated image */
+    private final int totalTiles;
 
-    /** Amount of pixels that have been processed */
-    private volatile long pixels = 0l;
+    /** Total amount of pixels in the generated image */
+    private final long totalPixels;
+
+    /** Index of the next tile to be allocated - the only point of contention between the threads */
+    private final AtomicInteger nextTile = new AtomicInteger();
 
-    /** Last printed progress update percentage */
-    private volatile int lastPrinted = 0;
+    /** Amount of pixels that have been processed, striped between the threads */
+    private final LongAdder pixels = new LongAdder();
+
+    /** Last printed progress update (in thousandths) */
+    private final AtomicInteger lastPrinted = new AtomicInteger();
 
     /** Flag of debug printing of progress percentage */
-    private boolean print = false;
+    private final boolean print;
 
-    /** Progress percentage printing interval */
-    private long printInterval = 100l;
+    /** Progress percentage printing interval (in thousandths) */
+    private final long printInterval;
 
     /** Printing format */
     private static final String PRINT_FORMAT  = "%5.1f%%\r";
 
-    /** Mutual exclusion object for synchronizing next pixel allocation between threads */
-    private Object mutexNext = new Object();
-
-    /** Mutual exclusion object for printing progress percentage in console window by different threads */
-    private Object mutexPixels = new Object();
-
     /** Initialize pixel manager data for multi-threading
      * @param maxRows  the amount of pixel rows
      * @param maxCols  the amount of pixel columns
+     * @param tileSize the size of the side of a tile, in pixels
      * @param interval print time interval in seconds, 0 if printing is not required
      */
-    PixelManager(int maxRows, int maxCols, double interval) {
+    PixelManager(int maxRows, int maxCols, int tileSize, double interval) {
         this.maxRows  = maxRows;
         this.maxCols  = maxCols;
+        this.tileSize = tileSize;
+        tilesInRow = (maxCols + tileSize - 1) / tileSize;
+        totalTiles = tilesInRow * ((maxRows + tileSize - 1) / tileSize);
         totalPixels = (long) maxRows * maxCols;
         printInterval = (int) (interval * 10);
         if (print = printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
     }
 
-    /** Function for thread-safe manipulating of main follow up Pixel object - this
-     * function is critical section for all the threads, and the pixel manager data
-     * is the shared data of this critical section.<br/>
-     * The function provides next available pixel number each call.
-     * @return true if next pixel is allocated, false if there are no more pixels
+    /** Function for thread-safe allocation of the next tile - a single atomic increment,
+     * so the threads never wait for each other.<br/>
+     * The tiles at the right and bottom edges of the image are clipped to the image.
+     * @return the next tile, or null if there are no more tiles
+     */
+    Tile nextTile() {
+        int index = nextTile.getAndIncrement();
+        if (index >= totalTiles) return null;
+        int col = (index % tilesInRow) * tileSize;
+        int row = (index / tilesInRow) * tileSize;
+        return new Tile(col, row, Math.min(tileSize, maxCols - col), Math.min(tileSize, maxRows - row));
+    }
+
+    /** Stops the allocation of tiles - the threads finish their current tiles and get no more tiles.
+     * Used when a rendering fails or is cancelled.
+     */
+    void cancel() {
+        nextTile.set(totalTiles);
+    }
+
+    /** Finish tile processing by updating and printing of progress percentage
+     * @param tile the processed tile
      */
-     Pixel nextPixel() {
-         synchronized (mutexNext) {
-             if (cRow == maxRows) return null;
-             ++cCol;
-             if (cCol < maxCols)
-                 return new Pixel(cRow, cCol);
-             cCol = 0;
-             ++cRow;
-             if (cRow < maxRows)
-                 return new Pixel(cRow, cCol);
-         }
-         return null;
-     }
-
-    /** Finish pixel processing by updating and printing of progress percentage */
-    void pixelDone() {
-        boolean flag = false;
-        int percentage = 0;
-        synchronized (mutexPixels) {
-            ++pixels;
-            if (print) {
-                percentage = (int) (1000l * pixels / totalPixels);
-                if (percentage - lastPrinted >= printInterval) {
-                    lastPrinted = percentage;
-                    flag = true;
-                }
-            }
-            if (flag) System.out.printf(PRINT_FORMAT, percentage / 10d);
-        }
+    void tileDone(Tile tile) {
+        pixels.add((long) tile.width() * tile.height());
+        if (!print) return;
+        int percentage = (int) (1000l * pixels.sum() / totalPixels);
+        int last = lastPrinted.get();
+        // only the thread that advances the last printed value prints it
+        if (percentage - last >= printInterval && lastPrinted.compareAndSet(last, percentage))
+            System.out.printf(PRINT_FORMAT, percentage / 10d);
     }
-}
\ No newline at end of file
+}
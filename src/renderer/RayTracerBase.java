@@ -1,5 +1,6 @@
 package renderer;
 
+import geometries.RayPacket;
 import primitives.Color;
 import primitives.Ray;
 import scene.Scene;
@@ -31,4 +32,18 @@ public abstract class RayTracerBase {
      * @return The Color representing the result of tracing the given ray.
      */
     abstract public Color traceRay(Ray ray);
-}
\ No newline at end of file
+
+    /**
+     * Traces all the rays of a packet and calculates their colors.
+     * The default implementation traces the rays one by one; ray tracers override it to find the intersections
+     * of the whole packet at once.
+     *
+     * @param packet The packet of rays to be traced.
+     * @param colors The array that receives the colors of the rays, in the order of the packet.
+     */
+    public void traceRays(RayPacket packet, Color[] colors) {
+        for (int i = 0; i < packet.size(); ++i) {
+            colors[i] = traceRay(packet.getRay(i));
+        }
+    }
+}
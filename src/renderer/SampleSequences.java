@@ -0,0 +1,186 @@
+package renderer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generators of low-discrepancy sample points in the unit square, randomized by a random generator so that
+ * every pixel or shading point gets a different set of points with the same even spread.
+ * The points are written into a flat array from a given offset - 2 numbers (x,y) in [0,1) per point.
+ */
+final class SampleSequences {
+
+    /** The seed of the construction of the blue-noise sets, so that every run uses the same sets. */
+    private static final long BLUE_NOISE_SEED = 0x5eedb10eL;
+
+    /** The maximal amount of candidates of Mitchell's best-candidate algorithm per point. */
+    private static final int MAX_CANDIDATES = 640;
+
+    /** The blue-noise sets built so far, by their amount of points. */
+    private static final ConcurrentMap<Integer, double[]> blueNoise = new ConcurrentHashMap<>();
+
+    /** Don't let anyone instantiate this class. */
+    private SampleSequences() {}
+
+    /**
+     * Generates points of the two-dimensional Sobol sequence with hash-based Owen scrambling
+     * (Burley, "Practical Hash-based Owen Scrambling", 2020). The indices are shuffled and both dimensions are
+     * scrambled with seeds drawn from the generator. Any prefix of 2^m points keeps the stratification of
+     * the sequence - exactly one point in every elementary interval of area 2^-m.
+     *
+     * @param samples The array that receives the points.
+     * @param offset The index of the first number of the points in the array.
+     * @param count The amount of points.
+     * @param random The random generator of the scrambling.
+     */
+    static void sobol(double[] samples, int offset, int count, RandomGenerator random) {
+        int indexSeed = random.nextInt(), xSeed = random.nextInt(), ySeed = random.nextInt();
+        for (int i = 0; i < count; ++i) {
+            int index = nestedUniformScramble(i, indexSeed);
+            samples[offset + 2 * i] = toUnit(nestedUniformScramble(Integer.reverse(index), xSeed));
+            samples[offset + 2 * i + 1] = toUnit(nestedUniformScramble(sobolSecondDimension(index), ySeed));
+        }
+    }
+
+    /**
+     * Generates points of the two-dimensional Halton sequence (bases 2 and 3), shifted over the unit torus
+     * by a random offset (Cranley-Patterson rotation).
+     *
+     * @param samples The array that receives the points.
+     * @param offset The index of the first number of the points in the array.
+     * @param count The amount of points.
+     * @param random The random generator of the offset.
+     */
+    static void halton(double[] samples, int offset, int count, RandomGenerator random) {
+        double offsetX = random.nextDouble(), offsetY = random.nextDouble();
+        for (int i = 0; i < count; ++i) {
+            samples[offset + 2 * i] = wrap(radicalInverse(i + 1, 2) + offsetX);
+            samples[offset + 2 * i + 1] = wrap(radicalInverse(i + 1, 3) + offsetY);
+        }
+    }
+
+    /**
+     * Generates a blue-noise set of points - points that keep apart from each other with no regular pattern.
+     * A set of every amount of points is built once, as a tile of the unit torus, and is then shifted over
+     * the torus by a random offset.
+     *
+     * @param samples The array that receives the points.
+     * @param offset The index of the first number of the points in the array.
+     * @param count The amount of points.
+     * @param random The random generator of the offset.
+     */
+    static void blueNoise(double[] samples, int offset, int count, RandomGenerator random) {
+        double[] tile = blueNoise.computeIfAbsent(count, SampleSequences::bestCandidate);
+        double offsetX = random.nextDouble(), offsetY = random.nextDouble();
+        for (int i = 0; i < count; ++i) {
+            samples[offset + 2 * i] = wrap(tile[2 * i] + offsetX);
+            samples[offset + 2 * i + 1] = wrap(tile[2 * i + 1] + offsetY);
+        }
+    }
+
+    /**
+     * Builds a tile of blue noise by Mitchell's best-candidate algorithm on the unit torus: every point is the
+     * farthest one from the points so far among a growing amount of random candidates.
+     *
+     * @param count The amount of points.
+     * @return The points of the tile.
+     */
+    private static double[] bestCandidate(int count) {
+        RandomGenerator random = new java.util.SplittableRandom(BLUE_NOISE_SEED + count);
+        double[] tile = new double[2 * count];
+        for (int i = 0; i < count; ++i) {
+            double bestX = 0, bestY = 0, bestDistance = -1;
+            int candidates = Math.max(1, Math.min(10 * i, MAX_CANDIDATES));
+            for (int c = 0; c < candidates; ++c) {
+                double x = random.nextDouble(), y = random.nextDouble();
+                double distance = Double.POSITIVE_INFINITY;
+                for (int k = 0; k < i && distance > bestDistance; ++k) {
+                    double dx = Math.abs(x - tile[2 * k]), dy = Math.abs(y - tile[2 * k + 1]);
+                    dx = Math.min(dx, 1 - dx);
+                    dy = Math.min(dy, 1 - dy);
+                    distance = Math.min(distance, dx * dx + dy * dy);
+                }
+                if (distance > bestDistance) {
+                    bestDistance = distance;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+            tile[2 * i] = bestX;
+            tile[2 * i + 1] = bestY;
+        }
+        return tile;
+    }
+
+    /**
+     * Computes the second dimension of the Sobol sequence, whose generator matrix is the Pascal matrix modulo 2.
+     *
+     * @param index The index of the point.
+     * @return The bits of the coordinate, as a fraction of 2^32.
+     */
+    private static int sobolSecondDimension(int index) {
+        int result = 0;
+        for (int v = 1 << 31; index != 0; index >>>= 1, v ^= v >>> 1) {
+            if ((index & 1) != 0) {
+                result ^= v;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scrambles the bits of a fraction of 2^32 by a random permutation of every digit that depends on the digits
+     * above it (nested uniform scrambling), by the hash of Laine and Karras.
+     *
+     * @param x The bits of the fraction.
+     * @param seed The seed of the permutation.
+     * @return The scrambled bits.
+     */
+    private static int nestedUniformScramble(int x, int seed) {
+        x = Integer.reverse(x);
+        x += seed;
+        x ^= x * 0x6c50b47c;
+        x ^= x * 0xb82f1e52;
+        x ^= x * 0xc7afe638;
+        x ^= x * 0x8d22f6e6;
+        return Integer.reverse(x);
+    }
+
+    /**
+     * Computes the radical inverse of an index - its digits in a base mirrored around the radix point.
+     *
+     * @param index The index.
+     * @param base The base.
+     * @return The radical inverse in [0,1).
+     */
+    private static double radicalInverse(int index, int base) {
+        double fraction = 1, result = 0;
+        while (index > 0) {
+            fraction /= base;
+            result += fraction * (index % base);
+            index /= base;
+        }
+        return result;
+    }
+
+    /**
+     * Converts the bits of a fraction of 2^32 to a number.
+     *
+     * @param bits The bits of the fraction.
+     * @return The number in [0,1).
+     */
+    private static double toUnit(int bits) {
+        return Integer.toUnsignedLong(bits) * 0x1p-32;
+    }
+
+    /**
+     * Wraps a number of [0,2) around the unit torus.
+     *
+     * @param x The number.
+     * @return The number in [0,1).
+     */
+    private static double wrap(double x) {
+        return x >= 1 ? x - 1 : x;
+    }
+}
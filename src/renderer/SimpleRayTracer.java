@@ -5,7 +5,9 @@ import lighting.PointLight;
 import primitives.*;
 import scene.Scene;
 import geometries.Intersectable.GeoPoint;
-import java.util.List;
+import geometries.RayPacket;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import static primitives.Util.alignZero;
 
 /**
@@ -15,16 +17,34 @@ import static primitives.Util.alignZero;
 public class SimpleRayTracer extends RayTracerBase {
 
     /** The maximum recursion level for calculating color during ray tracing. */
-    private static final int MAX_CALC_COLOR_LEVEL = 10;
+    protected static final int MAX_CALC_COLOR_LEVEL = 10;
 
     /**
      * The minimum threshold for the coefficient 'k' used in color calculation.
      * Values below this threshold are considered negligible and contribute little to the final color.
      */
-    private static final double MIN_CALC_COLOR_K = 0.001;
+    protected static final double MIN_CALC_COLOR_K = 0.001;
 
     /** The initial coefficient 'k' for color calculation, represented as a 3D vector. */
-    private static final Double3 INITIAL_K = Double3.ONE;
+    protected static final Double3 INITIAL_K = Double3.ONE;
+
+    /** The x-axis, used to construct the plane of the blackboard of a sized light source. */
+    private static final Vector X_AXIS = new Vector(1, 0, 0);
+
+    /** The negative x-axis. */
+    private static final Vector MINUS_X_AXIS = new Vector(-1, 0, 0);
+
+    /** The z-axis. */
+    private static final Vector Z_AXIS = new Vector(0, 0, 1);
+
+    /** The maximum depth of the adaptive sampling of the shadows of sized lights. */
+    private static final int MAX_ADAPTIVE_SHADOW_DEPTH = 6;
+
+    /** The depth of the adaptive sampling of the shadows of sized lights, 0 for sampling the whole blackboard. */
+    private int adaptiveShadowDepth = 0;
+
+    /** The lattices of the shadow samples of the threads that trace rays. */
+    private final ThreadLocal<ShadowLattice> lattices = ThreadLocal.withInitial(ShadowLattice::new);
 
     /**
      * Constructs a SimpleRayTracer object with the specified scene.
@@ -35,6 +55,26 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Sets the depth of the adaptive sampling of the shadows of sized lights. Instead of the Nx*Ny rays of the
+     * blackboard of a light, the corners and the center of the board are sampled first - if they agree, the point
+     * is fully lit or fully in shadow and no more rays are cast. Otherwise the board is split into 4 cells,
+     * and only the cells whose corners and center disagree are split again, down to cells of 1/2^depth of the
+     * board. The samples are jittered, and those on the corners shared by cells are cast once.<br/>
+     * A depth whose finest cells are about the cells of the blackboard, e.g. 3 for a 9x9 board,
+     * gives the same penumbra with a fraction of the rays.
+     *
+     * @param depth The depth of the refinement - 0 for sampling the whole blackboard of every light.
+     * @return This SimpleRayTracer object for method chaining.
+     */
+    public SimpleRayTracer setAdaptiveShadows(int depth) {
+        if (depth < 0 || depth > MAX_ADAPTIVE_SHADOW_DEPTH) {
+            throw new IllegalArgumentException("Adaptive depth given is Illegal.");
+        }
+        this.adaptiveShadowDepth = depth;
+        return this;
+    }
+
     /**
      * Traces a ray through the scene and calculates the color at the intersection point.
      *
@@ -47,6 +87,22 @@ public class SimpleRayTracer extends RayTracerBase {
         return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
     }
 
+    /**
+     * Traces all the rays of a packet - the closest intersections of the whole packet are found together,
+     * and then the color of every intersection point is calculated.
+     *
+     * @param packet The packet of rays to be traced.
+     * @param colors The array that receives the colors of the rays, in the order of the packet.
+     */
+    @Override
+    public void traceRays(RayPacket packet, Color[] colors) {
+        scene.geometries.findClosestGeoIntersections(packet);
+        for (int i = 0; i < packet.size(); ++i) {
+            GeoPoint closestPoint = packet.getHit(i);
+            colors[i] = closestPoint == null ? scene.background : calcColor(closestPoint, packet.getRay(i));
+        }
+    }
+
     /**
      * Calculates the final color at a given intersection point, including both local and global lighting effects,
      * and ambient light contribution.
@@ -55,7 +111,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray The incident ray.
      * @return The final color at the intersection point, considering local and global effects, and ambient light.
      */
-    private Color calcColor(GeoPoint closestPoint, Ray ray) {
+    protected Color calcColor(GeoPoint closestPoint, Ray ray) {
         return calcColor(closestPoint, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K).add(scene.ambientLight.getIntensity());
     }
 
@@ -69,8 +125,9 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return The resulting color at the intersection point, considering local and global lighting effects.
      */
     private Color calcColor(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(geoPoint, ray, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(geoPoint, ray, level, k));
+        Vector n = geoPoint.getNormal();
+        Color color = calcLocalEffects(geoPoint, ray, n, k);
+        return 1 == level ? color : color.add(calcGlobalEffects(geoPoint, ray, n, level, k));
     }
 
     /**
@@ -78,18 +135,18 @@ public class SimpleRayTracer extends RayTracerBase {
      *
      * @param gp The GeoPoint representing the intersection point.
      * @param ray The incident ray.
+     * @param n The surface normal vector at the intersection point.
      * @param k The coefficient vector for color calculation.
      * @return The resulting color at the intersection point, considering local lighting effects.
      */
-    private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
+    protected Color calcLocalEffects(GeoPoint gp, Ray ray, Vector n, Double3 k) {
         Color color = gp.geometry.getEmission();
-        Vector n = gp.geometry.getNormal(gp.point);
         Vector v = ray.getDirection();
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0){
             return color;
         }
-        Material material = gp.geometry.getMaterial();
+        Material material = gp.getMaterial();
         for (LightSource lightSource : scene.lights) {
             Vector l = lightSource.getL(gp.point);
             double nl = alignZero(n.dotProduct(l));
@@ -97,7 +154,7 @@ public class SimpleRayTracer extends RayTracerBase {
                 Double3 ktr = transparency(gp, lightSource, l, n);
                 if (!(ktr.product(k).lowerThan(MIN_CALC_COLOR_K))) {
                     Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(material, nl).add(calcSpecular(material, n, l, nl, v))));
+                    color = color.add(iL.scale(calcDiffusive(material, nl).add(calcSpecular(material, l, nl, nv, v))));
                 }
             }
         }
@@ -117,17 +174,19 @@ public class SimpleRayTracer extends RayTracerBase {
 
     /**
      * Calculates the specular reflection component.
+     * The reflected light vector r = l - 2(n·l)n is not constructed - its product with the view vector
+     * is expanded to r·v = l·v - 2(n·l)(n·v).
      *
      * @param material The Material object representing the material properties.
-     * @param n        The normal vector at the intersection point.
      * @param l        The light vector.
      * @param nl       The dot product of the normal vector and light vector.
+     * @param nv       The dot product of the normal vector and view vector.
      * @param v        The view vector.
      * @return The calculated specular reflection component.
      */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        Vector r = l.subtract(n.scale(2 * nl));
-        return material.kS.scale(Math.pow(Math.max(0, -r.dotProduct(v)), material.nShininess));
+    private Double3 calcSpecular(Material material, Vector l, double nl, double nv, Vector v) {
+        double minusRv = 2 * nl * nv - l.dotProduct(v);
+        return material.kS.scale(Math.pow(Math.max(0, minusRv), material.nShininess));
     }
 
     /**
@@ -135,10 +194,10 @@ public class SimpleRayTracer extends RayTracerBase {
      *
      * @param geoPoint The GeoPoint representing the intersection point.
      * @param ray The incident ray.
+     * @param n The surface normal vector at the intersection point.
      * @return The reflected ray at the intersection point.
      */
-    private Ray constructReflectedRay(GeoPoint geoPoint, Ray ray){
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
+    protected Ray constructReflectedRay(GeoPoint geoPoint, Ray ray, Vector n){
         Vector v = ray.getDirection();
         // r = v - 2 * (v * n) * n
         Vector r = v.subtract(n.scale(2 * v.dotProduct(n)));
@@ -150,10 +209,11 @@ public class SimpleRayTracer extends RayTracerBase {
      *
      * @param geoPoint The GeoPoint representing the intersection point.
      * @param ray The incident ray.
+     * @param n The surface normal vector at the intersection point.
      * @return The refracted ray at the intersection point.
      */
-    private Ray constructRefractedRay(GeoPoint geoPoint, Ray ray){
-        return new Ray(geoPoint.point, ray.getDirection(), geoPoint.geometry.getNormal(geoPoint.point));
+    protected Ray constructRefractedRay(GeoPoint geoPoint, Ray ray, Vector n){
+        return new Ray(geoPoint.point, ray.getDirection(), n);
     }
 
     /**
@@ -162,33 +222,40 @@ public class SimpleRayTracer extends RayTracerBase {
      *
      * @param gp The GeoPoint representing the intersection point.
      * @param ray The incident ray.
+     * @param n The surface normal vector at the intersection point.
      * @param level The recursion level for global effects.
      * @param k The coefficient vector for color calculation.
      * @return The resulting color at the intersection point, considering global lighting effects.
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Material material = gp.geometry.getMaterial();
-        return calcGlobalEffect(constructRefractedRay(gp, ray), material.kT, level, k)
-                .add(calcGlobalEffect(constructReflectedRay(gp, ray), material.kR, level, k));
+    private Color calcGlobalEffects(GeoPoint gp, Ray ray, Vector n, int level, Double3 k) {
+        Material material = gp.getMaterial();
+        return calcGlobalEffect(gp, ray, n, false, material.kT, level, k)
+                .add(calcGlobalEffect(gp, ray, n, true, material.kR, level, k));
     }
 
     /**
-     * Calculates the global lighting effect for a given ray, considering reflection or refraction,
-     * and recursively determines the color contribution at the intersection point.
+     * Calculates the global lighting effect of reflection or refraction at a given intersection point,
+     * and recursively determines the color contribution of the secondary ray.
+     * The secondary ray is constructed only if its contribution is not negligible.
      *
-     * @param ray The ray for which to calculate the global lighting effect.
+     * @param gp The GeoPoint representing the intersection point.
+     * @param ray The incident ray.
+     * @param n The surface normal vector at the intersection point.
+     * @param reflected True for the reflected ray, false for the refracted ray.
      * @param kx The coefficient vector associated with the reflection (kR) or refraction (kT).
      * @param level The recursion level for global effects.
      * @param k The coefficient vector for color calculation.
      * @return The resulting color contribution from the global lighting effect.
      */
-    private Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
+    private Color calcGlobalEffect(GeoPoint gp, Ray ray, Vector n, boolean reflected, Double3 kx, int level, Double3 k) {
         Double3 kkx = kx.product(k);
         if (kkx.lowerThan(MIN_CALC_COLOR_K)) {
             return Color.BLACK;
         }
-        GeoPoint gp = findClosestIntersection(ray);
-        return (gp == null ? scene.background : calcColor(gp, ray, level - 1, kkx)).scale(kx);
+        Ray secondary = reflected ? constructReflectedRay(gp, ray, n) : constructRefractedRay(gp, ray, n);
+        GeoPoint secondaryPoint = findClosestIntersection(secondary);
+        return (secondaryPoint == null ? scene.background
+                : calcColor(secondaryPoint, secondary, level - 1, kkx)).scale(kx);
     }
 
     /**
@@ -197,9 +264,8 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray The ray for which to find the closest intersection point.
      * @return The closest intersection point as a GeoPoint, or null if no intersection is found.
      */
-    private GeoPoint findClosestIntersection(Ray ray){
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        return ray.findClosestGeoPoint(intersections);
+    protected GeoPoint findClosestIntersection(Ray ray){
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 
     /**
@@ -218,15 +284,25 @@ public class SimpleRayTracer extends RayTracerBase {
             return this.softShadow(gp, light, lightDirection, n);
         }
         Ray ray = new Ray(gp.point, lightDirection, n);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray, light.getDistance(gp.point));
-        if (intersections == null) {
-            return Double3.ONE;
-        }
-        Double3 ktr = Double3.ONE;
-        for (GeoPoint intersection : intersections) {
-            ktr = ktr.product(intersection.geometry.getMaterial().kT);
+        return this.shadow(ray, light.getDistance(gp.point));
+    }
+
+    /**
+     * Computes the fraction of light that passes along a shadow ray. When all the geometries of the scene are
+     * opaque, the light passes either fully or not at all, so the ray only looks for any hit, and stops at the
+     * first one instead of multiplying the transmission coefficients of all of them. A scene with a hierarchy
+     * takes the opacity of its geometries when the hierarchy is built or refit, so a material changed after that
+     * must be followed by a refit of the geometries of the scene.
+     *
+     * @param ray The shadow ray, from the shading point towards the light.
+     * @param distance The distance to the light.
+     * @return The transparency factor along the ray.
+     */
+    private Double3 shadow(Ray ray, double distance) {
+        if (scene.geometries.isOpaque()) {
+            return scene.geometries.occluded(ray, distance) ? Double3.ZERO : Double3.ONE;
         }
-        return ktr;
+        return scene.geometries.transmittance(ray, distance);
     }
 
     /**
@@ -239,30 +315,186 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     private Double3 softShadow(GeoPoint gp, LightSource light, Vector lightDirection, Vector n){
         Vector vectorX, vectorY;
-        if (lightDirection.equals(new Vector(1,0,0)) || lightDirection.equals(new Vector(-1,0,0))) {
-            vectorY = lightDirection.crossProduct(new Vector(0,0,1));
+        if (lightDirection.equals(X_AXIS) || lightDirection.equals(MINUS_X_AXIS)) {
+            vectorY = lightDirection.crossProduct(Z_AXIS);
         }
         else {
-            vectorY = lightDirection.crossProduct(new Vector(1,0,0));
+            vectorY = lightDirection.crossProduct(X_AXIS);
         }
         vectorX = lightDirection.crossProduct(vectorY);
-        Double3 ktr = Double3.ZERO;
         PointLight PosLight = (PointLight) light;
-        List<Point> points = PosLight.blackboard.jittered(vectorX, vectorY);
-        for(Point point : points){
-            List<GeoPoint> intersections = scene.geometries.
-                    findGeoIntersections(new Ray(gp.point, point.subtract(gp.point),n), light.getDistance(gp.point));
-            if (intersections == null) {
-                ktr = ktr.add(Double3.ONE);
+        if (this.adaptiveShadowDepth > 0) {
+            return this.adaptiveShadow(gp, PosLight, vectorX, vectorY, n);
+        }
+        Double3 ktr = Double3.ZERO;
+        double[] points = PosLight.blackboard.samples(PosLight.getPosition(), vectorX, vectorY,
+                ThreadLocalRandom.current(), null);
+        double distance = light.getDistance(gp.point);
+        double x = gp.point.getX(), y = gp.point.getY(), z = gp.point.getZ();
+        for (int k = 0; k < points.length; k += 3){
+            Vector direction = new Vector(points[k] - x, points[k + 1] - y, points[k + 2] - z);
+            ktr = ktr.add(this.shadow(new Ray(gp.point, direction, n), distance));
+        }
+        return ktr.reduce(points.length / 3);
+    }
+
+    /**
+     * Calculates the soft shadow of a sized light by the adaptive sampling of its blackboard.
+     *
+     * @param gp The GeoPoint representing the intersection point.
+     * @param light The sized light source.
+     * @param vectorX The X direction of the blackboard of the light.
+     * @param vectorY The Y direction of the blackboard of the light.
+     * @param n The surface normal vector at the intersection point.
+     * @return The transparency factor along the paths from the intersection point to the light source.
+     */
+    private Double3 adaptiveShadow(GeoPoint gp, PointLight light, Vector vectorX, Vector vectorY, Vector n) {
+        ShadowLattice lattice = this.lattices.get();
+        int side = 1 << (this.adaptiveShadowDepth + 1);
+        lattice.begin(gp, n, light, vectorX, vectorY, side);
+        this.adaptiveCell(lattice, 0, 0, side, 1);
+        return lattice.sum;
+    }
+
+    /**
+     * Samples a cell of the blackboard of a light and adds its transparency, weighted by its area,
+     * to the lattice - or splits the cell if its corners and center disagree.
+     *
+     * @param lattice The lattice of the samples of the shading point.
+     * @param i The column of the top left corner of the cell in the lattice.
+     * @param j The row of the top left corner of the cell in the lattice.
+     * @param size The side of the cell in lattice steps - at least 2.
+     * @param area The fraction of the board that the cell covers.
+     */
+    private void adaptiveCell(ShadowLattice lattice, int i, int j, int size, double area) {
+        int half = size / 2;
+        Double3 center = this.shadowSample(lattice, i + half, j + half);
+        Double3 topLeft = this.shadowSample(lattice, i, j);
+        Double3 topRight = this.shadowSample(lattice, i + size, j);
+        Double3 bottomLeft = this.shadowSample(lattice, i, j + size);
+        Double3 bottomRight = this.shadowSample(lattice, i + size, j + size);
+        if (size == 2 || (center.equals(topLeft) && center.equals(topRight)
+                && center.equals(bottomLeft) && center.equals(bottomRight))) {
+            lattice.sum = lattice.sum.add(center.add(topLeft).add(topRight).add(bottomLeft).add(bottomRight)
+                    .scale(area / 5));
+            return;
+        }
+        this.adaptiveCell(lattice, i, j, half, area / 4);
+        this.adaptiveCell(lattice, i + half, j, half, area / 4);
+        this.adaptiveCell(lattice, i, j + half, half, area / 4);
+        this.adaptiveCell(lattice, i + half, j + half, half, area / 4);
+    }
+
+    /**
+     * Gets the transparency towards a point of the lattice of the blackboard of a light, casting its shadow ray
+     * only the first time. The point is jittered inside the step of the lattice around it and clamped to the board.
+     *
+     * @param lattice The lattice of the samples of the shading point.
+     * @param i The column of the point.
+     * @param j The row of the point.
+     * @return The transparency factor along the path from the shading point to the point of the lattice.
+     */
+    private Double3 shadowSample(ShadowLattice lattice, int i, int j) {
+        int index = j * (lattice.side + 1) + i;
+        if (lattice.stamps[index] == lattice.stamp) {
+            return lattice.samples[index];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double u = Math.min(Math.max(i + random.nextDouble() - 0.5, 0), lattice.side) / lattice.side;
+        double v = Math.min(Math.max(j + random.nextDouble() - 0.5, 0), lattice.side) / lattice.side;
+        double x = (u - 0.5) * lattice.width, y = (0.5 - v) * lattice.height;
+        Point point = lattice.gp.point;
+        Vector direction = new Vector(
+                lattice.cx + x * lattice.xx + y * lattice.yx - point.getX(),
+                lattice.cy + x * lattice.xy + y * lattice.yy - point.getY(),
+                lattice.cz + x * lattice.xz + y * lattice.yz - point.getZ());
+        Double3 sample = this.shadow(new Ray(point, direction, lattice.n), lattice.distance);
+        lattice.samples[index] = sample;
+        lattice.stamps[index] = lattice.stamp;
+        return sample;
+    }
+
+    /**
+     * The lattice of the shadow samples of the blackboard of a light at a shading point, kept by a thread
+     * for all its shading points. A sample belongs to the current shading point if its stamp is the current one,
+     * so the lattice is never cleared.
+     */
+    private static class ShadowLattice {
+
+        /** The samples of the points of the lattice, row by row. */
+        private Double3[] samples = new Double3[0];
+
+        /** The stamps of the samples - the stamp of the shading point that cast them. */
+        private int[] stamps = new int[0];
+
+        /** The stamp of the current shading point. */
+        private int stamp = 0;
+
+        /** The amount of lattice steps along a side of the board. */
+        private int side;
+
+        /** The shading point. */
+        private GeoPoint gp;
+
+        /** The surface normal vector at the shading point. */
+        private Vector n;
+
+        /** The distance from the shading point to the light. */
+        private double distance;
+
+        /** The sizes of the board. */
+        private double width, height;
+
+        /** The center of the board. */
+        private double cx, cy, cz;
+
+        /** The X direction of the board. */
+        private double xx, xy, xz;
+
+        /** The Y direction of the board. */
+        private double yx, yy, yz;
+
+        /** The transparency summed so far. */
+        private Double3 sum;
+
+        /**
+         * Starts the sampling of a light at a shading point.
+         *
+         * @param gp The shading point.
+         * @param n The surface normal vector at the shading point.
+         * @param light The sized light source.
+         * @param vectorX The X direction of the blackboard of the light.
+         * @param vectorY The Y direction of the blackboard of the light.
+         * @param side The amount of lattice steps along a side of the board.
+         */
+        void begin(GeoPoint gp, Vector n, PointLight light, Vector vectorX, Vector vectorY, int side) {
+            int size = (side + 1) * (side + 1);
+            if (this.stamps.length < size) {
+                this.samples = new Double3[size];
+                this.stamps = new int[size];
+                this.stamp = 0;
             }
-            else {
-                Double3 ktr_temp = Double3.ONE;
-                for (GeoPoint geopoint : intersections) {
-                    ktr_temp = ktr_temp.product(geopoint.geometry.getMaterial().kT);
-                }
-                ktr = ktr.add(ktr_temp);
+            if (++this.stamp == 0) {
+                Arrays.fill(this.stamps, 0);
+                this.stamp = 1;
             }
+            this.side = side;
+            this.gp = gp;
+            this.n = n;
+            this.distance = light.getDistance(gp.point);
+            this.width = light.blackboard.getWidth();
+            this.height = light.blackboard.getHeight();
+            Point center = light.getPosition();
+            this.cx = center.getX();
+            this.cy = center.getY();
+            this.cz = center.getZ();
+            this.xx = vectorX.getX();
+            this.xy = vectorX.getY();
+            this.xz = vectorX.getZ();
+            this.yx = vectorY.getX();
+            this.yy = vectorY.getY();
+            this.yz = vectorY.getZ();
+            this.sum = Double3.ZERO;
         }
-        return ktr.reduce(points.size());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,949 @@
+package scene;
+
+import geometries.TriangleMesh;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The MeshLoader class loads triangle meshes from Wavefront OBJ files and binary PLY files.
+ * A file is read in one streaming pass straight into packed arrays of vertex positions and face indices,
+ * with no object per vertex or per face, and the arrays become a {@link TriangleMesh}.
+ * OBJ files are read through a file channel in blocks; binary PLY files are read through memory-mapped windows.
+ * Polygonal faces are split into fans of triangles.<br/>
+ * Only the geometry is loaded - texture coordinates, normals, groups and materials are skipped.
+ * The statistics of the last load report its throughput and its memory use.
+ */
+public class MeshLoader {
+
+    /**
+     * Statistics of a load, for tracking the time and the memory that assets take to load.
+     *
+     * @param bytes The size of the file in bytes.
+     * @param vertices The amount of vertices.
+     * @param faces The amount of triangular faces.
+     * @param loadTime The time of the parsing in nanoseconds, without the construction of the mesh.
+     * @param meshTime The time of the construction of the mesh (and its hierarchy) in nanoseconds.
+     * @param peakBufferBytes The peak size in bytes of the growing arrays of the loader.
+     * @param peakHeapBytes The peak heap use in bytes of the whole JVM during the load,
+     *                      or -1 if the JVM does not report it.
+     */
+    public record Statistics(long bytes, int vertices, int faces, long loadTime, long meshTime,
+                             long peakBufferBytes, long peakHeapBytes) {
+
+        /**
+         * Gets the parsing throughput.
+         *
+         * @return The throughput in megabytes (10^6 bytes) per second.
+         */
+        public double megabytesPerSecond() {
+            return loadTime == 0 ? Double.POSITIVE_INFINITY : bytes * 1e3 / loadTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "Mesh: %d vertices, %d faces, %.1f MB parsed in %.3f ms (%.1f MB/s), mesh built in %.3f ms, "
+                            + "buffers peak %.1f MB, heap peak %.1f MB",
+                    vertices, faces, bytes / 1e6, loadTime / 1e6, megabytesPerSecond(), meshTime / 1e6,
+                    peakBufferBytes / 1e6, peakHeapBytes / 1e6);
+        }
+    }
+
+    /** The size of the blocks in which text files are read. */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /** The size of the windows in which binary files are mapped. */
+    private static final long WINDOW_SIZE = 1 << 26;
+
+    /** The statistics of the last load, null if nothing has been loaded. */
+    private Statistics statistics = null;
+
+    /**
+     * Loads a mesh from a file, by the extension of its name - {@code .obj} or {@code .ply}.
+     *
+     * @param path The path of the file.
+     * @return The mesh.
+     * @throws IOException if the file cannot be read or is malformed.
+     * @throws IllegalArgumentException if the extension is not of a supported format.
+     */
+    public TriangleMesh load(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".obj")) {
+            return loadObj(path);
+        }
+        if (name.endsWith(".ply")) {
+            return loadPly(path);
+        }
+        throw new IllegalArgumentException("File format given is Illegal.");
+    }
+
+    /**
+     * Loads a mesh from a Wavefront OBJ file. Vertices ({@code v}) and faces ({@code f}) are read,
+     * with absolute and relative (negative) indices, and every other statement is skipped.
+     *
+     * @param path The path of the file.
+     * @return The mesh.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public TriangleMesh loadObj(Path path) throws IOException {
+        resetHeapPeak();
+        long start = System.nanoTime();
+        DoubleArray positions = new DoubleArray();
+        IntArray indices = new IntArray();
+        long bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            new ObjParser(channel, positions, indices).parse();
+        }
+        return finish(start, bytes, positions, indices);
+    }
+
+    /**
+     * Loads a mesh from a binary PLY file, of either byte order. The coordinates of the vertices are read from
+     * the properties x, y and z of the vertex element, and the faces from the list property vertex_indices
+     * (or vertex_index) of the face element; every other element and property is skipped.
+     *
+     * @param path The path of the file.
+     * @return The mesh.
+     * @throws IOException if the file cannot be read, is malformed or is not a binary PLY file.
+     */
+    public TriangleMesh loadPly(Path path) throws IOException {
+        resetHeapPeak();
+        long start = System.nanoTime();
+        DoubleArray positions = new DoubleArray();
+        IntArray indices = new IntArray();
+        long bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            new PlyParser(channel, positions, indices).parse();
+        }
+        return finish(start, bytes, positions, indices);
+    }
+
+    /**
+     * Gets the statistics of the last load.
+     *
+     * @return The statistics, or null if nothing has been loaded.
+     */
+    public Statistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Builds the mesh of the parsed arrays and records the statistics of the load.
+     *
+     * @param start The start time of the load in nanoseconds.
+     * @param bytes The size of the file.
+     * @param positions The parsed positions.
+     * @param indices The parsed indices.
+     * @return The mesh.
+     * @throws IOException if the file holds no faces.
+     */
+    private TriangleMesh finish(long start, long bytes, DoubleArray positions, IntArray indices) throws IOException {
+        if (indices.size == 0) {
+            throw new IOException("The file holds no faces");
+        }
+        double[] positionArray = positions.toArray();
+        int[] indexArray = indices.toArray();
+        long peakBuffers = positions.peakBytes() + indices.peakBytes();
+        long parsed = System.nanoTime();
+        TriangleMesh mesh;
+        try {
+            mesh = new TriangleMesh(positionArray, indexArray);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The file holds a face of a missing vertex", e);
+        }
+        this.statistics = new Statistics(bytes, positionArray.length / 3, indexArray.length / 3, parsed - start,
+                System.nanoTime() - parsed, peakBuffers, heapPeak());
+        return mesh;
+    }
+
+    /**
+     * Resets the peak usage of the heap memory pools, so that the peak of a load can be reported.
+     */
+    private static void resetHeapPeak() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Gets the peak usage of the heap since it was reset - the sum of the peaks of the heap memory pools.
+     *
+     * @return The peak usage in bytes, or -1 if the JVM does not report it.
+     */
+    private static long heapPeak() {
+        long peak = 0;
+        boolean reported = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+                reported = true;
+            }
+        }
+        return reported ? peak : -1;
+    }
+
+    /**
+     * A growing array of doubles.
+     */
+    private static final class DoubleArray {
+
+        /** The elements. */
+        private double[] elements = new double[3 * 1024];
+
+        /** The amount of elements. */
+        private int size = 0;
+
+        /** The peak size in bytes of the arrays of the elements. */
+        private long peakBytes = 0;
+
+        /**
+         * Adds three elements.
+         *
+         * @param x The first element.
+         * @param y The second element.
+         * @param z The third element.
+         */
+        void add(double x, double y, double z) {
+            if (size + 3 > elements.length) {
+                peakBytes = Math.max(peakBytes, 8L * (elements.length + 2L * elements.length));
+                elements = Arrays.copyOf(elements, 2 * elements.length);
+            }
+            elements[size++] = x;
+            elements[size++] = y;
+            elements[size++] = z;
+        }
+
+        /**
+         * Gets the elements in an array of their exact size.
+         *
+         * @return The elements.
+         */
+        double[] toArray() {
+            peakBytes = Math.max(peakBytes, 8L * (elements.length + size));
+            return Arrays.copyOf(elements, size);
+        }
+
+        /**
+         * Gets the peak size in bytes of the arrays of the elements.
+         *
+         * @return The peak size.
+         */
+        long peakBytes() {
+            return peakBytes;
+        }
+    }
+
+    /**
+     * A growing array of ints.
+     */
+    private static final class IntArray {
+
+        /** The elements. */
+        private int[] elements = new int[3 * 1024];
+
+        /** The amount of elements. */
+        private int size = 0;
+
+        /** The peak size in bytes of the arrays of the elements. */
+        private long peakBytes = 0;
+
+        /**
+         * Adds three elements.
+         *
+         * @param a The first element.
+         * @param b The second element.
+         * @param c The third element.
+         */
+        void add(int a, int b, int c) {
+            if (size + 3 > elements.length) {
+                peakBytes = Math.max(peakBytes, 4L * (elements.length + 2L * elements.length));
+                elements = Arrays.copyOf(elements, 2 * elements.length);
+            }
+            elements[size++] = a;
+            elements[size++] = b;
+            elements[size++] = c;
+        }
+
+        /**
+         * Gets the elements in an array of their exact size.
+         *
+         * @return The elements.
+         */
+        int[] toArray() {
+            peakBytes = Math.max(peakBytes, 4L * (elements.length + size));
+            return Arrays.copyOf(elements, size);
+        }
+
+        /**
+         * Gets the peak size in bytes of the arrays of the elements.
+         *
+         * @return The peak size.
+         */
+        long peakBytes() {
+            return peakBytes;
+        }
+    }
+
+    /**
+     * A parser of a Wavefront OBJ file, which reads the bytes of the file in blocks and parses the numbers
+     * straight from them.
+     */
+    private static final class ObjParser {
+
+        /** The end of the file. */
+        private static final int EOF = -1;
+
+        /** The exact powers of 10 of doubles. */
+        private static final double[] POWERS_OF_10 = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+        /** The channel of the file. */
+        private final FileChannel channel;
+
+        /** The block of the file being parsed. */
+        private final ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+
+        /** The positions of the vertices. */
+        private final DoubleArray positions;
+
+        /** The indices of the faces. */
+        private final IntArray indices;
+
+        /** The vertex indices of the face being parsed. */
+        private int[] face = new int[16];
+
+        /** The characters of the number being parsed, for the numbers that are not parsed on the fast path. */
+        private final byte[] token = new byte[64];
+
+        /** The amount of vertices so far. */
+        private int vertices = 0;
+
+        /** The number of the current line, for reporting errors. */
+        private long line = 1;
+
+        /** The current character. */
+        private int c;
+
+        /**
+         * Constructs a parser of a file.
+         *
+         * @param channel The channel of the file.
+         * @param positions The array that receives the positions of the vertices.
+         * @param indices The array that receives the indices of the faces.
+         */
+        ObjParser(FileChannel channel, DoubleArray positions, IntArray indices) {
+            this.channel = channel;
+            this.positions = positions;
+            this.indices = indices;
+            this.block.limit(0);
+        }
+
+        /**
+         * Reads the next character of the file.
+         *
+         * @return The character, or {@link #EOF} at the end of the file.
+         * @throws IOException if the file cannot be read.
+         */
+        private int read() throws IOException {
+            if (!block.hasRemaining()) {
+                block.clear();
+                int count;
+                do {
+                    count = channel.read(block);
+                } while (count == 0);
+                block.flip();
+                if (count < 0) {
+                    return EOF;
+                }
+            }
+            return block.get() & 0xFF;
+        }
+
+        /**
+         * Parses the whole file.
+         *
+         * @throws IOException if the file cannot be read or is malformed.
+         */
+        void parse() throws IOException {
+            c = read();
+            while (c != EOF) {
+                skipBlanks();
+                if (c == 'v') {
+                    c = read();
+                    if (c == ' ' || c == '\t') {
+                        double x = parseDouble(), y = parseDouble(), z = parseDouble();
+                        positions.add(x, y, z);
+                        ++vertices;
+                    }
+                } else if (c == 'f') {
+                    c = read();
+                    if (c == ' ' || c == '\t') {
+                        parseFace();
+                    }
+                }
+                skipLine();
+            }
+        }
+
+        /**
+         * Skips spaces and tabs.
+         *
+         * @throws IOException if the file cannot be read.
+         */
+        private void skipBlanks() throws IOException {
+            while (c == ' ' || c == '\t') {
+                c = read();
+            }
+        }
+
+        /**
+         * Skips the rest of the current line, including its end.
+         *
+         * @throws IOException if the file cannot be read.
+         */
+        private void skipLine() throws IOException {
+            while (c != '\n' && c != EOF) {
+                c = read();
+            }
+            if (c == '\n') {
+                ++line;
+                c = read();
+            }
+        }
+
+        /**
+         * Checks whether the current character ends a line.
+         *
+         * @return True at the end of a line or of the file.
+         */
+        private boolean endOfLine() {
+            return c == '\n' || c == '\r' || c == EOF || c == '#';
+        }
+
+        /**
+         * Parses a face - a polygon of vertex references, each optionally followed by texture coordinate and
+         * normal references - and adds it as a fan of triangles.
+         *
+         * @throws IOException if the file cannot be read or the face is malformed.
+         */
+        private void parseFace() throws IOException {
+            int count = 0;
+            skipBlanks();
+            while (!endOfLine()) {
+                int index = parseInt();
+                int vertex = index > 0 ? index - 1 : vertices + index;
+                if (index == 0 || vertex < 0 || vertex >= vertices) {
+                    throw malformed("a face of a missing vertex");
+                }
+                if (count == face.length) {
+                    face = Arrays.copyOf(face, 2 * count);
+                }
+                face[count++] = vertex;
+                // skip the references to the texture coordinates and the normal
+                while (c != ' ' && c != '\t' && !endOfLine()) {
+                    c = read();
+                }
+                skipBlanks();
+            }
+            if (count < 3) {
+                throw malformed("a face of less than 3 vertices");
+            }
+            for (int i = 2; i < count; ++i) {
+                indices.add(face[0], face[i - 1], face[i]);
+            }
+        }
+
+        /**
+         * Parses an integer.
+         *
+         * @return The integer.
+         * @throws IOException if the file cannot be read or there is no integer.
+         */
+        private int parseInt() throws IOException {
+            boolean negative = c == '-';
+            if (c == '-' || c == '+') {
+                c = read();
+            }
+            if (c < '0' || c > '9') {
+                throw malformed("a missing index");
+            }
+            long value = 0;
+            while (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw malformed("an index out of range");
+                }
+                c = read();
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        /**
+         * Parses a decimal number, after the blanks before it. Numbers of up to 15 significant digits and
+         * a small exponent are computed exactly from their digits; others are parsed by the JDK.
+         *
+         * @return The number.
+         * @throws IOException if the file cannot be read or there is no number.
+         */
+        private double parseDouble() throws IOException {
+            skipBlanks();
+            int length = 0;
+            boolean negative = c == '-';
+            if (c == '-' || c == '+') {
+                length = append(length);
+                c = read();
+            }
+            long mantissa = 0;
+            int digits = 0, exponent = 0;
+            boolean any = false;
+            while (c >= '0' && c <= '9') {
+                length = append(length);
+                if (mantissa != 0 || c != '0') {
+                    ++digits;
+                }
+                mantissa = digits <= 18 ? mantissa * 10 + (c - '0') : mantissa;
+                exponent += digits > 18 ? 1 : 0;
+                any = true;
+                c = read();
+            }
+            if (c == '.') {
+                length = append(length);
+                c = read();
+                while (c >= '0' && c <= '9') {
+                    length = append(length);
+                    if (mantissa != 0 || c != '0') {
+                        ++digits;
+                    }
+                    if (digits <= 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        --exponent;
+                    }
+                    any = true;
+                    c = read();
+                }
+            }
+            if (!any) {
+                throw malformed("a missing number");
+            }
+            if (c == 'e' || c == 'E') {
+                length = append(length);
+                c = read();
+                boolean negativeExponent = c == '-';
+                if (c == '-' || c == '+') {
+                    length = append(length);
+                    c = read();
+                }
+                int value = 0;
+                while (c >= '0' && c <= '9') {
+                    length = append(length);
+                    value = Math.min(value * 10 + (c - '0'), 10_000);
+                    c = read();
+                }
+                exponent += negativeExponent ? -value : value;
+            }
+            if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+                double value = exponent < 0 ? mantissa / POWERS_OF_10[-exponent] : mantissa * POWERS_OF_10[exponent];
+                return negative ? -value : value;
+            }
+            try {
+                return Double.parseDouble(new String(token, 0, length, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw malformed("a malformed number");
+            }
+        }
+
+        /**
+         * Appends the current character to the token of the number being parsed.
+         *
+         * @param length The length of the token.
+         * @return The new length of the token.
+         * @throws IOException if the number is too long.
+         */
+        private int append(int length) throws IOException {
+            if (length == token.length) {
+                throw malformed("a number too long");
+            }
+            token[length] = (byte) c;
+            return length + 1;
+        }
+
+        /**
+         * Creates an exception of a malformed line.
+         *
+         * @param what The description of the error.
+         * @return The exception.
+         */
+        private IOException malformed(String what) {
+            return new IOException("Malformed OBJ file: " + what + " at line " + line);
+        }
+    }
+
+    /**
+     * A parser of a binary PLY file, which maps the body of the file in windows and reads the properties
+     * straight from them.
+     */
+    private static final class PlyParser {
+
+        /** The types of the properties, by their codes. */
+        private static final String[][] TYPES = {
+                { "char", "int8" }, { "uchar", "uint8" }, { "short", "int16" }, { "ushort", "uint16" },
+                { "int", "int32" }, { "uint", "uint32" }, { "float", "float32" }, { "double", "float64" } };
+
+        /** The sizes in bytes of the types of the properties, by their codes. */
+        private static final int[] SIZES = { 1, 1, 2, 2, 4, 4, 4, 8 };
+
+        /** The code of a missing type - the type of the length of a scalar property. */
+        private static final int NONE = -1;
+
+        /**
+         * A property of an element of the file.
+         *
+         * @param name The name of the property.
+         * @param type The code of the type of the property, or of the items of a list property.
+         * @param countType The code of the type of the length of a list property, {@link #NONE} for a scalar
+         *                  property.
+         */
+        private record Property(String name, int type, int countType) {}
+
+        /**
+         * An element of the file.
+         *
+         * @param name The name of the element.
+         * @param count The amount of instances of the element.
+         * @param properties The properties of the element.
+         */
+        private record Element(String name, long count, List<Property> properties) {}
+
+        /** The channel of the file. */
+        private final FileChannel channel;
+
+        /** The positions of the vertices. */
+        private final DoubleArray positions;
+
+        /** The indices of the faces. */
+        private final IntArray indices;
+
+        /** The byte order of the file. */
+        private ByteOrder order;
+
+        /** The window of the file that is mapped. */
+        private MappedByteBuffer window;
+
+        /** The position in the file of the start of the window. */
+        private long windowStart;
+
+        /** The amount of vertices so far. */
+        private int vertices = 0;
+
+        /**
+         * Constructs a parser of a file.
+         *
+         * @param channel The channel of the file.
+         * @param positions The array that receives the positions of the vertices.
+         * @param indices The array that receives the indices of the faces.
+         */
+        PlyParser(FileChannel channel, DoubleArray positions, IntArray indices) {
+            this.channel = channel;
+            this.positions = positions;
+            this.indices = indices;
+        }
+
+        /**
+         * Parses the whole file.
+         *
+         * @throws IOException if the file cannot be read or is malformed.
+         */
+        void parse() throws IOException {
+            List<Element> elements = new ArrayList<>();
+            long bodyStart = parseHeader(elements);
+            map(bodyStart, 0);
+            for (Element element : elements) {
+                if (element.name.equals("vertex")) {
+                    parseVertices(element);
+                } else if (element.name.equals("face")) {
+                    parseFaces(element);
+                } else {
+                    for (long i = 0; i < element.count; ++i) {
+                        for (Property property : element.properties) {
+                            skip(property);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Parses the text header of the file.
+         *
+         * @param elements The list that receives the elements of the file.
+         * @return The position in the file of the start of the body.
+         * @throws IOException if the file cannot be read or the header is malformed.
+         */
+        private long parseHeader(List<Element> elements) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(channel.size(), 1 << 16));
+            channel.read(header, 0);
+            header.flip();
+            String text = StandardCharsets.US_ASCII.decode(header).toString();
+            int end = text.indexOf("end_header");
+            if (!text.startsWith("ply") || end < 0) {
+                throw new IOException("Malformed PLY file: a missing header");
+            }
+            int bodyStart = text.indexOf('\n', end) + 1;
+            if (bodyStart == 0) {
+                throw new IOException("Malformed PLY file: a missing header");
+            }
+            for (String line : text.substring(0, end).split("\r?\n")) {
+                String[] words = line.trim().split("\\s+");
+                switch (words[0]) {
+                    case "format" -> {
+                        if (words.length < 2) {
+                            throw new IOException("Malformed PLY file: " + line);
+                        }
+                        switch (words[1]) {
+                            case "binary_little_endian" -> order = ByteOrder.LITTLE_ENDIAN;
+                            case "binary_big_endian" -> order = ByteOrder.BIG_ENDIAN;
+                            default -> throw new IOException("Unsupported PLY format: " + words[1]);
+                        }
+                    }
+                    case "element" -> {
+                        if (words.length < 3) {
+                            throw new IOException("Malformed PLY file: " + line);
+                        }
+                        elements.add(new Element(words[1], Long.parseLong(words[2]), new ArrayList<>()));
+                    }
+                    case "property" -> {
+                        if (elements.isEmpty() || words.length < 3) {
+                            throw new IOException("Malformed PLY file: " + line);
+                        }
+                        if (words[1].equals("list") && words.length < 5) {
+                            throw new IOException("Malformed PLY file: " + line);
+                        }
+                        Property property = words[1].equals("list")
+                                ? new Property(words[4], type(words[3]), type(words[2]))
+                                : new Property(words[2], type(words[1]), NONE);
+                        elements.get(elements.size() - 1).properties.add(property);
+                    }
+                    default -> {
+                        // ply, comment and obj_info lines
+                    }
+                }
+            }
+            if (order == null) {
+                throw new IOException("Malformed PLY file: a missing format");
+            }
+            return bodyStart;
+        }
+
+        /**
+         * Gets the code of a type of property.
+         *
+         * @param name The name of the type.
+         * @return The code of the type.
+         * @throws IOException if the type is unknown.
+         */
+        private static int type(String name) throws IOException {
+            for (int type = 0; type < TYPES.length; ++type) {
+                if (TYPES[type][0].equals(name) || TYPES[type][1].equals(name)) {
+                    return type;
+                }
+            }
+            throw new IOException("Malformed PLY file: an unknown type " + name);
+        }
+
+        /**
+         * Maps the window of the file that starts at a position.
+         *
+         * @param position The position in the file.
+         * @param needed The amount of bytes the window must hold.
+         * @throws IOException if the file cannot be mapped or ends before the needed bytes.
+         */
+        private void map(long position, int needed) throws IOException {
+            long size = Math.min(WINDOW_SIZE, channel.size() - position);
+            if (size < needed) {
+                throw new EOFException("Malformed PLY file: the body ends early");
+            }
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            window.order(order);
+            windowStart = position;
+        }
+
+        /**
+         * Makes sure that the window holds the next bytes of the file.
+         *
+         * @param needed The amount of bytes.
+         * @throws IOException if the file ends before the bytes.
+         */
+        private void ensure(int needed) throws IOException {
+            if (window.remaining() < needed) {
+                map(windowStart + window.position(), needed);
+            }
+        }
+
+        /**
+         * Reads a number of a type.
+         *
+         * @param type The code of the type.
+         * @return The number.
+         * @throws IOException if the file ends before the number.
+         */
+        private double read(int type) throws IOException {
+            ensure(SIZES[type]);
+            return switch (type) {
+                case 0 -> window.get();
+                case 1 -> window.get() & 0xFF;
+                case 2 -> window.getShort();
+                case 3 -> window.getShort() & 0xFFFF;
+                case 4 -> window.getInt();
+                case 5 -> window.getInt() & 0xFFFFFFFFL;
+                case 6 -> window.getFloat();
+                default -> window.getDouble();
+            };
+        }
+
+        /**
+         * Reads an integer of a type.
+         *
+         * @param type The code of the type.
+         * @return The integer.
+         * @throws IOException if the file ends before the integer or it is out of range.
+         */
+        private int readInt(int type) throws IOException {
+            double value = read(type);
+            if (value < 0 || value > Integer.MAX_VALUE || value != Math.rint(value)) {
+                throw new IOException("Malformed PLY file: an index out of range");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Skips a property.
+         *
+         * @param property The property.
+         * @throws IOException if the file ends before the property.
+         */
+        private void skip(Property property) throws IOException {
+            if (property.countType == NONE) {
+                skipBytes(SIZES[property.type]);
+            } else {
+                skipBytes((long) readInt(property.countType) * SIZES[property.type]);
+            }
+        }
+
+        /**
+         * Skips bytes of the file.
+         *
+         * @param count The amount of bytes.
+         * @throws IOException if the file ends before the bytes.
+         */
+        private void skipBytes(long count) throws IOException {
+            if (window.remaining() >= count) {
+                window.position(window.position() + (int) count);
+            } else {
+                map(windowStart + window.position() + count, 0);
+            }
+        }
+
+        /**
+         * Parses the vertex element.
+         *
+         * @param element The element.
+         * @throws IOException if the file ends early or the element has no coordinates.
+         */
+        private void parseVertices(Element element) throws IOException {
+            List<Property> properties = element.properties;
+            int x = -1, y = -1, z = -1;
+            for (int i = 0; i < properties.size(); ++i) {
+                switch (properties.get(i).name) {
+                    case "x" -> x = i;
+                    case "y" -> y = i;
+                    case "z" -> z = i;
+                    default -> {
+                    }
+                }
+            }
+            if (x < 0 || y < 0 || z < 0) {
+                throw new IOException("Malformed PLY file: vertices without coordinates");
+            }
+            double[] values = new double[properties.size()];
+            for (long v = 0; v < element.count; ++v) {
+                for (int i = 0; i < values.length; ++i) {
+                    Property property = properties.get(i);
+                    if (property.countType == NONE) {
+                        values[i] = read(property.type);
+                    } else {
+                        skip(property);
+                    }
+                }
+                positions.add(values[x], values[y], values[z]);
+            }
+            vertices += (int) element.count;
+        }
+
+        /**
+         * Parses the face element.
+         *
+         * @param element The element.
+         * @throws IOException if the file ends early or the element has no vertex indices.
+         */
+        private void parseFaces(Element element) throws IOException {
+            List<Property> properties = element.properties;
+            int list = -1;
+            for (int i = 0; i < properties.size(); ++i) {
+                Property property = properties.get(i);
+                if (property.countType != NONE
+                        && (property.name.equals("vertex_indices") || property.name.equals("vertex_index"))) {
+                    list = i;
+                }
+            }
+            if (list < 0) {
+                throw new IOException("Malformed PLY file: faces without vertex indices");
+            }
+            Property indexProperty = properties.get(list);
+            int[] face = new int[16];
+            for (long f = 0; f < element.count; ++f) {
+                for (int i = 0; i < properties.size(); ++i) {
+                    if (i != list) {
+                        skip(properties.get(i));
+                        continue;
+                    }
+                    int count = readInt(indexProperty.countType);
+                    if (count < 3) {
+                        throw new IOException("Malformed PLY file: a face of less than 3 vertices");
+                    }
+                    if (count > face.length) {
+                        face = new int[count];
+                    }
+                    for (int k = 0; k < count; ++k) {
+                        face[k] = readInt(indexProperty.type);
+                        if (face[k] >= vertices) {
+                            throw new IOException("Malformed PLY file: a face of a missing vertex");
+                        }
+                    }
+                    for (int k = 2; k < count; ++k) {
+                        indices.add(face[0], face[k - 1], face[k]);
+                    }
+                }
+            }
+        }
+    }
+}
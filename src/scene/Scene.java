@@ -70,6 +70,16 @@ public class Scene {
         return this;
     }
 
+    /**
+     * Brings the geometries of the scene up to date for the next frame of an animation, after geometries moved -
+     * the hierarchy built for the previous frame is refit, and built again where it has degraded too much.
+     *
+     * @return How the hierarchy of the scene was brought up to date.
+     */
+    public Geometries.Update updateGeometries() {
+        return this.geometries.refit();
+    }
+
     /**
      * Sets the list of light sources of the scene object.
      *
@@ -0,0 +1,267 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.GeometryCodec;
+import geometries.Intersectable;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.Color;
+import primitives.Point;
+import renderer.Blackboard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * The SceneCache class keeps a prepared scene in a compact binary file - its geometries and materials, its lights,
+ * and the bounding volume hierarchies built over its geometries - so that a later run starts tracing the scene
+ * without parsing its sources or building its hierarchies again.<br/>
+ * The file is mapped into memory when read. The buffers of the meshes and the arrays of the hierarchies are
+ * copied out of the mapping in bulk, and only the analytic geometries, the materials and the lights become
+ * objects again.<br/>
+ * A file starts with a header that holds the version of the format, a key of the sources that the scene was
+ * prepared from (e.g. a hash of the scene description and the modification times of its assets), the size
+ * and a checksum of the content. A file of another version or key is stale, and a file whose content doesn't
+ * match its size or its checksum is corrupted - both are rejected.
+ */
+public class SceneCache {
+
+    /** The first bytes of a cache file - "RTSC" in ASCII. */
+    static final int MAGIC = 0x43535452;
+
+    /** The version of the format. A cache of any other version is rejected. */
+    public static final int VERSION = 4;
+
+    /** The size of the header in bytes - magic, version, key, size and checksum of the content, and padding. */
+    static final int HEADER_SIZE = 32;
+
+    /** The tag of a directional light. */
+    private static final int DIRECTIONAL_LIGHT = 1;
+
+    /** The tag of a point light. */
+    private static final int POINT_LIGHT = 2;
+
+    /** The tag of a spot light. */
+    private static final int SPOT_LIGHT = 3;
+
+    /** The path of the cache file. */
+    private final Path path;
+
+    /** The key of the sources of the scene. */
+    private final long key;
+
+    /**
+     * Constructs a cache of a scene in a file.
+     *
+     * @param path The path of the cache file.
+     * @param key The key of the sources of the scene - a cache written with another key is stale.
+     */
+    public SceneCache(Path path, long key) {
+        this.path = path;
+        this.key = key;
+    }
+
+    /**
+     * Gets the path of the cache file.
+     *
+     * @return The path of the cache file.
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Reads the scene from the cache if the cache is valid, and otherwise prepares the scene and writes it
+     * to the cache for the next runs.
+     *
+     * @param builder The preparation of the scene - including the construction of its hierarchies,
+     *                which are cached with it.
+     * @return The scene.
+     * @throws IOException if the cache can't be written.
+     */
+    public Scene load(Supplier<Scene> builder) throws IOException {
+        if (Files.exists(this.path)) {
+            try {
+                return read();
+            } catch (IOException stale) {
+                // the cache is stale or corrupted - it is replaced below
+            }
+        }
+        Scene scene = builder.get();
+        write(scene);
+        return scene;
+    }
+
+    /**
+     * Writes a scene to the cache. The file is written aside and then moved into place,
+     * so that a concurrent reader never sees a partial file.
+     *
+     * @param scene The scene.
+     * @throws IOException if the file can't be written.
+     * @throws IllegalArgumentException if the scene holds a geometry or a light of a kind that can't be cached.
+     */
+    public void write(Scene scene) throws IOException {
+        GeometryCodec.Encoder out = new GeometryCodec.Encoder();
+        out.putString(scene.name).putColor(scene.background).putColor(scene.ambientLight.getIntensity());
+        out.putInt(scene.lights.size());
+        for (LightSource light : scene.lights) {
+            putLight(out, light);
+        }
+        out.putGeometry(scene.geometries);
+        ByteBuffer content = out.toBuffer();
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(content.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(this.key).putLong(content.remaining())
+                .putInt((int) checksum.getValue()).putInt(0).flip();
+
+        Path directory = this.path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, this.path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            try {
+                Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the scene from the cache.
+     *
+     * @return The scene, with the hierarchies that were built over its geometries when it was written.
+     * @throws IOException if the file can't be read, or is not a cache, or is stale or corrupted.
+     */
+    public Scene read() throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a scene cache: " + this.path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a scene cache: " + this.path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Stale scene cache: version " + version + " instead of " + VERSION);
+        }
+        if (buffer.getLong() != this.key) {
+            throw new IOException("Stale scene cache: the sources of the scene have changed");
+        }
+        long length = buffer.getLong();
+        int expected = buffer.getInt();
+        buffer.position(HEADER_SIZE);
+        if (length != buffer.remaining()) {
+            throw new IOException("Corrupted scene cache: " + buffer.remaining() + " bytes instead of " + length);
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate());
+        if ((int) checksum.getValue() != expected) {
+            throw new IOException("Corrupted scene cache: a wrong checksum");
+        }
+
+        try {
+            GeometryCodec.Decoder in = new GeometryCodec.Decoder(buffer);
+            Scene scene = new Scene(in.getString()).setBackground(in.getColor())
+                    .setAmbientLight(new AmbientLight(in.getColor(), 1));
+            int lightCount = in.getInt();
+            List<LightSource> lights = new LinkedList<>();
+            for (int i = 0; i < lightCount; ++i) {
+                lights.add(getLight(in));
+            }
+            scene.setLights(lights);
+            if (!(in.getGeometry() instanceof Geometries geometries) || in.remaining() != 0) {
+                throw new IllegalArgumentException("Cache data given is Illegal.");
+            }
+            return scene.setGeometries(geometries);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted scene cache: " + this.path, e);
+        }
+    }
+
+    /**
+     * Writes a light source.
+     *
+     * @param out The encoder to write to.
+     * @param light The light source.
+     * @throws IllegalArgumentException if the light is of a kind that can't be cached.
+     */
+    private static void putLight(GeometryCodec.Encoder out, LightSource light) {
+        if (light instanceof DirectionalLight directional) {
+            out.putInt(DIRECTIONAL_LIGHT).putColor(directional.getIntensity()).putPoint(directional.getL(null));
+            return;
+        }
+        if (!(light instanceof PointLight point)) {
+            throw new IllegalArgumentException("Light given is Illegal.");
+        }
+        out.putInt(point instanceof SpotLight ? SPOT_LIGHT : POINT_LIGHT)
+                .putColor(point.getIntensity()).putPoint(point.getPosition())
+                .putDouble(point.getKc()).putDouble(point.getKl()).putDouble(point.getKq());
+        Blackboard blackboard = point.blackboard;
+        out.putDouble(blackboard.getWidth()).putDouble(blackboard.getHeight())
+                .putInt(blackboard.getNx()).putInt(blackboard.getNy()).putInt(blackboard.getSampling().ordinal())
+                .putInt(blackboard.getPatternCount());
+        if (point instanceof SpotLight spot) {
+            out.putPoint(spot.getDirection()).putDouble(spot.getNarrowBeam());
+        }
+    }
+
+    /**
+     * Reads a light source.
+     *
+     * @param in The decoder to read from.
+     * @return The light source.
+     * @throws IllegalArgumentException if the data is not of a light.
+     */
+    private static LightSource getLight(GeometryCodec.Decoder in) {
+        int tag = in.getInt();
+        if (tag == DIRECTIONAL_LIGHT) {
+            return new DirectionalLight(in.getColor(), in.getVector());
+        }
+        if (tag != POINT_LIGHT && tag != SPOT_LIGHT) {
+            throw new IllegalArgumentException("Cache data given is Illegal.");
+        }
+        Color intensity = in.getColor();
+        Point position = in.getPoint();
+        double kC = in.getDouble(), kL = in.getDouble(), kQ = in.getDouble();
+        double width = in.getDouble(), height = in.getDouble();
+        int nx = in.getInt(), ny = in.getInt();
+        Blackboard.Sampling sampling = Blackboard.Sampling.values()[in.getInt()];
+        int patterns = in.getInt();
+        PointLight light = tag == POINT_LIGHT ? new PointLight(intensity, position, width, height, nx, ny)
+                : new SpotLight(intensity, position, in.getVector(), width, height, nx, ny)
+                        .setNarrowBeam(in.getDouble());
+        light.blackboard.setSampling(sampling).setPatterns(patterns);
+        return light.setKc(kC).setKl(kL).setKq(kQ);
+    }
+}
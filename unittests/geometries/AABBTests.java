@@ -0,0 +1,75 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.AABB class
+ * @author Eliel Monfort
+ */
+public class AABBTests {
+
+    /** A unit cube around the origin */
+    private final AABB cube = new AABB(new Point(-1, -1, -1), new Point(1, 1, 1));
+
+    /**
+     * Test method for
+     * {@link geometries.AABB#intersects(primitives.Ray, double)}.
+     */
+    @Test
+    void testIntersects() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A ray that passes through the box
+        assertTrue(cube.intersects(new Ray(new Point(-5, 0.5, 0.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: A ray through the box is not detected");
+
+        // TC02: A ray that misses the box
+        assertFalse(cube.intersects(new Ray(new Point(-5, 2, 0), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: A ray that misses the box is detected");
+
+        // TC03: A ray that starts after the box
+        assertFalse(cube.intersects(new Ray(new Point(5, 0, 0), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: A ray that starts after the box is detected");
+
+        // TC04: A ray that starts inside the box
+        assertTrue(cube.intersects(new Ray(Point.ZERO, new Vector(1, 1, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: A ray from inside the box is not detected");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The box is beyond the maximum distance
+        assertFalse(cube.intersects(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0)), 3),
+                "ERROR: A box beyond the maximum distance is detected");
+
+        // TC11: A flat box (of an axis aligned polygon)
+        AABB flat = new AABB(new Point(-1, -1, 0), new Point(1, 1, 0));
+        assertTrue(flat.intersects(new Ray(new Point(0, 0, 5), new Vector(0.1, 0, -1)), Double.POSITIVE_INFINITY),
+                "ERROR: A ray through a flat box is not detected");
+
+        // TC12: The unbounded box is hit by every ray
+        assertTrue(AABB.UNBOUNDED.intersects(new Ray(new Point(5, 5, 5), new Vector(1, 2, 3)), 1),
+                "ERROR: The unbounded box is missed");
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.AABB#union(geometries.AABB)}.
+     */
+    @Test
+    void testUnion() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The union of two boxes
+        assertEquals(new AABB(-1, -1, -1, 3, 2, 1), cube.union(new AABB(0, 0, 0, 3, 2, 0)),
+                "ERROR: The union of two boxes is wrong");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The empty box is the neutral element of the union
+        assertEquals(cube, AABB.EMPTY.union(cube), "ERROR: The union with the empty box is wrong");
+        assertTrue(AABB.EMPTY.isEmpty(), "ERROR: The empty box is not empty");
+        assertFalse(AABB.UNBOUNDED.isBounded(), "ERROR: The unbounded box is bounded");
+        assertEquals(24, cube.surfaceArea(), 0.000001, "ERROR: The surface area is wrong");
+    }
+}
@@ -0,0 +1,102 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.BvhBuilder class
+ * @author Eliel Monfort
+ */
+public class BvhBuilderTests {
+
+    /**
+     * Creates a scene of a big floor polygon next to a dense cluster of small triangles.
+     *
+     * @param geometries The collection to fill.
+     */
+    private void fillUnevenScene(Geometries geometries) {
+        Random random = new Random(7);
+        geometries.add(new Polygon(new Point(-1000, -1, -1000), new Point(1000, -1, -1000),
+                new Point(1000, -1, 1000), new Point(-1000, -1, 1000)));
+        for (int i = 0; i < 2000; ++i) {
+            Point p = new Point(random.nextDouble() * 10, random.nextDouble() * 10, random.nextDouble() * 10);
+            geometries.add(new Triangle(p, p.add(new Vector(0.3, 0, 0)), p.add(new Vector(0, 0.3, 0.1))));
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#buildBvh(geometries.BvhBuilder)}.
+     */
+    @Test
+    void testBuild() {
+        Geometries linear = new Geometries();
+        fillUnevenScene(linear);
+        Geometries sah = new Geometries();
+        fillUnevenScene(sah);
+        sah.buildBvh(new BvhBuilder());
+        Geometries median = new Geometries();
+        fillUnevenScene(median);
+        median.buildBvh(new BvhBuilder().setSplitMethod(BvhBuilder.SplitMethod.MEDIAN));
+        Geometries parallel = new Geometries();
+        fillUnevenScene(parallel);
+        parallel.buildBvh(new BvhBuilder().setParallelism(new ForkJoinPool(4), 16).setLeafSize(2).setBins(8));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: All the hierarchies find the same intersections as the linear search
+        Random random = new Random(11);
+        Point head = new Point(5, 30, 5);
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(head, new Point(random.nextDouble() * 12 - 1, random.nextDouble() * 10,
+                    random.nextDouble() * 12 - 1).subtract(head));
+            List<Point> expected = linear.findIntersections(ray);
+            for (Geometries geometries : List.of(sah, median, parallel)) {
+                List<Point> result = geometries.findIntersections(ray);
+                if (expected == null) {
+                    assertNull(result, "ERROR: BVH found intersections where there are none");
+                } else {
+                    assertEquals(expected.size(), result.size(), "ERROR: BVH found wrong number of intersections");
+                    assertTrue(result.containsAll(expected), "ERROR: BVH found wrong intersections");
+                }
+            }
+        }
+
+        // TC02: The statistics describe the tree, and SAH expects a cheaper tree than the median split
+        BvhBuilder.Statistics sahStatistics = sah.getBvhStatistics();
+        BvhBuilder.Statistics medianStatistics = median.getBvhStatistics();
+        assertEquals(sahStatistics.nodes(), 2 * sahStatistics.leaves() - 1, "ERROR: The tree is not binary");
+        assertTrue(sahStatistics.depth() <= 48, "ERROR: The tree is too deep");
+        assertTrue(sahStatistics.expectedCost() < medianStatistics.expectedCost(),
+                "ERROR: SAH tree is not cheaper than the median split tree");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A hierarchy of a single geometry
+        Geometries single = new Geometries(new Sphere(1, Point.ZERO)).buildBvh();
+        assertEquals(1, single.getBvhStatistics().nodes(), "ERROR: Single geometry hierarchy has wrong size");
+        assertEquals(2, single.findIntersections(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1))).size(),
+                "ERROR: Single geometry hierarchy finds wrong intersections");
+
+        // TC11: Geometries with the same bounds can't be separated and are still found
+        Geometries same = new Geometries();
+        for (int i = 0; i < 10; ++i) {
+            same.add(new Sphere(1, Point.ZERO));
+        }
+        same.buildBvh(new BvhBuilder().setLeafSize(1));
+        assertEquals(20, same.findIntersections(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1))).size(),
+                "ERROR: Geometries with the same bounds are not found");
+
+        // TC12: Illegal settings
+        assertThrows(IllegalArgumentException.class, () -> new BvhBuilder().setLeafSize(0),
+                "ERROR: Illegal leaf size is accepted");
+        assertThrows(IllegalArgumentException.class, () -> new BvhBuilder().setBins(1),
+                "ERROR: Illegal bins count is accepted");
+    }
+}
@@ -1,6 +1,138 @@
 package geometries;
 
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
+/**
+ * Unit tests for geometries.Cylinder class
+ * @author Eliel Monfort
+ */
 public class CylinderTests {
-}
\ No newline at end of file
+
+    /** A cylinder of radius 1 and height 2, standing on the xy plane around the z axis. */
+    private final Cylinder cylinder = new Cylinder(1, new Ray(Point.ZERO, new Vector(0, 0, 1)), 2);
+
+    /**
+     * Test case for the
+     * {@link geometries.Cylinder#getNormal(primitives.Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point on the side
+        assertEquals(new Vector(1, 0, 0), cylinder.getNormal(new Point(1, 0, 1)), "Wrong normal of the side");
+
+        // TC02: A point on the lower base
+        assertEquals(new Vector(0, 0, -1), cylinder.getNormal(new Point(0.5, 0, 0)), "Wrong normal of the lower base");
+
+        // TC03: A point on the upper base
+        assertEquals(new Vector(0, 0, 1), cylinder.getNormal(new Point(0.5, 0, 2)), "Wrong normal of the upper base");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The centers of the bases
+        assertEquals(new Vector(0, 0, -1), cylinder.getNormal(Point.ZERO), "Wrong normal of the lower center");
+        assertEquals(new Vector(0, 0, 1), cylinder.getNormal(new Point(0, 0, 2)), "Wrong normal of the upper center");
+    }
+
+    /**
+     * Test case for the
+     * {@link geometries.Cylinder#getBounds()}.
+     */
+    @Test
+    void testGetBounds() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A slanted cylinder is bounded by the boxes of the discs of its bases
+        Cylinder slanted = new Cylinder(1, new Ray(new Point(1, 2, 3), new Vector(1, 1, 0)), Math.sqrt(2));
+        double e = Math.sqrt(0.5);
+        AABB box = slanted.getBounds();
+        assertEquals(1 - e, box.minX, 1e-10, "Wrong bounds of a slanted cylinder");
+        assertEquals(2 - e, box.minY, 1e-10, "Wrong bounds of a slanted cylinder");
+        assertEquals(2, box.minZ, 1e-10, "Wrong bounds of a slanted cylinder");
+        assertEquals(2 + e, box.maxX, 1e-10, "Wrong bounds of a slanted cylinder");
+        assertEquals(3 + e, box.maxY, 1e-10, "Wrong bounds of a slanted cylinder");
+        assertEquals(4, box.maxZ, 1e-10, "Wrong bounds of a slanted cylinder");
+
+        // TC02: Every point of the surface is in the box
+        for (int i = 0; i < 100; ++i) {
+            // a point at a height along the axis (1,1,0)/√2, around it in the plane of (1,-1,0)/√2 and (0,0,1)
+            double angle = i * 0.37, height = (i % 10) / 9.0, c = Math.cos(angle) * e;
+            Point p = new Point(1 + height + c, 2 + height - c, 3 + Math.sin(angle));
+            assertTrue(p.getX() >= box.minX - 1e-10 && p.getX() <= box.maxX + 1e-10
+                    && p.getY() >= box.minY - 1e-10 && p.getY() <= box.maxY + 1e-10
+                    && p.getZ() >= box.minZ - 1e-10 && p.getZ() <= box.maxZ + 1e-10,
+                    "A point of the surface is out of the bounds - point " + i);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A cylinder along an axis is bounded by its radius across the axis and its height along it
+        assertEquals(new AABB(-1, -1, 0, 1, 1, 2), cylinder.getBounds(), "Wrong bounds of an upright cylinder");
+
+        // TC11: A tube is unbounded
+        assertFalse(new Tube(1, new Ray(Point.ZERO, new Vector(0, 0, 1))).getBounds().isBounded(),
+                "A tube is bounded");
+    }
+
+    /**
+     * Test case for the
+     * {@link geometries.Cylinder#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        final Vector v100 = new Vector(1, 0, 0);
+        final Vector v001 = new Vector(0, 0, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the side twice (2 points)
+        assertEquals(List.of(new Point(-1, 0, 1), new Point(1, 0, 1)),
+                cylinder.findIntersections(new Ray(new Point(-2, 0, 1), v100)), "Ray crosses the side");
+
+        // TC02: Ray crosses both bases (2 points)
+        assertEquals(List.of(new Point(0.5, 0, 0), new Point(0.5, 0, 2)),
+                cylinder.findIntersections(new Ray(new Point(0.5, 0, -1), v001)), "Ray crosses the bases");
+
+        // TC03: Ray enters through the side and leaves through the upper base (2 points)
+        assertEquals(List.of(new Point(-1, 0, 1.5), new Point(-0.5, 0, 2)),
+                cylinder.findIntersections(new Ray(new Point(-2, 0, 0.5), new Vector(1, 0, 1))),
+                "Ray crosses the side and a base");
+
+        // TC04: Ray passes above the cylinder through the line of the tube (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(-2, 0, 3), v100)), "Ray above the cylinder");
+
+        // TC05: Ray starts inside the cylinder (1 point)
+        assertEquals(List.of(new Point(0, 0, 2)), cylinder.findIntersections(new Ray(new Point(0, 0, 1), v001)),
+                "Ray starts inside the cylinder");
+
+        // TC06: Ray starts after the cylinder (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(0, 0, 3), v001)), "Ray starts after the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Ray in the plane of a base (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(-2, 0, 2), v100)), "Ray in the plane of a base");
+
+        // TC11: Ray along the side (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(1, 0, -1), v001)), "Ray along the side");
+
+        // TC12: Ray starts on a base and goes outside (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(0.5, 0, 2), v001)), "Ray starts on a base");
+
+        // TC13: Ray starts on a base and goes inside (1 point)
+        assertEquals(List.of(new Point(0.5, 0, 2)), cylinder.findIntersections(new Ray(new Point(0.5, 0, 0), v001)),
+                "Ray starts on a base and goes inside");
+
+        // TC14: The second intersection is beyond the maximum distance (1 point)
+        assertEquals(List.of(new Point(0.5, 0, 0)),
+                cylinder.findIntersections(new Ray(new Point(0.5, 0, -1), v001), 2), "Wrong intersections up to a distance");
+
+        // TC15: The closest intersection and its normal
+        Intersectable.GeoPoint closest = cylinder.findClosestGeoIntersection(new Ray(new Point(0.5, 0, 5),
+                new Vector(0, 0, -1)));
+        assertEquals(new Point(0.5, 0, 2), closest.point, "Wrong closest intersection");
+        assertEquals(v001, closest.getNormal(), "Wrong normal of the closest intersection");
+    }
+}
@@ -1,12 +1,22 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
+import scene.Scene;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for geometries.Geometries class
@@ -51,4 +61,510 @@ public class GeometriesTests {
         assertNull(emptyG.findIntersections(new Ray(p060, new Vector(1, 1, 1))),
                 "Intersections with non geometries does not work correctly");
     }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#buildBvh()}.
+     */
+    @Test
+    void testBuildBvh() {
+        Point p060 = new Point(0, 6, 0);
+
+        // A grid of small spheres, a triangle and an unbounded plane
+        Geometries linear = new Geometries();
+        Geometries hierarchy = new Geometries();
+        for (int i = -5; i <= 5; ++i) {
+            for (int j = -5; j <= 5; ++j) {
+                Sphere sphere = new Sphere(0.4, new Point(i, -3, j));
+                linear.add(sphere);
+                hierarchy.add(sphere);
+            }
+        }
+        Plane plane = new Plane(new Point(0, -10, 0), new Vector(0, 1, 0));
+        Triangle triangle = new Triangle(new Point(3, 0, 0), new Point(-3, 0, 0), new Point(0, 0, 3));
+        linear.add(plane, triangle);
+        hierarchy.add(plane, new Geometries(triangle));
+        hierarchy.buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The hierarchy finds the same intersections as the linear search
+        Vector[] directions = { new Vector(0, -1, 0), new Vector(1, -6, 1), new Vector(0, -7, 1),
+                new Vector(-2, -2, 0), new Vector(0.3, -1, -0.2), new Vector(5, -9, 5) };
+        for (Vector direction : directions) {
+            Ray ray = new Ray(p060, direction);
+            var expected = linear.findIntersections(ray);
+            var result = hierarchy.findIntersections(ray);
+            if (expected == null) {
+                assertNull(result, "BVH found intersections where there are none");
+            } else {
+                assertEquals(expected.size(), result.size(), "BVH found wrong number of intersections");
+                assertTrue(result.containsAll(expected), "BVH found wrong intersections");
+            }
+        }
+
+        // TC02: The maximum distance is respected by the hierarchy
+        assertEquals(2, hierarchy.findIntersections(new Ray(p060, new Vector(0, -1, 0)), 10).size(),
+                "BVH does not respect the maximum distance");
+        assertNull(hierarchy.findIntersections(new Ray(p060, new Vector(0, -1, 0)), 8),
+                "BVH does not respect the maximum distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: An empty collection with a hierarchy
+        assertNull(new Geometries().buildBvh().findIntersections(new Ray(p060, new Vector(1, 1, 1))),
+                "BVH of an empty collection found intersections");
+
+        // TC11: Adding a geometry after building drops the hierarchy and the geometry is found
+        hierarchy.add(new Sphere(1, new Point(0, 20, 0)));
+        assertEquals(2, hierarchy.findIntersections(new Ray(p060, new Vector(0, 1, 0))).size(),
+                "Geometry added after building the BVH is not found");
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#findClosestGeoIntersection(primitives.Ray, double)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Point p060 = new Point(0, 6, 0);
+        Plane plane = new Plane(new Point(2, 0, 0), new Point(0, -2, 0), new Point(0, 0, 4));
+        Triangle triangle = new Triangle(new Point(3, 0, 0), new Point(-3, 0, 0), new Point(0, 0, 3));
+        Sphere sphere = new Sphere(1, new Point(0, 1, 0));
+        Ray ray = new Ray(p060, new Vector(0, -7, 1));
+
+        for (Geometries geometries : new Geometries[] { new Geometries(plane, triangle, sphere),
+                new Geometries(plane, triangle, sphere).buildBvh() }) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The closest of the intersections with all the geometries
+            var expected = ray.findClosestGeoPoint(geometries.findGeoIntersections(ray));
+            assertEquals(expected, geometries.findClosestGeoIntersection(ray),
+                    "The closest intersection with the geometries is wrong");
+            assertEquals(sphere, geometries.findClosestGeoIntersection(ray).geometry,
+                    "The closest intersection is not with the nearest geometry");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: No intersection within the maximum distance
+            assertNull(geometries.findClosestGeoIntersection(ray, 3),
+                    "Intersection beyond the maximum distance is found");
+
+            // TC11: Ray that misses all the geometries
+            assertNull(geometries.findClosestGeoIntersection(new Ray(p060, new Vector(-2, -2, 0))),
+                    "Intersection of a ray that misses all the geometries is found");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#transmittance(primitives.Ray, double)} and
+     * {@link geometries.Geometries#occluded(primitives.Ray, double)}.
+     */
+    @Test
+    void testTransmittance() {
+        Point p060 = new Point(0, 6, 0);
+        Ray ray = new Ray(p060, new Vector(0, -1, 0));
+        Sphere glass = (Sphere) new Sphere(1, new Point(0, 3, 0)).setMaterial(new Material().setKt(0.5));
+        Plane wall = new Plane(new Point(0, -2, 0), new Vector(0, 1, 0));
+        Triangle opaque = new Triangle(new Point(3, 0, -1), new Point(-3, 0, -1), new Point(0, 0, 3));
+
+        for (Geometries geometries : new Geometries[] { new Geometries(glass, wall, opaque),
+                new Geometries(glass, wall, opaque).buildBvh() }) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Only the transparent sphere is before the light - the light passes it twice
+            assertEquals(new Double3(0.25), geometries.transmittance(ray, 5),
+                    "Transmittance through a transparent geometry is wrong");
+            assertFalse(geometries.occluded(ray, 5), "Transparent geometry occludes the light");
+
+            // TC02: An opaque geometry is before the light
+            assertEquals(Double3.ZERO, geometries.transmittance(ray, 10),
+                    "Transmittance through an opaque geometry is wrong");
+            assertTrue(geometries.occluded(ray, 10), "Opaque geometry does not occlude the light");
+
+            // TC03: Nothing is in the way to the light
+            assertEquals(Double3.ONE, geometries.transmittance(new Ray(p060, new Vector(0, 1, 0)), 10),
+                    "Transmittance of a free path is wrong");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: The light is before all the geometries
+            assertEquals(Double3.ONE, geometries.transmittance(ray, 1),
+                    "Geometry beyond the light blocks it");
+            assertFalse(geometries.occluded(ray, 1), "Geometry beyond the light occludes it");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#occluded(primitives.Ray, double)} and
+     * {@link geometries.Geometries#isOpaque()}.
+     */
+    @Test
+    void testOccluded() {
+        Random random = new Random(4);
+        Geometries flat = randomScene(random);
+        random = new Random(4);
+        Geometries hierarchy = randomScene(random).buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An opaque scene occludes a ray exactly when the ray hits it before the light
+        for (Geometries geometries : new Geometries[] { flat, hierarchy }) {
+            assertTrue(geometries.isOpaque(), "Opaque scene is not opaque");
+            random = new Random(40);
+            for (int i = 0; i < 300; ++i) {
+                Point head = new Point(random.nextDouble(-40, 40), random.nextDouble(-40, 40),
+                        random.nextDouble(-40, 40));
+                Ray ray = new Ray(head, new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1),
+                        random.nextDouble(-1, 1)));
+                double distance = random.nextDouble(1, 80);
+                assertEquals(geometries.findClosestGeoIntersection(ray, distance) != null,
+                        geometries.occluded(ray, distance), "Wrong occlusion of a ray - ray " + i);
+            }
+        }
+
+        // TC02: The search ends at the first opaque geometry in the way
+        int[] tests = { 0 };
+        Geometries line = new Geometries();
+        for (int i = 0; i < 100; ++i) {
+            Sphere sphere = new Sphere(0.4, new Point(i, 0, 0));
+            line.add(new Intersectable() {
+                @Override
+                public AABB getBounds() {
+                    return sphere.getBounds();
+                }
+
+                @Override
+                protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+                    return sphere.findGeoIntersections(ray, maxDistance);
+                }
+
+                @Override
+                protected boolean occludedHelper(Ray ray, double maxDistance) {
+                    ++tests[0];
+                    return sphere.occluded(ray, maxDistance);
+                }
+            });
+        }
+        line.buildBvh();
+        assertTrue(line.occluded(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0)), 200),
+                "Row of opaque geometries does not occlude the light");
+        assertEquals(1, tests[0], "The search goes on after an opaque geometry");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A transparent geometry - added to the collection or to a nested one - makes the collection not opaque
+        Sphere nested = new Sphere(1, new Point(0, 50, 0));
+        Geometries outer = new Geometries(new Geometries(nested), new Sphere(1, new Point(0, 60, 0)));
+        assertTrue(outer.isOpaque(), "Opaque collection is not opaque");
+        nested.setMaterial(new Material().setKt(0.5));
+        assertFalse(outer.isOpaque(), "Collection with a transparent nested geometry is opaque");
+        assertFalse(outer.occluded(new Ray(new Point(0, 40, 0), new Vector(0, 1, 0)), 15),
+                "Transparent geometry occludes the light");
+        nested.setMaterial(new Material());
+        outer.add(new Sphere(1, new Point(0, 70, 0)).setMaterial(new Material().setKt(0.5)));
+        assertFalse(outer.isOpaque(), "Collection with a transparent geometry is opaque");
+        Material material = new Material();
+        nested.setMaterial(material);
+        material.setKt(0.5);
+        assertFalse(outer.isOpaque(), "Collection with a material made transparent is opaque");
+
+        // TC11: A collection with a hierarchy takes the opacity of its geometries when it is built or refit
+        material.setKt(0);
+        outer.buildBvh();
+        assertFalse(outer.isOpaque(), "Built collection with a transparent geometry is opaque");
+        Material glass = new Material().setKt(0.5);
+        Sphere sphere = new Sphere(1, new Point(0, 50, 0));
+        Geometries built = new Geometries(new Geometries(sphere)).buildBvh();
+        assertTrue(built.isOpaque(), "Built opaque collection is not opaque");
+        sphere.setMaterial(glass);
+        built.refit();
+        assertFalse(built.isOpaque(), "Refit collection with a transparent geometry is opaque");
+        glass.setKt(0);
+        built.refit();
+        assertTrue(built.isOpaque(), "Refit collection with a material made opaque is not opaque");
+
+        // TC12: An empty collection
+        assertTrue(new Geometries().isOpaque(), "Empty collection is not opaque");
+        assertFalse(new Geometries().occluded(new Ray(Point.ZERO, new Vector(1, 0, 0)), 10),
+                "Empty collection occludes the light");
+    }
+
+    /**
+     * Builds a scene of a plane and random spheres and triangles around the origin.
+     *
+     * @param random The random generator.
+     * @return The geometries of the scene.
+     */
+    private static Geometries randomScene(Random random) {
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -30), new Vector(0, 0, 1)));
+        for (int i = 0; i < 200; ++i) {
+            Point center = new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), random.nextDouble(-20, 20));
+            if (i % 2 == 0) {
+                geometries.add(new Sphere(random.nextDouble(0.5, 2), center));
+            } else {
+                geometries.add(new Triangle(center, center.add(new Vector(random.nextDouble(1, 3), 0, 0)),
+                        center.add(new Vector(0, random.nextDouble(1, 3), random.nextDouble(-1, 1)))));
+            }
+        }
+        return geometries;
+    }
+
+    /**
+     * Asserts that the closest intersections of the rays of a packet are the closest intersections of the rays
+     * traced one by one.
+     *
+     * @param geometries The geometries.
+     * @param rays The rays of the packet.
+     * @param message The message of the failure.
+     */
+    private static void assertPacket(Geometries geometries, Ray[] rays, String message) {
+        RayPacket packet = new RayPacket(rays.length);
+        for (Ray ray : rays) packet.add(ray);
+        geometries.findClosestGeoIntersections(packet);
+        for (int i = 0; i < rays.length; ++i)
+            assertEquals(geometries.findClosestGeoIntersection(rays[i]), packet.getHit(i), message + " - ray " + i);
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#findClosestGeoIntersections(geometries.RayPacket)}.
+     */
+    @Test
+    void testFindClosestGeoIntersections() {
+        Random random = new Random(11);
+        Geometries flat = randomScene(random);
+        random = new Random(11);
+        Geometries hierarchy = randomScene(random).buildBvh();
+        Point eye = new Point(0, -60, 5);
+
+        for (Geometries geometries : new Geometries[] { flat, hierarchy }) {
+            random = new Random(5);
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Coherent packets of neighboring rays, as the primary rays of a block of pixels
+            for (int block = 0; block < 50; ++block) {
+                double x = random.nextDouble(-25, 25), z = random.nextDouble(-25, 25);
+                Ray[] rays = new Ray[16];
+                for (int i = 0; i < 16; ++i)
+                    rays[i] = new Ray(eye, new Vector(x + 0.3 * (i % 4), 60, z + 0.3 * (i / 4)));
+                assertPacket(geometries, rays, "Wrong intersection of a coherent packet");
+            }
+
+            // TC02: A diverging packet of rays in all directions
+            Ray[] rays = new Ray[16];
+            for (int i = 0; i < 16; ++i)
+                rays[i] = new Ray(Point.ZERO,
+                        new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), random.nextDouble(-1, 1)));
+            assertPacket(geometries, rays, "Wrong intersection of a diverging packet");
+
+            // TC03: A partial packet
+            assertPacket(geometries, new Ray[] { new Ray(eye, new Vector(0, 1, 0)), new Ray(eye, new Vector(1, 60, 0)),
+                    new Ray(eye, new Vector(0, 60, 1)) }, "Wrong intersection of a partial packet");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: A packet of a single ray
+            assertPacket(geometries, new Ray[] { new Ray(eye, new Vector(0.5, 60, 0.5)) },
+                    "Wrong intersection of a single ray packet");
+
+            // TC11: A packet that misses all the geometries
+            RayPacket packet = new RayPacket(4);
+            for (int i = 0; i < 4; ++i) packet.add(new Ray(eye, new Vector(i, -1, 1)));
+            geometries.findClosestGeoIntersections(packet);
+            for (int i = 0; i < 4; ++i)
+                assertNull(packet.getHit(i), "Intersection of a ray that misses all the geometries is found");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#getBounds()}.
+     */
+    @Test
+    void testGetBounds() {
+        Sphere sphere = new Sphere(1, new Point(5, 0, 0));
+        int[] tests = { 0 };
+        int[] boxes = { 0 };
+        // a geometry that counts the rays that are tested against it, and the times its box is taken
+        Intersectable counted = new Intersectable() {
+            @Override
+            public AABB getBounds() {
+                ++boxes[0];
+                return sphere.getBounds();
+            }
+
+            @Override
+            protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+                ++tests[0];
+                return sphere.findGeoIntersections(ray, maxDistance);
+            }
+        };
+        Geometries nested = new Geometries(counted, new Triangle(new Point(4, -1, 0), new Point(6, -1, 0),
+                new Point(5, 1, 0)));
+        Geometries geometries = new Geometries(new Sphere(1, new Point(-5, 0, 0)), nested);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The box of a collection is the union of the boxes of its geometries, nested ones included
+        assertEquals(new AABB(-6, -1, -1, 6, 1, 1), geometries.getBounds(), "Wrong bounds of the collection");
+
+        // TC02: A ray that misses the box of a nested collection skips its geometries
+        Ray miss = new Ray(new Point(5, 0, 10), new Vector(0, 1, 0));
+        assertNull(geometries.findIntersections(miss), "Intersection of a ray that misses the geometries");
+        assertNull(geometries.findClosestGeoIntersection(miss), "Intersection of a ray that misses the geometries");
+        assertEquals(Double3.ONE, geometries.transmittance(miss, 100), "A ray that misses the geometries is blocked");
+        assertEquals(0, tests[0], "A ray that misses the box of a collection is tested against its geometries");
+
+        // TC03: A ray through the box of a nested collection is tested against its geometries
+        Ray hit = new Ray(new Point(5, 0, 10), new Vector(0, 0, -1));
+        assertEquals(new Point(5, 0, 1), geometries.findClosestGeoIntersection(hit).point, "Wrong closest point");
+        assertEquals(1, tests[0], "A ray through the box of a collection is not tested against its geometries");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Adding a geometry to a nested collection grows the boxes of the collections that hold it
+        nested.add(new Sphere(1, new Point(5, 0, 5)));
+        assertEquals(new AABB(-6, -1, -1, 6, 1, 6), geometries.getBounds(), "The box does not grow with the collection");
+        assertEquals(new Point(5, 0, 6), geometries.findClosestGeoIntersection(hit).point,
+                "An added geometry is skipped");
+        Geometries inner = new Geometries(new Sphere(1, new Point(0, 20, 0)));
+        Geometries outer = new Geometries(new GridGeometries(inner));
+        Ray far = new Ray(new Point(40, 20, 10), new Vector(0, 0, -1));
+        assertNull(outer.findClosestGeoIntersection(far), "Intersection of a ray that misses the geometries");
+        inner.add(new Sphere(1, new Point(40, 20, 0)));
+        assertEquals(new Point(40, 20, 1), outer.findClosestGeoIntersection(far).point,
+                "A geometry added to a collection in a grid is skipped");
+
+        // TC11: An empty collection and a collection with an unbounded geometry
+        assertTrue(new Geometries().getBounds().isEmpty(), "The box of an empty collection is not empty");
+        Geometries withPlane = new Geometries(new Plane(new Point(0, 0, -3), new Vector(0, 0, 1)), nested);
+        assertFalse(withPlane.getBounds().isBounded(), "The box of a collection with a plane is bounded");
+        assertEquals(new Point(0, 5, -3), withPlane.findClosestGeoIntersection(new Ray(new Point(0, 5, 10),
+                new Vector(0, 0, -1))).point, "An unbounded geometry is skipped");
+
+        // TC12: A change of another collection keeps the box, and a change of a collection held by two others
+        // drops the boxes of both
+        int taken = boxes[0];
+        new Geometries(new Geometries(new Sphere(1, Point.ZERO))).refit();
+        outer.add(new Sphere(1, new Point(0, 30, 0)));
+        geometries.getBounds();
+        assertEquals(taken, boxes[0], "A change of another collection drops the box");
+        nested.add(new Sphere(1, new Point(5, 0, -8)));
+        assertEquals(new AABB(-6, -1, -9, 6, 1, 6), geometries.getBounds(), "The box does not grow with the collection");
+        assertEquals(new Point(5, 0, -9), withPlane.findClosestGeoIntersection(new Ray(new Point(5, 0, -20),
+                new Vector(0, 0, 1))).point, "A geometry added to a collection held by two is skipped");
+    }
+
+    /**
+     * Checks that a collection finds the same intersections as a linear search of the same geometries, for random
+     * rays through the scene. The linear search is brought up to date with the moved geometries first.
+     *
+     * @param random The random generator.
+     * @param linear The linear search.
+     * @param geometries The collection.
+     * @param message The message of the failure.
+     */
+    private static void assertSameHits(Random random, Geometries linear, Geometries geometries, String message) {
+        linear.refit();
+        for (int i = 0; i < 200; ++i) {
+            Point head = new Point(random.nextDouble(-40, 40), random.nextDouble(-40, 40), 30);
+            Ray ray = new Ray(head, new Point(random.nextDouble(-30, 30), random.nextDouble(-30, 30), 0)
+                    .subtract(head));
+            var expected = linear.findClosestGeoIntersection(ray);
+            var result = geometries.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(result, message);
+            } else {
+                assertEquals(0, expected.point.distance(result.point), 1e-9, message);
+            }
+            var all = linear.findGeoIntersections(ray);
+            var found = geometries.findGeoIntersections(ray);
+            assertEquals(all == null ? 0 : all.size(), found == null ? 0 : found.size(), message);
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#refit()}.
+     */
+    @Test
+    void testRefit() {
+        Random random = new Random(25);
+        Geometries unit = new Geometries(new Sphere(1, Point.ZERO)).buildBvh();
+        Instance[] instances = new Instance[400];
+        for (int i = 0; i < instances.length; ++i) {
+            instances[i] = new Instance(unit, Transform.translation(new Vector(3 * (i % 20) - 28.5,
+                    3 * (i / 20) - 28.5, 1)));
+        }
+        Geometries linear = new Geometries(instances);
+        Geometries geometries = new Geometries(instances).buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A geometry moves across its part of the scene - only the subtree that holds it is built again
+        geometries.setRebuildThreshold(1.02);
+        instances[0].setTransform(Transform.translation(new Vector(-15, -15, 1)));
+        assertEquals(Geometries.Update.PARTIAL_REBUILD, geometries.refit(),
+                "A move within a part of the scene does not build that part again");
+        assertSameHits(random, linear, geometries, "Partly built hierarchy finds wrong intersections");
+
+        // TC02: A few geometries move a little - the bounds are refit and the hierarchy is kept
+        geometries.setRebuildThreshold(1.5);
+        for (int i = 0; i < instances.length; i += 37) {
+            instances[i].setTransform(instances[i].getTransform().then(Transform.translation(new Vector(0.3, -0.2, 0.5))));
+        }
+        assertEquals(Geometries.Update.REFIT, geometries.refit(), "Small moves build the hierarchy again");
+        assertSameHits(random, linear, geometries, "Refit hierarchy finds wrong intersections");
+
+        // TC03: All the geometries spread out - the root grows and the whole hierarchy is built again
+        for (Instance instance : instances) {
+            instance.setTransform(instance.getTransform().then(Transform.scaling(1.5, 1.5, 1)));
+        }
+        assertEquals(Geometries.Update.FULL_REBUILD, geometries.refit(), "Spread scene is not built again");
+        assertSameHits(random, linear, geometries, "Built again hierarchy finds wrong intersections");
+
+        // TC04: The scene brings its geometries up to date for the next frame
+        instances[5].setTransform(instances[5].getTransform().then(Transform.translation(new Vector(0, 0, 0.5))));
+        Scene scene = new Scene("animation").setGeometries(geometries);
+        assertEquals(Geometries.Update.REFIT, scene.updateGeometries(), "Scene builds its geometries again");
+        assertSameHits(random, linear, geometries, "Updated scene finds wrong intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Nothing moved - the hierarchy is kept as it is
+        BvhBuilder.Statistics statistics = geometries.getBvhStatistics();
+        assertEquals(Geometries.Update.REFIT, geometries.refit(), "Unmoved scene is built again");
+        assertSame(statistics, geometries.getBvhStatistics(), "Unmoved scene is built again");
+
+        // TC11: A collection with no hierarchy, nested in one with a hierarchy - its bounds follow its geometries
+        Instance moving = new Instance(unit, Transform.translation(new Vector(0, 0, 20)));
+        Geometries nested = new Geometries(moving, new Sphere(1, new Point(0, 2, 20)));
+        Geometries outer = new Geometries(nested, new Sphere(1, new Point(10, 0, 20))).buildBvh();
+        Ray down = new Ray(new Point(-10, 0, 40), new Vector(0, 0, -1));
+        assertNull(outer.findClosestGeoIntersection(down), "Intersection of a ray that misses the geometries");
+        moving.setTransform(Transform.translation(new Vector(-10, 0, 20)));
+        assertEquals(Geometries.Update.FULL_REBUILD, outer.refit(), "Grown nested collection is refit in place");
+        assertEquals(new Point(-10, 0, 21), outer.findClosestGeoIntersection(down).point,
+                "Geometry moved in a nested collection is not found");
+        assertEquals(Geometries.Update.REFIT, nested.refit(), "Collection with no hierarchy is built");
+
+        // TC12: Geometries moved in grids, built and not, and in a collection nested in a built grid
+        Instance inBuilt = new Instance(unit, Transform.translation(new Vector(0, 0, -20)));
+        Instance inGroup = new Instance(unit, Transform.translation(new Vector(5, 0, -20)));
+        Instance inUnbuilt = new Instance(unit, Transform.translation(new Vector(10, 0, -20)));
+        Geometries group = new Geometries(inGroup, new Sphere(1, new Point(5, 5, -20)));
+        GridGeometries builtGrid = new GridGeometries(inBuilt, group, new Sphere(1, new Point(0, 5, -20))).build();
+        GridGeometries unbuiltGrid = new GridGeometries(inUnbuilt, new Sphere(1, new Point(10, 5, -20)));
+        Geometries gridded = new Geometries(builtGrid, unbuiltGrid, new Sphere(1, new Point(20, 0, -20))).buildBvh();
+        Instance[] moved = { inBuilt, inGroup, inUnbuilt };
+        for (Instance instance : moved) {
+            Ray ray = new Ray(instance.getTransform().transformPoint(new Point(0, -10, 10)), new Vector(0, 0, -1));
+            assertNull(gridded.findClosestGeoIntersection(ray), "Intersection of a ray that misses the geometries");
+            instance.setTransform(instance.getTransform().then(Transform.translation(new Vector(0, -10, 0))));
+        }
+        assertEquals(Geometries.Update.FULL_REBUILD, gridded.refit(), "Grown grids are refit in place");
+        for (Instance instance : moved) {
+            Point center = instance.getTransform().transformPoint(Point.ZERO);
+            Ray ray = new Ray(center.add(new Vector(0, 0, 10)), new Vector(0, 0, -1));
+            assertEquals(center.add(new Vector(0, 0, 1)), gridded.findClosestGeoIntersection(ray).point,
+                    "Geometry moved in a grid is not found");
+        }
+        Ray throughGroup = new Ray(new Point(5, -10, 0), new Vector(0, 0, -1));
+        assertEquals(new Point(5, -10, -19), group.findClosestGeoIntersection(throughGroup).point,
+                "Geometry moved in a collection nested in a grid is not found by the collection");
+
+        // TC13: A rebuild threshold below 1
+        assertThrows(IllegalArgumentException.class, () -> geometries.setRebuildThreshold(0.5),
+                "Rebuild threshold below 1 is accepted");
+        assertThrows(IllegalArgumentException.class, () -> geometries.setRebuildThreshold(Double.NaN),
+                "Rebuild threshold that is not a number is accepted");
+    }
 }
@@ -0,0 +1,230 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for geometries.GridGeometries class
+ * @author Eliel Monfort
+ */
+public class GridGeometriesTests {
+
+    /**
+     * Adds random spheres in a box to collections.
+     *
+     * @param random The random generator.
+     * @param count The amount of spheres.
+     * @param size The half size of the box.
+     * @param center The center of the box.
+     * @param collections The collections.
+     */
+    private static void addSpheres(Random random, int count, double size, Point center,
+                                   Intersectable... collections) {
+        for (int i = 0; i < count; ++i) {
+            Sphere sphere = new Sphere(random.nextDouble(0.02, 0.1) * size, center.add(new Vector(
+                    random.nextDouble(-size, size), random.nextDouble(-size, size), random.nextDouble(-size, size))));
+            for (Intersectable collection : collections) {
+                if (collection instanceof Geometries geometries) {
+                    geometries.add(sphere);
+                } else {
+                    ((GridGeometries) collection).add(sphere);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that a grid finds the same intersections as a linear search, for random rays through the scene.
+     *
+     * @param random The random generator.
+     * @param linear The linear search.
+     * @param grid The grid.
+     */
+    private static void assertSameHits(Random random, Geometries linear, GridGeometries grid) {
+        for (int i = 0; i < 300; ++i) {
+            Point head = new Point(random.nextDouble(-30, 30), random.nextDouble(-30, 30), random.nextDouble(-30, 30));
+            Point target = new Point(random.nextDouble(-10, 10), random.nextDouble(-10, 10), random.nextDouble(-10, 10));
+            Ray ray = new Ray(head, target.subtract(head));
+            double maxDistance = i % 3 == 0 ? 30 : Double.POSITIVE_INFINITY;
+
+            var expected = linear.findClosestGeoIntersection(ray, maxDistance);
+            var result = grid.findClosestGeoIntersection(ray, maxDistance);
+            if (expected == null) {
+                assertNull(result, "Grid found a closest intersection where there is none");
+            } else {
+                assertEquals(expected.point.distance(head), result.point.distance(head), 1e-9,
+                        "Grid found a wrong closest intersection");
+            }
+
+            var all = linear.findGeoIntersections(ray, maxDistance);
+            var gridAll = grid.findGeoIntersections(ray, maxDistance);
+            assertEquals(all == null ? 0 : all.size(), gridAll == null ? 0 : gridAll.size(),
+                    "Grid found a wrong number of intersections");
+            assertEquals(linear.transmittance(ray, maxDistance), grid.transmittance(ray, maxDistance),
+                    "Grid computed a wrong transmittance");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.GridGeometries#build()}.
+     */
+    @Test
+    void testBuild() {
+        Random random = new Random(23);
+        Plane floor = new Plane(new Point(0, 0, -12), new Vector(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An evenly dense scene - the grid finds the same intersections as a linear search
+        Geometries linear = new Geometries(floor);
+        GridGeometries grid = new GridGeometries(floor);
+        addSpheres(random, 500, 10, Point.ZERO, linear, grid);
+        grid.build();
+        assertEquals(0, grid.getSubgridCount(), "Evenly dense scene has cells with grids of their own");
+        assertSameHits(random, linear, grid);
+
+        // TC02: The resolution follows the amount of objects and the shape of the scene
+        GridGeometries slab = new GridGeometries();
+        for (int i = 0; i < 1000; ++i) {
+            slab.add(new Sphere(0.1, new Point(random.nextDouble(-40, 40), random.nextDouble(-40, 40),
+                    random.nextDouble(-5, 5))));
+        }
+        int[] resolution = slab.setDensity(2).build().getResolution();
+        assertEquals(resolution[0], resolution[1], "Resolution of a square scene is not square");
+        assertTrue(resolution[0] > 4 * resolution[2], "Resolution does not follow the shape of the scene");
+        int cells = resolution[0] * resolution[1] * resolution[2];
+        assertTrue(cells >= 1000 && cells <= 4000, "Resolution does not follow the amount of objects");
+
+        // TC03: An unevenly dense scene - a dense cluster in a sparse scene gets a grid of its own
+        Geometries unevenLinear = new Geometries(floor);
+        GridGeometries uneven = new GridGeometries(floor);
+        addSpheres(random, 100, 10, Point.ZERO, unevenLinear, uneven);
+        addSpheres(random, 400, 0.5, new Point(2, -3, 1), unevenLinear, uneven);
+        uneven.build();
+        assertTrue(uneven.getSubgridCount() > 0, "Dense cluster has no grid of its own");
+        assertSameHits(random, unevenLinear, uneven);
+
+        // TC04: A single-level grid of the same scene finds the same intersections
+        assertEquals(0, uneven.setSubdivisionThreshold(0).build().getSubgridCount(),
+                "Single-level grid has cells with grids of their own");
+        assertSameHits(random, unevenLinear, uneven);
+
+        // =============== Boundary Values Tests ==================
+        Point p060 = new Point(0, 6, 0);
+        // TC10: An empty grid
+        assertNull(new GridGeometries().build().findIntersections(new Ray(p060, new Vector(1, 1, 1))),
+                "Empty grid found intersections");
+        assertNull(new GridGeometries().build().getResolution(), "Empty grid has a resolution");
+
+        // TC11: A grid of unbounded geometries only
+        assertEquals(1, new GridGeometries(floor).build().findIntersections(new Ray(p060, new Vector(0, 0, -1)))
+                .size(), "Unbounded geometry in a grid is not found");
+
+        // TC12: A grid of a single flat geometry
+        Triangle triangle = new Triangle(new Point(3, 0, 0), new Point(-3, 0, 0), new Point(0, 0, 3));
+        GridGeometries flat = new GridGeometries(triangle).build();
+        assertArrayEquals(new int[] { 2, 1, 1 }, flat.getResolution(), "Grid of a flat geometry is not flat");
+        assertEquals(triangle, flat.findClosestGeoIntersection(new Ray(p060, new Vector(0, -3, 1))).geometry,
+                "Flat geometry in a grid is not found");
+
+        // TC13: Rays along the axes, starting inside the grid
+        GridGeometries line = new GridGeometries();
+        for (int i = -10; i <= 10; ++i) {
+            line.add(new Sphere(0.25, new Point(i, 0, 0)));
+        }
+        line.build();
+        assertEquals(new Point(-0.25, 0, 0), line.findClosestGeoIntersection(
+                new Ray(new Point(-0.5, 0, 0), new Vector(1, 0, 0))).point, "Ray along an axis finds a wrong hit");
+        assertEquals(new Point(-0.75, 0, 0), line.findClosestGeoIntersection(
+                new Ray(new Point(-0.5, 0, 0), new Vector(-1, 0, 0))).point, "Ray along an axis finds a wrong hit");
+        assertEquals(42, line.findIntersections(new Ray(new Point(-20, 0, 0), new Vector(1, 0, 0))).size(),
+                "Ray along an axis finds a wrong number of intersections");
+
+        // TC14: Adding a geometry after building drops the grid and the geometry is found
+        line.add(new Sphere(1, new Point(0, 20, 0)));
+        assertEquals(2, line.findIntersections(new Ray(new Point(0, 6, 0), new Vector(0, 1, 0))).size(),
+                "Geometry added after building the grid is not found");
+        assertEquals(2, line.build().findIntersections(new Ray(new Point(0, 6, 0), new Vector(0, 1, 0))).size(),
+                "Geometry added before rebuilding the grid is not found");
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.GridGeometries#transmittance(primitives.Ray, double)} and
+     * {@link geometries.GridGeometries#occluded(primitives.Ray, double)}.
+     */
+    @Test
+    void testTransmittance() {
+        Point p060 = new Point(0, 6, 0);
+        Ray ray = new Ray(p060, new Vector(0, -1, 0));
+        Sphere glass = (Sphere) new Sphere(1, new Point(0, 3, 0)).setMaterial(new Material().setKt(0.5));
+        Plane wall = new Plane(new Point(0, -2, 0), new Vector(0, 1, 0));
+        Triangle opaque = new Triangle(new Point(3, 0, -1), new Point(-3, 0, -1), new Point(0, 0, 3));
+        GridGeometries grid = new GridGeometries(glass, wall, opaque).build();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Only the transparent sphere is before the light - the light passes it twice
+        assertEquals(new Double3(0.25), grid.transmittance(ray, 5),
+                "Transmittance through a transparent geometry is wrong");
+        assertFalse(grid.occluded(ray, 5), "Transparent geometry occludes the light");
+
+        // TC02: An opaque geometry is before the light
+        assertEquals(Double3.ZERO, grid.transmittance(ray, 10), "Transmittance through an opaque geometry is wrong");
+        assertTrue(grid.occluded(ray, 10), "Opaque geometry does not occlude the light");
+
+        // TC03: An opaque scene occludes a ray exactly when the ray hits it before the light
+        Random random = new Random(4);
+        GridGeometries spheres = new GridGeometries(new Plane(new Point(0, 0, -12), new Vector(0, 0, 1)));
+        addSpheres(random, 500, 10, Point.ZERO, spheres);
+        spheres.build();
+        assertTrue(spheres.isOpaque(), "Opaque grid is not opaque");
+        for (int i = 0; i < 300; ++i) {
+            Point head = new Point(random.nextDouble(-30, 30), random.nextDouble(-30, 30), random.nextDouble(-30, 30));
+            Ray probe = new Ray(head, new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1),
+                    random.nextDouble(-1, 1)));
+            double distance = random.nextDouble(1, 60);
+            assertEquals(spheres.findClosestGeoIntersection(probe, distance) != null, spheres.occluded(probe, distance),
+                    "Wrong occlusion of a ray - ray " + i);
+        }
+        assertFalse(grid.isOpaque(), "Grid with a transparent geometry is opaque");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The light is before all the geometries
+        assertEquals(Double3.ONE, grid.transmittance(ray, 1), "Geometry beyond the light blocks it");
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.GridGeometries#setDensity(double)} and
+     * {@link geometries.GridGeometries#setSubdivisionThreshold(int)}.
+     */
+    @Test
+    void testSetters() {
+        GridGeometries grid = new GridGeometries();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Negative density
+        assertThrows(IllegalArgumentException.class, () -> grid.setDensity(-1), "Negative density is accepted");
+        // TC02: Negative subdivision threshold
+        assertThrows(IllegalArgumentException.class, () -> grid.setSubdivisionThreshold(-1),
+                "Negative subdivision threshold is accepted");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Zero density
+        assertThrows(IllegalArgumentException.class, () -> grid.setDensity(0), "Zero density is accepted");
+        // TC11: Zero subdivision threshold - a single-level grid
+        assertEquals(grid, grid.setSubdivisionThreshold(0), "Zero subdivision threshold is not accepted");
+    }
+}
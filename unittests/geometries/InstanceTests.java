@@ -0,0 +1,147 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for geometries.Instance class
+ * @author Eliel Monfort
+ */
+public class InstanceTests {
+
+    /**
+     * Test method for
+     * {@link geometries.Instance#findClosestGeoIntersection(primitives.Ray, double)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Material material = new Material().setKd(0.4);
+        Sphere unit = (Sphere) new Sphere(1, Point.ZERO).setMaterial(material);
+        Instance moved = new Instance(unit, Transform.scaling(2).then(Transform.translation(new Vector(5, 0, 0))));
+        Instance stretched = new Instance(unit, Transform.scaling(2, 1, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A scaled and translated sphere - the point, the normal and the material are of the scene
+        Ray ray = new Ray(new Point(5, 0, 10), new Vector(0, 0, -1));
+        Intersectable.GeoPoint hit = moved.findClosestGeoIntersection(ray);
+        assertEquals(new Point(5, 0, 2), hit.point, "Wrong intersection of a moved instance");
+        assertEquals(new Vector(0, 0, 1), hit.getNormal(), "Wrong normal of a moved instance");
+        assertSame(material, hit.getMaterial(), "Wrong material of an instance");
+        assertSame(unit, hit.geometry, "Wrong geometry of an instance");
+
+        // TC02: A sphere stretched into an ellipsoid - the normal is mapped by the inverse transpose
+        double x = Math.sqrt(2), y = Math.sqrt(0.5);
+        hit = stretched.findClosestGeoIntersection(new Ray(new Point(x, 10, 0), new Vector(0, -1, 0)));
+        assertEquals(new Point(x, y, 0), hit.point, "Wrong intersection of a stretched instance");
+        assertEquals(new Vector(x / 4, y, 0).normalize(), hit.getNormal(), "Wrong normal of a stretched instance");
+
+        // TC03: Instances in a hierarchy find the same intersections as the geometries they stand for
+        Random random = new Random(24);
+        Geometries shared = new Geometries(unit).buildBvh();
+        Geometries instances = new Geometries();
+        Geometries copies = new Geometries();
+        for (int i = 0; i < 100; ++i) {
+            double scale = random.nextDouble(0.2, 1);
+            Vector offset = new Vector(random.nextDouble(-10, 10), random.nextDouble(-10, 10), random.nextDouble(-10, 10));
+            instances.add(new Instance(shared, Transform.scaling(scale)
+                    .then(Transform.rotation(new Vector(1, 2, 3), random.nextDouble(360)))
+                    .then(Transform.translation(offset))));
+            copies.add(new Sphere(scale, Point.ZERO.add(offset)));
+        }
+        instances.buildBvh();
+        for (int i = 0; i < 300; ++i) {
+            Point head = new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), 30);
+            Ray probe = new Ray(head, new Point(random.nextDouble(-10, 10), random.nextDouble(-10, 10),
+                    random.nextDouble(-10, 10)).subtract(head));
+            double maxDistance = i % 2 == 0 ? 35 : Double.POSITIVE_INFINITY;
+            var expected = copies.findClosestGeoIntersection(probe, maxDistance);
+            var result = instances.findClosestGeoIntersection(probe, maxDistance);
+            if (expected == null) {
+                assertNull(result, "Instance found an intersection where there is none");
+                continue;
+            }
+            assertEquals(0, expected.point.distance(result.point), 1e-9, "Wrong intersection of an instance");
+            assertEquals(1, expected.getNormal().dotProduct(result.getNormal()), 1e-9,
+                    "Wrong normal of an instance");
+            assertEquals(copies.findGeoIntersections(probe, maxDistance).size(),
+                    instances.findGeoIntersections(probe, maxDistance).size(),
+                    "Wrong number of intersections of instances");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The maximum distance is of the scene, not of the space of the geometry
+        assertEquals(new Point(5, 0, 2), moved.findClosestGeoIntersection(ray, 8).point,
+                "Instance does not respect the maximum distance");
+        assertNull(moved.findClosestGeoIntersection(ray, 7.9), "Instance does not respect the maximum distance");
+
+        // TC11: A ray that misses the instance but hits the geometry in its own space
+        assertNull(moved.findClosestGeoIntersection(new Ray(new Point(0, 0, 10), new Vector(0, 0, -1))),
+                "Instance found an intersection of the untransformed geometry");
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Instance#transmittance(primitives.Ray, double)}.
+     */
+    @Test
+    void testTransmittance() {
+        Sphere glass = (Sphere) new Sphere(1, Point.ZERO).setMaterial(new Material().setKt(0.5));
+        Instance instance = new Instance(glass, Transform.scaling(3).then(Transform.translation(new Vector(0, 0, -5))));
+        Ray ray = new Ray(new Point(0, 0, 5), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The light passes the transparent instance twice
+        assertEquals(new Double3(0.25), instance.transmittance(ray, 20), "Wrong transmittance of an instance");
+
+        // TC02: The light is between the surfaces of the instance
+        assertEquals(new Double3(0.5), instance.transmittance(ray, 10), "Wrong transmittance of an instance");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The light is before the instance, by the distances of the scene
+        assertEquals(Double3.ONE, instance.transmittance(ray, 6.9), "Instance beyond the light blocks it");
+        assertFalse(instance.occluded(ray, 6.9), "Instance beyond the light occludes it");
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Instance#getBounds()}.
+     */
+    @Test
+    void testGetBounds() {
+        Sphere unit = new Sphere(1, Point.ZERO);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A rotated instance is bounded by the box around the rotated box of the geometry
+        AABB box = new Instance(unit, Transform.rotation(new Vector(0, 0, 1), 45)
+                .then(Transform.translation(new Vector(1, 0, 0)))).getBounds();
+        double r = Math.sqrt(2);
+        assertEquals(1 - r, box.minX, 1e-12, "Wrong bounds of a rotated instance");
+        assertEquals(1 + r, box.maxX, 1e-12, "Wrong bounds of a rotated instance");
+        assertEquals(r, box.maxY, 1e-12, "Wrong bounds of a rotated instance");
+        assertEquals(1, box.maxZ, 1e-12, "Wrong bounds of a rotated instance");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: An instance of an unbounded geometry is unbounded, and is still found
+        Instance plane = new Instance(new Plane(Point.ZERO, new Vector(0, 0, 1)),
+                Transform.translation(new Vector(0, 0, 2)));
+        assertFalse(plane.getBounds().isBounded(), "Instance of an unbounded geometry is bounded");
+        assertEquals(new Point(0, 0, 2), plane.findClosestGeoIntersection(new Ray(new Point(0, 0, 5),
+                new Vector(0, 0, -1))).point, "Instance of an unbounded geometry is not found");
+
+        // TC11: An instance of an empty collection is empty
+        assertTrue(new Instance(new Geometries(), Transform.IDENTITY).getBounds().isEmpty(),
+                "Instance of an empty collection is not empty");
+    }
+}
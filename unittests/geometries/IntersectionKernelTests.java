@@ -0,0 +1,205 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import geometries.Intersectable.GeoPoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for geometries.IntersectionKernel class
+ * @author Eliel Monfort
+ */
+public class IntersectionKernelTests {
+
+    /** The accuracy of the distances of the intersections found by a kernel. */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Gets the available kernels - the scalar kernel, and the vector kernel if the JVM runs with the Vector API.
+     *
+     * @return The kernels.
+     */
+    private static List<IntersectionKernel> kernels() {
+        List<IntersectionKernel> kernels = new ArrayList<>();
+        kernels.add(IntersectionKernel.scalar());
+        if (IntersectionKernel.vector() != null) kernels.add(IntersectionKernel.vector());
+        return kernels;
+    }
+
+    /**
+     * Creates a scene of random spheres and triangles, with a few polygons that the kernels do not lay out
+     * and a nested collection.
+     *
+     * @param seed The seed of the scene.
+     * @return The geometries of the scene.
+     */
+    private static Geometries randomScene(long seed) {
+        Random random = new Random(seed);
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -30), new Vector(0, 0, 1)));
+        Geometries nested = new Geometries();
+        for (int i = 0; i < 300; ++i) {
+            Point center = new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), random.nextDouble(-20, 20));
+            Geometries target = i < 250 ? geometries : nested;
+            if (i % 10 == 9) {
+                target.add(new Polygon(center, center.add(new Vector(2, 0, 0)), center.add(new Vector(2, 2, 0)),
+                        center.add(new Vector(0, 2, 0))));
+            } else if (i % 2 == 0) {
+                target.add(new Sphere(random.nextDouble(0.5, 2), center));
+            } else {
+                target.add(new Triangle(center, center.add(new Vector(random.nextDouble(1, 3), 0, 0)),
+                        center.add(new Vector(0, random.nextDouble(1, 3), random.nextDouble(-1, 1)))));
+            }
+        }
+        geometries.add(nested);
+        return geometries;
+    }
+
+    /**
+     * Asserts that an intersection found by a kernel is the intersection found by the geometries themselves.
+     *
+     * @param expected The intersection found by the geometries themselves.
+     * @param actual The intersection found by the kernel.
+     * @param ray The ray.
+     * @param message The message of the failure.
+     */
+    private static void assertHit(GeoPoint expected, GeoPoint actual, Ray ray, String message) {
+        if (expected == null) {
+            assertNull(actual, message);
+            return;
+        }
+        assertNotNull(actual, message);
+        assertSame(expected.geometry, actual.geometry, message);
+        assertEquals(expected.point.distance(ray.getHead()), actual.point.distance(ray.getHead()), DELTA, message);
+    }
+
+    /**
+     * Asserts that the closest intersections of rays found by a kernel are the intersections found by the
+     * geometries themselves.
+     *
+     * @param geometries The geometries, with their hierarchy built.
+     * @param kernel The kernel.
+     * @param rays The rays.
+     * @param packetSize The size of the packets of the rays, 0 for tracing them one by one.
+     * @param message The message of the failure.
+     */
+    private static void assertKernel(Geometries geometries, IntersectionKernel kernel, Ray[] rays, int packetSize,
+                                     String message) {
+        GeoPoint[] expected = new GeoPoint[rays.length];
+        geometries.setIntersectionKernel(null);
+        for (int i = 0; i < rays.length; ++i) expected[i] = geometries.findClosestGeoIntersection(rays[i]);
+        geometries.setIntersectionKernel(kernel);
+        if (packetSize == 0) {
+            for (int i = 0; i < rays.length; ++i)
+                assertHit(expected[i], geometries.findClosestGeoIntersection(rays[i]), rays[i],
+                        kernel + ": " + message + " - ray " + i);
+            return;
+        }
+        RayPacket packet = new RayPacket(packetSize);
+        for (int first = 0; first < rays.length; first += packetSize) {
+            packet.clear();
+            for (int i = first; i < Math.min(first + packetSize, rays.length); ++i) packet.add(rays[i]);
+            geometries.findClosestGeoIntersections(packet);
+            for (int i = 0; i < packet.size(); ++i)
+                assertHit(expected[first + i], packet.getHit(i), rays[first + i],
+                        kernel + ": " + message + " - ray " + (first + i));
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#setIntersectionKernel(geometries.IntersectionKernel)}
+     * with single rays.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Geometries geometries = randomScene(12).buildBvh(new BvhBuilder().setLeafSize(8));
+        Random random = new Random(3);
+        Ray[] outside = new Ray[2000];
+        for (int i = 0; i < outside.length; ++i)
+            outside[i] = new Ray(new Point(0, -60, 5),
+                    new Vector(random.nextDouble(-30, 30), 60, random.nextDouble(-30, 30)));
+        Ray[] inside = new Ray[2000];
+        for (int i = 0; i < inside.length; ++i)
+            inside[i] = new Ray(new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20),
+                    random.nextDouble(-20, 20)),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), random.nextDouble(-1, 1)));
+
+        for (IntersectionKernel kernel : kernels()) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Rays from outside the scene
+            assertKernel(geometries, kernel, outside, 0, "wrong intersection of a ray from outside");
+
+            // TC02: Rays from inside the scene in all directions
+            assertKernel(geometries, kernel, inside, 0, "wrong intersection of a ray from inside");
+
+            // TC03: A ray that starts inside a sphere hits its far side
+            Sphere sphere = new Sphere(1, new Point(100, 100, 100));
+            Geometries single = new Geometries(sphere).setIntersectionKernel(kernel).buildBvh();
+            GeoPoint geoPoint = single.findClosestGeoIntersection(new Ray(new Point(100, 100, 100), new Vector(1, 0, 0)));
+            assertSame(sphere, geoPoint.geometry, kernel + ": wrong geometry of a ray from inside a sphere");
+            assertEquals(new Point(101, 100, 100), geoPoint.point, kernel + ": wrong point of a ray from inside a sphere");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: An intersection beyond the maximum distance is not found
+            assertNull(single.findClosestGeoIntersection(new Ray(new Point(97, 100, 100), new Vector(1, 0, 0)), 1.5),
+                    kernel + ": intersection beyond the maximum distance is found");
+
+            // TC11: A ray that misses all the geometries
+            assertNull(geometries.findClosestGeoIntersection(new Ray(new Point(0, -60, 5), new Vector(0, -1, 1))),
+                    kernel + ": intersection of a ray that misses all the geometries is found");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Geometries#setIntersectionKernel(geometries.IntersectionKernel)}
+     * with packets of rays.
+     */
+    @Test
+    void testFindClosestGeoIntersections() {
+        Geometries geometries = randomScene(13).buildBvh(new BvhBuilder().setLeafSize(8));
+        Point eye = new Point(0, -60, 5);
+        Random random = new Random(7);
+        Ray[] blocks = new Ray[100 * RayPacket.MAX_SIZE];
+        for (int block = 0; block < 100; ++block) {
+            double x = random.nextDouble(-25, 25), z = random.nextDouble(-25, 25);
+            for (int i = 0; i < RayPacket.MAX_SIZE; ++i)
+                blocks[block * RayPacket.MAX_SIZE + i] = new Ray(eye, new Vector(x + 0.3 * (i % 4), 60, z + 0.3 * (i / 4)));
+        }
+
+        for (IntersectionKernel kernel : kernels()) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Coherent packets of neighboring rays, as the primary rays of a block of pixels
+            assertKernel(geometries, kernel, blocks, RayPacket.MAX_SIZE, "wrong intersection of a coherent packet");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: Partial packets that do not fill the vectors of the kernel
+            assertKernel(geometries, kernel, blocks, 3, "wrong intersection of a partial packet");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.IntersectionKernel#best()}.
+     */
+    @Test
+    void testBest() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The best kernel is the vector kernel when the Vector API is available, the scalar one otherwise
+        IntersectionKernel expected = IntersectionKernel.vector() != null ? IntersectionKernel.vector()
+                : IntersectionKernel.scalar();
+        assertSame(expected, IntersectionKernel.best(), "Wrong best kernel");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The scalar kernel tests a single primitive at a time
+        assertEquals(1, IntersectionKernel.scalar().getLanes(), "Wrong lanes of the scalar kernel");
+    }
+}
@@ -5,7 +5,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
 import geometries.Polygon;
+import java.util.List;
+
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
 /**
@@ -93,4 +96,48 @@ public class PolygonTests {
                       "Polygon's normal is not orthogonal to one of the edges");
    }
 
+   /**
+    * Test method for
+    * {@link geometries.Polygon#findIntersections(primitives.Ray)}.
+    */
+   @Test
+   public void testFindIntersections() {
+      // a quad on the plane x+y+z=1
+      Polygon pol = new Polygon(new Point(0, 0, 1), new Point(1, 0, 0), new Point(0, 1, 0), new Point(-1, 1, 1));
+      final Vector v = new Vector(-1, -1, -1);
+
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: Ray crosses the polygon (1 point)
+      assertEquals(List.of(new Point(0, 0.5, 0.5)), pol.findIntersections(new Ray(new Point(1, 1.5, 1.5), v)),
+                   "Ray crosses the polygon");
+
+      // TC02: Ray crosses the plane outside against an edge (0 points)
+      assertNull(pol.findIntersections(new Ray(new Point(2, 2, 0), v)), "Ray outside against an edge");
+
+      // TC03: Ray crosses the plane outside against a vertex (0 points)
+      assertNull(pol.findIntersections(new Ray(new Point(2.5, 0, 0.5), v)), "Ray outside against a vertex");
+
+      // TC04: The same quad in the opposite order
+      Polygon reversed = new Polygon(new Point(-1, 1, 1), new Point(0, 1, 0), new Point(1, 0, 0), new Point(0, 0, 1));
+      assertEquals(List.of(new Point(0, 0.5, 0.5)), reversed.findIntersections(new Ray(new Point(1, 1.5, 1.5), v)),
+                   "Ray crosses the reversed polygon");
+
+      // =============== Boundary Values Tests ==================
+      // TC10: Ray hits an edge (0 points)
+      assertNull(pol.findIntersections(new Ray(new Point(1.5, 1, 1.5), v)), "Ray hits an edge");
+
+      // TC11: Ray hits a vertex (0 points)
+      assertNull(pol.findIntersections(new Ray(new Point(2, 1, 1), v)), "Ray hits a vertex");
+
+      // TC12: Ray hits the continuation of an edge (0 points)
+      assertNull(pol.findIntersections(new Ray(new Point(3, 1, 0), v)), "Ray hits the continuation of an edge");
+
+      // TC13: The polygon is beyond the maximum distance (0 points)
+      assertNull(pol.findIntersections(new Ray(new Point(1, 1.5, 1.5), v), 1), "Ray hits beyond the distance");
+
+      // TC14: A polygon parallel to a coordinate plane, seen from below (1 point)
+      Polygon square = new Polygon(new Point(0, 0, 3), new Point(2, 0, 3), new Point(2, 2, 3), new Point(0, 2, 3));
+      assertEquals(new Point(1.5, 0.5, 3), square.findClosestGeoIntersection(new Ray(new Point(1.5, 0.5, 0),
+                   new Vector(0, 0, 1))).point, "Ray crosses a square");
+   }
 }
@@ -144,4 +144,38 @@ public class SphereTests {
         assertNull(sphere.findIntersections(new Ray(new Point(1, 1.5, 0), v100)),
                 "ERROR: When Ray's line is outside, ray is orthogonal to ray start to sphere's center line ,findIntersections() does not work correctly");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for
+     * {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray, double)}.
+     */
+    @Test
+    public void testFindClosestGeoIntersection() {
+        Sphere sphere = new Sphere(1d, p100);
+        Vector v100 = new Vector(1, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray starts before the sphere - the nearer point
+        assertEquals(Point.ZERO, sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), v100)).point,
+                "ERROR: The closest intersection of a ray before the sphere is wrong");
+
+        // TC02: Ray starts inside the sphere - the only point
+        assertEquals(new Point(2, 0, 0), sphere.findClosestGeoIntersection(new Ray(new Point(0.5, 0, 0), v100)).point,
+                "ERROR: The closest intersection of a ray inside the sphere is wrong");
+
+        // TC03: Ray misses the sphere
+        assertNull(sphere.findClosestGeoIntersection(new Ray(new Point(-1, 2, 0), v100)),
+                "ERROR: The closest intersection of a ray that misses the sphere is not null");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Only the nearer point is within the maximum distance
+        assertEquals(Point.ZERO, sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), v100), 2).point,
+                "ERROR: The closest intersection within the maximum distance is wrong");
+        assertEquals(1, sphere.findIntersections(new Ray(new Point(-1, 0, 0), v100), 2).size(),
+                "ERROR: The intersections within the maximum distance are wrong");
+
+        // TC11: Both points are beyond the maximum distance
+        assertNull(sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), v100), 0.5),
+                "ERROR: The closest intersection beyond the maximum distance is not null");
+    }
+}
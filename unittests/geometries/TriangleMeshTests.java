@@ -0,0 +1,305 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.TriangleMesh class
+ * @author Eliel Monfort
+ */
+public class TriangleMeshTests {
+
+    /** The accuracy of the comparison of the mesh with separate triangles. */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Creates a grid of n x n squares over a bumpy height field, each square split into two faces
+     * that share the vertices of the grid.
+     *
+     * @param n The amount of squares along a side.
+     * @param positions The array that receives the positions of the (n+1)² vertices.
+     * @return The indices of the 2n² faces.
+     */
+    private static int[] grid(int n, double[] positions) {
+        for (int i = 0; i <= n; ++i) {
+            for (int j = 0; j <= n; ++j) {
+                int v = 3 * (i * (n + 1) + j);
+                positions[v] = j - n / 2.0;
+                positions[v + 1] = i - n / 2.0;
+                positions[v + 2] = Math.sin(i * 0.7) * Math.cos(j * 0.3) * 2;
+            }
+        }
+        int[] indices = new int[6 * n * n];
+        int k = 0;
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                int a = i * (n + 1) + j, b = a + 1, c = a + n + 1, d = c + 1;
+                indices[k++] = a;
+                indices[k++] = b;
+                indices[k++] = d;
+                indices[k++] = a;
+                indices[k++] = d;
+                indices[k++] = c;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Gets a vertex of a mesh as a point.
+     *
+     * @param positions The positions of the vertices.
+     * @param v The index of the vertex.
+     * @return The point.
+     */
+    private static Point vertex(double[] positions, int v) {
+        return new Point(positions[3 * v], positions[3 * v + 1], positions[3 * v + 2]);
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.TriangleMesh#TriangleMesh(double[], int[], primitives.Material[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        double[] positions = { 0, 0, 0, 1, 0, 0, 0, 1, 0 };
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A correct mesh
+        assertDoesNotThrow(() -> new TriangleMesh(positions, new int[] { 0, 1, 2 }), "Failed constructing a mesh");
+
+        // TC02: An index that is not a vertex
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(positions, new int[] { 0, 1, 3 }),
+                "Constructed a mesh with a face of a missing vertex");
+
+        // TC03: A material index out of the palette
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(positions, new int[] { 0, 1, 2 },
+                new Material[] { new Material() }, new int[] { 1 }), "Constructed a mesh with a missing material");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: No faces
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(positions, new int[0]),
+                "Constructed a mesh with no faces");
+
+        // TC11: Positions that are not triples
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[] { 0, 0, 0, 1 },
+                new int[] { 0, 0, 0 }), "Constructed a mesh with broken positions");
+
+        // TC12: Face materials without a palette
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(positions, new int[] { 0, 1, 2 },
+                null, new int[] { 0 }), "Constructed a mesh with face materials and no palette");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(primitives.Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        double[] positions = { 0, 0, 1, 1, 0, 0, 0, 1, 0, 0, 0, -1 };
+        TriangleMesh mesh = new TriangleMesh(positions, new int[] { 0, 1, 2, 3, 2, 1 });
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The normal of a point on a face is the normal of a triangle of its vertices
+        Point point = new Point(0.25, 0.25, 0.5);
+        assertEquals(new Triangle(vertex(positions, 0), vertex(positions, 1), vertex(positions, 2)).getNormal(point),
+                mesh.getNormal(point), "Wrong normal of the first face");
+        point = new Point(0.25, 0.25, -0.5);
+        assertEquals(new Triangle(vertex(positions, 3), vertex(positions, 2), vertex(positions, 1)).getNormal(point),
+                mesh.getNormal(point), "Wrong normal of the second face");
+
+        // TC02: A point off the mesh
+        assertThrows(IllegalArgumentException.class, () -> mesh.getNormal(new Point(5, 5, 5)),
+                "Found a normal of a point off the mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // a tetrahedron, whose faces share its 4 vertices
+        TriangleMesh tetrahedron = new TriangleMesh(new double[] { 0, 0, 0, 4, 0, 0, 0, 4, 0, 0, 0, 4 },
+                new int[] { 0, 2, 1, 0, 1, 3, 0, 3, 2, 1, 2, 3 });
+        TriangleMesh triangle = new TriangleMesh(new double[] { -1, 0, 0, 2, 0, 0, 0, 3, 0 }, new int[] { 0, 1, 2 });
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A ray through a closed mesh crosses it twice
+        var result = tetrahedron.findIntersections(new Ray(new Point(1, 1, -1), new Vector(0, 0, 1)));
+        assertEquals(2, result.size(), "Wrong number of points");
+        assertTrue(result.contains(new Point(1, 1, 0)) && result.contains(new Point(1, 1, 2)),
+                "Wrong points of a ray through the mesh");
+
+        // TC02: The point of intersection inside a face (1 point)
+        assertEquals(List.of(new Point(0, 2, 0)),
+                triangle.findIntersections(new Ray(new Point(0, 1, -1), new Vector(0, 1, 1))),
+                "Ray crosses a face does not work correctly");
+
+        // TC03: The point of intersection is outside the faces (0 points)
+        assertNull(triangle.findIntersections(new Ray(new Point(-0.5, 1, 1), new Vector(-1, 0, 1))),
+                "Ray does not cross the mesh - does not work correctly");
+
+        // TC04: The closest intersection of a ray from inside the mesh is on its far side
+        GeoPoint geoPoint = tetrahedron.findClosestGeoIntersection(new Ray(new Point(0.5, 0.5, 0.5),
+                new Vector(0, 0, -1)));
+        assertEquals(new Point(0.5, 0.5, 0), geoPoint.point, "Wrong closest point from inside the mesh");
+        assertEquals(new Vector(0, 0, -1), geoPoint.getNormal(), "Wrong normal of the closest point");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The intersection point is on an edge (0 points)
+        assertNull(triangle.findIntersections(new Ray(new Point(-1, -1.5, -1), new Vector(0.5, 1.5, 1))),
+                "Ray through an edge does not work correctly");
+
+        // TC11: The intersection point is on a vertex (0 points)
+        assertNull(triangle.findIntersections(new Ray(new Point(-1, -1, -1), new Vector(3, 1, 1))),
+                "Ray through a vertex does not work correctly");
+
+        // TC12: The intersection is beyond the maximum distance
+        assertNull(tetrahedron.findClosestGeoIntersection(new Ray(new Point(1, 1, -1), new Vector(0, 0, 1)), 0.5),
+                "Intersection beyond the maximum distance is found");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findClosestGeoIntersection(primitives.Ray)}
+     * against separate triangles of the same faces.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        int n = 30;
+        double[] positions = new double[3 * (n + 1) * (n + 1)];
+        int[] indices = grid(n, positions);
+        TriangleMesh mesh = new TriangleMesh(positions, indices);
+        Geometries triangles = new Geometries();
+        for (int f = 0; f < indices.length; f += 3)
+            triangles.add(new Triangle(vertex(positions, indices[f]), vertex(positions, indices[f + 1]),
+                    vertex(positions, indices[f + 2])));
+        triangles.buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays hit the mesh where they hit the triangles, with the same normals
+        Random random = new Random(4);
+        for (int i = 0; i < 2000; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), 10),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+            GeoPoint expected = triangles.findClosestGeoIntersection(ray);
+            GeoPoint actual = mesh.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(actual, "Found an intersection of a ray that misses the triangles - ray " + i);
+            } else {
+                assertNotNull(actual, "Missed an intersection of a ray that hits the triangles - ray " + i);
+                assertEquals(0, expected.point.distance(actual.point), DELTA, "Wrong intersection - ray " + i);
+                assertEquals(expected.getNormal(), actual.getNormal(), "Wrong normal - ray " + i);
+            }
+        }
+
+        // TC02: A packet of rays finds the intersections of the rays traced one by one
+        RayPacket packet = new RayPacket(RayPacket.MAX_SIZE);
+        for (int i = 0; i < RayPacket.MAX_SIZE; ++i)
+            packet.add(new Ray(new Point(0.37, 0.21, 10), new Vector(0.1 * (i % 4), 0.1 * (i / 4), -1)));
+        mesh.findClosestGeoIntersections(packet);
+        for (int i = 0; i < packet.size(); ++i)
+            assertEquals(mesh.findClosestGeoIntersection(packet.getRay(i)).point, packet.getHit(i).point,
+                    "Wrong intersection of a packet - ray " + i);
+
+        // TC03: The mesh occludes a ray exactly when the ray hits it before the light
+        for (int i = 0; i < 2000; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), 10),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+            double distance = random.nextDouble(5, 20);
+            assertEquals(triangles.findClosestGeoIntersection(ray, distance) != null, mesh.occluded(ray, distance),
+                    "Wrong occlusion of a ray - ray " + i);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable.GeoPoint#getMaterial()} of a mesh with materials per face.
+     */
+    @Test
+    void testFaceMaterials() {
+        Material opaque = new Material().setKd(0.5);
+        Material glass = new Material().setKt(0.5);
+        double[] positions = { 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 1, 0, 1, 0, 1, 1 };
+        // a face at z=0 and a face at z=1, over each other
+        int[] indices = { 0, 1, 2, 3, 4, 5 };
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Every intersection has the material of its face
+        TriangleMesh mesh = new TriangleMesh(positions, indices, new Material[] { opaque, glass }, new int[] { 0, 1 });
+        Ray ray = new Ray(new Point(0.25, 0.25, 2), new Vector(0, 0, -1));
+        assertSame(glass, mesh.findClosestGeoIntersection(ray).getMaterial(), "Wrong material of the upper face");
+        assertSame(opaque, mesh.findClosestGeoIntersection(new Ray(new Point(0.25, 0.25, 0.5),
+                new Vector(0, 0, -1))).getMaterial(), "Wrong material of the lower face");
+
+        // TC02: Light passes through the transparent face and is blocked by the opaque one
+        assertFalse(mesh.isOpaque(), "A mesh with a transparent face is opaque");
+        assertEquals(Double3.ZERO, mesh.transmittance(ray, 10), "Light passes through an opaque face");
+        assertEquals(new Double3(0.5), mesh.transmittance(ray, 1.5), "Wrong transmittance of a transparent face");
+        assertTrue(mesh.occluded(ray, 10), "Opaque face does not occlude the light");
+        assertFalse(mesh.occluded(ray, 1.5), "Transparent face occludes the light");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A mesh with a single material uses the material of the geometry
+        TriangleMesh single = new TriangleMesh(positions, indices);
+        single.setMaterial(glass);
+        assertSame(glass, single.findClosestGeoIntersection(ray).getMaterial(), "Wrong material of the mesh");
+        assertFalse(single.occluded(ray, 10), "Transparent mesh occludes the light");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#setWatertight(boolean)}.
+     */
+    @Test
+    void testWatertight() {
+        double[] positions = new double[3 * 9 * 9];
+        int[] indices = grid(8, positions);
+        TriangleMesh mesh = new TriangleMesh(positions, indices).setWatertight(true);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A watertight mesh gives the same intersections inside its faces
+        TriangleMesh plain = new TriangleMesh(positions, indices);
+        Random random = new Random(21);
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble(-4, 4), random.nextDouble(-4, 4), 10),
+                    new Vector(random.nextDouble(-0.5, 0.5), random.nextDouble(-0.5, 0.5), -1));
+            GeoPoint expected = plain.findClosestGeoIntersection(ray), actual = mesh.findClosestGeoIntersection(ray);
+            if (expected != null) {
+                assertNotNull(actual, "Missed an intersection inside a face - ray " + i);
+                assertEquals(expected.point, actual.point, "Wrong intersection - ray " + i);
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Every ray through an inner vertex or an inner edge of the grid, which are shared by several faces,
+        // hits the mesh, while the Möller–Trumbore algorithm lets some of them through
+        Point eye = new Point(0.1, 0.2, 10);
+        int leaks = 0;
+        for (int v = 0; v < positions.length / 3; ++v) {
+            if (v / 9 == 0 || v / 9 == 8 || v % 9 == 0 || v % 9 == 8) {
+                continue;
+            }
+            for (int k = 0; k < 4; ++k) {
+                Point target = vertex(positions, v);
+                if (k > 0) {
+                    // a point on an edge of the vertex - to its right, above it or on the diagonal
+                    int other = k == 1 ? v + 1 : k == 2 ? v + 9 : v + 10;
+                    target = target.add(vertex(positions, other).subtract(target).scale(0.37));
+                }
+                Ray ray = new Ray(eye, target.subtract(eye));
+                assertNotNull(mesh.findClosestGeoIntersection(ray), "A ray leaks through the mesh at " + target);
+                if (plain.findClosestGeoIntersection(ray) == null) {
+                    ++leaks;
+                }
+            }
+        }
+        assertTrue(leaks > 0, "No ray leaks through the edges of the Möller–Trumbore mesh");
+    }
+}
@@ -73,4 +73,83 @@ public class TriangleTests {
         assertNull(triangle.findIntersections(new Ray(new Point(-2,-2,-0.5), new Vector(5,2,0.5))),
                 "Ray does not cross triangle and point is on the continuation of an edge - does not work correctly");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test case for the
+     * {@link geometries.Triangle#intersect(primitives.Ray, double, double[]) (geometries.Triangle)}.
+     */
+    @Test
+    void testIntersect() {
+        Triangle triangle = new Triangle(new Point(-1, 0, 0), new Point(2, 0, 0), new Point(0, 3, 0));
+        double[] barycentric = { -1, -1 };
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The distance and the barycentric coordinates of a point inside the triangle
+        assertEquals(Math.sqrt(2), triangle.intersect(new Ray(new Point(0, 1, -1), new Vector(0, 1, 1)),
+                Double.POSITIVE_INFINITY, barycentric), 1e-10, "Wrong distance");
+        assertEquals(1 / 9.0, barycentric[0], 1e-10, "Wrong weight of the second vertex");
+        assertEquals(2 / 3.0, barycentric[1], 1e-10, "Wrong weight of the third vertex");
+
+        // TC02: The watertight algorithm gives the same intersection
+        double[] watertight = { -1, -1 };
+        triangle.setWatertight(true);
+        assertEquals(Math.sqrt(2), triangle.intersect(new Ray(new Point(0, 1, -1), new Vector(0, 1, 1)),
+                Double.POSITIVE_INFINITY, watertight), 1e-10, "Wrong watertight distance");
+        assertArrayEquals(barycentric, watertight, 1e-10, "Wrong watertight barycentric coordinates");
+
+        // TC03: A miss leaves the barycentric coordinates as they were
+        assertEquals(0, triangle.intersect(new Ray(new Point(-0.5, 1, 1), new Vector(-1, 0, 1)),
+                Double.POSITIVE_INFINITY, watertight), "Found an intersection outside the triangle");
+        assertArrayEquals(barycentric, watertight, 1e-10, "A miss changed the barycentric coordinates");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The intersection is beyond the maximum distance
+        assertEquals(0, triangle.intersect(new Ray(new Point(0, 1, -1), new Vector(0, 1, 1)), 1, null),
+                "Found an intersection beyond the maximum distance");
+
+        // TC11: A ray in the plane of the triangle
+        assertEquals(0, triangle.intersect(new Ray(new Point(-5, 1, 0), new Vector(1, 0, 0)),
+                Double.POSITIVE_INFINITY, null), "Found an intersection of a ray in the plane");
+    }
+
+    /**
+     * Test case for the
+     * {@link geometries.Triangle#setWatertight(boolean) (geometries.Triangle)}.
+     */
+    @Test
+    void testWatertight() {
+        Triangle triangle = new Triangle(new Point(-1, 0, 0), new Point(2, 0, 0), new Point(0, 3, 0))
+                .setWatertight(true);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The point of intersection inside the triangle (1 point)
+        assertEquals(List.of(new Point(0, 2, 0)),
+                triangle.findIntersections(new Ray(new Point(0, 1, -1), new Vector(0, 1, 1))),
+                "Ray crosses in a watertight triangle does not work correctly");
+
+        // TC02: The point of intersection is outside the triangle (0 points)
+        assertNull(triangle.findIntersections(new Ray(new Point(-1, 0.5, -1), new Vector(-0.2, -0.6, 1))),
+                "Ray does not cross a watertight triangle - does not work correctly");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The intersection point is on an edge (1 point)
+        assertEquals(List.of(new Point(-0.5, 0, 0)),
+                triangle.findIntersections(new Ray(new Point(-0.5, 0, -1), new Vector(0, 0, 1))),
+                "Ray through an edge of a watertight triangle does not work correctly");
+
+        // TC11: The intersection point is on a vertex (1 point)
+        assertEquals(List.of(new Point(2, 0, 0)),
+                triangle.findIntersections(new Ray(new Point(2, 0, -1), new Vector(0, 0, 1))),
+                "Ray through a vertex of a watertight triangle does not work correctly");
+
+        // TC12: Every ray through the shared diagonal of a square of two triangles hits one of them
+        Point a = new Point(0, 0, 0.3), b = new Point(1, 0.1, 0), c = new Point(1.1, 1, 0.7), d = new Point(0, 1, 0);
+        Geometries square = new Geometries(new Triangle(a, b, c).setWatertight(true),
+                new Triangle(a, c, d).setWatertight(true));
+        for (int i = 1; i < 100; ++i) {
+            Point target = a.add(c.subtract(a).scale(i / 100.0));
+            Ray ray = new Ray(new Point(0.3, 0.4, 5), target.subtract(new Point(0.3, 0.4, 5)));
+            assertNotNull(square.findClosestGeoIntersection(ray), "A ray leaks through a shared edge - ray " + i);
+        }
+    }
+}
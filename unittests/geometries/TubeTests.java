@@ -5,6 +5,8 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -45,4 +47,60 @@ public class TubeTests {
         assertEquals(new Vector(0, 1, 0), tube.getNormal(new Point(0, 1, 0)),
                 "ERROR: Tube GetNormal boundary value test has failed.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test case for the
+     * {@link geometries.Tube#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Tube tube = new Tube(1, new Ray(Point.ZERO, new Vector(0, 0, 1)));
+        final Vector v100 = new Vector(1, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray's line is outside the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(-2, 2, 0), v100)), "Ray's line out of tube");
+
+        // TC02: Ray starts before and crosses the tube (2 points)
+        assertEquals(List.of(new Point(-1, 0, 1), new Point(1, 0, 3)),
+                tube.findIntersections(new Ray(new Point(-2, 0, 0), new Vector(1, 0, 1))), "Ray crosses tube");
+
+        // TC03: Ray starts inside the tube (1 point)
+        assertEquals(List.of(new Point(1, 0, 0.5)), tube.findIntersections(new Ray(new Point(0.5, 0, 0.5), v100)),
+                "Ray starts inside tube");
+
+        // TC04: Ray starts after the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(2, 0, 0), v100)), "Ray starts after tube");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Ray starts at the tube and goes inside (1 point)
+        assertEquals(List.of(new Point(1, 0, 0)), tube.findIntersections(new Ray(new Point(-1, 0, 0), v100)),
+                "Ray starts at tube and goes inside");
+
+        // TC11: Ray starts at the tube and goes outside (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(1, 0, 0), v100)), "Ray starts at tube and goes outside");
+
+        // TC12: Ray is tangent to the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(-2, 1, 0), v100)), "Ray tangent to tube");
+
+        // TC13: Ray is parallel to the axis inside the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(0.5, 0, 0), new Vector(0, 0, 1))),
+                "Ray parallel to the axis inside tube");
+
+        // TC14: Ray is parallel to the axis on the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(1, 0, 0), new Vector(0, 0, -1))),
+                "Ray parallel to the axis on tube");
+
+        // TC15: Ray is orthogonal to the axis and starts at the axis (1 point)
+        assertEquals(List.of(new Point(0, 1, 5)), tube.findIntersections(new Ray(new Point(0, 0, 5),
+                new Vector(0, 1, 0))), "Ray starts at the axis");
+
+        // TC16: The second intersection is beyond the maximum distance (1 point)
+        assertEquals(List.of(new Point(-1, 0, 0)), tube.findIntersections(new Ray(new Point(-2, 0, 0), v100), 2),
+                "Wrong intersections up to a distance");
+
+        // TC17: The closest intersection is the first one
+        assertEquals(new Point(-1, 0, 1), tube.findClosestGeoIntersection(new Ray(new Point(-2, 0, 0),
+                new Vector(1, 0, 1))).point, "Wrong closest intersection");
+    }
+}
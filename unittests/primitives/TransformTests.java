@@ -0,0 +1,77 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for primitives.Transform class
+ * @author Eliel Monfort
+ */
+public class TransformTests {
+
+    /**
+     * Test method for
+     * {@link primitives.Transform#Transform(double[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A matrix of a wrong size
+        assertThrows(IllegalArgumentException.class, () -> new Transform(new double[] { 1, 0, 0, 0 }),
+                "Matrix of a wrong size is accepted");
+        // TC02: A matrix of a number that is not finite
+        assertThrows(IllegalArgumentException.class,
+                () -> new Transform(new double[] { 1, 0, 0, Double.NaN, 0, 1, 0, 0, 0, 0, 1, 0 }),
+                "Matrix of a number that is not finite is accepted");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A singular linear map - a projection on a plane
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 1, 0),
+                "Singular transformation is accepted");
+    }
+
+    /**
+     * Test method for
+     * {@link primitives.Transform#transformPoint(primitives.Point)},
+     * {@link primitives.Transform#transformVector(primitives.Vector)} and
+     * {@link primitives.Transform#transformNormal(primitives.Vector)}.
+     */
+    @Test
+    void testTransform() {
+        Transform rotation = Transform.rotation(new Vector(0, 0, 1), 90);
+        Transform transform = Transform.scaling(2, 1, 1).then(rotation).then(Transform.translation(new Vector(1, 2, 3)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point is scaled, then rotated counterclockwise about z, then translated
+        assertEquals(new Point(0, 4, 4), transform.transformPoint(new Point(1, 1, 1)),
+                "Wrong mapped point");
+
+        // TC02: A vector is not translated
+        assertEquals(new Vector(-1, 2, 1), transform.transformVector(new Vector(1, 1, 1)), "Wrong mapped vector");
+
+        // TC03: A normal of a plane stays perpendicular to the mapped plane, although the scaling is not uniform
+        Vector normal = transform.transformNormal(new Vector(1, 1, 0));
+        Vector tangent = transform.transformVector(new Vector(1, -1, 0));
+        assertEquals(0, normal.dotProduct(tangent), 1e-12, "Mapped normal is not perpendicular");
+        assertEquals(1, normal.length(), 1e-12, "Mapped normal is not normalized");
+
+        // TC04: The inverse maps back
+        Point point = new Point(0.3, -2, 5);
+        assertEquals(point, transform.inverseTransformPoint(transform.transformPoint(point)),
+                "Inverse does not map the point back");
+        assertEquals(point, transform.inverse().transformPoint(transform.transformPoint(point)),
+                "Inverse transformation does not map the point back");
+        assertEquals(new Vector(1, 1, 1), transform.inverseTransformVector(transform.transformVector(
+                new Vector(1, 1, 1))), "Inverse does not map the vector back");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The identity maps every point to itself
+        assertEquals(point, Transform.IDENTITY.transformPoint(point), "Identity moves a point");
+
+        // TC11: A transformation composed with its inverse is the identity
+        assertEquals(point, transform.then(transform.inverse()).transformPoint(point),
+                "Transformation composed with its inverse moves a point");
+    }
+}
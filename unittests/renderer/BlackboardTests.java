@@ -10,8 +10,12 @@ import lighting.SpotLight;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static java.awt.Color.BLACK;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class BlackboardTests {
 
@@ -47,6 +51,145 @@ public class BlackboardTests {
                 "ERROR: The number of rays in a beam is incorrect (for a large number of rays)");
     }
 
+    /**
+     * Counts the points of a board of 4x4 centered at (10,0,0) with the axes y and z, by the cell of an n x m grid.
+     *
+     * @param points The points.
+     * @param n The amount of columns of the grid.
+     * @param m The amount of rows of the grid.
+     * @return The amount of points in every cell, by row and column.
+     */
+    private static int[][] cells(List<Point> points, int n, int m) {
+        int[][] counts = new int[m][n];
+        for (Point point : points) {
+            int column = (int) Math.floor((point.getY() + 2) / 4 * n);
+            int row = (int) Math.floor((2 - point.getZ()) / 4 * m);
+            ++counts[row][column];
+        }
+        return counts;
+    }
+
+    @Test
+    void samplingTest() {
+        Vector vectorX = new Vector(0, 1, 0), vectorY = new Vector(0, 0, 1);
+        Point center = new Point(10, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Every sampling method spreads Nx*Ny points over the board, and a seed repeats them
+        for (Blackboard.Sampling sampling : Blackboard.Sampling.values()) {
+            Blackboard blackboard = new Blackboard(4, 4, 4, 8).setSampling(sampling);
+            List<Point> points = blackboard.jittered(center, vectorX, vectorY, new Random(3));
+            assertEquals(32, points.size(), sampling + ": wrong amount of points");
+            for (Point point : points) {
+                assertTrue(Math.abs(point.getY()) <= 2 && Math.abs(point.getZ()) <= 2 && point.getX() == 10,
+                        sampling + ": a point off the board " + point);
+            }
+            assertEquals(points, blackboard.jittered(center, vectorX, vectorY, new Random(3)),
+                    sampling + ": a seed doesn't repeat the points");
+            assertNotEquals(points, blackboard.jittered(center, vectorX, vectorY, new Random(4)),
+                    sampling + ": other seeds give the same points");
+        }
+
+        // TC02: A jittered grid has a point in every one of its cells, over the whole board
+        Blackboard jittered = new Blackboard(4, 4, 4, 4);
+        int[][] counts = cells(jittered.jittered(center, vectorX, vectorY, new Random(5)), 4, 4);
+        for (int[] row : counts) {
+            assertArrayEquals(new int[] { 1, 1, 1, 1 }, row, "A jittered grid misses a cell");
+        }
+
+        // TC03: 16 Sobol points are stratified - a point in every cell of 4x4, 16x1 and 1x16
+        Blackboard sobol = new Blackboard(4, 4, 4, 4).setSampling(Blackboard.Sampling.SOBOL);
+        for (int seed = 0; seed < 20; ++seed) {
+            List<Point> points = sobol.jittered(center, vectorX, vectorY, new Random(seed));
+            for (int[] shape : new int[][] { { 4, 4 }, { 16, 1 }, { 1, 16 } }) {
+                for (int[] row : cells(points, shape[0], shape[1])) {
+                    for (int count : row) {
+                        assertEquals(1, count, "Sobol points are not stratified by " + shape[0] + "x" + shape[1]);
+                    }
+                }
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A single point of a low-discrepancy method lies on the board
+        Point point = new Blackboard(4, 4, 1, 1).setSampling(Blackboard.Sampling.BLUE_NOISE)
+                .jittered(center, vectorX, vectorY, new Random(1)).get(0);
+        assertTrue(Math.abs(point.getY()) <= 2 && Math.abs(point.getZ()) <= 2, "A single point off the board");
+
+        // TC11: No sampling method
+        assertThrows(IllegalArgumentException.class, () -> new Blackboard().setSampling(null),
+                "Set no sampling method");
+    }
+
+    @Test
+    void samplesTest() {
+        Vector vectorX = new Vector(0, 1, 0), vectorY = new Vector(0, 0, 1);
+        Point center = new Point(10, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The flat points are the points of the list, for every sampling method
+        for (Blackboard.Sampling sampling : Blackboard.Sampling.values()) {
+            Blackboard blackboard = new Blackboard(4, 4, 3, 5).setSampling(sampling);
+            List<Point> points = blackboard.jittered(center, vectorX, vectorY, new Random(6));
+            double[] samples = blackboard.samples(center, vectorX, vectorY, new Random(6), null);
+            assertEquals(45, samples.length, sampling + ": wrong amount of coordinates");
+            for (int k = 0; k < points.size(); ++k) {
+                assertEquals(points.get(k), new Point(samples[3 * k], samples[3 * k + 1], samples[3 * k + 2]),
+                        sampling + ": a flat point differs from the point of the list");
+            }
+        }
+
+        // TC02: A large enough array is filled and returned, and a short one is replaced
+        Blackboard blackboard = new Blackboard(4, 4, 4, 4);
+        double[] array = new double[50];
+        assertSame(array, blackboard.samples(center, vectorX, vectorY, new Random(1), array),
+                "The given array is not used");
+        assertEquals(48, blackboard.samples(center, vectorX, vectorY, new Random(1), new double[47]).length,
+                "A short array is used");
+
+        // TC03: Precomputed patterns are jittered grids on the board, and a generator picks one of them
+        blackboard.setPatterns(3);
+        assertEquals(3, blackboard.getPatternCount(), "Wrong amount of patterns");
+        List<List<Point>> patterns = new ArrayList<>();
+        Random random = new Random(2);
+        for (int n = 0; n < 30; ++n) {
+            List<Point> points = blackboard.jittered(center, vectorX, vectorY, random);
+            for (int[] row : cells(points, 4, 4)) {
+                assertArrayEquals(new int[] { 1, 1, 1, 1 }, row, "A pattern misses a cell");
+            }
+            if (!patterns.contains(points)) {
+                patterns.add(points);
+            }
+        }
+        assertEquals(3, patterns.size(), "The points are not picked from the patterns");
+
+        // TC04: Patterns are rebuilt by a new sampling method
+        blackboard.setSampling(Blackboard.Sampling.SOBOL);
+        List<Point> sobol = blackboard.jittered(center, vectorX, vectorY, new Random(2));
+        for (int[] shape : new int[][] { { 16, 1 }, { 1, 16 } }) {
+            for (int[] row : cells(sobol, shape[0], shape[1])) {
+                for (int count : row) {
+                    assertEquals(1, count, "A Sobol pattern is not stratified by " + shape[0] + "x" + shape[1]);
+                }
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: No patterns - the points are generated anew
+        blackboard.setPatterns(0);
+        assertNotEquals(blackboard.jittered(center, vectorX, vectorY, new Random(8)),
+                blackboard.jittered(center, vectorX, vectorY, new Random(9)), "Other seeds give the same points");
+
+        // TC11: A single pattern is used by every call
+        blackboard.setPatterns(1);
+        assertEquals(blackboard.jittered(center, vectorX, vectorY, new Random(8)),
+                blackboard.jittered(center, vectorX, vectorY, new Random(9)), "A single pattern is not reused");
+
+        // TC12: A negative amount of patterns
+        assertThrows(IllegalArgumentException.class, () -> new Blackboard().setPatterns(-1),
+                "Set a negative amount of patterns");
+    }
+
     @Test
     void AntiAliasingTest() {
 
@@ -74,12 +217,16 @@ public class BlackboardTests {
                 .writeToImage();
     }
 
-    @Test
-    void softShadowsTest() {
-
-        // A Soft-Shadows with a blackboard divided into 2x2 (the Soft-Shadows effect is weak)
-        final Scene scene1 = new Scene("Test Soft-Shadows");
-        scene1.geometries.add(
+    /**
+     * Produce the scene of the Soft-Shadows tests - a sphere on a plane, lighted by a sized spot light.
+     * The scene is shared with the benchmarks.
+     *
+     * @param n The number of divisions of the blackboard of the light in each direction.
+     * @return The scene of the Soft-Shadows tests.
+     */
+    public static Scene softShadowsScene(int n) {
+        final Scene scene = new Scene("Test Soft-Shadows");
+        scene.geometries.add(
                 new Plane(Point.ZERO, new Point(0, 0, 1), new Point(0, 1, 0))
                         .setEmission(new Color(129, 133, 137))
                         .setMaterial(new Material().setKd(0.5)),
@@ -87,9 +234,17 @@ public class BlackboardTests {
                 new Sphere(5d, new Point(0, 0, 5)).setEmission(new Color(137, 148, 153))
                         .setMaterial(new Material().setKs(0.4).setShininess(70))
         );
-        scene1.lights.add(
-                new SpotLight(new Color(255,230,89), new Point(15, 0, -10), new Vector(-1, 0, 1), 2, 2, 2, 2).setKl(0.1).setKq(0.002)
+        scene.lights.add(
+                new SpotLight(new Color(255,230,89), new Point(15, 0, -10), new Vector(-1, 0, 1), 2, 2, n, n).setKl(0.1).setKq(0.002)
         );
+        return scene;
+    }
+
+    @Test
+    void softShadowsTest() {
+
+        // A Soft-Shadows with a blackboard divided into 2x2 (the Soft-Shadows effect is weak)
+        final Scene scene1 = softShadowsScene(2);
         camera
                 .setImageWriter(new ImageWriter("SoftShadowsTestImage2X2", 1000,1000))
                 .setRayTracer(new SimpleRayTracer(scene1))
@@ -99,18 +254,7 @@ public class BlackboardTests {
 
 
         //A Soft-Shadows with a blackboard divided into 9x9 (the Soft-Shadows effect is strong)
-        final Scene scene2 = new Scene("Test Soft-Shadows");
-        scene2.geometries.add(
-                new Plane(Point.ZERO, new Point(0, 0, 1), new Point(0, 1, 0))
-                        .setEmission(new Color(129, 133, 137))
-                        .setMaterial(new Material().setKd(0.5)),
-
-                new Sphere(5d, new Point(0, 0, 5)).setEmission(new Color(137, 148, 153))
-                        .setMaterial(new Material().setKs(0.4).setShininess(70))
-        );
-        scene2.lights.add(
-                new SpotLight(new Color(255,230,89), new Point(15, 0, -10), new Vector(-1, 0, 1), 2, 2, 9, 9).setKl(0.1).setKq(0.002)
-        );
+        final Scene scene2 = softShadowsScene(9);
         camera
                 .setImageWriter(new ImageWriter("SoftShadowsTestImage9X9", 1000,1000))
                 .setRayTracer(new SimpleRayTracer(scene2))
@@ -119,6 +263,38 @@ public class BlackboardTests {
                 .writeToImage();
     }
 
+    @Test
+    void adaptiveShadowsTest() {
+        Scene scene = softShadowsScene(9);
+        SimpleRayTracer full = new SimpleRayTracer(scene);
+        SimpleRayTracer adaptive = new SimpleRayTracer(scene).setAdaptiveShadows(3);
+        Camera grid = camera.setImageWriter(new ImageWriter("adaptive", 40, 40)).setRayTracer(full).build();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The adaptive shadows are the shadows of the whole blackboard, up to the noise of the sampling
+        for (int i = 0; i < 40; ++i) {
+            for (int j = 0; j < 40; ++j) {
+                Ray ray = grid.constructRay(40, 40, j, i);
+                java.awt.Color expected = full.traceRay(ray).getColor();
+                java.awt.Color actual = adaptive.traceRay(ray).getColor();
+                assertEquals(expected.getRed(), actual.getRed(), 3, "Wrong adaptive shadow (red)");
+                assertEquals(expected.getGreen(), actual.getGreen(), 3, "Wrong adaptive shadow (green)");
+                assertEquals(expected.getBlue(), actual.getBlue(), 3, "Wrong adaptive shadow (blue)");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A point that is fully lit is fully lit
+        Ray lit = new Ray(new Point(100, 0, 10), new Vector(-100, -20, -10));
+        assertEquals(full.traceRay(lit).getRgb(), adaptive.traceRay(lit).getRgb(), "Wrong color of a fully lit point");
+
+        // TC11: A negative depth, and a depth beyond the maximum
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(scene).setAdaptiveShadows(-1),
+                "Set a negative adaptive depth");
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(scene).setAdaptiveShadows(7),
+                "Set an adaptive depth beyond the maximum");
+    }
+
     @Test
     void AntiAliasing_And_SoftShadowTest() {
         final Scene scene = new Scene("Test Anti-Aliasing and Soft-Shadows");
@@ -1,6 +1,18 @@
 package renderer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
@@ -59,4 +71,237 @@ class CameraTest {
                    camera2.constructRay(3, 3, 0, 0), badRay);
 
    }
-}
\ No newline at end of file
+
+   /**
+    * Prepares the builder of a camera of an anti-aliased image of a sphere on a plane.
+    *
+    * @param threads     the amount of rendering threads (0 renders in the calling thread)
+    * @param seed        the seed of the jittering
+    * @param imageWriter the image writer of the camera
+    * @return the builder of the camera
+    */
+   private static Camera.Builder threadsCamera(int threads, long seed, ImageWriter imageWriter) {
+      Scene scene = new Scene("Test threads");
+      scene.geometries.add(
+         new Sphere(5d, new Point(0, 0, 5)).setEmission(new Color(0, 0, 200))
+            .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)),
+         new Plane(Point.ZERO, new Vector(0, 0, 1)).setEmission(new Color(60, 60, 60))
+            .setMaterial(new Material().setKd(0.5)));
+      scene.lights.add(new PointLight(new Color(400, 400, 400), new Point(20, 20, 30)));
+      return Camera.getBuilder()
+         .setLocation(new Point(0, -100, 20)).setDirection(new Vector(0, 1, -0.1), new Vector(0, 0.1, 1))
+         .setVpDistance(100).setVpSize(30, 20)
+         .setImageWriter(imageWriter)
+         .setRayTracer(new SimpleRayTracer(scene))
+         .setAntiAliasing(4, 4)
+         .setTileSize(8)
+         .setMultithreading(threads)
+         .setSeed(seed);
+   }
+
+   /**
+    * Renders an anti-aliased image of a sphere on a plane.
+    *
+    * @param threads the amount of rendering threads (0 renders in the calling thread)
+    * @param seed    the seed of the jittering
+    * @return the image writer with the rendered image
+    */
+   private static ImageWriter render(int threads, long seed) {
+      ImageWriter imageWriter = new ImageWriter("Test threads", 45, 31);
+      threadsCamera(threads, seed, imageWriter).build().renderImage();
+      return imageWriter;
+   }
+
+   /**
+    * Asserts that two images are identical.
+    *
+    * @param expected the expected image
+    * @param actual   the actual image
+    * @param message  the message of the failure
+    */
+   private static void assertSameImage(ImageWriter expected, ImageWriter actual, String message) {
+      for (int i = 0; i < expected.getNy(); ++i)
+         for (int j = 0; j < expected.getNx(); ++j)
+            assertEquals(expected.readPixel(j, i), actual.readPixel(j, i), message + " at pixel (" + j + "," + i + ")");
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera#renderImage()}.
+    */
+   @Test
+   void testRenderImageThreads() {
+      ImageWriter single = render(0, 7);
+      ImageWriter parallel = render(4, 7);
+      ImageWriter otherSeed = render(0, 8);
+      int differences = 0;
+      for (int i = 0; i < 31; ++i)
+         for (int j = 0; j < 45; ++j) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The jittered image rendered by several threads is the same as by a single thread
+            assertEquals(single.readPixel(j, i), parallel.readPixel(j, i),
+                         "Pixel (" + j + "," + i + ") differs between single and multithreaded rendering");
+            if (single.readPixel(j, i) != otherSeed.readPixel(j, i)) ++differences;
+         }
+      // TC02: Another seed jitters the beams differently
+      assertNotEquals(0, differences, "The seed does not change the jittering");
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera#renderImage(java.util.concurrent.Executor)}.
+    */
+   @Test
+   void testRenderImageExecutor() throws Exception {
+      ImageWriter expected = render(0, 7);
+      ExecutorService pool = Executors.newFixedThreadPool(2);
+      ForkJoinPool forkJoin = new ForkJoinPool(3);
+      try {
+         // ============ Equivalence Partitions Tests ==============
+         // TC01: Rendering by a thread pool gives the same image as by the calling thread
+         ImageWriter pooled = new ImageWriter("Test threads", 45, 31);
+         Camera camera = threadsCamera(4, 7, pooled).build();
+         assertSame(camera, camera.renderImage(pool).get(), "The future does not complete with the camera");
+         assertSameImage(expected, pooled, "Thread pool rendering differs");
+
+         // TC02: Rendering by a fork-join pool, with the amount of tasks taken from the processors
+         ImageWriter forked = new ImageWriter("Test threads", 45, 31);
+         threadsCamera(0, 7, forked).build().renderImage(forkJoin).get();
+         assertSameImage(expected, forked, "Fork-join pool rendering differs");
+
+         // TC03: The same camera renders again, twice concurrently
+         ImageWriter reused = new ImageWriter("Test threads", 45, 31);
+         camera = threadsCamera(2, 7, reused).build();
+         CompletableFuture<Camera> first = camera.renderImage(pool);
+         CompletableFuture<Camera> second = camera.renderImage(forkJoin);
+         CompletableFuture.allOf(first, second).get();
+         assertSameImage(expected, reused, "Repeated rendering differs");
+         camera.renderImage();
+         assertSameImage(expected, reused, "Rendering after the concurrent renderings differs");
+
+         // TC04: A failure of the ray tracer completes the future exceptionally
+         CompletableFuture<Camera> failed = Camera.getBuilder()
+            .setLocation(Point.ZERO).setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+            .setVpDistance(10).setVpSize(3, 3)
+            .setImageWriter(new ImageWriter("Test failure", 3, 3))
+            .setRayTracer(new RayTracerBase(new Scene("Test failure")) {
+               @Override
+               public Color traceRay(Ray ray) { throw new IllegalStateException("Tracing failure"); }
+            })
+            .setMultithreading(2)
+            .build()
+            .renderImage(pool);
+         ExecutionException e = assertThrows(ExecutionException.class, failed::get, "The failure is lost");
+         assertInstanceOf(IllegalStateException.class, e.getCause(), "Wrong failure");
+      } finally {
+         pool.shutdown();
+         forkJoin.shutdown();
+      }
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera.Builder#setRayPacketSize(int)}.
+    */
+   @Test
+   void testRayPacketSize() {
+      ImageWriter[] images = new ImageWriter[4];
+      int[] sizes = { 1, 4, 8, 16 };
+      for (int s = 0; s < sizes.length; ++s) {
+         images[s] = new ImageWriter("Test packets", 45, 31);
+         threadsCamera(0, 7, images[s]).setRayPacketSize(sizes[s]).setAntiAliasing(1, 1).setTileSize(7).build()
+            .renderImage();
+      }
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: Packets of 2x2, 4x2 and 4x4 pixels, clipped at the edges of the tiles, give the image of single rays
+      for (int s = 1; s < sizes.length; ++s)
+         assertSameImage(images[0], images[s], "Packets of " + sizes[s] + " rays differ");
+
+      // =============== Boundary Values Tests ==================
+      // TC10: Illegal packet size
+      assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setRayPacketSize(2),
+                   "Packet size that is not a block of pixels");
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera.Builder#setAntiAliasing(int)}.
+    */
+   @Test
+   void testAdaptiveAntiAliasing() {
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: Every sample of a uniform image is traced once - the corners of the pixels of a tile are shared
+      int[] rays = { 0 };
+      Camera.getBuilder()
+         .setLocation(Point.ZERO).setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+         .setVpDistance(10).setVpSize(45, 31)
+         .setImageWriter(new ImageWriter("Test adaptive", 45, 31))
+         .setRayTracer(new SimpleRayTracer(new Scene("Test adaptive")) {
+            @Override
+            public Color traceRay(Ray ray) {
+               ++rays[0];
+               return super.traceRay(ray);
+            }
+         })
+         .setAntiAliasing(3)
+         .setTileSize(8)
+         .build()
+         .renderImage();
+      int expected = 0;
+      for (int row = 0; row < 31; row += 8)
+         for (int col = 0; col < 45; col += 8) {
+            int width = Math.min(8, 45 - col), height = Math.min(8, 31 - row);
+            expected += (width + 1) * (height + 1) + width * height;
+         }
+      assertEquals(expected, rays[0], "Wrong amount of traced rays");
+
+      // TC02: The edges are resolved as by a dense grid of rays
+      ImageWriter dense = new ImageWriter("Test adaptive", 45, 31);
+      threadsCamera(0, 7, dense).setAntiAliasing(16, 16).build().renderImage();
+      ImageWriter adaptive = new ImageWriter("Test adaptive", 45, 31);
+      threadsCamera(0, 7, adaptive).setAntiAliasing(1, 1).setAntiAliasing(3).build().renderImage();
+      double error = 0;
+      for (int i = 0; i < 31; ++i)
+         for (int j = 0; j < 45; ++j) {
+            java.awt.Color e = new java.awt.Color(dense.readPixel(j, i));
+            java.awt.Color a = new java.awt.Color(adaptive.readPixel(j, i));
+            error += Math.abs(e.getRed() - a.getRed()) + Math.abs(e.getGreen() - a.getGreen())
+               + Math.abs(e.getBlue() - a.getBlue());
+         }
+      assertEquals(0, error / (3 * 45 * 31), 0.5, "The adaptive image differs from the dense one");
+
+      // TC03: The rendering threads render the same image
+      ImageWriter parallel = new ImageWriter("Test adaptive", 45, 31);
+      threadsCamera(4, 7, parallel).setAntiAliasing(1, 1).setAntiAliasing(3).build().renderImage();
+      assertSameImage(adaptive, parallel, "Rendering threads differ");
+
+      // =============== Boundary Values Tests ==================
+      // TC10: Illegal depths
+      assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setAntiAliasing(-1), "Negative depth");
+      assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setAntiAliasing(5), "Too deep");
+
+      // TC11: A tile far larger than the image, at the largest depth - the samples are still shared in the
+      // whole tile, and the image is the one of small tiles
+      int[] traced = { 0 };
+      Camera.getBuilder()
+         .setLocation(Point.ZERO).setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+         .setVpDistance(10).setVpSize(45, 31)
+         .setImageWriter(new ImageWriter("Test adaptive", 45, 31))
+         .setRayTracer(new SimpleRayTracer(new Scene("Test adaptive")) {
+            @Override
+            public Color traceRay(Ray ray) {
+               ++traced[0];
+               return super.traceRay(ray);
+            }
+         })
+         .setAntiAliasing(4)
+         .setTileSize(1 << 20)
+         .build()
+         .renderImage();
+      assertEquals(46 * 32 + 45 * 31, traced[0], "Wrong amount of traced rays in a large tile");
+      ImageWriter large = new ImageWriter("Test adaptive", 45, 31);
+      threadsCamera(0, 7, large).setAntiAliasing(1, 1).setAntiAliasing(3).setTileSize(1 << 20).build()
+         .renderImage();
+      assertSameImage(adaptive, large, "Large tiles differ");
+   }
+}
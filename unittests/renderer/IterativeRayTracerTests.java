@@ -0,0 +1,107 @@
+package renderer;
+
+import geometries.Plane;
+import lighting.AmbientLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for renderer.IterativeRayTracer class
+ * @author Eliel Monfort
+ */
+class IterativeRayTracerTests {
+
+    /**
+     * Asserts that two colors are equal up to the rounding of their components.
+     *
+     * @param expected The expected color.
+     * @param actual The actual color.
+     * @param delta The allowed difference of the components.
+     * @param message The message of the failure.
+     */
+    private static void assertColor(Color expected, Color actual, int delta, String message) {
+        java.awt.Color e = expected.getColor();
+        java.awt.Color a = actual.getColor();
+        assertEquals(e.getRed(), a.getRed(), delta, message + " (red)");
+        assertEquals(e.getGreen(), a.getGreen(), delta, message + " (green)");
+        assertEquals(e.getBlue(), a.getBlue(), delta, message + " (blue)");
+    }
+
+    /**
+     * Builds a scene of a reflecting plane under a sky of a given color, without lights.
+     *
+     * @param kR The reflection coefficient of the plane.
+     * @return The scene.
+     */
+    private static Scene mirrorScene(double kR) {
+        Scene scene = new Scene("Test mirror").setBackground(new Color(200, 100, 40))
+                .setAmbientLight(new AmbientLight(new Color(10, 10, 10), Double3.ONE));
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1))
+                .setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKr(kR)));
+        return scene;
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.IterativeRayTracer#traceRay(primitives.Ray)}.
+     */
+    @Test
+    void testTraceRay() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The colors of the scene of reflections and refractions are the same as of the recursive tracer
+        Scene scene = new Scene("Test scene");
+        ReflectionRefractionTests.buildImpressiveScene(scene);
+        SimpleRayTracer recursive = new SimpleRayTracer(scene);
+        IterativeRayTracer iterative = new IterativeRayTracer(scene);
+        Camera camera = Camera.getBuilder()
+                .setLocation(new Point(600, 10, 40)).setVpDistance(1000)
+                .setDirection(new Vector(-1, 0, 0), new Vector(0, 0, 1))
+                .setVpSize(400, 400)
+                .setImageWriter(new ImageWriter("Test", 40, 40))
+                .setRayTracer(recursive)
+                .build();
+        for (int i = 0; i < 40; ++i)
+            for (int j = 0; j < 40; ++j) {
+                Ray ray = camera.constructRay(40, 40, j, i);
+                assertColor(recursive.traceRay(ray), iterative.traceRay(ray), 1,
+                        "Wrong color of pixel (" + j + "," + i + ")");
+            }
+
+        // TC02: The Russian roulette keeps the average color of the reflections
+        IterativeRayTracer roulette = new IterativeRayTracer(mirrorScene(0.5)).setRussianRoulette(1);
+        Ray down = new Ray(new Point(0, 0, 10), new Vector(1, 0, -1));
+        Color sum = Color.BLACK;
+        int samples = 20000;
+        for (int s = 0; s < samples; ++s) sum = sum.add(roulette.traceRay(down));
+        assertColor(new Color(130, 80, 50), sum.reduce(samples), 3, "The Russian roulette is biased");
+
+        // TC03: Rays whose contribution is below the minimum k are not traced
+        assertColor(new Color(30, 30, 30), new IterativeRayTracer(mirrorScene(0.5)).setMinK(0.6).traceRay(down), 1,
+                "The reflection below the minimum k is traced");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The first level traces the primary ray only
+        assertColor(new Color(30, 30, 30), new IterativeRayTracer(mirrorScene(1)).setMaxLevel(1).traceRay(down), 1,
+                "The reflection beyond the maximum level is traced");
+
+        // TC11: The second level traces the reflection of the primary ray
+        assertColor(new Color(230, 130, 70), new IterativeRayTracer(mirrorScene(1)).setMaxLevel(2).traceRay(down), 1,
+                "The reflection of the second level is not traced");
+
+        // TC12: A ray that misses all the geometries gets the background
+        assertColor(new Color(200, 100, 40), new IterativeRayTracer(mirrorScene(1))
+                .traceRay(new Ray(new Point(0, 0, 10), new Vector(0, 0, 1))), 1, "Wrong background");
+
+        // TC13: Illegal parameters
+        assertThrows(IllegalArgumentException.class, () -> new IterativeRayTracer(scene).setMaxLevel(0),
+                "Zero maximum level");
+        assertThrows(IllegalArgumentException.class, () -> new IterativeRayTracer(scene).setMinK(-0.1),
+                "Negative minimum k");
+        assertThrows(IllegalArgumentException.class, () -> new IterativeRayTracer(scene).setRussianRoulette(1.5),
+                "Russian roulette threshold above 1");
+    }
+}
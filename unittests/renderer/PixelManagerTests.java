@@ -0,0 +1,79 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for renderer.PixelManager class
+ * @author Eliel Monfort
+ */
+class PixelManagerTests {
+
+    /**
+     * Takes all the tiles of a pixel manager by several threads concurrently and counts
+     * how many times every pixel is covered.
+     *
+     * @param manager The pixel manager.
+     * @param nX The amount of pixel columns.
+     * @param nY The amount of pixel rows.
+     * @param threads The amount of threads.
+     * @return The coverage counts of the pixels, row by row.
+     */
+    private static AtomicIntegerArray cover(PixelManager manager, int nX, int nY, int threads) {
+        AtomicIntegerArray coverage = new AtomicIntegerArray(nX * nY);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            workers.add(new Thread(() -> {
+                PixelManager.Tile tile;
+                while ((tile = manager.nextTile()) != null) {
+                    for (int i = tile.row(); i < tile.row() + tile.height(); ++i)
+                        for (int j = tile.col(); j < tile.col() + tile.width(); ++j)
+                            coverage.incrementAndGet(i * nX + j);
+                    manager.tileDone(tile);
+                }
+            }));
+        }
+        for (Thread worker : workers) worker.start();
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException ignore) {}
+        return coverage;
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.PixelManager#nextTile()}.
+     */
+    @Test
+    void testNextTile() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The tiles of an image that is not a multiple of the tile size cover every pixel exactly once
+        AtomicIntegerArray coverage = cover(new PixelManager(37, 50, 8, 0), 50, 37, 4);
+        for (int p = 0; p < coverage.length(); ++p)
+            assertEquals(1, coverage.get(p), "Pixel " + p + " is not covered exactly once");
+
+        // TC02: The tiles are clipped at the right and bottom edges of the image
+        PixelManager manager = new PixelManager(10, 10, 8, 0);
+        assertEquals(new PixelManager.Tile(0, 0, 8, 8), manager.nextTile(), "Wrong first tile");
+        assertEquals(new PixelManager.Tile(8, 0, 2, 8), manager.nextTile(), "Wrong right edge tile");
+        assertEquals(new PixelManager.Tile(0, 8, 8, 2), manager.nextTile(), "Wrong bottom edge tile");
+        assertEquals(new PixelManager.Tile(8, 8, 2, 2), manager.nextTile(), "Wrong corner tile");
+        assertNull(manager.nextTile(), "Tile beyond the image");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A tile larger than the image covers the whole image
+        manager = new PixelManager(3, 5, 16, 0);
+        assertEquals(new PixelManager.Tile(0, 0, 5, 3), manager.nextTile(), "Wrong single tile");
+        assertNull(manager.nextTile(), "Tile beyond the image");
+
+        // TC11: Tiles of a single pixel
+        coverage = cover(new PixelManager(7, 9, 1, 0), 9, 7, 3);
+        for (int p = 0; p < coverage.length(); ++p)
+            assertEquals(1, coverage.get(p), "Pixel " + p + " is not covered exactly once");
+    }
+}
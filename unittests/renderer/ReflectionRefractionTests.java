@@ -106,6 +106,24 @@ public class ReflectionRefractionTests {
     * @author Eliel monfort & Ariel Atias*/
    @Test
    public void impressivePicture(){
+      buildImpressiveScene(scene);
+
+      cameraBuilder.setLocation(new Point(600, 10, 40)).setVpDistance(1000)
+              .setDirection(new Vector(-1, 0, 0), new Vector(0, 0, 1))
+              .setVpSize(400, 400)
+              .setImageWriter(new ImageWriter("TheImpressivePicture", 1000, 1000))
+              .build()
+              .renderImage()
+              .writeToImage();
+   }
+
+   /**
+    * Fills a scene with the geometries and the light of the picture we created.
+    * The scene is shared with the benchmarks.
+    *
+    * @param scene the scene to be filled
+    */
+   public static void buildImpressiveScene(Scene scene) {
       scene.geometries.add(
 
               // The part for the house
@@ -209,13 +227,5 @@ public class ReflectionRefractionTests {
       scene.lights.add(
               new PointLight(new Color(253, 184, 19), new Point(-15, 75, 143))
                       .setKl(4E-5).setKq(2E-7));
-
-      cameraBuilder.setLocation(new Point(600, 10, 40)).setVpDistance(1000)
-              .setDirection(new Vector(-1, 0, 0), new Vector(0, 0, 1))
-              .setVpSize(400, 400)
-              .setImageWriter(new ImageWriter("TheImpressivePicture", 1000, 1000))
-              .build()
-              .renderImage()
-              .writeToImage();
    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package scene;
+
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.MeshLoader class
+ * @author Eliel Monfort
+ */
+public class MeshLoaderTests {
+
+    /** The directory of the files of the tests. */
+    @TempDir
+    Path directory;
+
+    /**
+     * Writes a text file.
+     *
+     * @param name The name of the file.
+     * @param text The text.
+     * @return The path of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private Path write(String name, String text) throws IOException {
+        return Files.writeString(directory.resolve(name), text, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes a binary PLY file of a unit square in the plane z=1, made of a quad and with extra properties
+     * and elements that the loader skips.
+     *
+     * @param name The name of the file.
+     * @param order The byte order of the file.
+     * @return The path of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private Path writePly(String name, ByteOrder order) throws IOException {
+        String header = "ply\n"
+                + "format " + (order == ByteOrder.LITTLE_ENDIAN ? "binary_little_endian" : "binary_big_endian")
+                + " 1.0\n"
+                + "comment a unit square\n"
+                + "element vertex 4\n"
+                + "property float x\n"
+                + "property float y\n"
+                + "property double z\n"
+                + "property uchar red\n"
+                + "property list uchar float extra\n"
+                + "element face 1\n"
+                + "property uchar flags\n"
+                + "property list uchar uint vertex_indices\n"
+                + "element edge 1\n"
+                + "property int vertex1\n"
+                + "property int vertex2\n"
+                + "end_header\n";
+        ByteBuffer body = ByteBuffer.allocate(1024).order(order);
+        float[][] vertices = { { 0, 0 }, { 1, 0 }, { 1, 1 }, { 0, 1 } };
+        for (float[] vertex : vertices) {
+            body.putFloat(vertex[0]).putFloat(vertex[1]).putDouble(1).put((byte) 200);
+            body.put((byte) 2).putFloat(5).putFloat(6);
+        }
+        body.put((byte) 7).put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        body.putInt(0).putInt(1);
+        body.flip();
+        byte[] bytes = new byte[header.length() + body.remaining()];
+        System.arraycopy(header.getBytes(StandardCharsets.US_ASCII), 0, bytes, 0, header.length());
+        body.get(bytes, header.length(), body.remaining());
+        return Files.write(directory.resolve(name), bytes);
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadObj(java.nio.file.Path)}.
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        MeshLoader loader = new MeshLoader();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Vertices, a triangle and a quad, with texture and normal references, comments and skipped statements
+        Path path = write("square.obj", "# a unit square and a triangle\r\n"
+                + "o square\r\n"
+                + "v 0 0 1\r\nv 1.0 0 1\r\nv 1 1 1.0e0\r\n  v\t0 100e-2 +1\r\n"
+                + "vt 0 0\nvn 0 0 1\n"
+                + "usemtl red\n"
+                + "f 1/1/1 2/2/1 3/3/1 4//1\n"
+                + "v 5 5 -3.25\n"
+                + "f -1 1 2 # relative reference\n");
+        TriangleMesh mesh = loader.loadObj(path);
+        assertEquals(5, mesh.getVertexCount(), "Wrong amount of vertices");
+        assertEquals(3, mesh.getFaceCount(), "Wrong amount of faces");
+        assertEquals(new Point(0.25, 0.75, 1),
+                mesh.findClosestGeoIntersection(new Ray(new Point(0.25, 0.75, 5), new Vector(0, 0, -1))).point,
+                "Wrong intersection with the second triangle of the quad");
+        MeshLoader.Statistics statistics = loader.getStatistics();
+        assertEquals(Files.size(path), statistics.bytes(), "Wrong size in the statistics");
+        assertEquals(3, statistics.faces(), "Wrong faces in the statistics");
+        assertTrue(statistics.megabytesPerSecond() > 0, "Wrong throughput in the statistics");
+
+        // TC02: Numbers that are not on the fast path of the parser
+        mesh = loader.loadObj(write("precise.obj",
+                "v -0.12345678901234567890 1e-30 0\nv 1 1 0\nv 0 1 1\nf 1 2 3\n"));
+        assertEquals(-0.12345678901234567890, mesh.getBounds().minX, "Wrong parsing of a long number");
+        assertEquals(1e-30, mesh.getBounds().minY, "Wrong parsing of a small number");
+
+        // TC03: A face of a missing vertex
+        assertThrows(IOException.class, () -> loader.loadObj(write("missing.obj", "v 0 0 0\nv 1 0 0\nf 1 2 3\n")),
+                "Loaded a face of a missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A file with no faces
+        assertThrows(IOException.class, () -> loader.loadObj(write("empty.obj", "v 0 0 0\n")),
+                "Loaded a file with no faces");
+
+        // TC11: A face of two vertices
+        assertThrows(IOException.class, () -> loader.loadObj(write("line.obj", "v 0 0 0\nv 1 0 0\nf 1 2\n")),
+                "Loaded a face of two vertices");
+
+        // TC12: A malformed number
+        assertThrows(IOException.class, () -> loader.loadObj(write("broken.obj", "v 0 x 0\n")),
+                "Loaded a malformed number");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadPly(java.nio.file.Path)}.
+     */
+    @Test
+    void testLoadPly() throws IOException {
+        MeshLoader loader = new MeshLoader();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Both byte orders, with skipped properties, list properties and elements
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN }) {
+            TriangleMesh mesh = loader.load(writePly("square-" + order + ".ply", order));
+            assertEquals(4, mesh.getVertexCount(), order + ": wrong amount of vertices");
+            assertEquals(2, mesh.getFaceCount(), order + ": wrong amount of faces");
+            assertEquals(new Point(0.75, 0.25, 1),
+                    mesh.findClosestGeoIntersection(new Ray(new Point(0.75, 0.25, 5), new Vector(0, 0, -1))).point,
+                    order + ": wrong intersection with the first triangle of the quad");
+            assertEquals(new Point(0.25, 0.75, 1),
+                    mesh.findClosestGeoIntersection(new Ray(new Point(0.25, 0.75, 5), new Vector(0, 0, -1))).point,
+                    order + ": wrong intersection with the second triangle of the quad");
+        }
+
+        // TC02: An ASCII file is not supported
+        assertThrows(IOException.class, () -> loader.loadPly(write("ascii.ply",
+                "ply\nformat ascii 1.0\nelement vertex 0\nend_header\n")), "Loaded an ASCII file");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A body that ends early
+        Path path = writePly("short.ply", ByteOrder.LITTLE_ENDIAN);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 12));
+        assertThrows(IOException.class, () -> loader.loadPly(path), "Loaded a truncated file");
+
+        // TC11: An unknown extension
+        assertThrows(IllegalArgumentException.class, () -> loader.load(directory.resolve("mesh.stl")),
+                "Loaded a file of an unknown format");
+    }
+}
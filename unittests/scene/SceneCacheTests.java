@@ -0,0 +1,245 @@
+package scene;
+
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.*;
+import renderer.Blackboard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.SceneCache class
+ * @author Eliel Monfort
+ */
+public class SceneCacheTests {
+
+    /** The directory of the files of the tests. */
+    @TempDir
+    Path directory;
+
+    /** A material shared by several geometries. */
+    private final Material shared = new Material().setKd(0.5).setKs(0.3).setShininess(30).setKr(0.1);
+
+    /**
+     * Creates a scene of every kind of geometry and light, with a hierarchy over its geometries,
+     * a nested collection that has no hierarchy, a nested collection indexed by a grid and two instances of
+     * a shared geometry.
+     *
+     * @return The scene.
+     */
+    private Scene scene() {
+        Material glass = new Material().setKt(new Double3(0.2, 0.4, 0.6));
+        TriangleMesh mesh = new TriangleMesh(new double[] { 0, 0, 0, 4, 0, 0, 0, 4, 0, 0, 0, 4 },
+                new int[] { 0, 2, 1, 0, 1, 3, 0, 3, 2, 1, 2, 3 }, new Material[] { shared, glass },
+                new int[] { 0, 1, 0, 1 });
+        Geometries nested = new Geometries(
+                new Polygon(new Point(-6, -6, -1), new Point(-2, -6, -1), new Point(-2, -2, -1), new Point(-6, -2, -1)),
+                new Cylinder(1, new Ray(new Point(5, -5, 0), new Vector(0, 0, 1)), 3));
+        Geometries instanced = new Geometries(new Sphere(1, Point.ZERO).setMaterial(shared),
+                new Triangle(new Point(0, 0, 1.5), new Point(1, 0, 1.5), new Point(0, 1, 1.5))).buildBvh();
+        Geometries geometries = new Geometries(
+                new Sphere(1.5, new Point(-4, 4, 1)).setEmission(new Color(10, 20, 30)).setMaterial(shared),
+                new Triangle(new Point(6, 0, 0), new Point(8, 0, 0), new Point(6, 2, 3)).setWatertight(true)
+                        .setMaterial(shared),
+                new Plane(new Point(0, 0, -2), new Vector(0, 0, 1)).setMaterial(glass),
+                new Tube(0.5, new Ray(new Point(-8, 0, 0), new Vector(0, 1, 1))),
+                mesh.setEmission(new Color(1, 2, 3)),
+                nested,
+                new GridGeometries(new Sphere(0.5, new Point(0, 6, 2)), new Sphere(0.5, new Point(1, 7, 3)),
+                        new Sphere(0.7, new Point(-1, 7, 2)).setMaterial(glass)).setDensity(4).build(),
+                new Instance(instanced, Transform.scaling(1, 2, 1).then(Transform.translation(new Vector(3, -8, 1)))),
+                new Instance(instanced, Transform.rotation(new Vector(1, 0, 0), 30)
+                        .then(Transform.translation(new Vector(-3, -8, 1)))));
+        Scene scene = new Scene("cached").setBackground(new Color(5, 6, 7))
+                .setAmbientLight(new AmbientLight(new Color(100, 100, 100), 0.25))
+                .setGeometries(geometries.buildBvh());
+        scene.lights.add(new DirectionalLight(new Color(50, 60, 70), new Vector(1, -1, -1)));
+        scene.lights.add(new PointLight(new Color(300, 200, 100), new Point(2, 2, 10)).setKl(0.01).setKq(0.001));
+        SpotLight spot = new SpotLight(new Color(400, 400, 400), new Point(-2, 3, 8), new Vector(0, 0, -1),
+                2, 3, 4, 5).setKc(2).setNarrowBeam(7);
+        spot.blackboard.setSampling(Blackboard.Sampling.SOBOL).setPatterns(3);
+        scene.lights.add(spot);
+        return scene;
+    }
+
+    /**
+     * Asserts that two scenes render the same - the same lights, the same intersections with the same
+     * materials, and the same settings.
+     *
+     * @param expected The original scene.
+     * @param actual The scene read from the cache.
+     */
+    private void assertSameScene(Scene expected, Scene actual) {
+        assertEquals(expected.name, actual.name, "Wrong name");
+        assertEquals(expected.background.getRgb(), actual.background.getRgb(), "Wrong background");
+        assertEquals(expected.ambientLight.getIntensity().getRgb(), actual.ambientLight.getIntensity().getRgb(),
+                "Wrong ambient light");
+        assertEquals(expected.lights.size(), actual.lights.size(), "Wrong amount of lights");
+        Point probe = new Point(1, 2, 0.5);
+        for (int i = 0; i < expected.lights.size(); ++i) {
+            LightSource light = expected.lights.get(i), read = actual.lights.get(i);
+            assertSame(light.getClass(), read.getClass(), "Wrong kind of light " + i);
+            assertEquals(light.getIntensity(probe).getRgb(), read.getIntensity(probe).getRgb(),
+                    "Wrong intensity of light " + i);
+            assertEquals(light.getL(probe), read.getL(probe), "Wrong direction of light " + i);
+            assertEquals(light.isSizedLight(), read.isSizedLight(), "Wrong size of light " + i);
+            if (light instanceof PointLight point) {
+                assertSame(point.blackboard.getSampling(), ((PointLight) read).blackboard.getSampling(),
+                        "Wrong sampling of light " + i);
+                assertEquals(point.blackboard.getPatternCount(), ((PointLight) read).blackboard.getPatternCount(),
+                        "Wrong sample patterns of light " + i);
+            }
+        }
+        assertNotNull(actual.geometries.getBvhStatistics(), "The hierarchy is not read");
+        assertEquals(expected.geometries.getBvhStatistics(), actual.geometries.getBvhStatistics(),
+                "Wrong hierarchy");
+
+        Random random = new Random(15);
+        for (int i = 0; i < 3000; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble(-10, 10), random.nextDouble(-10, 10), 12),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+            GeoPoint hit = expected.geometries.findClosestGeoIntersection(ray);
+            GeoPoint readHit = actual.geometries.findClosestGeoIntersection(ray);
+            if (hit == null) {
+                assertNull(readHit, "Found an intersection that is not in the scene - ray " + i);
+                continue;
+            }
+            assertNotNull(readHit, "Missed an intersection of the scene - ray " + i);
+            assertEquals(hit.point, readHit.point, "Wrong intersection - ray " + i);
+            assertSame(hit.geometry.getClass(), readHit.geometry.getClass(), "Wrong geometry - ray " + i);
+            assertEquals(hit.getNormal(), readHit.getNormal(), "Wrong normal - ray " + i);
+            assertEquals(hit.geometry.getEmission().getRgb(), readHit.geometry.getEmission().getRgb(),
+                    "Wrong emission - ray " + i);
+            Material material = hit.getMaterial(), readMaterial = readHit.getMaterial();
+            assertEquals(material.kD, readMaterial.kD, "Wrong material - ray " + i);
+            assertEquals(material.kS, readMaterial.kS, "Wrong material - ray " + i);
+            assertEquals(material.kT, readMaterial.kT, "Wrong material - ray " + i);
+            assertEquals(material.kR, readMaterial.kR, "Wrong material - ray " + i);
+            assertEquals(material.nShininess, readMaterial.nShininess, "Wrong material - ray " + i);
+        }
+    }
+
+    /**
+     * Test method for {@link scene.SceneCache#read()}.
+     */
+    @Test
+    void testRead() throws IOException {
+        Scene scene = scene();
+        SceneCache cache = new SceneCache(directory.resolve("scene.cache"), 42);
+        cache.write(scene);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A scene of every kind of geometry and light reads back the same
+        Scene read = cache.read();
+        assertSameScene(scene, read);
+
+        // TC02: A material shared by geometries stays shared
+        GeoPoint sphere = read.geometries.findClosestGeoIntersection(new Ray(new Point(-4, 4, 10),
+                new Vector(0, 0, -1)));
+        GeoPoint triangle = read.geometries.findClosestGeoIntersection(new Ray(new Point(6.5, 0.5, 10),
+                new Vector(0, 0, -1)));
+        assertSame(sphere.getMaterial(), triangle.getMaterial(), "A shared material is not shared");
+
+        // TC03: A watertight triangle stays watertight
+        assertTrue(((Triangle) triangle.geometry).isWatertight(), "A watertight triangle is not watertight");
+
+        // TC04: A geometry shared by instances stays shared
+        GeoPoint first = read.geometries.findClosestGeoIntersection(new Ray(new Point(3, -8, 10),
+                new Vector(0, 0, -1)));
+        GeoPoint second = read.geometries.findClosestGeoIntersection(new Ray(new Point(-3, -8.5, 10),
+                new Vector(0, 0, -1)));
+        assertInstanceOf(Sphere.class, first.geometry, "An instance is not read");
+        assertSame(first.geometry, second.geometry, "A geometry shared by instances is not shared");
+
+        // TC05: A cache of other sources is stale
+        assertThrows(IOException.class, () -> new SceneCache(cache.getPath(), 43).read(), "Read a stale cache");
+
+        // TC06: A cache of another version is stale
+        byte[] bytes = Files.readAllBytes(cache.getPath());
+        byte[] version = bytes.clone();
+        version[4] = (byte) (SceneCache.VERSION + 1);
+        Files.write(cache.getPath(), version);
+        assertThrows(IOException.class, cache::read, "Read a cache of another version");
+
+        // TC07: A changed byte of the content is a corruption
+        byte[] corrupted = bytes.clone();
+        corrupted[bytes.length / 2] ^= 1;
+        Files.write(cache.getPath(), corrupted);
+        assertThrows(IOException.class, cache::read, "Read a corrupted cache");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A truncated file
+        Files.write(cache.getPath(), Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, cache::read, "Read a truncated cache");
+
+        // TC11: A file shorter than the header
+        Files.write(cache.getPath(), Arrays.copyOf(bytes, 10));
+        assertThrows(IOException.class, cache::read, "Read a file with no header");
+
+        // TC12: A scene with no geometries, no lights and no hierarchy
+        Scene empty = new Scene(null);
+        cache.write(empty);
+        read = cache.read();
+        assertNull(read.name, "Wrong name of an empty scene");
+        assertTrue(read.lights.isEmpty(), "Read lights of an empty scene");
+        assertNull(read.geometries.getBvhStatistics(), "Read a hierarchy of an empty scene");
+    }
+
+    /**
+     * Test method for {@link scene.SceneCache#load(java.util.function.Supplier)}.
+     */
+    @Test
+    void testLoad() throws IOException {
+        SceneCache cache = new SceneCache(directory.resolve("load.cache"), 7);
+        int[] builds = { 0 };
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A missing cache is prepared and written, and then read with no preparation
+        Scene built = cache.load(() -> {
+            ++builds[0];
+            return scene();
+        });
+        assertEquals(1, builds[0], "The scene is not prepared");
+        assertTrue(Files.exists(cache.getPath()), "The cache is not written");
+        Scene read = cache.load(() -> {
+            ++builds[0];
+            return scene();
+        });
+        assertEquals(1, builds[0], "The scene is prepared with a valid cache");
+        assertSameScene(built, read);
+
+        // TC02: A stale cache is replaced
+        SceneCache changed = new SceneCache(cache.getPath(), 8);
+        changed.load(() -> {
+            ++builds[0];
+            return scene();
+        });
+        assertEquals(2, builds[0], "The scene is not prepared with a stale cache");
+        assertDoesNotThrow(changed::read, "The stale cache is not replaced");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A geometry that can't be cached
+        Scene custom = new Scene("custom");
+        custom.geometries.add(new Intersectable() {
+            @Override
+            protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+                return null;
+            }
+        });
+        assertThrows(IllegalArgumentException.class, () -> cache.write(custom), "Cached an unknown geometry");
+    }
+}
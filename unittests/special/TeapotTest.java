@@ -32,8 +32,6 @@ public class TeapotTest {
             .setMultithreading(3)
             .setDebugPrint(0.1);
 
-    private final Scene scene = new Scene("Test scene");
-
     private static final Color color = new Color(200, 0, 0);
     private static final Material mat = new Material().setKd(0.5).setKs(0.5).setShininess(60);
 
@@ -571,10 +569,13 @@ public class TeapotTest {
     };
 
     /**
-     * Produce a scene with a 3D model and render it into a png image
+     * Produce the scene of the 3D model - its triangles and its light.
+     * The scene is shared with the benchmarks.
+     *
+     * @return The scene of the teapot.
      */
-    @Test
-    public void teapot() {
+    public static Scene teapotScene() {
+        Scene scene = new Scene("Test scene");
         scene.geometries.add( //
                 new Triangle(pnts[7], pnts[6], pnts[1]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[1], pnts[2], pnts[7]).setEmission(color).setMaterial(mat), //
@@ -1570,8 +1571,15 @@ public class TeapotTest {
                 new Triangle(pnts[529], pnts[530], pnts[470]).setEmission(color).setMaterial(mat) //
         );
         scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
+        return scene;
+    }
 
-        camera.setRayTracer(new SimpleRayTracer(scene))
+    /**
+     * Produce a scene with a 3D model and render it into a png image
+     */
+    @Test
+    public void teapot() {
+        camera.setRayTracer(new SimpleRayTracer(teapotScene()))
                 .setAntiAliasing(2)
                 .build()
                 .renderImage()